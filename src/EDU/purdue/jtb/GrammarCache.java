@@ -0,0 +1,283 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import EDU.purdue.jtb.misc.ClassInfo;
+import EDU.purdue.jtb.syntaxtree.BNFProduction;
+import EDU.purdue.jtb.syntaxtree.INode;
+import EDU.purdue.jtb.syntaxtree.JavaCCInput;
+import EDU.purdue.jtb.syntaxtree.JavaCodeProduction;
+import EDU.purdue.jtb.syntaxtree.NodeToken;
+import EDU.purdue.jtb.syntaxtree.Production;
+import EDU.purdue.jtb.visitor.DepthFirstVoidVisitor;
+import EDU.purdue.jtb.visitor.GlobalDataBuilder;
+
+/**
+ * Class GrammarCache keeps the analysis results of a grammar (the {@link GlobalDataBuilder} and the
+ * {@link EDU.purdue.jtb.visitor.ClassesFinder} classes list) between two runs of the watch mode (see {@link JTBWatcher}),
+ * and tells which outputs a new version of the grammar affects.
+ * <p>
+ * The grammar versions are compared through the images of their tokens (with their comments, but
+ * without their positions) :
+ * <ul>
+ * <li>if only the parser class compilation unit has changed, the analysis is reused ; only the jj
+ * output file is regenerated,</li>
+ * <li>if the options or the token productions have changed, or a class has been added, removed or
+ * moved, all the outputs are regenerated,</li>
+ * <li>otherwise only the node classes whose production expansion has changed are regenerated, with
+ * the outputs that depend on all the classes (the visitors...).</li>
+ * </ul>
+ * The cache is valid only after a successful run with the same command line arguments.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+class GrammarCache {
+
+  /** The command line arguments of the last successful run (null if none) */
+  private String              args            = null;
+  /** The image of the grammar without the parser class compilation unit */
+  private String              grammarImage    = null;
+  /** The image of the options and of the productions that do not give classes */
+  private String              sharedImage     = null;
+  /** The images of the classes expansions (key = the class name), in the classes order */
+  private Map<String, String> classesImages   = null;
+  /** The global data builder */
+  private GlobalDataBuilder   gdbv            = null;
+  /** The return variables declarations (emptied by the Annotator) */
+  private List<String>        retVarDecl      = null;
+  /** The classes list */
+  private List<ClassInfo>     classes         = null;
+  /** The command line arguments of the current run */
+  private String              newArgs         = null;
+  /** The image of the current grammar without the parser class compilation unit */
+  private String              newGrammarImage = null;
+  /** The image of the current grammar options and productions that do not give classes */
+  private String              newSharedImage  = null;
+  /** The current global data builder */
+  private GlobalDataBuilder   newGdbv         = null;
+  /** The current return variables declarations */
+  private List<String>        newRetVarDecl   = null;
+  /** The current classes list */
+  private List<ClassInfo>     newClasses      = null;
+
+  /**
+   * Computes the images of a new version of the grammar, and tells whether the analysis of the
+   * previous one can be reused.
+   * 
+   * @param aArgs - the command line arguments
+   * @param aRoot - the grammar syntax tree
+   * @return true if the analysis can be reused (see {@link #getGdbv()} and {@link #getClasses()}),
+   *         false otherwise
+   */
+  boolean prepare(final String aArgs[], final JavaCCInput aRoot) {
+    newArgs = Arrays.toString(aArgs);
+    final ImageBuilder gib = new ImageBuilder();
+    final INode[] nodes = new INode[] {
+        aRoot.f0, aRoot.f1, aRoot.f2, aRoot.f3, aRoot.f4, aRoot.f6, aRoot.f7, aRoot.f8, aRoot.f9,
+        aRoot.f10, aRoot.f11 };
+    for (int i = 0; i < nodes.length; i++)
+      nodes[i].accept(gib);
+    newGrammarImage = gib.sb.toString();
+    final ImageBuilder sib = new ImageBuilder();
+    aRoot.f0.accept(sib);
+    for (final Iterator<INode> e = aRoot.f10.elements(); e.hasNext();) {
+      final INode p = ((Production) e.next()).f0.choice;
+      if (!(p instanceof BNFProduction) && !(p instanceof JavaCodeProduction))
+        p.accept(sib);
+    }
+    newSharedImage = sib.sb.toString();
+    final boolean reusable = newArgs.equals(args) && newGrammarImage.equals(grammarImage);
+    if (reusable) {
+      newGdbv = gdbv;
+      newClasses = classes;
+      newRetVarDecl = retVarDecl;
+      // the Annotator empties the list
+      gdbv.getRetVarDecl().clear();
+      gdbv.getRetVarDecl().addAll(retVarDecl);
+    }
+    return reusable;
+  }
+
+  /**
+   * Records the analysis results of the current grammar (to be called before the annotation).
+   * 
+   * @param aGdbv - the global data builder
+   * @param aClasses - the classes list
+   */
+  void analysed(final GlobalDataBuilder aGdbv, final List<ClassInfo> aClasses) {
+    newGdbv = aGdbv;
+    newRetVarDecl = new ArrayList<String>(aGdbv.getRetVarDecl());
+    newClasses = aClasses;
+  }
+
+  /**
+   * @return the reused global data builder
+   */
+  GlobalDataBuilder getGdbv() {
+    return newGdbv;
+  }
+
+  /**
+   * @return the reused classes list
+   */
+  List<ClassInfo> getClasses() {
+    return newClasses;
+  }
+
+  /**
+   * Tells whether the outputs that do not depend on the classes (the base nodes, the tree dumper...)
+   * must be regenerated.
+   * 
+   * @return true if there is no previous successful run with the same arguments or if the options
+   *         or the token productions have changed, false otherwise
+   */
+  boolean sharedChanged() {
+    return !newArgs.equals(args) || !newSharedImage.equals(sharedImage);
+  }
+
+  /**
+   * Finds the classes whose node class must be regenerated.
+   * 
+   * @return all the classes if {@link #sharedChanged()} or if the classes names or order have
+   *         changed (the node kinds depend on the order), otherwise the classes whose expansion has
+   *         changed
+   */
+  List<ClassInfo> changedClasses() {
+    final Map<String, String> images = classesImages(newClasses);
+    if (sharedChanged() || !new ArrayList<String>(images.keySet())
+                                .equals(new ArrayList<String>(classesImages.keySet())))
+      return newClasses;
+    final List<ClassInfo> changed = new ArrayList<ClassInfo>();
+    for (final Iterator<ClassInfo> e = newClasses.iterator(); e.hasNext();) {
+      final ClassInfo ci = e.next();
+      if (!images.get(ci.className).equals(classesImages.get(ci.className)))
+        changed.add(ci);
+    }
+    return changed;
+  }
+
+  /**
+   * Keeps the current grammar images and analysis results (to be called after a successful run).
+   */
+  void commit() {
+    classesImages = classesImages(newClasses);
+    args = newArgs;
+    grammarImage = newGrammarImage;
+    sharedImage = newSharedImage;
+    gdbv = newGdbv;
+    retVarDecl = newRetVarDecl;
+    classes = newClasses;
+  }
+
+  /**
+   * Forgets the previous run (to be called after a failed run), so the next one is a full one.
+   */
+  void invalidate() {
+    args = null;
+    grammarImage = null;
+    sharedImage = null;
+    classesImages = null;
+    gdbv = null;
+    retVarDecl = null;
+    classes = null;
+  }
+
+  /**
+   * Builds the images of the classes expansions.
+   * 
+   * @param aClasses - the classes list
+   * @return the images (key = the class name), in the classes order
+   */
+  private static Map<String, String> classesImages(final List<ClassInfo> aClasses) {
+    final Map<String, String> images = new LinkedHashMap<String, String>();
+    for (final Iterator<ClassInfo> e = aClasses.iterator(); e.hasNext();) {
+      final ClassInfo ci = e.next();
+      final ImageBuilder ib = new ImageBuilder();
+      if (ci.astEcNode != null)
+        ci.astEcNode.accept(ib);
+      images.put(ci.className, ib.sb.toString());
+    }
+    return images;
+  }
+
+  /**
+   * Visitor building the image of a (sub)tree : its tokens images and their special tokens images,
+   * without their positions.
+   */
+  static class ImageBuilder extends DepthFirstVoidVisitor {
+
+    /** The image */
+    final StringBuilder sb = new StringBuilder(4096);
+
+    /**
+     * Appends the special tokens and the token images.
+     * 
+     * @param n - the node to visit
+     */
+    @Override
+    public void visit(final NodeToken n) {
+      if (n.specialTokens != null)
+        for (final Iterator<NodeToken> e = n.specialTokens.iterator(); e.hasNext();)
+          sb.append(e.next().tokenImage).append(' ');
+      sb.append(n.tokenImage).append(' ');
+    }
+  }
+}
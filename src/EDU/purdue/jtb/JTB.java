@@ -57,22 +57,33 @@ import static EDU.purdue.jtb.misc.Globals.*;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import EDU.purdue.jtb.misc.ClassInfo;
 import EDU.purdue.jtb.misc.DepthFirstVisitorsGenerator;
+import EDU.purdue.jtb.misc.EmbeddedJavaCC;
 import EDU.purdue.jtb.misc.FileExistsException;
 import EDU.purdue.jtb.misc.FilesGenerator;
+import EDU.purdue.jtb.misc.FlatTreeGenerator;
+import EDU.purdue.jtb.misc.GeneratedFilesManifest;
+import EDU.purdue.jtb.misc.GenerationScheduler;
+import EDU.purdue.jtb.misc.IncrementalReparserGenerator;
+import EDU.purdue.jtb.misc.IterativeVisitorGenerator;
 import EDU.purdue.jtb.misc.Messages;
+import EDU.purdue.jtb.misc.ParallelVisitorsGenerator;
+import EDU.purdue.jtb.misc.ParseCacheGenerator;
+import EDU.purdue.jtb.misc.TreeCodecGenerator;
 import EDU.purdue.jtb.misc.TreeDumperGenerator;
 import EDU.purdue.jtb.misc.TreeFormatterGenerator;
 import EDU.purdue.jtb.parser.JTBParser;
 import EDU.purdue.jtb.parser.Options;
 import EDU.purdue.jtb.parser.ParseException;
-import EDU.purdue.jtb.syntaxtree.INode;
+import EDU.purdue.jtb.syntaxtree.JavaCCInput;
 import EDU.purdue.jtb.visitor.Annotator;
 import EDU.purdue.jtb.visitor.ClassesFinder;
 import EDU.purdue.jtb.visitor.GlobalDataBuilder;
@@ -90,6 +101,13 @@ import EDU.purdue.jtb.visitor.SemanticChecker;
  * @version 1.4.5 : 12/2010 : MMa : convert nodes and visitors output directories to absolute paths
  * @version 1.4.6 : 01/2011 : FA : added -va and -npfx and -nsfx options
  * @version 1.4.7 : 09/2012 : MMa : some renamings ; added the use of the {@link GlobalDataBuilder}
+ * @version 1.4.13 : 10/2026 : agent : added -inc and -threads options ; files generation through
+ *          the {@link GenerationScheduler} ; closed the input file (for the {@link JTBEngine}) ;<br>
+ *          added -watch option (see {@link JTBWatcher}) ; added -al, -ct, -is, -iv, -pv, -sp, -tf, -sd,
+ *          -fl, -tc, -pc, -ir and -jcc options ; added the run of the {@link EmbeddedJavaCC}
+ *          generator ; printed the run messages on the {@link Messages} streams ; reused the
+ *          analysis and regenerated only the affected files in watch mode (see {@link GrammarCache}) ;
+ *          checked the JTB_IS input file option ; generated the parser Token class (-tf option)
  */
 public class JTB {
 
@@ -105,6 +123,9 @@ public class JTB {
   private static String              scriptName = SCRIPT_NAME;
   /** The input file options */
   private static Map<String, Object> jtbOpt     = null;
+  /** The invalid tokens images strategy message */
+  private static final String        IS_ERR_MSG = "Option \"-is\" (JTB_IS) must be followed by " +
+                                                  "intern, const or cache.";
 
   /** No error */
   public static final int            OK         = 0;
@@ -120,6 +141,8 @@ public class JTB {
   public static final int            ANN_ERR    = -16;
   /** {@link FilesGenerator} error */
   public static final int            FG_ERR     = -32;
+  /** {@link EmbeddedJavaCC} error */
+  public static final int            JCC_ERR    = -64;
   /** {@link InvalCmdLineException} exception */
   public static final int            CL_EX      = -1024;
   /** {@link ParseException} exception */
@@ -133,7 +156,12 @@ public class JTB {
    * @param args - the command line arguments
    */
   public static void main(final String args[]) {
-    do_main(args);
+    if (JTBWatcher.isWatchMode(args)) {
+      final int rc = new JTBWatcher(args).watch();
+      if (rc != OK)
+        System.exit(rc);
+    } else
+      do_main(args);
   }
 
   /**
@@ -143,8 +171,8 @@ public class JTB {
    * @return the error code: <li>
    *         <ul>
    *         for specific types of errors: {@link #CL_ERR}, {@link #GDB_ERR}, {@link #SC_ERR},
-   *         {@link #CF_ERR}, {@link #ANN_ERR}, {@link #FG_ERR}, {@link #CL_EX}, {@link #PARSE_EX},
-   *         {@link #OTHER_EX}) or
+   *         {@link #CF_ERR}, {@link #ANN_ERR}, {@link #FG_ERR}, {@link #JCC_ERR}, {@link #CL_EX},
+   *         {@link #PARSE_EX}, {@link #OTHER_EX}) or
    *         </ul>
    *         <ul>
    *         0 if no error or
@@ -154,6 +182,37 @@ public class JTB {
    *         </ul>
    */
   public static int do_main(final String args[]) {
+    return do_main(args, null);
+  }
+
+  /**
+   * Non standard main method returning an error code and reusing the analysis of the previous run
+   * (for the watch mode).
+   * 
+   * @param args - the command line arguments
+   * @param aCache - the analysis results of the previous run of the same grammar (null for none),
+   *          updated by the run
+   * @return the error code (see {@link #do_main(String[])})
+   */
+  static int do_main(final String args[], final GrammarCache aCache) {
+    final int rc = do_main_once(args, aCache);
+    if (aCache != null) {
+      if (rc == OK)
+        aCache.commit();
+      else
+        aCache.invalidate();
+    }
+    return rc;
+  }
+
+  /**
+   * Runs JTB once.
+   * 
+   * @param args - the command line arguments
+   * @param aCache - the analysis results of the previous run (null for none)
+   * @return the error code (see {@link #do_main(String[])})
+   */
+  private static int do_main_once(final String args[], final GrammarCache aCache) {
 
     try {
       // Get the command line arguments
@@ -162,14 +221,25 @@ public class JTB {
         return CL_ERR;
 
       // parse the input file
-      System.err.println(progName + " version " + version);
-      System.err.println(progName + ":  Reading jtb input file " + jtbInputFileName + "...");
+      Messages.err().println(progName + " version " + version);
+      Messages.err().println(progName + ":  Reading jtb input file " + jtbInputFileName + "...");
       final JTBParser jtbParser = new JTBParser(in);
-      final INode root = jtbParser.JavaCCInput();
-      System.err.println(progName + ":  jtb input file parsed successfully.");
+      final JavaCCInput root;
+      try {
+        root = jtbParser.JavaCCInput();
+      }
+      finally {
+        // release the file for the next runs (see JTBEngine)
+        if (in != System.in)
+          in.close();
+      }
+      Messages.err().println(progName + ":  jtb input file parsed successfully.");
 
       // Get the input file options and overwrite command line options
       getFileOptionsAndOverwrite();
+      if (parallelVisitor && depthLevel)
+        throw new InvalCmdLineException("Options \"-pv\" and \"-dl\" cannot be used together " +
+                                        "(the parallel visitors do not maintain the depth level).");
 
       //  Convert nodes and visitors output directories and jj output file to absolute paths
       convertPathsToAbsolute();
@@ -178,41 +248,53 @@ public class JTB {
       // Perform actions based on input file or command-line options
       //
       Messages.resetCounts();
-      final GlobalDataBuilder gdbv = new GlobalDataBuilder();
-      root.accept(gdbv);
-      if (Messages.errorCount() > 0) {
-        Messages.printSummary();
-        return GDB_ERR;
-      }
-
-      final ClassesFinder cfv = new ClassesFinder(gdbv);
-      List<ClassInfo> classes;
+      GeneratedFilesManifest.reset();
+      final GlobalDataBuilder gdbv;
+      final List<ClassInfo> classes;
       FilesGenerator fg = null;
 
-      Messages.resetCounts();
+      if (aCache != null && aCache.prepare(args, root)) {
+        // only the parser class compilation unit has changed : reuse the previous analysis
+        gdbv = aCache.getGdbv();
+        classes = aCache.getClasses();
+        Messages.err().println(progName + ":  grammar productions unchanged, analysis reused.");
+      } else {
+        gdbv = new GlobalDataBuilder();
+        root.accept(gdbv);
+        if (Messages.errorCount() > 0) {
+          Messages.printSummary();
+          return GDB_ERR;
+        }
+
+        final ClassesFinder cfv = new ClassesFinder(gdbv);
 
-      if (!noSemanticCheck) {
-        root.accept(new SemanticChecker(gdbv));
+        Messages.resetCounts();
+
+        if (!noSemanticCheck) {
+          root.accept(new SemanticChecker(gdbv));
+
+          if (Messages.errorCount() > 0) {
+            Messages.printSummary();
+            return SC_ERR;
+          }
+        }
+        // create the classes list
+        root.accept(cfv);
+        classes = cfv.getClassList();
 
         if (Messages.errorCount() > 0) {
           Messages.printSummary();
-          return SC_ERR;
+          return CF_ERR;
         }
-      }
-      // create the classes list
-      root.accept(cfv);
-      classes = cfv.getClassList();
-
-      if (Messages.errorCount() > 0) {
-        Messages.printSummary();
-        return CF_ERR;
+        if (aCache != null)
+          aCache.analysed(gdbv, classes);
       }
 
       if (printClassList) {
         fg = new FilesGenerator(classes);
-        System.out.println("\nThe classes generated and the fields each "
+        Messages.out().println("\nThe classes generated and the fields each "
                            + "contains are as follows:\n");
-        fg.outputFormattedNodesClassesList(new PrintWriter(System.out, true));
+        fg.outputFormattedNodesClassesList(new PrintWriter(Messages.out(), true));
       }
 
       try {
@@ -225,12 +307,26 @@ public class JTB {
           return ANN_ERR;
         }
 
-        System.err.println(progName + ":  jj output file \"" + jtbOutputFileName + "\" generated.");
+        Messages.err().println(progName + ":  jj output file \"" + jtbOutputFileName +
+                               "\" generated.");
 
+        // the parser Token class must exist before JavaCC runs (-tf option)
+        File jjDir = Options.getOutputDirectory();
+        if (".".equals(Options.getOptions().get("OUTPUT_DIRECTORY")))
+          jjDir = new File(jtbOutputFileName).getAbsoluteFile().getParentFile();
+        try {
+          FilesGenerator.genTokenFile(jjDir, av.getParserPackage());
+          if (tokenFactory)
+            Messages.err().println(progName + ":  parser Token class file generated into " +
+                                   "directory \"" + jjDir + "\".");
+        }
+        catch (final FileExistsException e) {
+          Messages.err().println(progName + ":  \"Token.java\" already exists.  Won't overwrite.");
+        }
       }
       catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + jtbOutputFileName +
-                           "\" already exists.  Won't overwrite.");
+        Messages.err().println(progName + ":  \"" + jtbOutputFileName +
+                               "\" already exists.  Won't overwrite.");
       }
 
       if (fg == null) {
@@ -242,162 +338,440 @@ public class JTB {
         }
       }
 
-      try {
-        FilesGenerator.genBaseNodesFiles();
-        System.err.println(progName + ":  base node class files " + "generated into directory \"" +
-                           nodesDirName + "\".");
+      // in watch mode, regenerate only the outputs affected by the grammar changes
+      final boolean genShared = aCache == null || aCache.sharedChanged();
+      final List<ClassInfo> nodeClasses = aCache == null ? classes : aCache.changedClasses();
+      if (genShared || !nodeClasses.isEmpty()) {
+        final GenerationScheduler gs = new GenerationScheduler(nbThreads);
+        if (nbThreads > 1)
+          GenerationScheduler.prepare(classes);
+        addGenerationJobs(gs, fg, classes, nodeClasses, genShared, gdbv);
+        gs.runAll(Messages.err());
+      } else {
+        Messages.err().println(progName + ":  grammar classes unchanged, no file to regenerate.");
       }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  One or more of the base " +
-                           "node class files already exists.  Won't overwrite.");
+      if (incremental) {
+        GeneratedFilesManifest.saveManifests();
+        Messages.err().println(progName + ":  " + GeneratedFilesManifest.writtenCount() +
+                               " file(s) written, " + GeneratedFilesManifest.skippedCount() +
+                               " unchanged file(s) skipped.");
       }
-
-      try {
-        fg.genNodesFiles();
-        System.err.println(progName + ":  " + classes.size() + " syntax tree node class files " +
-                           "generated into directory \"" + nodesDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  One or more of the generated " +
-                           "node class files already exists.  Won't overwrite.");
+      if (embeddedJavaCC) {
+        Messages.err().println(progName + ":  Running the embedded JavaCC generator on \"" +
+                               jtbOutputFileName + "\"...");
+        if (EmbeddedJavaCC.generate(jtbOutputFileName) > 0) {
+          Messages.err().println(progName +
+                                 ":  Encountered error(s) during the parser generation.");
+          return JCC_ERR;
+        }
+        Messages.err().println(progName + ":  parser generated successfully.");
       }
+      if (Messages.errorCount() > 0 || Messages.warningCount() > 0)
+        Messages.printSummary();
+      return Messages.errorCount();
+    }
+    catch (final InvalCmdLineException e) {
+      Messages.err().println(progName + ":  " + e.getMessage());
+      return CL_EX;
+    }
+    catch (final ParseException e) {
+      Messages.err().println("\n" + e.getMessage() + "\n");
+      Messages.err().println(progName + ":  Encountered error(s) during parsing.");
+      return PARSE_EX;
+    }
+    catch (final Exception e) {
+      e.printStackTrace(Messages.err());
+      Messages.hardErr(e);
+      return OTHER_EX;
+    }
+  }
 
-      System.err.println();
+  /**
+   * Adds the files generation jobs to the scheduler.<br>
+   * The jobs share only read-only data (the classes list and the global data), so they can be run
+   * concurrently ; each one returns its messages.
+   * 
+   * @param aGs - the generation scheduler
+   * @param aFg - the files generator
+   * @param aClasses - the list of {@link ClassInfo} classes instances
+   * @param aNodeClasses - the list of the classes whose node class files are to be generated
+   * @param aGenShared - true to generate the files that do not depend on the classes (base nodes,
+   *          parallel visitors, parse cache, tree dumper), false otherwise
+   * @param aGdbv - the global data builder visitor
+   */
+  private static void addGenerationJobs(final GenerationScheduler aGs, final FilesGenerator aFg,
+                                        final List<ClassInfo> aClasses,
+                                        final List<ClassInfo> aNodeClasses,
+                                        final boolean aGenShared, final GlobalDataBuilder aGdbv) {
 
-      try {
-        fg.genRetArguIVisitorFile();
-        System.err.println(progName + ":  Visitor interface \"" + iRetArguVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + iRetArguVisitor +
-                           "\" already exists.  Won't overwrite.");
-      }
+    if (aGenShared) {
 
-      try {
-        fg.genVoidIVisitorFile();
-        System.err.println(progName + ":  Visitor interface \"" + iVoidVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + iVoidVisitor +
-                           "\" already exists.  Won't overwrite.");
-      }
+      aGs.add(new Callable<String>() {
 
-      try {
-        fg.genRetIVisitorFile();
-        System.err.println(progName + ":  Visitor interface \"" + iRetVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + iRetVisitor +
-                           "\" already exists.  Won't overwrite.");
-      }
+        @Override
+        public String call() throws IOException {
+          try {
+            FilesGenerator.genBaseNodesFiles();
+            return progName + ":  base node class files " + "generated into directory \"" +
+                   nodesDirName + "\"." + LS;
+          }
+          catch (final FileExistsException e) {
+            return progName + ":  One or more of the base " +
+                   "node class files already exists.  Won't overwrite." + LS;
+          }
+        }
+      });
+    }
 
-      try {
-        fg.genVoidArguIVisitorFile();
-        System.err.println(progName + ":  Visitor interface \"" + iVoidArguVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + iVoidArguVisitor +
-                           "\" already exists.  Won't overwrite.");
+    final FilesGenerator nfg = aNodeClasses == aClasses ? aFg : new FilesGenerator(aNodeClasses);
+    aGs.add(new Callable<String>() {
+
+      @Override
+      public String call() throws IOException {
+        try {
+          nfg.genNodesFiles();
+          return progName + ":  " + aNodeClasses.size() + " syntax tree node class files " +
+                 "generated into directory \"" + nodesDirName + "\"." + LS + LS;
+        }
+        catch (final FileExistsException e) {
+          return progName + ":  One or more of the generated " +
+                 "node class files already exists.  Won't overwrite." + LS + LS;
+        }
       }
+    });
 
-      final DepthFirstVisitorsGenerator dfvg = new DepthFirstVisitorsGenerator(classes, gdbv);
+    aGs.add(new Callable<String>() {
 
-      try {
-        dfvg.genDepthFirstRetArguVisitorFile();
-        System.err.println(progName + ":  Visitor class \"" + dFRetArguVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + dFRetArguVisitor +
-                           ".java\" already exists.  Won't overwrite.");
+      @Override
+      public String call() throws IOException {
+        try {
+          aFg.genRetArguIVisitorFile();
+          return visitorGeneratedMsg("interface", iRetArguVisitor);
+        }
+        catch (final FileExistsException e) {
+          return visitorExistsMsg(iRetArguVisitor, "");
+        }
       }
+    });
 
-      try {
-        dfvg.genDepthFirstRetVisitorFile();
-        System.err.println(progName + ":  Visitor class \"" + dFRetVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
-      }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + dFRetVisitor +
-                           ".java\" already exists.  Won't overwrite.");
+    aGs.add(new Callable<String>() {
+
+      @Override
+      public String call() throws IOException {
+        try {
+          aFg.genVoidIVisitorFile();
+          return visitorGeneratedMsg("interface", iVoidVisitor);
+        }
+        catch (final FileExistsException e) {
+          return visitorExistsMsg(iVoidVisitor, "");
+        }
       }
+    });
 
-      try {
-        dfvg.genDepthFirstVoidArguVisitorFile();
-        System.err.println(progName + ":  Visitor class \"" + dFVoidArguVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
+    aGs.add(new Callable<String>() {
+
+      @Override
+      public String call() throws IOException {
+        try {
+          aFg.genRetIVisitorFile();
+          return visitorGeneratedMsg("interface", iRetVisitor);
+        }
+        catch (final FileExistsException e) {
+          return visitorExistsMsg(iRetVisitor, "");
+        }
       }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + dFVoidArguVisitor +
-                           ".java\" already exists.  Won't overwrite.");
+    });
+
+    aGs.add(new Callable<String>() {
+
+      @Override
+      public String call() throws IOException {
+        try {
+          aFg.genVoidArguIVisitorFile();
+          return visitorGeneratedMsg("interface", iVoidArguVisitor);
+        }
+        catch (final FileExistsException e) {
+          return visitorExistsMsg(iVoidArguVisitor, "");
+        }
       }
+    });
 
-      try {
-        dfvg.genDepthFirstVoidVisitorFile();
-        System.err.println(progName + ":  Visitor class \"" + dFVoidVisitor +
-                           ".java\" generated into directory \"" + visitorsDirName + "\".");
+    // each DepthFirst visitor job has its own generator, as a generator is not thread safe
+
+    aGs.add(new Callable<String>() {
+
+      @Override
+      public String call() throws IOException {
+        try {
+          new DepthFirstVisitorsGenerator(aClasses, aGdbv).genDepthFirstRetArguVisitorFile();
+          return visitorGeneratedMsg("class", dFRetArguVisitor);
+        }
+        catch (final FileExistsException e) {
+          return visitorExistsMsg(dFRetArguVisitor, ".java");
+        }
       }
-      catch (final FileExistsException e) {
-        System.err.println(progName + ":  \"" + dFVoidVisitor +
-                           ".java\" already exists.  Won't overwrite.");
+    });
+
+    aGs.add(new Callable<String>() {
+
+      @Override
+      public String call() throws IOException {
+        try {
+          new DepthFirstVisitorsGenerator(aClasses, aGdbv).genDepthFirstRetVisitorFile();
+          return visitorGeneratedMsg("class", dFRetVisitor);
+        }
+        catch (final FileExistsException e) {
+          return visitorExistsMsg(dFRetVisitor, ".java");
+        }
       }
+    });
 
-      System.err.println();
+    aGs.add(new Callable<String>() {
 
-      if (printerToolkit) {
+      @Override
+      public String call() throws IOException {
         try {
-          final TreeDumperGenerator tdg = new TreeDumperGenerator();
-          tdg.generateTreeDumper();
-          tdg.saveToFile();
-          System.err.println(progName + ":  Visitor class \"" + TreeDumperGenerator.outFilename +
-                             "\" generated into directory \"" + visitorsDirName + "\".");
+          new DepthFirstVisitorsGenerator(aClasses, aGdbv).genDepthFirstVoidArguVisitorFile();
+          return visitorGeneratedMsg("class", dFVoidArguVisitor);
         }
         catch (final FileExistsException e) {
-          System.err.println(progName + ":  \"" + TreeDumperGenerator.outFilename +
-                             "\" already exists.  Won't overwrite.");
+          return visitorExistsMsg(dFVoidArguVisitor, ".java");
         }
+      }
+    });
+
+    aGs.add(new Callable<String>() {
 
+      @Override
+      public String call() throws IOException {
         try {
-          final TreeFormatterGenerator tfg = new TreeFormatterGenerator(classes);
-          tfg.generateTreeFormatter();
-          tfg.saveToFile();
-          System.err.println(progName + ":  Visitor class \"" + TreeFormatterGenerator.outFilename +
-                             "\" generated into directory \"" + visitorsDirName + "\".");
+          new DepthFirstVisitorsGenerator(aClasses, aGdbv).genDepthFirstVoidVisitorFile();
+          return visitorGeneratedMsg("class", dFVoidVisitor) + LS;
         }
         catch (final FileExistsException e) {
-          System.err.println(progName + ":  \"" + TreeFormatterGenerator.outFilename +
-                             "\" already exists.  Won't overwrite.");
+          return visitorExistsMsg(dFVoidVisitor, ".java") + LS;
         }
-        System.err.println();
       }
-      if (Messages.errorCount() > 0 || Messages.warningCount() > 0)
-        Messages.printSummary();
-      return Messages.errorCount();
+    });
+
+    if (iterativeVisitor) {
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            final IterativeVisitorGenerator ivg = new IterativeVisitorGenerator(aClasses);
+            ivg.generateIterativeVisitor();
+            ivg.saveToFile();
+            return visitorGeneratedMsg("class", IterativeVisitorGenerator.visitorName) + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(IterativeVisitorGenerator.outFilename, "") + LS;
+          }
+        }
+      });
     }
-    catch (final InvalCmdLineException e) {
-      System.err.println(progName + ":  " + e.getMessage());
-      return CL_EX;
+
+    if (parallelVisitor && aGenShared) {
+
+      for (int i = 0; i < 4; i++) {
+        final boolean ret = i < 2;
+        final boolean argu = (i & 1) == 0;
+        final String name = ParallelVisitorsGenerator.getVisitorName(ret, argu);
+
+        aGs.add(new Callable<String>() {
+
+          @Override
+          public String call() throws IOException {
+            try {
+              final ParallelVisitorsGenerator pvg = new ParallelVisitorsGenerator(ret, argu);
+              pvg.generateParallelVisitor();
+              pvg.saveToFile();
+              return visitorGeneratedMsg("class", name) + (argu || ret ? "" : LS);
+            }
+            catch (final FileExistsException e) {
+              return visitorExistsMsg(name, ".java") + (argu || ret ? "" : LS);
+            }
+          }
+        });
+      }
     }
-    catch (final ParseException e) {
-      System.err.println("\n" + e.getMessage() + "\n");
-      System.err.println(progName + ":  Encountered error(s) during parsing.");
-      return PARSE_EX;
+
+    if (switchDispatch) {
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            new DepthFirstVisitorsGenerator(aClasses, aGdbv).genSwitchDispatchVisitorFile();
+            return visitorGeneratedMsg("class", sDVisitor) + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(sDVisitor, ".java") + LS;
+          }
+        }
+      });
     }
-    catch (final Exception e) {
-      e.printStackTrace(System.err);
-      Messages.hardErr(e);
-      return OTHER_EX;
+
+    if (flatTree) {
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            new FlatTreeGenerator(aClasses).genFlatTreeFile();
+            return progName + ":  Class \"" + FlatTreeGenerator.flatTreeName +
+                   ".java\" generated into directory \"" + nodesDirName + "\"." + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(FlatTreeGenerator.flatTreeName, ".java");
+          }
+        }
+      });
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            new FlatTreeGenerator(aClasses).genFlatTreeBuilderFile();
+            return visitorGeneratedMsg("class", FlatTreeGenerator.flatBuilderName) + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(FlatTreeGenerator.flatBuilderName, ".java") + LS;
+          }
+        }
+      });
+    }
+
+    if (treeCodec || parseCache) {
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            final TreeCodecGenerator tcg = new TreeCodecGenerator(aClasses);
+            tcg.generateTreeCodec();
+            tcg.saveToFile();
+            return visitorGeneratedMsg("class", TreeCodecGenerator.codecName) + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(TreeCodecGenerator.outFilename, "") + LS;
+          }
+        }
+      });
+    }
+
+    if (parseCache && aGenShared) {
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            final ParseCacheGenerator pcg = new ParseCacheGenerator();
+            pcg.generateParseCache();
+            pcg.saveToFile();
+            return visitorGeneratedMsg("class", ParseCacheGenerator.cacheName) + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(ParseCacheGenerator.outFilename, "") + LS;
+          }
+        }
+      });
+    }
+
+    if (incrementalReparse) {
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            final IncrementalReparserGenerator irg = new IncrementalReparserGenerator(aClasses);
+            irg.generateIncrementalReparser();
+            irg.saveToFile();
+            return visitorGeneratedMsg("class", IncrementalReparserGenerator.reparserName) + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(IncrementalReparserGenerator.outFilename, "") + LS;
+          }
+        }
+      });
+    }
+
+    if (printerToolkit) {
+
+      if (aGenShared)
+        aGs.add(new Callable<String>() {
+
+          @Override
+          public String call() throws IOException {
+            try {
+              final TreeDumperGenerator tdg = new TreeDumperGenerator();
+              tdg.generateTreeDumper();
+              tdg.saveToFile();
+              return progName + ":  Visitor class \"" + TreeDumperGenerator.outFilename +
+                     "\" generated into directory \"" + visitorsDirName + "\"." + LS;
+            }
+            catch (final FileExistsException e) {
+              return visitorExistsMsg(TreeDumperGenerator.outFilename, "");
+            }
+          }
+        });
+
+      aGs.add(new Callable<String>() {
+
+        @Override
+        public String call() throws IOException {
+          try {
+            final TreeFormatterGenerator tfg = new TreeFormatterGenerator(aClasses);
+            tfg.generateTreeFormatter();
+            tfg.saveToFile();
+            return progName + ":  Visitor class \"" + TreeFormatterGenerator.outFilename +
+                   "\" generated into directory \"" + visitorsDirName + "\"." + LS + LS;
+          }
+          catch (final FileExistsException e) {
+            return visitorExistsMsg(TreeFormatterGenerator.outFilename, "") + LS;
+          }
+        }
+      });
     }
   }
 
+  /**
+   * Builds the message for a generated visitor.
+   * 
+   * @param aKind - the visitor kind ("interface" or "class")
+   * @param aName - the visitor name
+   * @return the message (with a line separator)
+   */
+  private static String visitorGeneratedMsg(final String aKind, final String aName) {
+    return progName + ":  Visitor " + aKind + " \"" + aName + ".java\" generated into directory \"" +
+           visitorsDirName + "\"." + LS;
+  }
+
+  /**
+   * Builds the message for a visitor which has not been overwritten.
+   * 
+   * @param aName - the visitor (or file) name
+   * @param aExt - the extension to add to the name
+   * @return the message (with a line separator)
+   */
+  private static String visitorExistsMsg(final String aName, final String aExt) {
+    return progName + ":  \"" + aName + aExt + "\" already exists.  Won't overwrite." + LS;
+  }
+
   /**
    * Gets the input file options and overwrite command line ones if they are different.
+   * 
+   * @throws InvalCmdLineException - if an input file option has an invalid value
    */
-  private static void getFileOptionsAndOverwrite() {
+  private static void getFileOptionsAndOverwrite() throws InvalCmdLineException {
     String str = null;
 
     varargs = ((Boolean) jtbOpt.get("JTB_VA")).booleanValue();
@@ -412,6 +786,38 @@ public class JTB {
 
     inlineAcceptMethods = ((Boolean) jtbOpt.get("JTB_IA")).booleanValue();
 
+    incremental = ((Boolean) jtbOpt.get("JTB_INC")).booleanValue();
+
+    nbThreads = ((Integer) jtbOpt.get("JTB_THREADS")).intValue();
+
+    streamedProductions = (String) jtbOpt.get("JTB_SP");
+
+    parallelVisitor = ((Boolean) jtbOpt.get("JTB_PV")).booleanValue();
+
+    switchDispatch = ((Boolean) jtbOpt.get("JTB_SD")).booleanValue();
+
+    flatTree = ((Boolean) jtbOpt.get("JTB_FL")).booleanValue();
+
+    treeCodec = ((Boolean) jtbOpt.get("JTB_TC")).booleanValue();
+
+    parseCache = ((Boolean) jtbOpt.get("JTB_PC")).booleanValue();
+
+    incrementalReparse = ((Boolean) jtbOpt.get("JTB_IR")).booleanValue();
+
+    // the options implemented only by the embedded generator need it
+    embeddedJavaCC = ((Boolean) jtbOpt.get("JTB_JCC")).booleanValue() ||
+                     Options.isEmbeddedOnlyOptionSet();
+
+    iterativeVisitor = ((Boolean) jtbOpt.get("JTB_IV")).booleanValue();
+
+    imagesStrategy = checkImagesStrategy(String.valueOf(jtbOpt.get("JTB_IS")));
+
+    compactTokens = ((Boolean) jtbOpt.get("JTB_CT")).booleanValue();
+
+    tokenFactory = ((Boolean) jtbOpt.get("JTB_TF")).booleanValue();
+
+    arrayLists = ((Boolean) jtbOpt.get("JTB_AL")).booleanValue();
+
     javaDocComments = ((Boolean) jtbOpt.get("JTB_JD")).booleanValue();
 
     nodesDirName = (String) jtbOpt.get("JTB_ND");
@@ -457,6 +863,20 @@ public class JTB {
 
   }
 
+  /**
+   * Checks the tokens images strategy, given by the -is command line option or by the JTB_IS input
+   * file option.
+   * 
+   * @param aIs - the strategy
+   * @return the strategy
+   * @throws InvalCmdLineException - if the strategy is not intern, const or cache
+   */
+  private static String checkImagesStrategy(final String aIs) throws InvalCmdLineException {
+    if (!("intern".equals(aIs) || "const".equals(aIs) || "cache".equals(aIs)))
+      throw new InvalCmdLineException(IS_ERR_MSG);
+    return aIs;
+  }
+
   /**
    * Processes command line arguments, putting options in the options object (to be overwritten by
    * input file options).
@@ -480,7 +900,7 @@ public class JTB {
             in = new FileInputStream(inFile);
           }
           catch (final FileNotFoundException e) {
-            System.err.println(progName + ":  File \"" + args[i] + "\" not found.");
+            Messages.err().println(progName + ":  File \"" + args[i] + "\" not found.");
             return false;
           }
 
@@ -496,11 +916,21 @@ public class JTB {
           break;
         }
 
+        else if (args[i].equals("-al")) {
+          arrayLists = true;
+          jtbOpt.put("JTB_AL", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-cl")) {
           printClassList = true;
           jtbOpt.put("JTB_CL", Boolean.TRUE);
         }
 
+        else if (args[i].equals("-ct")) {
+          compactTokens = true;
+          jtbOpt.put("JTB_CT", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-d")) {
           ++i;
           if (i >= args.length || args[i].charAt(0) == '-')
@@ -529,11 +959,44 @@ public class JTB {
           jtbOpt.put("JTB_F", Boolean.TRUE);
         }
 
+        else if (args[i].equals("-fl")) {
+          flatTree = true;
+          jtbOpt.put("JTB_FL", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-ia")) {
           inlineAcceptMethods = true;
           jtbOpt.put("JTB_IA", Boolean.TRUE);
         }
 
+        else if (args[i].equals("-inc")) {
+          incremental = true;
+          jtbOpt.put("JTB_INC", Boolean.TRUE);
+        }
+
+        else if (args[i].equals("-ir")) {
+          incrementalReparse = true;
+          jtbOpt.put("JTB_IR", Boolean.TRUE);
+        }
+
+        else if (args[i].equals("-is")) {
+          ++i;
+          if (i >= args.length)
+            throw new InvalCmdLineException(IS_ERR_MSG);
+          imagesStrategy = checkImagesStrategy(args[i]);
+          jtbOpt.put("JTB_IS", imagesStrategy);
+        }
+
+        else if (args[i].equals("-iv")) {
+          iterativeVisitor = true;
+          jtbOpt.put("JTB_IV", Boolean.TRUE);
+        }
+
+        else if (args[i].equals("-jcc")) {
+          embeddedJavaCC = true;
+          jtbOpt.put("JTB_JCC", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-jd")) {
           javaDocComments = true;
           jtbOpt.put("JTB_JD", Boolean.TRUE);
@@ -612,11 +1075,21 @@ public class JTB {
           }
         }
 
+        else if (args[i].equals("-pc")) {
+          parseCache = true;
+          jtbOpt.put("JTB_PC", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-pp")) {
           parentPointer = true;
           jtbOpt.put("JTB_PP", Boolean.TRUE);
         }
 
+        else if (args[i].equals("-pv")) {
+          parallelVisitor = true;
+          jtbOpt.put("JTB_PV", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-printer")) {
           printerToolkit = true;
           jtbOpt.put("JTB_PRINTER", Boolean.TRUE);
@@ -627,11 +1100,53 @@ public class JTB {
           jtbOpt.put("JTB_SCHEME", Boolean.TRUE);
         }
 
+        else if (args[i].equals("-sd")) {
+          switchDispatch = true;
+          jtbOpt.put("JTB_SD", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-si")) {
           in = System.in;
           jtbInputFileName = "standard input";
         }
 
+        else if (args[i].equals("-sp")) {
+          ++i;
+          if (i >= args.length || args[i].charAt(0) == '-')
+            throw new InvalCmdLineException("Option \"-sp\" must be followed by a comma separated list of productions names.");
+          else {
+            streamedProductions = args[i];
+            jtbOpt.put("JTB_SP", streamedProductions);
+          }
+        }
+
+        else if (args[i].equals("-threads")) {
+          ++i;
+          if (i >= args.length || args[i].charAt(0) == '-')
+            throw new InvalCmdLineException("Option \"-threads\" must be followed by a number.");
+          else {
+            try {
+              nbThreads = Integer.parseInt(args[i]);
+            }
+            catch (final NumberFormatException e) {
+              nbThreads = 0;
+            }
+            if (nbThreads <= 0)
+              throw new InvalCmdLineException("Option \"-threads\" must be followed by a positive number.");
+            jtbOpt.put("JTB_THREADS", new Integer(nbThreads));
+          }
+        }
+
+        else if (args[i].equals("-tc")) {
+          treeCodec = true;
+          jtbOpt.put("JTB_TC", Boolean.TRUE);
+        }
+
+        else if (args[i].equals("-tf")) {
+          tokenFactory = true;
+          jtbOpt.put("JTB_TF", Boolean.TRUE);
+        }
+
         else if (args[i].equals("-tk")) {
           keepSpecialTokens = true;
           jtbOpt.put("JTB_TK", Boolean.TRUE);
@@ -713,13 +1228,21 @@ public class JTB {
                      "[inputfile]\n" +
                      "\n" +
                      "Standard options:\n" +
+                     "  -al         Generate NodeList and NodeListOptional storing their nodes in an array.\n" +
                      "  -cl         Print a list of the classes generated to standard out.\n" +
+                     "  -ct         Generate a compact NodeToken class (packed positions, shared images).\n" +
                      "  -d dir     \"-d dir\" is short for (and overwrites) \"-nd dir/syntaxtree -vd dir/visitor\".\n" +
                      "  -dl         Generate depth level info.\n" +
                      "  -e          Suppress JTB semantic error checking.\n" +
                      "  -f          Use descriptive node class field names.\n" +
+                     "  -fl         Generate the FlatTree class and the FlatTreeBuilder (flat preorder tree).\n" +
                      "  -h          Display this help message and quit.\n" +
                      "  -ia         Inline visitors accept methods on base classes.\n" +
+                     "  -inc        Rewrite only the generated files whose content has changed.\n" +
+                     "  -ir         Generate the IncrementalReparser (reparse after an edit, in the parser).\n" +
+                     "  -is str     Share the tokens images with str = intern (default), const or cache.\n" +
+                     "  -iv         Generate the IterativeDepthFirstVoidVisitor (non recursive walk).\n" +
+                     "  -jcc        Run the embedded JavaCC generator on the jj output file.\n" +
                      "  -jd         Generate JavaDoc-friendly comments in the nodes and visitor.\n" +
                      "  -nd dir     Use dir as the package for the syntax tree nodes.\n" +
                      "  -np pkg     Use pkg as the package for the syntax tree nodes.\n" +
@@ -728,15 +1251,25 @@ public class JTB {
                      "  -ns class   Use class as the class which all node classes will extend.\n" +
                      "  -o file     Use file as the filename for the annotated output grammar.\n" +
                      "  -p pkg      \"-p pkg\" is short for (and overwrites) \"-np pkg.syntaxtree -vp pkg.visitor\".\n" +
+                     "  -pc         Generate the ParseCache (trees cached on disk, implies -tc).\n" +
                      "  -pp         Generate parent pointers in all node classes.\n" +
+                     "  -pv         Generate the ParallelDepthFirst visitors (parallel visit of large lists).\n" +
                      "  -printer    Generate a syntax tree dumping visitor.\n" +
+                     "  -sd         Generate the nodes kinds and the SwitchDispatchVisitor (switch on the kinds).\n" +
                      "  -si         Read from standard input rather than a file.\n" +
                      "  -scheme     Generate Scheme records representing the grammar and a Scheme tree building visitor.\n" +
+                     "  -sp prods   Hand the nodes of the prods productions repeated in lists to the parser's\n" +
+                     "              streaming consumer instead of storing them in the tree.\n" +
+                     "  -tc         Generate the TreeCodec (compact binary write / read of the trees).\n" +
+                     "  -tf         Make the parser Token class extend NodeToken (one allocation per token).\n" +
+                     "  -threads n  Use n threads to generate the files (default is 1).\n" +
                      "  -tk         Generate special tokens into the tree.\n" +
                      "  -va         Generate visitors with an argument of a vararg type.\n" +
                      "  -vd dir     Use dir as the package for the default visitor classes.\n" +
                      "  -vp pkg     Use pkg as the package for the default visitor classes.\n" +
-                     "  -w          Do not overwrite existing files.\n" + "\n");
+                     "  -w          Do not overwrite existing files.\n" +
+                     "  -watch      Stay alive and regenerate when the grammar files change\n" +
+                     "              (\"" + scriptName + " -watch [OPTIONS] file1 [file2 ...]\", implies -inc).\n" + "\n");
   }
 }
 
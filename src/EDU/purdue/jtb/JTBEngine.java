@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb;
+
+import EDU.purdue.jtb.misc.EmbeddedJavaCC;
+import EDU.purdue.jtb.misc.GeneratedFilesManifest;
+import EDU.purdue.jtb.misc.JTBContext;
+import EDU.purdue.jtb.misc.Messages;
+import EDU.purdue.jtb.parser.Options;
+
+/**
+ * Class JTBEngine is the reentrant and thread safe API to run JTB several times in the same JVM
+ * (e.g. in a build daemon or an IDE plugin), instead of calling {@link JTB#main(String[])}.
+ * <p>
+ * Each engine carries its own {@link JTBContext} : the options defaults, the streams the messages
+ * of its runs are printed on, and the results of its last run.<br>
+ * The JTB options, the messages counts and the JavaCC generator tables (in
+ * {@link EDU.purdue.jtb.parser.LexGen}, {@link EDU.purdue.jtb.parser.NfaState},
+ * {@link EDU.purdue.jtb.parser.ParseEngine}, {@link EDU.purdue.jtb.parser.RStringLiteral}...)
+ * being static data, the runs of all the engines are serialized : an engine can be called from any
+ * thread, but the grammars are processed one at a time (the files of a grammar can still be
+ * generated concurrently, see the -threads option).
+ * <p>
+ * Before each run the engine reinitializes the command line and input file options, the messages
+ * counts and the generator tables, and installs its context, so a run does not see anything from a
+ * previous one.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class JTBEngine {
+
+  /** The lock serializing the runs of all the engines */
+  private static final Object LOCK = new Object();
+  /** The engine context */
+  private final JTBContext    ctx;
+
+  /**
+   * Constructor with a default context.
+   */
+  public JTBEngine() {
+    this(new JTBContext());
+  }
+
+  /**
+   * Constructor with a given context.
+   * 
+   * @param aCtx - the context (the options defaults and the messages streams)
+   */
+  public JTBEngine(final JTBContext aCtx) {
+    ctx = aCtx;
+  }
+
+  /**
+   * @return the engine context
+   */
+  public JTBContext getContext() {
+    return ctx;
+  }
+
+  /**
+   * Runs JTB with some command line arguments, after having reinitialized all the static data and
+   * installed the engine context.
+   * 
+   * @param args - the command line arguments
+   * @return the error code (see {@link JTB#do_main(String[])}), also saved in the context
+   */
+  public int run(final String args[]) {
+    return run(args, null);
+  }
+
+  /**
+   * Runs JTB with some command line arguments, reusing the analysis of the previous run of the same
+   * grammar when possible (for the watch mode).
+   * 
+   * @param args - the command line arguments
+   * @param aCache - the analysis results of the previous run (null for none), updated by the run
+   * @return the error code (see {@link JTB#do_main(String[])}), also saved in the context
+   */
+  int run(final String args[], final GrammarCache aCache) {
+    synchronized (LOCK) {
+      reInitAll();
+      ctx.install();
+      try {
+        ctx.saveResults(JTB.do_main(args, aCache));
+      }
+      finally {
+        Messages.setStreams(System.out, System.err);
+      }
+    }
+    return ctx.returnCode();
+  }
+
+  /**
+   * Reinitializes the options, the generated files manifests and the JavaCC static data.
+   */
+  static void reInitAll() {
+    Options.reInit();
+    GeneratedFilesManifest.reset();
+    EmbeddedJavaCC.reInit();
+  }
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb;
+
+import static EDU.purdue.jtb.misc.Globals.PROG_NAME;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import EDU.purdue.jtb.misc.JTBContext;
+
+/**
+ * Class JTBWatcher implements the watch mode (-watch option) : JTB stays alive in a warm JVM,
+ * watches the given grammar files and regenerates the outputs of a grammar each time its content
+ * changes.
+ * <p>
+ * Each grammar file has its own {@link JTBEngine}, whose context forces the incremental generation
+ * (-inc option), so after a change only the generated files whose content changed are rewritten,
+ * and a {@link GrammarCache}, so the analysis is reused when only the parser class compilation
+ * unit has changed, and only the outputs affected by the changed productions are regenerated.
+ * A grammar file whose content digest has not changed (e.g. just touched or saved twice by an
+ * editor) is not reprocessed. The file system events are collected during a short delay so an
+ * editor's burst of events leads to a single run.
+ * <p>
+ * Usage : <code>jtb -watch [OPTIONS] file1.jtb [file2.jtb ...]</code> ; stop with Ctrl-C.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created ; reused the grammar analysis (see
+ *          {@link GrammarCache}) ; returned the error code
+ */
+public class JTBWatcher {
+
+  /** The watch mode option */
+  public static final String            WATCH_OPTION = "-watch";
+  /** The delay (in ms) during which the events are collected before regenerating */
+  static final long                     SETTLE_DELAY = 200;
+  /** The options that are followed by a value */
+  static final Set<String>              VALUE_OPTS   = new HashSet<String>(Arrays.asList("-d",
+                                                                                         "-is",
+                                                                                         "-nd",
+                                                                                         "-np",
+                                                                                         "-ns",
+                                                                                         "-npfx",
+                                                                                         "-nsfx",
+                                                                                         "-o",
+                                                                                         "-p",
+                                                                                         "-sp",
+                                                                                         "-threads",
+                                                                                         "-vd",
+                                                                                         "-vp"));
+  /** The command line options (without the watch option and the grammar files) */
+  private final List<String>            options      = new ArrayList<String>();
+  /** The watched grammars (key = the absolute normalized grammar file path) */
+  private final Map<Path, WatchedGrammar> grammars   = new LinkedHashMap<Path, WatchedGrammar>();
+
+  /**
+   * Tells whether the command line asks for the watch mode.
+   * 
+   * @param args - the command line arguments
+   * @return true if the watch option is present, false otherwise
+   */
+  public static boolean isWatchMode(final String args[]) {
+    for (int i = 0; i < args.length; i++) {
+      if (VALUE_OPTS.contains(args[i]))
+        i++;
+      else if (WATCH_OPTION.equals(args[i]))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Constructor. Splits the command line arguments into options and grammar files.
+   * 
+   * @param args - the command line arguments
+   */
+  public JTBWatcher(final String args[]) {
+    for (int i = 0; i < args.length; i++) {
+      final String arg = args[i];
+      if (WATCH_OPTION.equals(arg))
+        continue;
+      if (VALUE_OPTS.contains(arg)) {
+        options.add(arg);
+        if (i + 1 < args.length)
+          options.add(args[++i]);
+      } else if (arg.length() > 0 && arg.charAt(0) == '-') {
+        options.add(arg);
+      } else {
+        final Path p = Paths.get(arg).toAbsolutePath().normalize();
+        grammars.put(p, new WatchedGrammar(p));
+      }
+    }
+  }
+
+  /**
+   * Runs the watch mode : generates all the grammars, then regenerates the changed ones until the
+   * thread is interrupted.
+   * 
+   * @return {@link JTB#CL_ERR} if there is no grammar file, {@link JTB#OTHER_EX} if the grammar
+   *         files cannot be watched, otherwise (when interrupted) the first non zero error code of
+   *         the last runs of the grammars, or {@link JTB#OK} if they all succeeded
+   */
+  public int watch() {
+    if (grammars.isEmpty() || options.contains("-si") || options.contains("-h")) {
+      System.err.println(PROG_NAME + ":  Option \"" + WATCH_OPTION +
+                         "\" must be followed by one or more grammar files (and no -si or -h).");
+      return JTB.CL_ERR;
+    }
+    WatchService ws = null;
+    try {
+      ws = FileSystems.getDefault().newWatchService();
+      final Set<Path> dirs = new HashSet<Path>();
+      for (final Iterator<Path> e = grammars.keySet().iterator(); e.hasNext();) {
+        final Path dir = e.next().getParent();
+        if (dirs.add(dir))
+          dir.register(ws, ENTRY_MODIFY, ENTRY_CREATE);
+      }
+      for (final Iterator<WatchedGrammar> e = grammars.values().iterator(); e.hasNext();) {
+        e.next().regenerateIfChanged();
+      }
+      System.err.println(PROG_NAME + ":  Watching " + grammars.size() +
+                         " grammar file(s) for changes (Ctrl-C to stop)...");
+      for (;;) {
+        final Set<Path> changed = new HashSet<Path>();
+        WatchKey key = ws.take();
+        // collect the events of the burst
+        while (key != null) {
+          collectChanged(key, changed);
+          key = ws.poll(SETTLE_DELAY, TimeUnit.MILLISECONDS);
+        }
+        // regenerate in the command line order
+        for (final Iterator<Map.Entry<Path, WatchedGrammar>> e = grammars.entrySet().iterator(); e.hasNext();) {
+          final Map.Entry<Path, WatchedGrammar> me = e.next();
+          if (changed.contains(me.getKey()))
+            me.getValue().regenerateIfChanged();
+        }
+      }
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      for (final Iterator<WatchedGrammar> e1 = grammars.values().iterator(); e1.hasNext();) {
+        final int rc = e1.next().lastRc;
+        if (rc != JTB.OK)
+          return rc;
+      }
+      return JTB.OK;
+    }
+    catch (final IOException e) {
+      System.err.println(PROG_NAME + ":  Unable to watch the grammar files : " + e.getMessage());
+      return JTB.OTHER_EX;
+    }
+    finally {
+      if (ws != null)
+        try {
+          ws.close();
+        }
+        catch (final IOException e) {
+          // nothing to do
+        }
+    }
+  }
+
+  /**
+   * Collects the watched grammar files paths of the events of a watch key, and resets the key.
+   * 
+   * @param aKey - the watch key
+   * @param aChanged - the set to add the changed grammar files paths to
+   */
+  private void collectChanged(final WatchKey aKey, final Set<Path> aChanged) {
+    final Path dir = (Path) aKey.watchable();
+    for (final WatchEvent<?> ev : aKey.pollEvents()) {
+      if (ev.kind() == OVERFLOW) {
+        // events may have been lost : check all the grammars (the digests will filter them)
+        aChanged.addAll(grammars.keySet());
+        continue;
+      }
+      final Path p = dir.resolve((Path) ev.context()).normalize();
+      if (grammars.containsKey(p))
+        aChanged.add(p);
+    }
+    aKey.reset();
+  }
+
+  /**
+   * Inner class holding a watched grammar file, its engine and analysis cache, and the digest and
+   * the error code of its last processed content.
+   */
+  class WatchedGrammar {
+
+    /** The grammar file path */
+    final Path         path;
+    /** The grammar engine */
+    final JTBEngine    engine;
+    /** The analysis results of the last successful run */
+    final GrammarCache cache      = new GrammarCache();
+    /** The digest of the last processed content */
+    byte[]             lastDigest = null;
+    /** The error code of the last run */
+    int                lastRc     = JTB.OK;
+
+    /**
+     * Constructor.
+     * 
+     * @param aPath - the grammar file path
+     */
+    WatchedGrammar(final Path aPath) {
+      path = aPath;
+      final JTBContext ctx = new JTBContext();
+      ctx.incremental = true;
+      engine = new JTBEngine(ctx);
+    }
+
+    /**
+     * Regenerates the grammar outputs if the grammar file content has changed since the last run.
+     * 
+     * @return the error code of the run, or of the last run if the content has not changed
+     */
+    int regenerateIfChanged() {
+      final byte[] digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-1").digest(Files.readAllBytes(path));
+      }
+      catch (final IOException e) {
+        // the file may be being rewritten : wait for the next event
+        return lastRc;
+      }
+      catch (final NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+      if (lastDigest != null && MessageDigest.isEqual(lastDigest, digest))
+        return lastRc;
+      lastDigest = digest;
+      final List<String> args = new ArrayList<String>(options);
+      args.add(path.toString());
+      final long start = System.currentTimeMillis();
+      lastRc = engine.run(args.toArray(new String[args.size()]), cache);
+      System.err.println(PROG_NAME + ":  \"" + path + "\" processed in " +
+                         (System.currentTimeMillis() - start) + " ms (return code " + lastRc + ").");
+      return lastRc;
+    }
+  }
+}
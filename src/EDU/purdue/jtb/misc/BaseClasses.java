@@ -79,6 +79,10 @@ import EDU.purdue.jtb.syntaxtree.NodeToken;
  *          1.4.8 : 12/2014 : MMa : added printing override annotations ;<br>
  *          improved specials printing in {@link NodeToken}
  * @version 1.4.9 : 12/2014 : MMa : fixed generated code NodeToken.withSpecials
+ * @version 1.4.13 : 10/2026 : agent : added array based NodeList and NodeListOptional (-al option) ;<br>
+ *          added compact NodeToken (-ct option) ;<br>
+ *          added NodeToken members for the parser Token subclass (-tf option) ;<br>
+ *          added the nodes kinds (-sd option)
  */
 class BaseClasses {
 
@@ -107,6 +111,21 @@ class BaseClasses {
   /** The end of argument list for no Return and no Argument parameter types */
   final static String endVoid     = endArgList(false);
 
+  /** The {@link NodeChoice} node kind (-sd option) */
+  final static int    choiceKind  = 0;
+  /** The {@link NodeList} node kind (-sd option) */
+  final static int    listKind    = 1;
+  /** The {@link NodeListOptional} node kind (-sd option) */
+  final static int    listOptKind = 2;
+  /** The {@link NodeOptional} node kind (-sd option) */
+  final static int    optKind     = 3;
+  /** The {@link NodeSequence} node kind (-sd option) */
+  final static int    seqKind     = 4;
+  /** The {@link NodeToken} node kind (-sd option) */
+  final static int    tokenKind   = 5;
+  /** The {@link NodeTCF} node kind (-sd option) */
+  final static int    tcfKind     = 6;
+
   /*
    * Node interfaces methods
    */
@@ -140,6 +159,17 @@ class BaseClasses {
 
     interfacesAcceptMethods(sb, false);
 
+    if (switchDispatch) {
+      if (javaDocComments) {
+        sb.append("  /**").append(LS);
+        sb.append("   * Gets the node kind, a constant distinct for each node class.").append(LS);
+        sb.append("   *").append(LS);
+        sb.append("   * @return the node kind").append(LS);
+        sb.append("   */").append(LS);
+      }
+      sb.append("  public int nodeKind();").append(LS).append(LS);
+    }
+
     if (parentPointer) {
       if (javaDocComments) {
         sb.append("  /**").append(LS);
@@ -309,6 +339,8 @@ class BaseClasses {
       sb.append("    choice.setParent(this);").append(LS);
     sb.append("  }").append(LS).append(LS);
 
+    nodeKindMembers(sb, choiceKind);
+
     if (javaDocComments) {
       genAcceptRetArguComment(sb);
     }
@@ -362,6 +394,8 @@ class BaseClasses {
     if (sb == null) {
       sb = new StringBuilder(4050);
     }
+    if (arrayLists)
+      return genArrayNodeListClass(sb, false);
 
     packageAndImports(sb);
     sb.append("import java.util.*;").append(LS).append(LS);
@@ -466,6 +500,8 @@ class BaseClasses {
 
     listMethods(sb);
 
+    nodeKindMembers(sb, listKind);
+
     classesAcceptMethods(sb);
 
     parentPointerGetterSetter(sb);
@@ -485,6 +521,8 @@ class BaseClasses {
     if (sb == null) {
       sb = new StringBuilder(4250);
     }
+    if (arrayLists)
+      return genArrayNodeListClass(sb, true);
 
     packageAndImports(sb);
     sb.append("import java.util.*;").append(LS).append(LS);
@@ -597,6 +635,203 @@ class BaseClasses {
     sb.append("  public boolean present() {").append(LS);
     sb.append("    return (nodes.size() != 0); }").append(LS).append(LS);
 
+    nodeKindMembers(sb, listOptKind);
+
+    classesAcceptMethods(sb);
+
+    parentPointerGetterSetter(sb);
+
+    sb.append('}').append(LS);
+    return sb;
+  }
+
+  /**
+   * Generates the {@link NodeList} or the {@link NodeListOptional} class storing the nodes list in
+   * a plain array (-al option).
+   * 
+   * @param aSb - a buffer to print into (must be non null)
+   * @param aOpt - true for the {@link NodeListOptional} class, false for the {@link NodeList} class
+   * @return the generated class
+   */
+  static StringBuilder genArrayNodeListClass(final StringBuilder aSb, final boolean aOpt) {
+    final StringBuilder sb = aSb;
+    final String cls = aOpt ? nodeListOpt : nodeList;
+
+    packageAndImports(sb);
+    sb.append("import java.util.*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      if (aOpt)
+        sb.append(" * Represents an optional grammar list (*), e.g. ' ( A )* '.<br>").append(LS);
+      else
+        sb.append(" * Represents a grammar list (+), e.g. ' ( A )+ '.<br>").append(LS);
+      sb.append(" * The class stores the nodes list in an array (with amortized growth).").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(cls).append(extendsClause()).append(" implements ")
+      .append(iNodeList).append(" {").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The array of nodes (only the first {@link #size()} elements are significant) */")
+        .append(LS);
+    }
+    sb.append("  public ").append(iNode).append("[] nodes;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The number of nodes */").append(LS);
+    }
+    sb.append("  private int size = 0;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The shared empty array */").append(LS);
+    }
+    sb.append("  private static final ").append(iNode).append("[] EMPTY = new ").append(iNode)
+      .append("[0];").append(LS).append(LS);
+
+    parentPointerDeclaration(sb);
+
+    serialUIDDeclaration(sb);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes an empty list of nodes with a default first allocation.")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(cls).append("() {").append(LS);
+    sb.append("    nodes = ").append(aOpt ? "EMPTY" : "new " + iNode + "[2]").append(';').append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes an empty list of nodes with a given allocation.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param sz - the list size").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(cls).append("(final int sz) {").append(LS);
+    sb.append("    nodes = sz == 0 ? EMPTY : new ").append(iNode).append("[sz];").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes an empty list of nodes with a default first allocation and ")
+        .append("adds a first node.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param firstNode - the node to add").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(cls).append("(final ").append(iNode).append(" firstNode) {")
+      .append(LS);
+    sb.append("    nodes = new ").append(iNode).append("[2];").append(LS);
+    sb.append("    addNode(firstNode);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes an empty list of nodes with a given allocation and ")
+        .append("adds a first node.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param sz - the list size").append(LS);
+      sb.append("   * @param firstNode - the node to add").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(cls).append("(final int sz, final ").append(iNode)
+      .append(" firstNode) {").append(LS);
+    sb.append("    nodes = new ").append(iNode).append("[sz < 1 ? 1 : sz];").append(LS);
+    sb.append("    addNode(firstNode);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Adds a node to the list of nodes, growing the array by half ")
+        .append("of its size when it is full.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node to add").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    sb.append("  public void addNode(final ").append(iNode).append(" n) {").append(LS);
+    sb.append("    if (size == nodes.length)").append(LS);
+    sb.append("      nodes = Arrays.copyOf(nodes, size + (size >> 1) + 2);").append(LS);
+    sb.append("    nodes[size++] = n;").append(LS);
+    parentPointerSetCall(sb);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Trims the array of nodes to the number of nodes (called at the end of the ")
+        .append("production).").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void trimToSize() {").append(LS);
+    sb.append("    if (size < nodes.length)").append(LS);
+    sb.append("      nodes = size == 0 ? EMPTY : Arrays.copyOf(nodes, size);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Gets the node in the list at a given position.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param i - the node's position").append(LS);
+      sb.append("   * @return the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    sb.append("  public ").append(iNode).append(" elementAt(final int i) {").append(LS);
+    sb.append("    if (i >= size)").append(LS);
+    sb.append("      throw new IndexOutOfBoundsException(\"Index: \" + i + \", Size: \" + size);")
+      .append(LS);
+    sb.append("    return nodes[i]; }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns an iterator on the nodes list.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the iterator").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    sb.append("  public Iterator<").append(iNode).append("> elements() {").append(LS);
+    sb.append("    return new Iterator<").append(iNode).append(">() {").append(LS);
+    sb.append("      private int i = 0;").append(LS).append(LS);
+    sb.append("      @Override").append(LS);
+    sb.append("      public boolean hasNext() {").append(LS);
+    sb.append("        return i < size; }").append(LS).append(LS);
+    sb.append("      @Override").append(LS);
+    sb.append("      public ").append(iNode).append(" next() {").append(LS);
+    sb.append("        if (i >= size)").append(LS);
+    sb.append("          throw new NoSuchElementException();").append(LS);
+    sb.append("        return nodes[i++]; }").append(LS).append(LS);
+    sb.append("      @Override").append(LS);
+    sb.append("      public void remove() {").append(LS);
+    sb.append("        throw new UnsupportedOperationException(); }").append(LS);
+    sb.append("    }; }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the number of nodes in the list.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the list size").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    sb.append("  public int size() {").append(LS);
+    sb.append("    return size; }").append(LS).append(LS);
+
+    if (aOpt) {
+      if (javaDocComments) {
+        sb.append("  /**").append(LS);
+        sb.append("   * @return true if there is at least one node, false otherwise").append(LS);
+        sb.append("   */").append(LS);
+      }
+      sb.append("  public boolean present() {").append(LS);
+      sb.append("    return (size != 0); }").append(LS).append(LS);
+    }
+
+    nodeKindMembers(sb, aOpt ? listOptKind : listKind);
+
     classesAcceptMethods(sb);
 
     parentPointerGetterSetter(sb);
@@ -682,6 +917,8 @@ class BaseClasses {
     sb.append("  public boolean present() {").append(LS);
     sb.append("    return (node != null); }").append(LS).append(LS);
 
+    nodeKindMembers(sb, optKind);
+
     classesAcceptMethods(sb);
 
     parentPointerGetterSetter(sb);
@@ -793,6 +1030,8 @@ class BaseClasses {
 
     listMethods(sb);
 
+    nodeKindMembers(sb, seqKind);
+
     classesAcceptMethods(sb);
 
     parentPointerGetterSetter(sb);
@@ -812,6 +1051,8 @@ class BaseClasses {
     if (sb == null) {
       sb = new StringBuilder(5970);
     }
+    if (compactTokens)
+      return genCompactNodeTokenClass(sb);
 
     packageAndImports(sb);
     sb.append("import java.util.*;").append(LS).append(LS);
@@ -903,6 +1144,9 @@ class BaseClasses {
     sb.append("    endColumn = ec;").append(LS);
     sb.append("  }").append(LS).append(LS);
 
+    if (tokenFactory)
+      tokenFactoryMembers(sb);
+
     if (javaDocComments) {
       sb.append("  /**").append(LS);
       sb.append("   * Gets the special token in the special tokens list at a given position.")
@@ -1078,6 +1322,8 @@ class BaseClasses {
     sb.append("    return buf.toString();").append(LS);
     sb.append("  }").append(LS).append(LS);
 
+    nodeKindMembers(sb, tokenKind);
+
     classesAcceptMethods(sb);
 
     parentPointerGetterSetter(sb);
@@ -1088,45 +1334,125 @@ class BaseClasses {
   }
 
   /**
-   * Generates the {@link NodeToken} class.
+   * Generates the compact {@link NodeToken} class (-ct option) : the four positions are held in two
+   * ints (the first line, and the columns and the lines span packed in the other one), and the
+   * special tokens, with the rare positions which do not fit in the packed int, are held in an extra
+   * object allocated only when needed. So the token has five 4 bytes fields instead of seven (and
+   * no list allocated for the special tokens), and the positions are accessed through getters and
+   * setters.
    * 
-   * @param aSb - a buffer to print into (will be allocated if null)
+   * @param aSb - a buffer to print into (must be non null)
    * @return the generated class
    */
-  static StringBuilder genNodeTCFClass(final StringBuilder aSb) {
-    StringBuilder sb = aSb;
-    if (sb == null) {
-      sb = new StringBuilder(1000);
-    }
+  static StringBuilder genCompactNodeTokenClass(final StringBuilder aSb) {
+    final StringBuilder sb = aSb;
+
+    packageAndImports(sb);
+    sb.append("import java.util.*;").append(LS).append(LS);
 
-    sb.append("package ").append(nodesPackageName).append(';').append(LS).append(LS);
     if (javaDocComments) {
       sb.append("/**").append(LS);
-      sb.append(" * Represents a token in an ExpansionUnit type 3 in the grammar.<br>").append(LS);
-      sb.append(" * If the \"-tk\" option is used, also contains a ArrayList of preceding ")
+      sb.append(" * Represents a single token in the grammar.<br>").append(LS);
+      sb.append(" * If the \"-tk\" option is used, also contains an array of preceding ")
         .append("special tokens.<br>").append(LS);
+      sb.append(" * The class stores the token image, kind and packed position information, ")
+        .append("and the special tokens array.<br>").append(LS);
       sb.append(" */").append(LS);
     }
-    sb.append("public class ").append(nodeTCF).append(" extends ").append(nodeToken).append(" {")
-      .append(LS).append(LS);
+    sb.append("public class ").append(nodeToken).append(extendsClause()).append(" implements ")
+      .append(iNode).append(" {").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The token image (shared for the constant kinds) */").append(LS);
+    }
+    sb.append("  public String tokenImage;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The JavaCC token \"kind\" integer (-1 means not available) */").append(LS);
+    }
+    sb.append("  public int kind;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The token first line */").append(LS);
+    }
+    sb.append("  private int line;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * The lines span (bits 24-30), the last column + 1 (bits 12-23) and the first ")
+        .append("column + 1 (bits 0-11),").append(LS);
+      sb.append("   * or {@link #WIDE} if they do not fit (they are then in the extra data)")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  private int span;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The extra data (null if none) */").append(LS);
+    }
+    sb.append("  private Extra extra;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The span value telling the positions are in the extra data */").append(LS);
+    }
+    sb.append("  private static final int WIDE = 0x80000000;").append(LS).append(LS);
+
+    parentPointerDeclaration(sb);
 
     serialUIDDeclaration(sb);
 
+    lineSeparatorDeclaration(sb);
+
     if (javaDocComments) {
       sb.append("  /**").append(LS);
-      sb.append("   * Initializes a {@link ").append(nodeTCF).append("} with a given string and ")
+      sb.append("   * The extra data of a token : the positions which do not fit in the packed ")
+        .append("span, and the special tokens.").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  private static final class Extra implements java.io.Serializable {").append(LS)
+      .append(LS);
+    if (javaDocComments) {
+      sb.append("    /** The serial version UID */").append(LS);
+    }
+    sb.append("    private static final long serialVersionUID = ").append(SERIAL_UID).append("L;")
+      .append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /** The token first column (if wide) */").append(LS);
+    }
+    sb.append("    int beginColumn;").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /** The token last line (if wide) */").append(LS);
+    }
+    sb.append("    int endLine;").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /** The token last column (if wide) */").append(LS);
+    }
+    sb.append("    int endColumn;").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /** The special tokens array (null if none) */").append(LS);
+    }
+    sb.append("    ").append(nodeToken).append("[] specials;").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /** The number of special tokens */").append(LS);
+    }
+    sb.append("    int nbSpecials;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes a {@link NodeToken} with a given string and ")
         .append("no position information.").append(LS);
       sb.append("   *").append(LS);
       sb.append("   * @param s - the token string").append(LS);
       sb.append("   */").append(LS);
     }
-    sb.append("  public ").append(nodeTCF).append("(String s) {").append(LS);
-    sb.append("    super(s, -1, -1, -1, -1, -1);").append(LS);
+    sb.append("  public ").append(nodeToken).append("(final String s) {").append(LS);
+    sb.append("    this(s, -1, -1, -1, -1, -1);").append(LS);
     sb.append("  }").append(LS).append(LS);
 
     if (javaDocComments) {
       sb.append("  /**").append(LS);
-      sb.append("   * Initializes a {@link ").append(nodeTCF).append("} with a given string and ")
+      sb.append("   * Initializes a {@link NodeToken} with a given string and ")
         .append("position information.").append(LS);
       sb.append("   *").append(LS);
       sb.append("   * @param s - the token string").append(LS);
@@ -1137,12 +1463,592 @@ class BaseClasses {
       sb.append("   * @param ec - the last column").append(LS);
       sb.append("   */").append(LS);
     }
-    sb.append("  public ").append(nodeTCF)
-      .append("(String s, final int kn, final int bl, final int bc, ")
+    sb.append("  public ").append(nodeToken)
+      .append("(final String s, final int kn, final int bl, final int bc, ")
       .append("final int el, final int ec) {").append(LS);
-    sb.append("    super(s, kn, bl, bc, el, ec);").append(LS);
+    sb.append("    tokenImage = s;").append(LS);
+    sb.append("    kind = kn;").append(LS);
+    sb.append("    setPositions(bl, bc, el, ec);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (tokenFactory)
+      tokenFactoryMembers(sb, "    setPositions(bl, bc, el, ec);");
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Sets the token positions, packed if they fit.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param bl - the first line").append(LS);
+      sb.append("   * @param bc - the first column").append(LS);
+      sb.append("   * @param el - the last line").append(LS);
+      sb.append("   * @param ec - the last column").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void setPositions(final int bl, final int bc, final int el, final int ec) {")
+      .append(LS);
+    sb.append("    line = bl;").append(LS);
+    sb.append("    final int dl = el - bl;").append(LS);
+    sb.append("    if (dl >= 0 && dl < 0x80 && bc >= -1 && bc < 0xFFF && ec >= -1 && ec < 0xFFF) {")
+      .append(LS);
+    sb.append("      span = (dl << 24) | ((ec + 1) << 12) | (bc + 1);").append(LS);
+    sb.append("      return;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    if (extra == null)").append(LS);
+    sb.append("      extra = new Extra();").append(LS);
+    sb.append("    span = WIDE;").append(LS);
+    sb.append("    extra.beginColumn = bc;").append(LS);
+    sb.append("    extra.endLine = el;").append(LS);
+    sb.append("    extra.endColumn = ec;").append(LS);
     sb.append("  }").append(LS).append(LS);
 
+    final String[][] pos = {
+        {
+            "BeginLine", "first line", "line", "v, getBeginColumn(), getEndLine(), getEndColumn()" },
+        {
+            "BeginColumn", "first column", "span == WIDE ? extra.beginColumn : (span & 0xFFF) - 1",
+            "line, v, getEndLine(), getEndColumn()" },
+        {
+            "EndLine", "last line", "span == WIDE ? extra.endLine : line + (span >>> 24)",
+            "line, getBeginColumn(), v, getEndColumn()" },
+        {
+            "EndColumn", "last column",
+            "span == WIDE ? extra.endColumn : ((span >>> 12) & 0xFFF) - 1",
+            "line, getBeginColumn(), getEndLine(), v" } };
+    for (int i = 0; i < pos.length; i++) {
+      if (javaDocComments) {
+        sb.append("  /**").append(LS);
+        sb.append("   * @return the token ").append(pos[i][1]).append(" (-1 means not available)")
+          .append(LS);
+        sb.append("   */").append(LS);
+      }
+      sb.append("  public int get").append(pos[i][0]).append("() {").append(LS);
+      sb.append("    return ").append(pos[i][2]).append(';').append(LS);
+      sb.append("  }").append(LS).append(LS);
+
+      if (javaDocComments) {
+        sb.append("  /**").append(LS);
+        sb.append("   * Sets the token ").append(pos[i][1]).append('.').append(LS);
+        sb.append("   *").append(LS);
+        sb.append("   * @param v - the token ").append(pos[i][1]).append(LS);
+        sb.append("   */").append(LS);
+      }
+      sb.append("  public void set").append(pos[i][0]).append("(final int v) {").append(LS);
+      sb.append("    setPositions(").append(pos[i][3]).append(");").append(LS);
+      sb.append("  }").append(LS).append(LS);
+    }
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Gets the special token in the special tokens array at a given position.")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param i - the special token's position").append(LS);
+      sb.append("   * @return the special token").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(nodeToken).append(" getSpecialAt(final int i) {").append(LS);
+    sb.append("    final int nb = numSpecials();").append(LS);
+    sb.append("    if (nb == 0)").append(LS);
+    sb.append("      throw new NoSuchElementException(\"No specialTokens in token\");").append(LS);
+    sb.append("    if (i < 0 || i >= nb)").append(LS);
+    sb.append("      throw new IndexOutOfBoundsException(\"Index: \" + i + \", Size: \" + nb);")
+      .append(LS);
+    sb.append("    return extra.specials[i];").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return the number of special tokens").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public int numSpecials() {").append(LS).append("    if (extra == null)")
+      .append(LS);
+    sb.append("      return 0;").append(LS).append("    return extra.nbSpecials;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return an unmodifiable list view of the special tokens (an empty list if ")
+        .append("none)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public List<").append(nodeToken).append("> getSpecialTokens() {").append(LS);
+    sb.append("    final int nb = numSpecials();").append(LS);
+    sb.append("    if (nb == 0)").append(LS);
+    sb.append("      return Collections.<").append(nodeToken).append("> emptyList();").append(LS);
+    sb.append("    return Collections.unmodifiableList(Arrays.asList(extra.specials).subList(0, ")
+      .append("nb));").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Adds a special token to the special tokens array (doubled when full).")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param s - the special token to add").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void addSpecial(final ").append(nodeToken).append(" s) {").append(LS);
+    sb.append("    if (extra == null)").append(LS);
+    sb.append("      extra = new Extra();").append(LS);
+    sb.append("    final Extra x = extra;").append(LS);
+    sb.append("    if (x.specials == null)").append(LS);
+    sb.append("      x.specials = new ").append(nodeToken).append("[4];").append(LS);
+    sb.append("    else if (x.nbSpecials == x.specials.length)").append(LS);
+    sb.append("      x.specials = Arrays.copyOf(x.specials, x.nbSpecials << 1);").append(LS);
+    sb.append("    x.specials[x.nbSpecials++] = s;").append(LS);
+    if (parentPointer)
+      sb.append("    s.setParent(this);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Trims the special tokens array to the number of special tokens.").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void trimSpecials() {").append(LS);
+    sb.append("    if (extra != null && extra.specials != null && ")
+      .append("extra.nbSpecials < extra.specials.length)").append(LS);
+    sb.append("      extra.specials = Arrays.copyOf(extra.specials, extra.nbSpecials);")
+      .append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return the token image").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    sb.append("  public String toString() {").append(LS);
+    sb.append("    return tokenImage;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the list of special tokens of the current {@link NodeToken} ")
+        .append("as a string,<br>").append(LS);
+      sb.append("   * taking in account a given indentation.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param spc - the indentation").append(LS);
+      sb.append("   * @return the string representing the special tokens list").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public String getSpecials(final String spc) {").append(LS);
+    sb.append("    final int nb = numSpecials();").append(LS);
+    sb.append("    if (nb == 0)").append(LS);
+    sb.append("      return \"\";").append(LS);
+    sb.append("    final int beginLine = getBeginLine();").append(LS);
+    sb.append("    int stLastLine = -1;").append(LS);
+    sb.append("    final StringBuilder buf = new StringBuilder(64);").append(LS);
+    sb.append("    boolean hasEol = false;").append(LS);
+    sb.append("    for (int i = 0; i < nb; i++) {").append(LS);
+    sb.append("      final NodeToken st = extra.specials[i];").append(LS);
+    sb.append("      final char c = st.tokenImage.charAt(st.tokenImage.length() - 1);").append(LS);
+    sb.append("      hasEol = c == '\\n' || c == '\\r';").append(LS);
+    sb.append("      if (stLastLine != -1)").append(LS);
+    sb.append("        // not first line ").append(LS);
+    sb.append("        if (stLastLine != st.getBeginLine())").append(LS);
+    sb.append("          // if not on the same line as the previous").append(LS);
+    sb.append("          buf.append(spc);").append(LS);
+    sb.append("        else").append(LS);
+    sb.append("          // on the same line as the previous").append(LS);
+    sb.append("          buf.append(' ');").append(LS);
+    sb.append("      buf.append(st.tokenImage);").append(LS);
+    sb.append("      if (!hasEol && i < nb - 1) {").append(LS);
+    sb.append("        // not a single line comment and not the last one").append(LS);
+    sb.append("        buf.append(LS);").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("      stLastLine = st.getEndLine();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    // keep the same number of blank lines before the current non special")
+      .append(LS);
+    sb.append("    for (int i = stLastLine + (hasEol ? 1 : 0); i < beginLine; i++) {").append(LS);
+    sb.append("      buf.append(LS);").append(LS);
+    sb.append("      if (i != beginLine - 1)").append(LS);
+    sb.append("        buf.append(spc);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    // indent if the current non special is not on the same line").append(LS);
+    sb.append("    if (stLastLine != beginLine)").append(LS);
+    sb.append("      buf.append(spc);").append(LS);
+    sb.append("    return buf.toString();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the list of special tokens of the current {@link NodeToken} ")
+        .append("and the current<br>").append(LS);
+      sb.append("   * {@link NodeToken} as a string, taking in account a given indentation.")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param spc - the indentation").append(LS);
+      sb.append("   * @return the string representing the special tokens list and the token")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public String withSpecials(final String spc) {").append(LS);
+    sb.append("    return withSpecials(spc, null);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the list of special tokens of the current {@link NodeToken} ")
+        .append("and the current<br>").append(LS);
+      sb.append("   * {@link NodeToken} as a string, taking in account a given indentation and a given ")
+        .append("assignment.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param spc - the indentation").append(LS);
+      sb.append("   * @param var - the variable assignment to be inserted").append(LS);
+      sb.append("   * @return the string representing the special tokens list and the token")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public String withSpecials(final String spc, final String var) {").append(LS);
+    sb.append("    final String specs = getSpecials(spc);").append(LS);
+    sb.append("    int len = specs.length();").append(LS);
+    sb.append("    if (len == 0)").append(LS);
+    sb.append("      return (var == null ? tokenImage : var + tokenImage);").append(LS);
+    sb.append("    if (var != null)").append(LS);
+    sb.append("      len += var.length();").append(LS);
+    sb.append("    final StringBuilder buf = new StringBuilder(len + tokenImage.length());")
+      .append(LS);
+    sb.append("    buf.append(specs);").append(LS);
+    sb.append("    // see if needed to add a space").append(LS);
+    sb.append("    if (extra.specials[extra.nbSpecials - 1].getEndLine() == getBeginLine())")
+      .append(LS);
+    sb.append("      buf.append(' ');").append(LS);
+    sb.append("    if (var != null)").append(LS);
+    sb.append("      buf.append(var);").append(LS);
+    sb.append("    buf.append(tokenImage);").append(LS);
+    sb.append("    return buf.toString();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    nodeKindMembers(sb, tokenKind);
+
+    classesAcceptMethods(sb);
+
+    parentPointerGetterSetter(sb);
+
+    sb.append('}').append(LS);
+
+    return sb;
+  }
+
+  /**
+   * Generates the {@link NodeToken} members used when the parser Token class extends it (-tf
+   * option) : a constructor for the Token subclass and, for the compact NodeToken, a method filling
+   * the node fields from the positions the Token class declares (the other Token subclass uses
+   * directly the NodeToken fields).
+   * 
+   * @param aSb - a buffer to print into (must be non null)
+   * @param aPosStmts - the statements setting the position members (none if not needed)
+   */
+  static void tokenFactoryMembers(final StringBuilder aSb, final String... aPosStmts) {
+    if (javaDocComments) {
+      aSb.append("  /**").append(LS);
+      aSb.append("   * Initializes a {@link NodeToken} created by the token manager ")
+         .append("(as the parser Token class extends it).").append(LS);
+      aSb.append("   */").append(LS);
+    }
+    aSb.append("  protected ").append(nodeToken).append("() {").append(LS);
+    aSb.append("  }").append(LS).append(LS);
+
+    if (aPosStmts.length == 0)
+      return;
+    if (javaDocComments) {
+      aSb.append("  /**").append(LS);
+      aSb.append("   * Fills a {@link NodeToken} created by the token manager with a given string and ")
+         .append("position information.").append(LS);
+      aSb.append("   *").append(LS);
+      aSb.append("   * @param s - the token string").append(LS);
+      aSb.append("   * @param kn - the token kind").append(LS);
+      aSb.append("   * @param bl - the first line").append(LS);
+      aSb.append("   * @param bc - the first column").append(LS);
+      aSb.append("   * @param el - the last line").append(LS);
+      aSb.append("   * @param ec - the last column").append(LS);
+      aSb.append("   */").append(LS);
+    }
+    aSb.append("  public void fill(final String s, final int kn, final int bl, final int bc, ")
+       .append("final int el, final int ec) {").append(LS);
+    aSb.append("    tokenImage = s;").append(LS);
+    aSb.append("    kind = kn;").append(LS);
+    for (int i = 0; i < aPosStmts.length; i++)
+      aSb.append(aPosStmts[i]).append(LS);
+    aSb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the parser Token class extending the {@link NodeToken} class (-tf option), which
+   * replaces the one JavaCC would generate : it declares only the fields the {@link NodeToken}
+   * class does not have, so a token holds its kind and positions once (the compact NodeToken keeps
+   * its packed positions, so the Token class then declares the four positions the token manager
+   * sets).
+   * 
+   * @param aSb - a buffer to print into (will be allocated if null)
+   * @param aPkg - the parser package name ("" if none)
+   * @return the generated class
+   */
+  static StringBuilder genTokenClass(final StringBuilder aSb, final String aPkg) {
+    StringBuilder sb = aSb;
+    if (sb == null) {
+      sb = new StringBuilder(2048);
+    }
+    if (aPkg.length() > 0)
+      sb.append("package ").append(aPkg).append(';').append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Describes the input token stream.<br>").append(LS);
+      sb.append(" * The tokens created by the token manager are the tree tokens : the class ")
+        .append("extends {@link ").append(nodeToken).append("}").append(LS);
+      sb.append(" * and uses its kind").append(compactTokens ? "" : " and position")
+        .append(" fields (JTB -tf option).").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class Token extends ")
+      .append("".equals(nodesPackageName) ? nodeToken : nodesPackageName + "." + nodeToken)
+      .append(" {").append(LS).append(LS);
+
+    serialUIDDeclaration(sb);
+
+    if (compactTokens) {
+      if (javaDocComments) {
+        sb.append("  /** The line number of the first character of this Token */").append(LS);
+      }
+      sb.append("  public int beginLine;").append(LS).append(LS);
+      if (javaDocComments) {
+        sb.append("  /** The column number of the first character of this Token */").append(LS);
+      }
+      sb.append("  public int beginColumn;").append(LS).append(LS);
+      if (javaDocComments) {
+        sb.append("  /** The line number of the last character of this Token */").append(LS);
+      }
+      sb.append("  public int endLine;").append(LS).append(LS);
+      if (javaDocComments) {
+        sb.append("  /** The column number of the last character of this Token */").append(LS);
+      }
+      sb.append("  public int endColumn;").append(LS).append(LS);
+    }
+
+    if (javaDocComments) {
+      sb.append("  /** The string image of the token (shared with the node token image) */")
+        .append(LS);
+    }
+    sb.append("  public String image;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The next regular token (or the next special token for a special token) */")
+        .append(LS);
+    }
+    sb.append("  public Token next;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** The last special token preceding this token (null if none) */").append(LS);
+    }
+    sb.append("  public Token specialToken;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /** No-argument constructor */").append(LS);
+    }
+    sb.append("  public Token() {").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Constructs a new token for the specified kind.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param kind - the token kind").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public Token(final int kind) {").append(LS);
+    sb.append("    this(kind, null);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Constructs a new token for the specified kind and image.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param kind - the token kind").append(LS);
+      sb.append("   * @param image - the token image").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public Token(final int kind, final String image) {").append(LS);
+    sb.append("    this.kind = kind;").append(LS);
+    sb.append("    this.image = image;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return an optional attribute value of the token (null here)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public Object getValue() {").append(LS);
+    sb.append("    return null;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return the image").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    sb.append("  public String toString() {").append(LS);
+    sb.append("    return image;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns a new Token object.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param ofKind - the token kind").append(LS);
+      sb.append("   * @param image - the token image").append(LS);
+      sb.append("   * @return the new token").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public static Token newToken(final int ofKind, final String image) {").append(LS);
+    sb.append("    return new Token(ofKind, image);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns a new Token object.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param ofKind - the token kind").append(LS);
+      sb.append("   * @return the new token").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public static Token newToken(final int ofKind) {").append(LS);
+    sb.append("    return newToken(ofKind, null);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    sb.append("}").append(LS);
+    return sb;
+  }
+
+  /**
+   * Generates the node kind constant and getter (-sd option).
+   * 
+   * @param aSb - a buffer to print into (must be non null)
+   * @param aKind - the node kind
+   */
+  static void nodeKindMembers(final StringBuilder aSb, final int aKind) {
+    if (!switchDispatch)
+      return;
+    if (javaDocComments) {
+      aSb.append("  /** The node kind */").append(LS);
+    }
+    aSb.append("  public static final int ").append(nodeKindConst).append(" = ").append(aKind)
+       .append(';').append(LS).append(LS);
+
+    if (javaDocComments) {
+      aSb.append("  /**").append(LS);
+      aSb.append("   * @return the node kind").append(LS);
+      aSb.append("   */").append(LS);
+    }
+    aSb.append("  @Override").append(LS);
+    aSb.append("  public int nodeKind() {").append(LS);
+    aSb.append("    return ").append(nodeKindConst).append(';').append(LS);
+    aSb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Returns the expression giving a {@link NodeToken} position member in the generated code (the
+   * public field, or its getter with the -ct option).
+   * 
+   * @param aVar - the node token variable
+   * @param aMember - the position member name (beginLine, beginColumn, endLine or endColumn)
+   * @return the expression
+   */
+  static String tkPos(final String aVar, final String aMember) {
+    if (!compactTokens)
+      return aVar + "." + aMember;
+    return aVar + ".get" + Character.toUpperCase(aMember.charAt(0)) + aMember.substring(1) + "()";
+  }
+
+  /**
+   * Returns the statement setting a {@link NodeToken} position member in the generated code (the
+   * public field, or its setter with the -ct option).
+   * 
+   * @param aVar - the node token variable
+   * @param aMember - the position member name (beginLine, beginColumn, endLine or endColumn)
+   * @param aVal - the value expression
+   * @return the statement
+   */
+  static String tkSetPos(final String aVar, final String aMember, final String aVal) {
+    if (!compactTokens)
+      return aVar + "." + aMember + " = " + aVal + ";";
+    return aVar + ".set" + Character.toUpperCase(aMember.charAt(0)) + aMember.substring(1) + "(" +
+           aVal + ");";
+  }
+
+  /**
+   * Returns the expression giving the {@link NodeToken} special tokens list in the generated code
+   * (the public field, or its getter with the -ct option).
+   * 
+   * @param aVar - the node token variable
+   * @return the expression
+   */
+  static String tkSpecials(final String aVar) {
+    return aVar + (compactTokens ? ".getSpecialTokens()" : ".specialTokens");
+  }
+
+  /**
+   * Generates the {@link NodeToken} class.
+   * 
+   * @param aSb - a buffer to print into (will be allocated if null)
+   * @return the generated class
+   */
+  static StringBuilder genNodeTCFClass(final StringBuilder aSb) {
+    StringBuilder sb = aSb;
+    if (sb == null) {
+      sb = new StringBuilder(1000);
+    }
+
+    sb.append("package ").append(nodesPackageName).append(';').append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Represents a token in an ExpansionUnit type 3 in the grammar.<br>").append(LS);
+      sb.append(" * If the \"-tk\" option is used, also contains a ArrayList of preceding ")
+        .append("special tokens.<br>").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(nodeTCF).append(" extends ").append(nodeToken).append(" {")
+      .append(LS).append(LS);
+
+    serialUIDDeclaration(sb);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes a {@link ").append(nodeTCF).append("} with a given string and ")
+        .append("no position information.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param s - the token string").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(nodeTCF).append("(String s) {").append(LS);
+    sb.append("    super(s, -1, -1, -1, -1, -1);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Initializes a {@link ").append(nodeTCF).append("} with a given string and ")
+        .append("position information.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param s - the token string").append(LS);
+      sb.append("   * @param kn - the token kind").append(LS);
+      sb.append("   * @param bl - the first line").append(LS);
+      sb.append("   * @param bc - the first column").append(LS);
+      sb.append("   * @param el - the last line").append(LS);
+      sb.append("   * @param ec - the last column").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(nodeTCF)
+      .append("(String s, final int kn, final int bl, final int bc, ")
+      .append("final int el, final int ec) {").append(LS);
+    sb.append("    super(s, kn, bl, bc, el, ec);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    nodeKindMembers(sb, tcfKind);
+
     sb.append('}').append(LS);
 
     return sb;
@@ -57,6 +57,7 @@ import EDU.purdue.jtb.visitor.GlobalDataBuilder;
  *          ; added the reference to the {@link GlobalDataBuilder}
  * @version 1.4.8 : 10/2012 : MMa : added JavaCodeProduction class generation ;<br>
  *          optimized common code 1.4.8 : 12/2014 : MMa : improved some debug printing
+ * @version 1.4.13 : 10/2026 : agent : added the node kind (-sd, -fl and -tc options)
  */
 public class ClassInfo {
 
@@ -93,6 +94,10 @@ public class ClassInfo {
   public StringBuilder      visitFieldCmts              = null;
   /** The common code (that does not depend of the class) */
   String                    commonCode                  = null;
+  /** The number of the base nodes kinds, which come before the grammar nodes kinds (-sd option) */
+  public static final int   NB_BASE_NODE_KINDS          = BaseClasses.tcfKind + 1;
+  /** The node kind (-sd, -fl and -tc options), set by the ClassesFinder in the grammar order */
+  public int                nodeKind                    = -1;
 
   /**
    * Constructs an instance giving an ExpansionChoices node and a name.
@@ -167,24 +172,27 @@ public class ClassInfo {
       return;
     if (aSpc.indentLevel == 1) {
       // for visit methods that have an indentation of 1, store the result
-      if (visitFieldCmts == null) {
-        int len = 0;
-        for (final CommentData fieldCmt : fieldCmts) {
-          for (final CommentLineData line : fieldCmt.lines) {
-            // 3 is length of " * "
-            len += aSpc.spc.length() + 3 + line.bare.length() + BRLEN;
-            if (line.debug != null)
-              len += line.debug.length();
-            len += BRLSLEN;
+      // (synchronized as the visitors may be generated concurrently)
+      synchronized (this) {
+        if (visitFieldCmts == null) {
+          int len = 0;
+          for (final CommentData fieldCmt : fieldCmts) {
+            for (final CommentLineData line : fieldCmt.lines) {
+              // 3 is length of " * "
+              len += aSpc.spc.length() + 3 + line.bare.length() + BRLEN;
+              if (line.debug != null)
+                len += line.debug.length();
+              len += BRLSLEN;
+            }
           }
-        }
-        visitFieldCmts = new StringBuilder(len);
-        for (final CommentData fieldCmt : fieldCmts) {
-          for (final CommentLineData line : fieldCmt.lines) {
-            visitFieldCmts.append(aSpc.spc).append(" * ").append(line.bare);
-            if (line.debug != null)
-              visitFieldCmts.append(line.debug);
-            visitFieldCmts.append(BRLS);
+          visitFieldCmts = new StringBuilder(len);
+          for (final CommentData fieldCmt : fieldCmts) {
+            for (final CommentLineData line : fieldCmt.lines) {
+              visitFieldCmts.append(aSpc.spc).append(" * ").append(line.bare);
+              if (line.debug != null)
+                visitFieldCmts.append(line.debug);
+              visitFieldCmts.append(BRLS);
+            }
           }
         }
       }
@@ -265,7 +273,7 @@ public class ClassInfo {
    * on itself.
    */
   void genCommentsData() {
-    if (fieldCmts == null) {
+    if (fieldCmts == null && fieldNames != null) {
       gdbv.getCpv().genCommentsData(this);
     }
   }
@@ -456,6 +464,12 @@ public class ClassInfo {
       sb.append(aSpc.spc).append("}").append(LS);
     }
 
+    /*
+     * Node kind (-sd option)
+     */
+    if (switchDispatch)
+      genNodeKindMembers(sb, aSpc);
+
     /*
      * Visit methods, parent methods, end class
      */
@@ -513,6 +527,12 @@ public class ClassInfo {
     sb.append(aSpc.spc).append("public ").append(className).append("() {").append(LS);
     sb.append(aSpc.spc).append("}").append(LS);
 
+    /*
+     * Node kind (-sd option)
+     */
+    if (switchDispatch)
+      genNodeKindMembers(sb, aSpc);
+
     /*
      * Visit methods, parent methods, end class
      */
@@ -521,13 +541,38 @@ public class ClassInfo {
     return sb;
   }
 
+  /**
+   * Generates the node kind constant and getter.
+   * 
+   * @param aSb - the buffer to output into
+   * @param aSpc - the current indentation
+   */
+  void genNodeKindMembers(final StringBuilder aSb, final Spacing aSpc) {
+    aSb.append(LS);
+    if (javaDocComments)
+      aSb.append(aSpc.spc).append("/** The node kind */").append(LS);
+    aSb.append(aSpc.spc).append("public static final int ").append(nodeKindConst).append(" = ")
+       .append(nodeKind).append(";").append(LS).append(LS);
+    if (javaDocComments) {
+      aSb.append(aSpc.spc).append("/**").append(LS);
+      aSb.append(aSpc.spc).append(" * @return the node kind").append(LS);
+      aSb.append(aSpc.spc).append(" */").append(LS);
+    }
+    aSb.append(aSpc.spc).append("@Override").append(LS);
+    aSb.append(aSpc.spc).append("public int nodeKind() {").append(LS);
+    aSpc.updateSpc(+1);
+    aSb.append(aSpc.spc).append("return ").append(nodeKindConst).append(";").append(LS);
+    aSpc.updateSpc(-1);
+    aSb.append(aSpc.spc).append("}").append(LS);
+  }
+
   /**
    * Gets the common code, generating it the first time (visit methods, parent methods, end class).
    * 
    * @param aSpc - the current indentation
    * @return the common code
    */
-  String getCommonCode(final Spacing aSpc) {
+  synchronized String getCommonCode(final Spacing aSpc) {
     if (commonCode == null)
       commonCode = genCommonCode(aSpc);
     return commonCode;
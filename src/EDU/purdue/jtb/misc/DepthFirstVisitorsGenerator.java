@@ -54,14 +54,12 @@ package EDU.purdue.jtb.misc;
 
 import static EDU.purdue.jtb.misc.Globals.*;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Iterator;
 import java.util.List;
 
+import EDU.purdue.jtb.syntaxtree.INode;
 import EDU.purdue.jtb.syntaxtree.NodeChoice;
 import EDU.purdue.jtb.syntaxtree.NodeList;
 import EDU.purdue.jtb.syntaxtree.NodeListOptional;
@@ -88,6 +86,9 @@ import EDU.purdue.jtb.visitor.GlobalDataBuilder;
  * @version 1.4.8 : 10/2012 : MMa : tuned javadoc comments for nodes with no child<br>
  *          1.4.8 : 11/2014 : MMa : added @Override on generated visit methods,<br>
  *          and @SuppressWarnings("unused") on unused parameters
+ * @version 1.4.13 : 10/2026 : agent : made the accept methods inliner an instance field (-threads
+ *          option) ; indexed loops on the array based lists (-al option) ;<br>
+ *          added the SwitchDispatchVisitor (-sd option)
  */
 public class DepthFirstVisitorsGenerator {
 
@@ -101,8 +102,8 @@ public class DepthFirstVisitorsGenerator {
   public static final int       BR_BUF_SZ = 16 * 1024;
   /** The (reused) buffer for reformatting javadoc comments into single line ones */
   final static StringBuilder    cb        = new StringBuilder(512);
-  /** The accept methods inliner visitor */
-  static AcceptInliner          accInl    = null;
+  /** The accept methods inliner visitor (one per generator as it is not thread safe) */
+  AcceptInliner                 accInl    = null;
   /** The indentation object */
   final Spacing                 spc       = new Spacing(INDENT_AMT);
   /** The buffer to write to */
@@ -146,9 +147,7 @@ public class DepthFirstVisitorsGenerator {
       final File file = new File(visitorDir, outFilename);
       if (noOverwrite && file.exists())
         throw new FileExistsException(outFilename);
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), BR_BUF_SZ));
-      out.print(genDepthFirstRetArguVisitor());
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genDepthFirstRetArguVisitor(), BR_BUF_SZ);
     }
     catch (final IOException e) {
       final String msg = "Could not generate " + outFilename;
@@ -169,9 +168,7 @@ public class DepthFirstVisitorsGenerator {
       final File file = new File(visitorDir, outFilename);
       if (noOverwrite && file.exists())
         throw new FileExistsException(outFilename);
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), BR_BUF_SZ));
-      out.print(genDepthFirstRetVisitor());
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genDepthFirstRetVisitor(), BR_BUF_SZ);
     }
     catch (final IOException e) {
       final String msg = "Could not generate " + outFilename;
@@ -192,9 +189,7 @@ public class DepthFirstVisitorsGenerator {
       final File file = new File(visitorDir, outFilename);
       if (noOverwrite && file.exists())
         throw new FileExistsException(outFilename);
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), BR_BUF_SZ));
-      out.print(genDepthFirstVoidArguVisitor());
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genDepthFirstVoidArguVisitor(), BR_BUF_SZ);
     }
     catch (final IOException e) {
       final String msg = "Could not generate " + outFilename;
@@ -215,9 +210,28 @@ public class DepthFirstVisitorsGenerator {
       final File file = new File(visitorDir, outFilename);
       if (noOverwrite && file.exists())
         throw new FileExistsException(outFilename);
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), BR_BUF_SZ));
-      out.print(genDepthFirstVoidVisitor());
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genDepthFirstVoidVisitor(), BR_BUF_SZ);
+    }
+    catch (final IOException e) {
+      final String msg = "Could not generate " + outFilename;
+      Messages.hardErr(msg);
+      throw new IOException(msg, e);
+    }
+  }
+
+  /**
+   * Generates the SwitchDispatchVisitor file.
+   * 
+   * @throws FileExistsException if file exists and no overwrite option set
+   * @throws IOException if IO problem
+   */
+  public void genSwitchDispatchVisitorFile() throws FileExistsException, IOException {
+    final String outFilename = sDVisitor + ".java";
+    try {
+      final File file = new File(visitorDir, outFilename);
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(outFilename);
+      GeneratedFilesManifest.writeFile(file, genSwitchDispatchVisitor(), BR_BUF_SZ);
     }
     catch (final IOException e) {
       final String msg = "Could not generate " + outFilename;
@@ -354,8 +368,111 @@ public class DepthFirstVisitorsGenerator {
       sb.append(spc.spc).append(" */").append(LS).append(LS);
     }
     for (final ClassInfo ci : classesList) {
-      userNodeVisitMethod(ci, aConsBeg, aConsEnd, aRet, aArgu);
+      userNodeVisitMethod(ci, aConsBeg, aConsEnd, aRet, aArgu, null);
+    }
+
+    // end of (visitor) class
+    spc.updateSpc(-1);
+    sb.append('}').append(LS);
+
+    return sb;
+  }
+
+  /**
+   * Generates the SwitchDispatchVisitor class source (-sd option) : a void visitor walking the tree
+   * in depth-first order without the accept / visit double dispatch : the user nodes visit methods
+   * walk the production structure with switches on the {@link NodeChoice} choices and direct visit
+   * calls on the children casted to their type, and a node of unknown type is dispatched by a
+   * switch on its node kind.
+   * 
+   * @return the buffer with the SwitchDispatchVisitor class source
+   */
+  public StringBuilder genSwitchDispatchVisitor() {
+
+    sb.setLength(0);
+    sb.append(genFileHeaderComment()).append(LS);
+
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Provides default methods which visit each node in the tree in depth-first order,")
+        .append(LS);
+      sb.append(" * without calling the nodes accept methods : the choices are walked by a switch ")
+        .append("on the choice index,<br>").append(LS);
+      sb.append(" * the children are visited by direct calls, and a node of unknown type by a ")
+        .append("switch on its kind<br>").append(LS);
+      sb.append(" * (see {@link ").append(iNode).append("#nodeKind()}).<br>").append(LS);
+      sb.append(" * Start the walk with {@link #dispatch(").append(iNode)
+        .append(")}, and extend this class and override part or all of the visit methods.")
+        .append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(sDVisitor).append(" implements ").append(iVoidVisitor)
+      .append(" {").append(LS).append(LS);
+
+    spc.updateSpc(+1);
+
+    if (javaDocComments) {
+      sb.append(spc.spc).append("/**").append(LS);
+      sb.append(spc.spc).append(" * Visits a node through a switch on its kind.").append(LS);
+      sb.append(spc.spc).append(" *").append(LS);
+      sb.append(spc.spc).append(" * @param ").append(genNodeVar).append(" - the node to visit")
+        .append(LS);
+      sb.append(spc.spc).append(" */").append(LS);
+    }
+    sb.append(spc.spc).append("public void dispatch(final ").append(iNode).append(' ')
+      .append(genNodeVar).append(") {").append(LS);
+    spc.updateSpc(+1);
+    sb.append(spc.spc).append("switch (").append(genNodeVar).append(".nodeKind()) {").append(LS);
+    switchDispatchCase(nodeChoice);
+    switchDispatchCase(nodeList);
+    switchDispatchCase(nodeListOpt);
+    switchDispatchCase(nodeOpt);
+    switchDispatchCase(nodeSeq);
+    switchDispatchCase(nodeToken);
+    switchDispatchCase(nodeTCF);
+    for (final ClassInfo ci : classesList)
+      switchDispatchCase(ci.className);
+    sb.append(spc.spc).append("  default:").append(LS);
+    sb.append(spc.spc).append("    // a node not generated by JTB").append(LS);
+    sb.append(spc.spc).append("    ").append(genNodeVar).append(".accept(this);").append(LS);
+    sb.append(spc.spc).append('}').append(LS);
+    spc.updateSpc(-1);
+    sb.append(spc.spc).append('}').append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append(spc.spc).append("/*").append(LS);
+      sb.append(spc.spc).append(" * Base nodes classes visit methods (to be overridden if necessary)")
+        .append(LS);
+      sb.append(spc.spc).append(" */").append(LS).append(LS);
     }
+    switchDispatchVisit(nodeChoice, "dispatch(" + genNodeVarDot + "choice);");
+    switchDispatchVisit(nodeList, "for (int i = 0; i < " + genNodeVarDot + "size(); i++)" + LS +
+                                  spc.spc + "    dispatch(" + genNodeVarDot + "elementAt(i));");
+    switchDispatchVisit(nodeListOpt, "for (int i = 0; i < " + genNodeVarDot + "size(); i++)" + LS +
+                                     spc.spc + "    dispatch(" + genNodeVarDot + "elementAt(i));");
+    switchDispatchVisit(nodeOpt, "if (" + genNodeVarDot + "present())" + LS + spc.spc +
+                                 "    dispatch(" + genNodeVarDot + "node);");
+    switchDispatchVisit(nodeSeq, "for (int i = 0; i < " + genNodeVarDot + "size(); i++)" + LS +
+                                 spc.spc + "    dispatch(" + genNodeVarDot + "elementAt(i));");
+    switchDispatchVisit(nodeToken, null);
+    switchDispatchVisit(nodeTCF, null);
+
+    if (javaDocComments) {
+      sb.append(spc.spc).append("/*").append(LS);
+      sb.append(spc.spc)
+        .append(" * User grammar generated visit methods (to be overridden if necessary)")
+        .append(LS);
+      sb.append(spc.spc).append(" */").append(LS).append(LS);
+    }
+    final AcceptInliner inl = new AcceptInliner(gdbv);
+    final String consBeg = "void visit(final ";
+    final String consEnd = " ".concat(genNodeVar).concat(")");
+    for (final ClassInfo ci : classesList)
+      userNodeVisitMethod(ci, consBeg, consEnd, false, false, inl);
 
     // end of (visitor) class
     spc.updateSpc(-1);
@@ -364,6 +481,44 @@ public class DepthFirstVisitorsGenerator {
     return sb;
   }
 
+  /**
+   * Generates a case of the SwitchDispatchVisitor dispatch method.
+   * 
+   * @param aClassName - the node class name
+   */
+  void switchDispatchCase(final String aClassName) {
+    sb.append(spc.spc).append("  case ").append(aClassName).append('.').append(nodeKindConst)
+      .append(':').append(LS);
+    sb.append(spc.spc).append("    visit((").append(aClassName).append(") ").append(genNodeVar)
+      .append(");").append(LS);
+    sb.append(spc.spc).append("    return;").append(LS);
+  }
+
+  /**
+   * Generates a SwitchDispatchVisitor visit method.
+   * 
+   * @param aClassName - the visited node class name
+   * @param aBody - the method body statements, without the first indentation (null if none)
+   */
+  void switchDispatchVisit(final String aClassName, final String aBody) {
+    if (javaDocComments) {
+      sb.append(spc.spc).append("/**").append(LS);
+      sb.append(spc.spc).append(" * Visits a {@link ").append(aClassName).append("} node.")
+        .append(LS);
+      sb.append(spc.spc).append(" *").append(LS);
+      sb.append(spc.spc).append(" * @param ").append(genNodeVar).append(" - the node to visit")
+        .append(LS);
+      sb.append(spc.spc).append(" */").append(LS);
+    }
+    sb.append(spc.spc).append("@Override").append(LS);
+    if (aBody == null)
+      sb.append(spc.spc).append("@SuppressWarnings(\"unused\")").append(LS);
+    sb.append(spc.spc).append("public void visit(final ").append(aClassName).append(' ')
+      .append(genNodeVar).append(") {").append(LS);
+    sb.append(spc.spc).append("  ").append(aBody == null ? "return;" : aBody).append(LS);
+    sb.append(spc.spc).append('}').append(LS).append(LS);
+  }
+
   /**
    * Generates a user node class visit method.
    * 
@@ -372,9 +527,12 @@ public class DepthFirstVisitorsGenerator {
    * @param aConsEnd - the end of the visit methods
    * @param aRet - true if there is a user return parameter type, false otherwise
    * @param aArgu - true if there is a user argument parameter type, false otherwise
+   * @param aTypedInl - the accept methods inliner generating the typed visits (for the
+   *          SwitchDispatchVisitor), or null for the other visitors
    */
   void userNodeVisitMethod(final ClassInfo aClassInfo, final String aConsBeg,
-                           final String aConsEnd, final boolean aRet, final boolean aArgu) {
+                           final String aConsEnd, final boolean aRet, final boolean aArgu,
+                           final AcceptInliner aTypedInl) {
     final ClassInfo ci = aClassInfo;
     final String className = ci.className;
 
@@ -416,7 +574,10 @@ public class DepthFirstVisitorsGenerator {
         .append(LS);
     } else
     // non empty node, generate the code to visit it
-    if (inlineAcceptMethods) {
+    if (aTypedInl != null) {
+      // typed visits, no dispatch
+      aTypedInl.genTypedVisits(sb, spc, ci);
+    } else if (inlineAcceptMethods) {
       // inline, call visitor
       accInl.genAcceptMethods(sb, spc, ci, aRet, aArgu);
     } else {
@@ -588,8 +749,7 @@ public class DepthFirstVisitorsGenerator {
     if (aRet)
       sb.append(aSpc.spc).append(genRetType).append(' ').append(genRetVar).append(" = null;")
         .append(LS);
-    sb.append(aSpc.spc).append("for (final Iterator<").append(iNode).append("> e = ")
-      .append(genNodeVar).append(".elements(); e.hasNext();) {").append(LS);
+    listLoopBegin(sb, aSpc);
     aSpc.updateSpc(+1);
     if (depthLevel)
       increaseDepthLevel(sb, aSpc);
@@ -598,7 +758,7 @@ public class DepthFirstVisitorsGenerator {
       sb.append("@SuppressWarnings(\"unused\")").append(LS);
       sb.append(aSpc.spc).append("final ").append(genRetType).append(" sRes = ");
     }
-    sb.append("e.next().accept(this");
+    listLoopElement(sb);
     if (aArgu)
       sb.append(", ").append(genArguVar);
     sb.append(");").append(LS);
@@ -635,8 +795,7 @@ public class DepthFirstVisitorsGenerator {
     if (aRet)
       sb.append(aSpc.spc).append(genRetType).append(' ').append(genRetVar).append(" = null;")
         .append(LS);
-    sb.append(aSpc.spc).append("for (final Iterator<").append(iNode).append("> e = ")
-      .append(genNodeVar).append(".elements(); e.hasNext();) {").append(LS);
+    listLoopBegin(sb, aSpc);
     aSpc.updateSpc(+1);
     if (depthLevel)
       increaseDepthLevel(sb, aSpc);
@@ -645,7 +804,7 @@ public class DepthFirstVisitorsGenerator {
       sb.append("@SuppressWarnings(\"unused\")").append(LS);
       sb.append(aSpc.spc).append(genRetType).append(" sRes = ");
     }
-    sb.append("e.next().accept(this");
+    listLoopElement(sb);
     if (aArgu)
       sb.append(", ").append(genArguVar);
     sb.append(");").append(LS);
@@ -667,6 +826,35 @@ public class DepthFirstVisitorsGenerator {
     return sb;
   }
 
+  /**
+   * Generates the beginning of the loop on the nodes of a {@link NodeList} or a
+   * {@link NodeListOptional} : with the -al option, an indexed loop directly on the nodes array
+   * (no iterator allocation), otherwise a loop on the iterator.
+   * 
+   * @param aSb - the buffer to output into (must be non null)
+   * @param aSpc - the indentation
+   */
+  static void listLoopBegin(final StringBuilder aSb, final Spacing aSpc) {
+    if (arrayLists) {
+      aSb.append(aSpc.spc).append("final ").append(iNode).append("[] nodes = ").append(genNodeVar)
+         .append(".nodes;").append(LS);
+      aSb.append(aSpc.spc).append("for (int i = 0, sz = ").append(genNodeVar)
+         .append(".size(); i < sz; i++) {").append(LS);
+    } else
+      aSb.append(aSpc.spc).append("for (final Iterator<").append(iNode).append("> e = ")
+         .append(genNodeVar).append(".elements(); e.hasNext();) {").append(LS);
+  }
+
+  /**
+   * Generates the beginning of the accept call on the current element of the loop generated by
+   * {@link #listLoopBegin(StringBuilder, Spacing)}.
+   * 
+   * @param aSb - the buffer to output into (must be non null)
+   */
+  static void listLoopElement(final StringBuilder aSb) {
+    aSb.append(arrayLists ? "nodes[i].accept(this" : "e.next().accept(this");
+  }
+
   /**
    * Generates the base node {@link NodeOptional} visit method.
    * 
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import EDU.purdue.jtb.parser.Expansion_;
+import EDU.purdue.jtb.parser.JTBParser;
+import EDU.purdue.jtb.parser.JavaCCErrors;
+import EDU.purdue.jtb.parser.JavaCCGlobals;
+import EDU.purdue.jtb.parser.JavaCCParserInternals;
+import EDU.purdue.jtb.parser.JavaFiles;
+import EDU.purdue.jtb.parser.LexGen;
+import EDU.purdue.jtb.parser.LookaheadWalk;
+import EDU.purdue.jtb.parser.MatchInfo;
+import EDU.purdue.jtb.parser.MetaParseException;
+import EDU.purdue.jtb.parser.MethodSplitter;
+import EDU.purdue.jtb.parser.NfaState;
+import EDU.purdue.jtb.parser.Options;
+import EDU.purdue.jtb.parser.OtherFilesGen;
+import EDU.purdue.jtb.parser.ParseEngine;
+import EDU.purdue.jtb.parser.ParseException;
+import EDU.purdue.jtb.parser.ParseGen;
+import EDU.purdue.jtb.parser.RStringLiteral;
+import EDU.purdue.jtb.parser.Semanticize;
+
+/**
+ * Class EmbeddedJavaCC runs the JavaCC generator embedded in the parser package on the jj output
+ * file (-jcc option) : it is the only one to implement some options (see
+ * {@link Options#EMBEDDED_ONLY_OPTIONS}).<br>
+ * It follows the JavaCC main program steps : the jj file is parsed again (to rebuild the generator
+ * data), then checked, and the parser, the token manager and the other files are generated in the
+ * OUTPUT_DIRECTORY option directory, by default the jj file directory.<br>
+ * The generator data is static : the runs must not overlap (except in different
+ * {@link EDU.purdue.jtb.JTBEngine}s).
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class EmbeddedJavaCC {
+
+  /**
+   * Generates the parser from a jj file.
+   * 
+   * @param aJjFileName - the jj file name
+   * @return the number of errors
+   * @throws IOException - if the jj file cannot be read
+   */
+  public static int generate(final String aJjFileName) throws IOException {
+    reInit();
+    final File jjFile = new File(aJjFileName).getAbsoluteFile();
+    JavaCCGlobals.fileName = JavaCCGlobals.origFileName = jjFile.getPath();
+    JavaCCGlobals.jjtreeGenerated = false;
+    JavaCCGlobals.toolNames = JavaCCGlobals.getToolNames(jjFile.getPath());
+    final InputStream is = new FileInputStream(jjFile);
+    try {
+      new JTBParser(is).JavaCCInput();
+      if (".".equals(Options.getOptions().get("OUTPUT_DIRECTORY")))
+        Options.getOptions().put("OUTPUT_DIRECTORY", jjFile.getParent());
+      JavaCCGlobals.createOutputDir(Options.getOutputDirectory());
+      if (Options.getUnicodeInput())
+        NfaState.unicodeWarningGiven = true;
+      Semanticize.start();
+      final String pn = ParseGen.start();
+      LexGen.start();
+      OtherFilesGen.start(pn);
+    }
+    catch (final MetaParseException e) {
+      // the errors have been reported and counted
+    }
+    catch (final ParseException e) {
+      Messages.err().println(e.getMessage());
+      JavaCCErrors.parse_error("Detected parse error(s) in the jj file.");
+    }
+    finally {
+      is.close();
+    }
+    final int nbErr = JavaCCErrors.get_error_count();
+    Messages.err().println("Embedded JavaCC generator : " + nbErr + " error(s), " +
+                           JavaCCErrors.get_warning_count() + " warning(s).");
+    return nbErr;
+  }
+
+  /**
+   * Reinitializes the generator static data (but not the options).
+   */
+  public static void reInit() {
+    JavaCCGlobals.reInit();
+    JavaCCErrors.reInit();
+    JavaCCParserInternals.reInit();
+    Expansion_.reInit();
+    MatchInfo.reInit();
+    LookaheadWalk.reInit();
+    Semanticize.reInit();
+    LexGen.reInit();
+    NfaState.reInit();
+    MethodSplitter.reInit();
+    RStringLiteral.reInit();
+    ParseEngine.reInit();
+    ParseGen.reInit();
+    JavaFiles.reInit();
+    OtherFilesGen.reInit();
+  }
+}
@@ -55,9 +55,9 @@ package EDU.purdue.jtb.misc;
 
 import static EDU.purdue.jtb.misc.Globals.*;
 
-import java.io.BufferedWriter;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Iterator;
@@ -75,6 +75,7 @@ import java.util.List;
  * @version 1.4.7 : 09/2012 : MMa : added missing generated visit methods (NodeChoice and NodeTCF)
  * @version 1.4.8 : 10/2012 : MMa : tuned javadoc comments for nodes with no child<br>
  *          1.4.8 : 10/2014 : MMa : fixed NPE on classes without fields
+ * @version 1.4.13 : 10/2026 : agent : added the parser Token class file generation (-tf option)
  */
 public class FilesGenerator {
 
@@ -175,9 +176,7 @@ public class FilesGenerator {
         exists = true;
         break;
       }
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 2048));
-      out.print(genNodeClass(null, ci));
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genNodeClass(null, ci), 2048);
     }
     if (noOverwrite && exists)
       throw new FileExistsException("Some of the generated nodes classes files exist");
@@ -258,13 +257,60 @@ public class FilesGenerator {
     if (noOverwrite && file.exists())
       return false;
 
-    final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 2048));
-    out.println(genFileHeaderComment());
-    out.print(classSource);
-    out.close();
+    final StringBuilder sb = new StringBuilder(classSource.length() + 50);
+    sb.append(genFileHeaderComment()).append(LS).append(classSource);
+    GeneratedFilesManifest.writeFile(file, sb, 2048);
     return true;
   }
 
+  /**
+   * Generates the parser Token class file extending the NodeToken class (-tf option) in the parser
+   * directory, before JavaCC runs : as it has no JavaCC checksum, JavaCC keeps it. Without the
+   * option, removes the Token class file formerly generated by JTB, so JavaCC generates its own.
+   * 
+   * @param aDir - the parser directory
+   * @param aPkg - the parser package name ("" if none)
+   * @throws FileExistsException - if the file exists and the no overwrite flag is set
+   * @throws IOException - if any IO Exception
+   */
+  public static void genTokenFile(final File aDir, final String aPkg) throws FileExistsException,
+                                                                      IOException {
+    final File file = new File(aDir, "Token.java");
+    try {
+      if (!tokenFactory) {
+        if (file.exists() && isJTBFile(file) && !file.delete())
+          Messages.softErr("Unable to delete the former \"" + file.getPath() + "\" file.");
+        return;
+      }
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(file.getPath());
+      final StringBuilder sb = new StringBuilder(2048);
+      sb.append(genFileHeaderComment()).append(LS);
+      BaseClasses.genTokenClass(sb, aPkg);
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * @param aFile - an existing file
+   * @return true if the file starts with the JTB header comment, false otherwise
+   * @throws IOException - if any IO Exception
+   */
+  private static boolean isJTBFile(final File aFile) throws IOException {
+    final BufferedReader br = new BufferedReader(new FileReader(aFile));
+    try {
+      final String line = br.readLine();
+      return line != null && line.startsWith("/* Generated by " + PROG_NAME + " ");
+    }
+    finally {
+      br.close();
+    }
+  }
+
   /**
    * Generates the "RetArgu" IVisitor interface source (with return type and a user object
    * argument).
@@ -441,9 +487,7 @@ public class FilesGenerator {
       if (noOverwrite && file.exists())
         throw new FileExistsException(iRetArguVisitor + ".java");
 
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1500));
-      out.print(genRetArguIVisitor(null));
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genRetArguIVisitor(null), 1500);
     }
     catch (final IOException e) {
       Messages.hardErr(e);
@@ -464,9 +508,7 @@ public class FilesGenerator {
       if (noOverwrite && file.exists())
         throw new FileExistsException(iRetVisitor + ".java");
 
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1500));
-      out.print(genRetIVisitor(null));
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genRetIVisitor(null), 1500);
     }
     catch (final IOException e) {
       Messages.hardErr(e);
@@ -487,9 +529,7 @@ public class FilesGenerator {
       if (noOverwrite && file.exists())
         throw new FileExistsException(iVoidArguVisitor + ".java");
 
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1500));
-      out.print(genVoidArguIVisitor(null));
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genVoidArguIVisitor(null), 1500);
     }
     catch (final IOException e) {
       Messages.hardErr(e);
@@ -510,9 +550,7 @@ public class FilesGenerator {
       if (noOverwrite && file.exists())
         throw new FileExistsException(iVoidVisitor + ".java");
 
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1500));
-      out.print(genVoidIVisitor(null));
-      out.close();
+      GeneratedFilesManifest.writeFile(file, genVoidIVisitor(null), 1500);
     }
     catch (final IOException e) {
       Messages.hardErr(e);
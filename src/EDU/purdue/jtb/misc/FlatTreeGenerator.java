@@ -0,0 +1,573 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class FlatTreeGenerator generates the FlatTree class (in the nodes package) and the
+ * FlatTreeBuilder visitor (in the visitors package) : the builder linearizes a tree in preorder
+ * into the parallel arrays of a FlatTree (nodes kinds, subtrees ends, choices indexes, and tokens
+ * kinds, images and positions), which the generated typed cursors navigate by index, so read-only
+ * passes can run over contiguous memory and the nodes tree can be dropped.<br>
+ * The nodes kinds are the ones of the -sd option (see {@link ClassInfo#nodeKind}).<br>
+ * Similar to {@link IterativeVisitorGenerator} class.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class FlatTreeGenerator {
+
+  /** The flat tree class name */
+  public static final String    flatTreeName    = "FlatTree";
+  /** The flat tree builder visitor class name */
+  public static final String    flatBuilderName = "FlatTreeBuilder";
+  /** The typed cursors classes names suffix */
+  public static final String    cursorSuffix    = "Cursor";
+  /** The classes list */
+  private final List<ClassInfo> classList;
+  /** The buffer to print into */
+  protected StringBuilder       sb;
+
+  /**
+   * Constructor.
+   * 
+   * @param classes - the classes list
+   */
+  public FlatTreeGenerator(final List<ClassInfo> classes) {
+    classList = classes;
+    sb = new StringBuilder(4 * 1024 + classes.size() * 300);
+  }
+
+  /**
+   * Generates the FlatTree class file (in the nodes directory).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void genFlatTreeFile() throws FileExistsException, IOException {
+    generateFlatTree();
+    saveToFile(new File(nodesDirName), flatTreeName + ".java");
+  }
+
+  /**
+   * Generates the FlatTreeBuilder visitor file (in the visitors directory).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void genFlatTreeBuilderFile() throws FileExistsException, IOException {
+    generateFlatTreeBuilder();
+    saveToFile(new File(visitorsDirName), flatBuilderName + ".java");
+  }
+
+  /**
+   * Saves the current buffer in an output file. Will create the directory if it does not exist.
+   * 
+   * @param aDir - the output directory
+   * @param aFilename - the output file name
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  private void saveToFile(final File aDir, final String aFilename) throws FileExistsException,
+                                                                   IOException {
+    try {
+      if (!aDir.exists())
+        aDir.mkdir();
+      final File file = new File(aDir, aFilename);
+
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(aFilename);
+
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Generates the FlatTree class source in the buffer.
+   */
+  public void generateFlatTree() {
+    sb.setLength(0);
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(nodesPackageName).append(';').append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * A syntax tree flattened in preorder into parallel arrays (see ")
+        .append("{@link ").append(visitorsPackageName).append('.').append(flatBuilderName)
+        .append("}) :<br>").append(LS);
+      sb.append(" * the subtree of the node at index i spans the indexes i to ends[i] - 1, ")
+        .append("its first child (if any) is at index i + 1<br>").append(LS);
+      sb.append(" * and the next sibling of a child c at index ends[c] (if lower than ends[i]).<br>")
+        .append(LS);
+      sb.append(" * The tokens are stored in their own arrays, in the order of the tree.<br>")
+        .append(LS);
+      sb.append(" * The nested cursors classes give the kind and the fields indexes of the ")
+        .append("grammar nodes.").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(flatTreeName).append(" {").append(LS).append(LS);
+
+    genKindConst(nodeChoice, "NODE_CHOICE", BaseClasses.choiceKind);
+    genKindConst(nodeList, "NODE_LIST", BaseClasses.listKind);
+    genKindConst(nodeListOpt, "NODE_LIST_OPTIONAL", BaseClasses.listOptKind);
+    genKindConst(nodeOpt, "NODE_OPTIONAL", BaseClasses.optKind);
+    genKindConst(nodeSeq, "NODE_SEQUENCE", BaseClasses.seqKind);
+    genKindConst(nodeToken, "NODE_TOKEN", BaseClasses.tokenKind);
+    genKindConst(nodeTCF, "NODE_TCF", BaseClasses.tcfKind);
+
+    final String[][] fields = {
+        { "int", "size", "The number of nodes" },
+        { "int[]", "kinds", "The nodes kinds" },
+        { "int[]", "ends", "The indexes following the nodes subtrees" },
+        { "int[]", "infos", "The choice index of a " + nodeChoice + " node, the token index of a " +
+                            nodeToken + " node, -1 for the other nodes" },
+        { "int", "nbTokens", "The number of tokens" },
+        { "int[]", "tokenKinds", "The tokens kinds" },
+        { "String[]", "images", "The tokens images" },
+        { "int[]", "beginLines", "The tokens first lines" },
+        { "int[]", "beginColumns", "The tokens first columns" },
+        { "int[]", "endLines", "The tokens last lines" },
+        { "int[]", "endColumns", "The tokens last columns" } };
+    for (int i = 0; i < fields.length; i++) {
+      if (javaDocComments)
+        sb.append("  /** ").append(fields[i][2]).append(" */").append(LS);
+      sb.append("  public final ").append(fields[i][0]).append(' ').append(fields[i][1])
+        .append(';').append(LS).append(LS);
+    }
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Constructs a flat tree from its arrays (which are not copied).").append(LS);
+      sb.append("   *").append(LS);
+      for (int i = 0; i < fields.length; i++)
+        sb.append("   * @param ").append(fields[i][1]).append(" - ")
+          .append(Character.toLowerCase(fields[i][2].charAt(0))).append(fields[i][2].substring(1))
+          .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(flatTreeName).append("(");
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0)
+        sb.append(',').append(LS).append("                  ");
+      sb.append("final ").append(fields[i][0]).append(' ').append(fields[i][1]);
+    }
+    sb.append(") {").append(LS);
+    for (int i = 0; i < fields.length; i++)
+      sb.append("    this.").append(fields[i][1]).append(" = ").append(fields[i][1]).append(';')
+        .append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    genNavMethod("Gives the index of the first child of a node.", "the first child index, -1 if none",
+                 "firstChild", "    return i + 1 < ends[i] ? i + 1 : -1;");
+    genNavMethod("Gives the number of children of a node.", "the number of children",
+                 "nbChildren", "    int nb = 0;" + LS +
+                               "    for (int c = i + 1; c < ends[i]; c = ends[c])" + LS +
+                               "      nb++;" + LS + "    return nb;");
+    genNavMethod("Gives the choice index of a " + nodeChoice + " node.", "the choice index",
+                 "which", "    return infos[i];");
+    genNavMethod("Gives the token index of a " + nodeToken + " node.", "the token index",
+                 "token", "    return infos[i];");
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Gives the index of a child of a node.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param i - the node index").append(LS);
+      sb.append("   * @param k - the child rank (0 for the first child)").append(LS);
+      sb.append("   * @return the child index").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public int child(final int i, final int k) {").append(LS);
+    sb.append("    int c = i + 1;").append(LS);
+    sb.append("    for (int j = 0; j < k; j++)").append(LS);
+    sb.append("      c = ends[c];").append(LS);
+    sb.append("    return c;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    for (final ClassInfo ci : classList)
+      genCursor(ci);
+
+    sb.append('}').append(LS);
+  }
+
+  /**
+   * Generates a FlatTree base node kind constant.
+   * 
+   * @param aClassName - the base node class name
+   * @param aConst - the constant name
+   * @param aKind - the node kind
+   */
+  private void genKindConst(final String aClassName, final String aConst, final int aKind) {
+    if (javaDocComments)
+      sb.append("  /** The {@link ").append(aClassName).append("} nodes kind */").append(LS);
+    sb.append("  public static final int ").append(aConst).append(" = ").append(aKind).append(';')
+      .append(LS).append(LS);
+  }
+
+  /**
+   * Generates a FlatTree navigation method on a node index.
+   * 
+   * @param aCmt - the method comment
+   * @param aRet - the return comment
+   * @param aName - the method name
+   * @param aBody - the method body
+   */
+  private void genNavMethod(final String aCmt, final String aRet, final String aName,
+                            final String aBody) {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * ").append(aCmt).append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param i - the node index").append(LS);
+      sb.append("   * @return ").append(aRet).append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public int ").append(aName).append("(final int i) {").append(LS);
+    sb.append(aBody).append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the typed cursor nested class of a grammar node class (its kind and its fields
+   * indexes).
+   * 
+   * @param aCi - the class info
+   */
+  private void genCursor(final ClassInfo aCi) {
+    final String name = aCi.className + cursorSuffix;
+    if (javaDocComments)
+      sb.append("  /** The cursor on the {@link ").append(aCi.className).append("} nodes */")
+        .append(LS);
+    sb.append("  public static final class ").append(name).append(" {").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("    /** The node kind */").append(LS);
+    sb.append("    public static final int KIND = ").append(aCi.nodeKind).append(';').append(LS)
+      .append(LS);
+    if (javaDocComments)
+      sb.append("    /** Not instantiable */").append(LS);
+    sb.append("    private ").append(name).append("() {").append(LS);
+    sb.append("    }").append(LS);
+
+    if (aCi.fieldNames != null) {
+      String idx = "i + 1";
+      for (int k = 0; k < aCi.fieldNames.size(); k++) {
+        sb.append(LS);
+        if (javaDocComments) {
+          sb.append("    /**").append(LS);
+          sb.append("     * Gives the index of the ").append(aCi.fieldNames.get(k))
+            .append(" field (a {@link ").append(aCi.fieldTypes.get(k)).append("}).").append(LS);
+          sb.append("     *").append(LS);
+          sb.append("     * @param t - the flat tree").append(LS);
+          sb.append("     * @param i - the ").append(aCi.className).append(" node index")
+            .append(LS);
+          sb.append("     * @return the field node index").append(LS);
+          sb.append("     */").append(LS);
+        }
+        if (k == 0)
+          sb.append("    @SuppressWarnings(\"unused\")").append(LS);
+        sb.append("    public static int ").append(aCi.fieldNames.get(k)).append("(final ")
+          .append(flatTreeName).append(" t, final int i) {").append(LS);
+        sb.append("      return ").append(idx).append(';').append(LS);
+        sb.append("    }").append(LS);
+        idx = "t.ends[" + idx + "]";
+      }
+    }
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the FlatTreeBuilder visitor source in the buffer.
+   */
+  public void generateFlatTreeBuilder() {
+    sb.setLength(0);
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    sb.append("import java.util.Arrays;").append(LS).append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Linearizes a tree in preorder into a {@link ").append(flatTreeName)
+        .append("} (through {@link #build(").append(iNode).append(")}).<br>").append(LS);
+      sb.append(" * The visit methods record the node and walk its children (the ")
+        .append(nodeChoice).append(" nodes are recorded,<br>").append(LS);
+      sb.append(" * although their accept methods directly call the choice's one).").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(flatBuilderName).append(" implements ").append(iVoidVisitor)
+      .append(" {").append(LS).append(LS);
+
+    final String[][] arrays = {
+        { "int", "kinds", "The nodes kinds" },
+        { "int", "ends", "The indexes following the nodes subtrees" },
+        { "int", "infos", "The nodes choices or tokens indexes" },
+        { "int", "tokenKinds", "The tokens kinds" },
+        { "String", "images", "The tokens images" },
+        { "int", "beginLines", "The tokens first lines" },
+        { "int", "beginColumns", "The tokens first columns" },
+        { "int", "endLines", "The tokens last lines" },
+        { "int", "endColumns", "The tokens last columns" } };
+    for (int i = 0; i < arrays.length; i++) {
+      if (javaDocComments)
+        sb.append("  /** ").append(arrays[i][2]).append(" */").append(LS);
+      sb.append("  protected ").append(arrays[i][0]).append("[] ").append(arrays[i][1])
+        .append(" = new ").append(arrays[i][0]).append(i < 3 ? "[256]" : "[128]").append(';')
+        .append(LS).append(LS);
+    }
+    if (javaDocComments)
+      sb.append("  /** The number of nodes */").append(LS);
+    sb.append("  protected int size = 0;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The number of tokens */").append(LS);
+    sb.append("  protected int nbTokens = 0;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Linearizes a tree.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param root - the root node of the tree").append(LS);
+      sb.append("   * @return the flat tree").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public static ").append(flatTreeName).append(" build(final ").append(iNode)
+      .append(" root) {").append(LS);
+    sb.append("    final ").append(flatBuilderName).append(" b = new ").append(flatBuilderName)
+      .append("();").append(LS);
+    sb.append("    b.walk(root);").append(LS);
+    sb.append("    return b.getFlatTree();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return a flat tree of the nodes walked so far (with trimmed copies of ")
+        .append("the arrays)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(flatTreeName).append(" getFlatTree() {").append(LS);
+    sb.append("    return new ").append(flatTreeName)
+      .append("(size, Arrays.copyOf(kinds, size), Arrays.copyOf(ends, size),").append(LS);
+    sb.append("                        Arrays.copyOf(infos, size), nbTokens, ")
+      .append("Arrays.copyOf(tokenKinds, nbTokens),").append(LS);
+    sb.append("                        Arrays.copyOf(images, nbTokens), ")
+      .append("Arrays.copyOf(beginLines, nbTokens),").append(LS);
+    sb.append("                        Arrays.copyOf(beginColumns, nbTokens), ")
+      .append("Arrays.copyOf(endLines, nbTokens),").append(LS);
+    sb.append("                        Arrays.copyOf(endColumns, nbTokens));").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Resets the builder for a new tree (keeping its arrays).").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void reset() {").append(LS);
+    sb.append("    Arrays.fill(images, 0, nbTokens, null);").append(LS);
+    sb.append("    size = 0;").append(LS);
+    sb.append("    nbTokens = 0;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Walks a node (visiting directly a ").append(nodeChoice).append(").")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void walk(final ").append(iNode).append(" n) {").append(LS);
+    sb.append("    if (n instanceof ").append(nodeChoice).append(')').append(LS);
+    sb.append("      visit((").append(nodeChoice).append(") n);").append(LS);
+    sb.append("    else").append(LS);
+    sb.append("      n.accept(this);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Records a node, before its children.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param kind - the node kind").append(LS);
+      sb.append("   * @param info - the node choice or token index (-1 if none)").append(LS);
+      sb.append("   * @return the node index").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int open(final int kind, final int info) {").append(LS);
+    sb.append("    if (size == kinds.length) {").append(LS);
+    sb.append("      kinds = Arrays.copyOf(kinds, size * 2);").append(LS);
+    sb.append("      ends = Arrays.copyOf(ends, size * 2);").append(LS);
+    sb.append("      infos = Arrays.copyOf(infos, size * 2);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    kinds[size] = kind;").append(LS);
+    sb.append("    infos[size] = info;").append(LS);
+    sb.append("    return size++;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Ends the subtree of a node, after its children.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param i - the node index").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void close(final int i) {").append(LS);
+    sb.append("    ends[i] = size;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Records a token.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the token").append(LS);
+      sb.append("   * @return the token index").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int addToken(final ").append(nodeToken).append(" n) {").append(LS);
+    sb.append("    if (nbTokens == tokenKinds.length) {").append(LS);
+    for (int i = 3; i < arrays.length; i++)
+      sb.append("      ").append(arrays[i][1]).append(" = Arrays.copyOf(").append(arrays[i][1])
+        .append(", nbTokens * 2);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    tokenKinds[nbTokens] = n.kind;").append(LS);
+    sb.append("    images[nbTokens] = n.tokenImage;").append(LS);
+    sb.append("    beginLines[nbTokens] = ").append(BaseClasses.tkPos("n", "beginLine")).append(';')
+      .append(LS);
+    sb.append("    beginColumns[nbTokens] = ").append(BaseClasses.tkPos("n", "beginColumn"))
+      .append(';').append(LS);
+    sb.append("    endLines[nbTokens] = ").append(BaseClasses.tkPos("n", "endLine")).append(';')
+      .append(LS);
+    sb.append("    endColumns[nbTokens] = ").append(BaseClasses.tkPos("n", "endColumn")).append(';')
+      .append(LS);
+    sb.append("    return nbTokens++;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /*").append(LS);
+      sb.append("   * Base nodes classes visit methods").append(LS);
+      sb.append("   */").append(LS).append(LS);
+    }
+    final String loop = "    for (int j = 0; j < n.size(); j++)" + LS + "      walk(n.elementAt(j));";
+    genVisit(nodeChoice, "NODE_CHOICE", "n.which", "    walk(n.choice);");
+    genVisit(nodeList, "NODE_LIST", "-1", loop);
+    genVisit(nodeListOpt, "NODE_LIST_OPTIONAL", "-1", loop);
+    genVisit(nodeOpt, "NODE_OPTIONAL", "-1", "    if (n.present())" + LS + "      walk(n.node);");
+    genVisit(nodeSeq, "NODE_SEQUENCE", "-1", loop);
+    genVisit(nodeToken, "NODE_TOKEN", "addToken(n)", null);
+    genVisit(nodeTCF, "NODE_TCF", "addToken(n)", null);
+
+    if (javaDocComments) {
+      sb.append("  /*").append(LS);
+      sb.append("   * User grammar generated visit methods").append(LS);
+      sb.append("   */").append(LS).append(LS);
+    }
+    final StringBuilder body = new StringBuilder(128);
+    for (final ClassInfo ci : classList) {
+      body.setLength(0);
+      if (ci.fieldNames != null)
+        for (int i = 0; i < ci.fieldNames.size(); i++) {
+          if (body.length() > 0)
+            body.append(LS);
+          if (nodeChoice.equals(ci.fieldTypes.get(i)))
+            body.append("    visit(n.").append(ci.fieldNames.get(i)).append(");");
+          else
+            body.append("    n.").append(ci.fieldNames.get(i)).append(".accept(this);");
+        }
+      genVisit(ci.className, ci.className + cursorSuffix + ".KIND", "-1",
+               body.length() == 0 ? null : body.toString());
+    }
+
+    sb.append('}').append(LS);
+  }
+
+  /**
+   * Generates a FlatTreeBuilder visit method.
+   * 
+   * @param aClassName - the visited node class name
+   * @param aKind - the node kind constant (in the FlatTree class)
+   * @param aInfo - the node info expression
+   * @param aBody - the children walk (null if none)
+   */
+  private void genVisit(final String aClassName, final String aKind, final String aInfo,
+                        final String aBody) {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Records a {@link ").append(aClassName).append("} node")
+        .append(aBody == null ? "." : " and walks its children.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    if (aBody == null && "-1".equals(aInfo))
+      sb.append("  @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("  public void visit(final ").append(aClassName).append(" n) {").append(LS);
+    if (aBody == null)
+      sb.append("    close(open(").append(flatTreeName).append('.').append(aKind).append(", ")
+        .append(aInfo).append("));").append(LS);
+    else {
+      sb.append("    final int i = open(").append(flatTreeName).append('.').append(aKind)
+        .append(", ").append(aInfo).append(");").append(LS);
+      sb.append(aBody).append(LS);
+      sb.append("    close(i);").append(LS);
+    }
+    sb.append("  }").append(LS).append(LS);
+  }
+}
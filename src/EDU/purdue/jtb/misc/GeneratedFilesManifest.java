@@ -0,0 +1,344 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Class GeneratedFilesManifest writes the generated files and, in incremental mode (-inc option),
+ * skips the files whose content has not changed since the previous generation.<br>
+ * In incremental mode a manifest file is kept in each output directory ; it records, for each
+ * generated file, a digest of its content and the length and last modification time of the file.
+ * A file is rewritten only if its new content digest differs from the recorded one or if the file
+ * has been modified or deleted since, so the last modification time of unchanged files is kept and
+ * the downstream build up-to-date checks and incremental compilations can work.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class GeneratedFilesManifest {
+
+  /** The manifest file name (in each output directory) */
+  public static final String                           MANIFEST_FILE_NAME = ".jtb.manifest";
+  /** The digest algorithm */
+  static final String                                  DIGEST_ALGORITHM   = "SHA-1";
+  /** The manifests (a manifest per output directory absolute path) */
+  private static final Map<String, DirManifest>        manifests          = new HashMap<String, DirManifest>();
+  /** The number of written files */
+  private static int                                   nbWritten          = 0;
+  /** The number of skipped (unchanged) files */
+  private static int                                   nbSkipped          = 0;
+
+  /**
+   * Writes a generated file, unless the incremental flag is set and the file content is unchanged.
+   * 
+   * @param aFile - the file to write
+   * @param aContent - the file content
+   * @param aBufSize - the writer buffer size
+   * @return true if the file has been written, false if it has been skipped
+   * @throws IOException if IO problem
+   */
+  public static boolean writeFile(final File aFile, final CharSequence aContent, final int aBufSize)
+                                                                                                   throws IOException {
+    if (!incremental) {
+      write(aFile, aContent, aBufSize);
+      return true;
+    }
+    final String digest = digest(aContent);
+    final DirManifest dm = getDirManifest(aFile.getAbsoluteFile().getParentFile());
+    final String name = aFile.getName();
+    // the files may be generated concurrently (but a given file by only one thread)
+    synchronized (dm) {
+      if (dm.isUnchanged(aFile, name, digest)) {
+        incCounts(false);
+        return false;
+      }
+    }
+    write(aFile, aContent, aBufSize);
+    synchronized (dm) {
+      dm.record(aFile, name, digest);
+    }
+    incCounts(true);
+    return true;
+  }
+
+  /**
+   * Writes a file.
+   * 
+   * @param aFile - the file to write
+   * @param aContent - the file content
+   * @param aBufSize - the writer buffer size
+   * @throws IOException if IO problem
+   */
+  private static void write(final File aFile, final CharSequence aContent, final int aBufSize)
+                                                                                              throws IOException {
+    final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(aFile),
+                                                               aBufSize > 0 ? aBufSize : 2048));
+    out.print(aContent);
+    out.close();
+    if (out.checkError())
+      throw new IOException("Error while writing " + aFile.getPath());
+  }
+
+  /**
+   * Increments the number of written or skipped files.
+   * 
+   * @param aWritten - true for a written file, false for a skipped one
+   */
+  private static synchronized void incCounts(final boolean aWritten) {
+    if (aWritten)
+      nbWritten++;
+    else
+      nbSkipped++;
+  }
+
+  /**
+   * Saves the modified manifests in their output directories.
+   * 
+   * @throws IOException if IO problem
+   */
+  public static synchronized void saveManifests() throws IOException {
+    for (final Iterator<DirManifest> e = manifests.values().iterator(); e.hasNext();) {
+      e.next().save();
+    }
+  }
+
+  /**
+   * Resets the manifests and the counts (for a new generation).
+   */
+  public static synchronized void reset() {
+    manifests.clear();
+    nbWritten = nbSkipped = 0;
+  }
+
+  /**
+   * @return the number of files written in incremental mode
+   */
+  public static synchronized int writtenCount() {
+    return nbWritten;
+  }
+
+  /**
+   * @return the number of unchanged files skipped in incremental mode
+   */
+  public static synchronized int skippedCount() {
+    return nbSkipped;
+  }
+
+  /**
+   * Gets (loading it if necessary) the manifest of a directory.
+   * 
+   * @param aDir - the output directory
+   * @return the directory manifest
+   */
+  private static synchronized DirManifest getDirManifest(final File aDir) {
+    final String key = aDir.getPath();
+    DirManifest dm = manifests.get(key);
+    if (dm == null) {
+      dm = new DirManifest(aDir);
+      manifests.put(key, dm);
+    }
+    return dm;
+  }
+
+  /**
+   * Computes the (hexadecimal) digest of a file content.
+   * 
+   * @param aContent - the file content
+   * @return the digest string
+   */
+  static String digest(final CharSequence aContent) {
+    try {
+      final MessageDigest md = MessageDigest.getInstance(DIGEST_ALGORITHM);
+      final byte[] d = md.digest(aContent.toString().getBytes("UTF-8"));
+      final StringBuilder sb = new StringBuilder(2 * d.length);
+      for (int i = 0; i < d.length; i++) {
+        final int b = d[i] & 0xFF;
+        if (b < 0x10)
+          sb.append('0');
+        sb.append(Integer.toHexString(b));
+      }
+      return sb.toString();
+    }
+    catch (final NoSuchAlgorithmException e) {
+      // should not occur as all JREs must provide SHA-1
+      Messages.hardErr(e);
+      return Integer.toHexString(aContent.toString().hashCode());
+    }
+    catch (final UnsupportedEncodingException e) {
+      // should not occur as all JREs must provide UTF-8
+      Messages.hardErr(e);
+      return Integer.toHexString(aContent.toString().hashCode());
+    }
+  }
+
+  /**
+   * Inner class holding the manifest of an output directory.<br>
+   * Each entry is "file name = digest:length:last modification time".
+   */
+  static class DirManifest {
+
+    /** The output directory */
+    final File       dir;
+    /** The entries */
+    final Properties entries  = new Properties();
+    /** The modified flag */
+    boolean          modified = false;
+
+    /**
+     * Constructor. Loads the existing manifest file if any.
+     * 
+     * @param aDir - the output directory
+     */
+    DirManifest(final File aDir) {
+      dir = aDir;
+      final File mf = new File(dir, MANIFEST_FILE_NAME);
+      if (mf.exists()) {
+        InputStream is = null;
+        try {
+          is = new FileInputStream(mf);
+          entries.load(is);
+        }
+        catch (final IOException e) {
+          // an unreadable manifest just leads to a full regeneration
+          Messages.warning("Unable to read manifest \"" + mf.getPath() +
+                           "\", all files will be regenerated.");
+          entries.clear();
+        }
+        finally {
+          if (is != null)
+            try {
+              is.close();
+            }
+            catch (final IOException e) {
+              // nothing to do
+            }
+        }
+      }
+    }
+
+    /**
+     * Tells whether a file is unchanged.
+     * 
+     * @param aFile - the file
+     * @param aName - the file name
+     * @param aDigest - the new content digest
+     * @return true if the file exists, has not been modified since it was recorded and has the same
+     *         content digest, false otherwise
+     */
+    boolean isUnchanged(final File aFile, final String aName, final String aDigest) {
+      final String entry = entries.getProperty(aName);
+      if (entry == null || !aFile.exists())
+        return false;
+      return entry.equals(entryValue(aFile, aDigest));
+    }
+
+    /**
+     * Records a (just written) file.
+     * 
+     * @param aFile - the file
+     * @param aName - the file name
+     * @param aDigest - the content digest
+     */
+    void record(final File aFile, final String aName, final String aDigest) {
+      entries.setProperty(aName, entryValue(aFile, aDigest));
+      modified = true;
+    }
+
+    /**
+     * Builds an entry value.
+     * 
+     * @param aFile - the file
+     * @param aDigest - the content digest
+     * @return the entry value
+     */
+    static String entryValue(final File aFile, final String aDigest) {
+      return aDigest + ":" + aFile.length() + ":" + aFile.lastModified();
+    }
+
+    /**
+     * Saves the manifest file if it has been modified.
+     * 
+     * @throws IOException if IO problem
+     */
+    void save() throws IOException {
+      if (!modified)
+        return;
+      final OutputStream os = new FileOutputStream(new File(dir, MANIFEST_FILE_NAME));
+      try {
+        entries.store(os, "Generated by " + PROG_NAME + " " + VERSION + " - do not edit");
+      }
+      finally {
+        os.close();
+      }
+      modified = false;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class GenerationScheduler runs the independent files generation jobs (base nodes, nodes, visitor
+ * interfaces, default visitors, tree dumper and formatter...), sequentially or concurrently on a
+ * pool of threads (-threads option).<br>
+ * Each job returns the message to display ; the messages are always displayed in the order the
+ * jobs have been added, so the output does not depend on the number of threads.<br>
+ * The jobs must share only read-only data : {@link #prepare(List)} must be called before running
+ * them concurrently, to compute the {@link ClassInfo} lazily built data.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class GenerationScheduler {
+
+  /** The number of threads */
+  private final int                    nbThreads;
+  /** The jobs */
+  private final List<Callable<String>> jobs = new ArrayList<Callable<String>>();
+
+  /**
+   * Constructor.
+   * 
+   * @param aNbThreads - the number of threads (1 or less for a sequential run in the current thread)
+   */
+  public GenerationScheduler(final int aNbThreads) {
+    nbThreads = aNbThreads;
+  }
+
+  /**
+   * Adds a job.
+   * 
+   * @param aJob - the job, returning the message to display (may be empty but not null)
+   */
+  public void add(final Callable<String> aJob) {
+    jobs.add(aJob);
+  }
+
+  /**
+   * Computes the {@link ClassInfo} data which are otherwise lazily built by the generation
+   * methods through a shared (and not thread safe) {@link EDU.purdue.jtb.visitor.CommentsPrinter}.
+   * 
+   * @param aClasses - the list of {@link ClassInfo} classes instances
+   */
+  public static void prepare(final List<ClassInfo> aClasses) {
+    for (final Iterator<ClassInfo> e = aClasses.iterator(); e.hasNext();) {
+      e.next().genCommentsData();
+    }
+  }
+
+  /**
+   * Runs the jobs and prints their messages in the order the jobs have been added.<br>
+   * In the concurrent case, the first job exception is rethrown after all jobs have terminated.
+   * 
+   * @param aOut - the stream to print the messages on
+   * @throws Exception - the first exception thrown by a job
+   */
+  public void runAll(final PrintStream aOut) throws Exception {
+    if (nbThreads <= 1 || jobs.size() <= 1) {
+      for (final Iterator<Callable<String>> e = jobs.iterator(); e.hasNext();) {
+        aOut.print(e.next().call());
+      }
+      return;
+    }
+    final ExecutorService es = Executors.newFixedThreadPool(Math.min(nbThreads, jobs.size()));
+    try {
+      final List<Future<String>> futures = new ArrayList<Future<String>>(jobs.size());
+      for (final Iterator<Callable<String>> e = jobs.iterator(); e.hasNext();) {
+        futures.add(es.submit(e.next()));
+      }
+      Exception firstEx = null;
+      for (final Iterator<Future<String>> e = futures.iterator(); e.hasNext();) {
+        try {
+          final String msg = e.next().get();
+          if (firstEx == null)
+            aOut.print(msg);
+        }
+        catch (final ExecutionException ex) {
+          if (firstEx == null) {
+            final Throwable t = ex.getCause();
+            if (t instanceof Exception)
+              firstEx = (Exception) t;
+            else if (t instanceof Error)
+              throw (Error) t;
+            else
+              firstEx = ex;
+          }
+        }
+      }
+      if (firstEx != null)
+        throw firstEx;
+    }
+    finally {
+      es.shutdown();
+    }
+  }
+}
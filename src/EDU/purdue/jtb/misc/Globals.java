@@ -70,6 +70,8 @@ import EDU.purdue.jtb.syntaxtree.NodeToken;
  * @version 1.4.0 : 05-11/2009 : MMa : adapted to JavaCC v4.2 grammar and JDK 1.5
  * @version 1.4.1 : 02/2010 : MMa : added static flag
  * @version 1.4.6 : 01/2011 : FA/MMa : added -va and -npfx and -nsfx options
+ * @version 1.4.13 : 10/2026 : agent : added -inc, -threads, -al, -ct, -is, -iv, -pv, -sp, -tf, -sd,
+ *          -fl, -tc, -pc, -ir and -jcc options
  */
 public class Globals {
 
@@ -168,6 +170,11 @@ public class Globals {
   /** Javadoc comment fragment for "Void" visitor */
   public static final String  voidVisitorCmt               = "Void";
 
+  /** Switch dispatch visitor class name (-sd option) */
+  public static final String  sDVisitor                    = "SwitchDispatchVisitor";
+  /** Node kind constant name in the nodes classes (-sd option) */
+  public static final String  nodeKindConst                = "NODE_KIND";
+
   /** Visitor methods return type */
   public static final String  genRetType                   = "R";
   /** Visitor methods user argument (second argument) type */
@@ -187,6 +194,14 @@ public class Globals {
 
   /** The JTB result type variables prefix */
   public static final String  jtbRtPrefix                  = "jtbrt_";
+  /** The JTB streaming consumer interface name (-sp option) */
+  public static final String  jtbConsumerType              = "JTBNodeConsumer";
+  /** The JTB streaming consumer variable name (-sp option) */
+  public static final String  jtbConsumerVar               = "jtbConsumer";
+  /** The JTB streamed productions nesting depth variable name (-sp option) */
+  public static final String  jtbStreamDepthVar            = "jtbStreamDepth";
+  /** The JTB incremental reparser class name (generated in the parser class, -ir option) */
+  public static final String  jtbReparserType              = "JTBReparser";
 
   /*
    * Changeable flags (command line options)
@@ -244,6 +259,87 @@ public class Globals {
    * -printer option which generates TreeDumper and TreeFormatter visitors
    */
   public static boolean       printerToolkit               = false;
+  /**
+   * -inc option which rewrites only the generated files whose content has changed (through a
+   * manifest of the generated files kept in each output directory)
+   */
+  public static boolean       incremental                  = false;
+  /**
+   * -threads option which defines the number of threads used to generate the files (default is 1)
+   */
+  public static int           nbThreads                    = 1;
+  /**
+   * -al option which generates NodeList and NodeListOptional classes storing their nodes in a
+   * plain array (instead of an ArrayList)
+   */
+  public static boolean       arrayLists                   = false;
+  /**
+   * -ct option which generates a compact NodeToken class (packed positions, shared images for the
+   * constant tokens, lazily allocated special tokens array)
+   */
+  public static boolean       compactTokens                = false;
+  /**
+   * -is option which defines how the generated JTBToolkit shares the tokens images : "intern"
+   * (String.intern(), the default), "const" (constant tokens images shared through a per kind
+   * table, other images kept as is) or "cache" (constant tokens images table and a bounded per
+   * thread cache for the other images)
+   */
+  public static String        imagesStrategy               = "intern";
+  /**
+   * -tf option which makes the parser Token class extend the NodeToken class (JavaCC TOKEN_EXTENDS
+   * and TOKEN_FACTORY options), so each token is allocated once, by the token manager, and becomes
+   * the tree node (JTB generates the Token class, which uses the NodeToken kind and positions) ; the
+   * discarded special tokens are recycled (without -tk)
+   */
+  public static boolean       tokenFactory                 = false;
+  /**
+   * -iv option which generates the IterativeDepthFirstVoidVisitor (non recursive walk with an
+   * explicit stack and enter / exit callbacks)
+   */
+  public static boolean       iterativeVisitor             = false;
+  /**
+   * -pv option which generates the ParallelDepthFirst visitors (which visit the large lists
+   * in parallel with fork / join tasks)
+   */
+  public static boolean       parallelVisitor              = false;
+  /**
+   * -sd option which gives each node class a node kind constant (returned by nodeKind()) and
+   * generates the SwitchDispatchVisitor (which dispatches on the node kind instead of calling accept)
+   */
+  public static boolean       switchDispatch               = false;
+  /**
+   * -fl option which generates the FlatTree class and the FlatTreeBuilder visitor (which linearizes
+   * a tree in preorder into parallel arrays navigated by index through typed cursors)
+   */
+  public static boolean       flatTree                     = false;
+  /**
+   * -tc option which generates the TreeCodec class (which writes and reads the trees in a compact
+   * binary format, instead of the java.io.Serializable one)
+   */
+  public static boolean       treeCodec                    = false;
+  /**
+   * -pc option which generates the ParseCache class (which keeps the trees of the parsed sources in
+   * a size bounded cache directory, written by the TreeCodec and reloaded through memory mapped
+   * files) ; implies the -tc option
+   */
+  public static boolean       parseCache                   = false;
+  /**
+   * -ir option which generates the IncrementalReparser class and its JTBReparser subclass in the
+   * parser class (which update a tree after an edit of its source text by reparsing only the
+   * smallest enclosing production)
+   */
+  public static boolean       incrementalReparse           = false;
+  /**
+   * -jcc option which runs the embedded JavaCC generator on the jj output file (needed by the
+   * options it is the only one to implement, like TABLE_DRIVEN_LEXER)
+   */
+  public static boolean       embeddedJavaCC               = false;
+  /**
+   * -sp option which gives the (comma separated) names of the productions whose nodes, when
+   * repeated in a ( )* or ( )+ list, are handed to the parser's streaming consumer (if set) instead
+   * of being stored in the list
+   */
+  public static String        streamedProductions          = "";
   /**
    * static or not option that comes from JavaCC
    */
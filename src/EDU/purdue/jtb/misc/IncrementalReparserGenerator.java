@@ -0,0 +1,754 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class IncrementalReparserGenerator generates the IncrementalReparser class, which updates a tree
+ * after an edit of its source text : it reparses only the smallest production node enclosing the
+ * edit whose first token and following token are unchanged, replaces the old subtree by the new one
+ * in its parent, and shifts the positions of the following tokens, so the nodes and the tokens
+ * outside the reparsed production are reused.<br>
+ * The productions are parsed by the JTBReparser subclass that the {@link EDU.purdue.jtb.visitor.Annotator}
+ * generates in the parser class.<br>
+ * Similar to {@link IterativeVisitorGenerator} class.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ * @version 1.4.13 : 10/2026 : agent : fixed the offsets of the EOF token
+ */
+public class IncrementalReparserGenerator {
+
+  /** The incremental reparser class name */
+  public static final String    reparserName = "IncrementalReparser";
+  /** The incremental reparser source file name */
+  public static final String    outFilename  = reparserName + ".java";
+  /** The visitors directory */
+  private final File            visitorDir;
+  /** The classes list */
+  private final List<ClassInfo> classList;
+  /** The buffer to print into */
+  protected StringBuilder       sb;
+
+  /**
+   * Constructor. Will create the visitors directory if it does not exist.
+   * 
+   * @param classes - the classes list
+   */
+  public IncrementalReparserGenerator(final List<ClassInfo> classes) {
+    classList = classes;
+    visitorDir = new File(visitorsDirName);
+    sb = new StringBuilder(12 * 1024 + classes.size() * 300);
+
+    if (!visitorDir.exists())
+      visitorDir.mkdir();
+  }
+
+  /**
+   * Saves the current buffer in the output file (global variable).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void saveToFile() throws FileExistsException, IOException {
+    try {
+      final File file = new File(visitorDir, outFilename);
+
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(outFilename);
+
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Generates the incremental reparser source in the buffer.
+   */
+  public void generateIncrementalReparser() {
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    sb.append("import java.util.ArrayList;").append(LS);
+    sb.append("import java.util.List;").append(LS).append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Updates a tree after an edit of its source text (see {@link #reparse(").append(iNode)
+        .append(", String, int, int, String)}) :<br>").append(LS);
+      sb.append(" * the deepest production node enclosing the edit is reparsed alone, from its first ")
+        .append("token to the token following it ;<br>").append(LS);
+      sb.append(" * if it does not parse, or if its first token or the following token are relexed ")
+        .append("differently, its parent is tried, and so on ;<br>").append(LS);
+      sb.append(" * the new subtree then replaces the old one in its parent and the positions of the ")
+        .append("following tokens are shifted,<br>").append(LS);
+      sb.append(" * all the other nodes and tokens being kept.<br>").append(LS);
+      sb.append(" * The productions are parsed by the parser's JTBReparser subclass ; only the ")
+        .append("productions without parameters<br>").append(LS);
+      sb.append(" * are reparsed alone.<br>").append(LS);
+      sb.append(" * The result is the one of a full reparse as long as the reparsed production ")
+        .append("is lexed in the default lexical<br>").append(LS);
+      sb.append(" * state, its actions do not depend on the parser's state, and no choice outside ")
+        .append("it looks ahead more than<br>").append(LS);
+      sb.append(" * its first token.<br>").append(LS);
+      sb.append(" * The relexing and reparsing work is proportional to the reparsed production ; ")
+        .append("shifting the following tokens<br>").append(LS);
+      sb.append(" * is a walk over the tree, without relexing.<br>").append(LS);
+      sb.append(" * An instance is not thread safe, but can be reused.").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public abstract class ").append(reparserName).append(" {").append(LS).append(LS);
+
+    if (javaDocComments)
+      sb.append("  /** The tab size (must be the one of the parser's char stream) */").append(LS);
+    sb.append("  public int tabSize = 8;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The source text before and after the edit */").append(LS);
+    sb.append("  protected String oldText, newText;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The offsets of the old text lines starts */").append(LS);
+    sb.append("  protected int[] lineStarts;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The offsets of the edit start, of its end in the old and new texts, and their ")
+        .append("difference */").append(LS);
+    sb.append("  protected int start, oldEnd, newEnd, delta;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The old and new lines and the new column of the edit end (computed on demand) */")
+        .append(LS);
+    sb.append("  protected int oldEndLine, newEndLine, newEndColumn;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The children collecting visitor */").append(LS);
+    sb.append("  protected final Children children = new Children();").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The child setting visitor */").append(LS);
+    sb.append("  protected final Setter setter = new Setter();").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The token shifting visitor */").append(LS);
+    sb.append("  protected final Shifter shifter = new Shifter();").append(LS).append(LS);
+
+    genParse();
+    genReparse();
+    genHelpers();
+    genChildren();
+    genSetter();
+    genShifter();
+
+    sb.append('}').append(LS);
+  }
+
+  /**
+   * Generates the abstract parse method (implemented in the parser).
+   */
+  private void genParse() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Parses a production alone (implemented by the parser's JTBReparser class).")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aNode - the old node, giving the production to parse").append(LS);
+      sb.append("   * @param aText - the text to parse").append(LS);
+      sb.append("   * @param aLine - the line of the text first char").append(LS);
+      sb.append("   * @param aColumn - the column of the text first char").append(LS);
+      sb.append("   * @param aFollow - the token expected after the production (null for the end ")
+        .append("of the text)").append(LS);
+      sb.append("   * @return the new node, or null if the production cannot be parsed alone, ")
+        .append("or if the text does not parse<br>").append(LS);
+      sb.append("   *         or is not followed by the expected token").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected abstract ").append(iNode).append(" parse(final ").append(iNode)
+      .append(" aNode, final String aText, final int aLine,").append(LS);
+    sb.append("                                 final int aColumn, final ").append(nodeToken)
+      .append(" aFollow);").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the reparse method.
+   */
+  private void genReparse() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Updates a tree after an edit of its source text.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aTree - the tree of the old text (updated in place)").append(LS);
+      sb.append("   * @param aOldText - the old text").append(LS);
+      sb.append("   * @param aOffset - the offset of the edit in the old text").append(LS);
+      sb.append("   * @param aRemoved - the number of chars removed at the offset").append(LS);
+      sb.append("   * @param aInserted - the text inserted at the offset").append(LS);
+      sb.append("   * @return the updated tree (a new tree if the root production has been ")
+        .append("reparsed), or null if the new text<br>").append(LS);
+      sb.append("   *         does not parse (a full parse gives then the error)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(iNode).append(" reparse(final ").append(iNode)
+      .append(" aTree, final String aOldText, final int aOffset,").append(LS);
+    sb.append("                       final int aRemoved, final String aInserted) {").append(LS);
+    sb.append("    oldText = aOldText;").append(LS);
+    sb.append("    newText = aOldText.substring(0, aOffset).concat(aInserted)").append(LS);
+    sb.append("                      .concat(aOldText.substring(aOffset + aRemoved));").append(LS);
+    sb.append("    start = aOffset;").append(LS);
+    sb.append("    oldEnd = aOffset + aRemoved;").append(LS);
+    sb.append("    newEnd = aOffset + aInserted.length();").append(LS);
+    sb.append("    delta = newEnd - oldEnd;").append(LS);
+    sb.append("    oldEndLine = -1;").append(LS);
+    sb.append("    lineStarts = lineStarts(aOldText);").append(LS);
+    sb.append("    // descend to the deepest node enclosing the edit, recording the path").append(LS);
+    sb.append("    final List<").append(iNode).append("> path = new ArrayList<").append(iNode)
+      .append(">();").append(LS);
+    sb.append("    final List<Integer> indexes = new ArrayList<Integer>();").append(LS);
+    sb.append("    final List<").append(nodeToken).append("> follows = new ArrayList<")
+      .append(nodeToken).append(">();").append(LS);
+    sb.append("    final List<").append(iNode).append("> list = new ArrayList<").append(iNode)
+      .append(">();").append(LS);
+    sb.append("    ").append(iNode).append(" n = aTree;").append(LS);
+    sb.append("    ").append(nodeToken).append(" follow = null;").append(LS);
+    sb.append("    int index = -1;").append(LS);
+    sb.append("    while (n != null) {").append(LS);
+    sb.append("      path.add(n);").append(LS);
+    sb.append("      indexes.add(Integer.valueOf(index));").append(LS);
+    sb.append("      follows.add(follow);").append(LS);
+    sb.append("      if (n instanceof ").append(nodeToken).append(')').append(LS);
+    sb.append("        break;").append(LS);
+    sb.append("      children(n, list);").append(LS);
+    sb.append("      n = null;").append(LS);
+    sb.append("      // the enclosing child can only be the last one whose first token ends before ")
+      .append("the edit").append(LS);
+    sb.append("      int lo = 0;").append(LS);
+    sb.append("      int hi = list.size() - 1;").append(LS);
+    sb.append("      index = -1;").append(LS);
+    sb.append("      while (lo <= hi) {").append(LS);
+    sb.append("        final int m = (lo + hi) >>> 1;").append(LS);
+    sb.append("        int j = m;").append(LS);
+    sb.append("        ").append(nodeToken).append(" first = null;").append(LS);
+    sb.append("        while (j <= hi && (first = firstToken(list.get(j))) == null)").append(LS);
+    sb.append("          j++;").append(LS);
+    sb.append("        if (first != null && endOffset(first) <= aOffset) {").append(LS);
+    sb.append("          index = j;").append(LS);
+    sb.append("          lo = j + 1;").append(LS);
+    sb.append("        } else").append(LS);
+    sb.append("          hi = m - 1;").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("      if (index < 0 || oldEnd > endOffset(lastToken(list.get(index))))").append(LS);
+    sb.append("        break;").append(LS);
+    sb.append("      n = list.get(index);").append(LS);
+    sb.append("      ").append(nodeToken).append(" f = null;").append(LS);
+    sb.append("      for (int j = index + 1; f == null && j < list.size(); j++)").append(LS);
+    sb.append("        f = firstToken(list.get(j));").append(LS);
+    sb.append("      if (f != null)").append(LS);
+    sb.append("        follow = f;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    // reparse the deepest node which parses alone").append(LS);
+    sb.append("    for (int k = path.size() - 1; k > 0; k--) {").append(LS);
+    sb.append("      final ").append(iNode).append(" old = path.get(k);").append(LS);
+    sb.append("      if (old instanceof ").append(nodeToken).append(')').append(LS);
+    sb.append("        continue;").append(LS);
+    sb.append("      final ").append(nodeToken).append(" first = firstToken(old);").append(LS);
+    sb.append("      final ").append(nodeToken).append(" f = follows.get(k);").append(LS);
+    sb.append("      final int b = beginOffset(first);").append(LS);
+    sb.append("      final int e = f == null ? newText.length() : endOffset(f) + delta;").append(LS);
+    sb.append("      final ").append(iNode).append(" nn = parse(old, newText.substring(b, e), ")
+      .append(BaseClasses.tkPos("first", "beginLine")).append(',').append(LS);
+    sb.append("                             ").append(BaseClasses.tkPos("first", "beginColumn"))
+      .append(", f);").append(LS);
+    sb.append("      if (nn == null)").append(LS);
+    sb.append("        continue;").append(LS);
+    sb.append("      final ").append(nodeToken).append(" nf = firstToken(nn);").append(LS);
+    sb.append("      if (nf == null || nf.kind != first.kind || !nf.tokenImage.equals(first.tokenImage))")
+      .append(LS);
+    sb.append("        continue;").append(LS);
+    sb.append("      for (int i = 0; i < first.numSpecials(); i++)").append(LS);
+    sb.append("        nf.addSpecial(first.getSpecialAt(i));").append(LS);
+    sb.append("      // shift the tokens of the nodes following the path").append(LS);
+    sb.append("      for (int i = k; i > 0; i--) {").append(LS);
+    sb.append("        children(path.get(i - 1), list);").append(LS);
+    sb.append("        for (int j = indexes.get(i).intValue() + 1; j < list.size(); j++)").append(LS);
+    sb.append("          shifter.walk(list.get(j));").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("      setter.set(path.get(k - 1), indexes.get(k).intValue(), nn);").append(LS);
+    sb.append("      return aTree;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    // reparse the whole text").append(LS);
+    sb.append("    return parse(aTree, newText, 1, 1, null);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the offsets, positions and tokens helper methods.
+   */
+  private void genHelpers() {
+    final String bl = BaseClasses.tkPos("t", "beginLine");
+    final String bc = BaseClasses.tkPos("t", "beginColumn");
+    final String el = BaseClasses.tkPos("t", "endLine");
+    final String ec = BaseClasses.tkPos("t", "endColumn");
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Computes the offsets of the lines starts of a text (a line ends after a ")
+        .append("\"\\n\", or after a \"\\r\" not followed<br>").append(LS);
+      sb.append("   * by a \"\\n\", as in the char streams).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aText - the text").append(LS);
+      sb.append("   * @return the offsets (indexed by the lines numbers minus one)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected static int[] lineStarts(final String aText) {").append(LS);
+    sb.append("    int[] ls = new int[64];").append(LS);
+    sb.append("    int nb = 1;").append(LS);
+    sb.append("    final int len = aText.length();").append(LS);
+    sb.append("    for (int i = 0; i < len; i++) {").append(LS);
+    sb.append("      final char c = aText.charAt(i);").append(LS);
+    sb.append("      if (c == '\\n' || (c == '\\r' && (i + 1 == len || aText.charAt(i + 1) != '\\n'))) {")
+      .append(LS);
+    sb.append("        if (nb == ls.length)").append(LS);
+    sb.append("          ls = java.util.Arrays.copyOf(ls, nb * 2);").append(LS);
+    sb.append("        ls[nb++] = i + 1;").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    return java.util.Arrays.copyOf(ls, nb);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the column of a char from the column of the previous char on its line ")
+        .append("(as in the char streams).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aCol - the column of the previous char (0 at the line start)").append(LS);
+      sb.append("   * @param aChar - the char").append(LS);
+      sb.append("   * @return the column of the char").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int column(final int aCol, final char aChar) {").append(LS);
+    sb.append("    return aChar == '\\t' ? aCol + tabSize - aCol % tabSize : aCol + 1;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns a char of a text, or a space past its end, as the EOF token is one column ")
+        .append("after the last char.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aText - a text").append(LS);
+      sb.append("   * @param aIndex - an index in the text or its length").append(LS);
+      sb.append("   * @return the char at the index").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected static char charAt(final String aText, final int aIndex) {").append(LS);
+    sb.append("    return aIndex < aText.length() ? aText.charAt(aIndex) : ' ';").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the offset in the old text of a char given by its position.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aLine - the char line").append(LS);
+      sb.append("   * @param aColumn - the char column").append(LS);
+      sb.append("   * @return the char offset (the text length for the EOF token)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int offset(final int aLine, final int aColumn) {").append(LS);
+    sb.append("    if (aLine < 1)").append(LS);
+    sb.append("      return 0;").append(LS);
+    sb.append("    int i = lineStarts[aLine - 1];").append(LS);
+    sb.append("    int c = column(0, charAt(oldText, i));").append(LS);
+    sb.append("    while (c < aColumn)").append(LS);
+    sb.append("      c = column(c, charAt(oldText, ++i));").append(LS);
+    sb.append("    return i;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @param t - a token").append(LS);
+      sb.append("   * @return the offset of the token first char in the old text").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int beginOffset(final ").append(nodeToken).append(" t) {").append(LS);
+    sb.append("    return offset(").append(bl).append(", ").append(bc).append(");").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @param t - a token").append(LS);
+      sb.append("   * @return the offset following the token last char in the old text").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int endOffset(final ").append(nodeToken).append(" t) {").append(LS);
+    sb.append("    return Math.min(offset(").append(el).append(", ").append(ec)
+      .append(") + 1, oldText.length());").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Computes the line of the edit end in the old text, and its line and column ")
+        .append("in the new text (scanning the<br>").append(LS);
+      sb.append("   * new text from the start of the line preceding the edit, which is the same ")
+        .append("in both texts).").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void locateEditEnd() {").append(LS);
+    sb.append("    int k = lineIndex(oldEnd);").append(LS);
+    sb.append("    oldEndLine = k + 1;").append(LS);
+    sb.append("    k = Math.max(lineIndex(start) - 1, 0);").append(LS);
+    sb.append("    final int s = lineStarts[k];").append(LS);
+    sb.append("    int l = k + 1;").append(LS);
+    sb.append("    int c = 0;").append(LS);
+    sb.append("    for (int i = s; i <= newEnd; i++) {").append(LS);
+    sb.append("      if (i > s) {").append(LS);
+    sb.append("        final char p = newText.charAt(i - 1);").append(LS);
+    sb.append("        if (p == '\\n' || (p == '\\r' && charAt(newText, i) != '\\n')) {").append(LS);
+    sb.append("          l++;").append(LS);
+    sb.append("          c = 0;").append(LS);
+    sb.append("        }").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("      c = column(c, charAt(newText, i));").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    newEndLine = l;").append(LS);
+    sb.append("    newEndColumn = c;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @param aOffset - an offset in the old text").append(LS);
+      sb.append("   * @return the index of the line holding the offset").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int lineIndex(final int aOffset) {").append(LS);
+    sb.append("    int lo = 0;").append(LS);
+    sb.append("    int hi = lineStarts.length - 1;").append(LS);
+    sb.append("    while (lo < hi) {").append(LS);
+    sb.append("      final int m = (lo + hi + 1) >>> 1;").append(LS);
+    sb.append("      if (lineStarts[m] <= aOffset)").append(LS);
+    sb.append("        lo = m;").append(LS);
+    sb.append("      else").append(LS);
+    sb.append("        hi = m - 1;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    return lo;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Returns the new column of a char following the edit end on its line.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aOffset - the char offset in the old text").append(LS);
+      sb.append("   * @return the char column in the new text").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int newColumn(final int aOffset) {").append(LS);
+    sb.append("    int c = newEndColumn;").append(LS);
+    sb.append("    for (int i = newEnd + 1; i <= aOffset + delta; i++)").append(LS);
+    sb.append("      c = column(c, charAt(newText, i));").append(LS);
+    sb.append("    return c;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Shifts the positions of a token following the edit.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param t - the token").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void shift(final ").append(nodeToken).append(" t) {").append(LS);
+    sb.append("    if (oldEndLine < 0)").append(LS);
+    sb.append("      locateEditEnd();").append(LS);
+    sb.append("    final int bl = ").append(bl).append(';').append(LS);
+    sb.append("    final int el = ").append(el).append(';').append(LS);
+    sb.append("    final int dl = newEndLine - oldEndLine;").append(LS);
+    sb.append("    if (bl == oldEndLine)").append(LS);
+    sb.append("      ").append(BaseClasses.tkSetPos("t", "beginColumn", "newColumn(offset(bl, " + bc + "))"))
+      .append(LS);
+    sb.append("    if (el == oldEndLine)").append(LS);
+    sb.append("      ").append(BaseClasses.tkSetPos("t", "endColumn", "newColumn(offset(el, " + ec + "))"))
+      .append(LS);
+    sb.append("    if (dl != 0) {").append(LS);
+    sb.append("      ").append(BaseClasses.tkSetPos("t", "beginLine", "bl + dl")).append(LS);
+    sb.append("      ").append(BaseClasses.tkSetPos("t", "endLine", "el + dl")).append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Collects the children of a node.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aNode - the node").append(LS);
+      sb.append("   * @param aList - the list to collect into (cleared first)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void children(final ").append(iNode).append(" aNode, final List<")
+      .append(iNode).append("> aList) {").append(LS);
+    sb.append("    aList.clear();").append(LS);
+    sb.append("    children.list = aList;").append(LS);
+    sb.append("    if (aNode instanceof ").append(nodeChoice).append(')').append(LS);
+    sb.append("      children.visit((").append(nodeChoice).append(") aNode);").append(LS);
+    sb.append("    else").append(LS);
+    sb.append("      aNode.accept(children);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    genTokenFinder("first", "0", "i < list.size()", "i++");
+    genTokenFinder("last", "list.size() - 1", "i >= 0", "i--");
+  }
+
+  /**
+   * Generates the first or last token finding method.
+   * 
+   * @param aWhich - "first" or "last"
+   * @param aInit - the loop index initial value
+   * @param aCond - the loop condition
+   * @param aIncr - the loop increment
+   */
+  private void genTokenFinder(final String aWhich, final String aInit, final String aCond,
+                              final String aIncr) {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @param aNode - a node").append(LS);
+      sb.append("   * @return the ").append(aWhich).append(" token of the node (null if none)")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected ").append(nodeToken).append(' ').append(aWhich).append("Token(final ")
+      .append(iNode).append(" aNode) {").append(LS);
+    sb.append("    if (aNode instanceof ").append(nodeToken).append(')').append(LS);
+    sb.append("      return (").append(nodeToken).append(") aNode;").append(LS);
+    sb.append("    final List<").append(iNode).append("> list = new ArrayList<").append(iNode)
+      .append(">();").append(LS);
+    sb.append("    children(aNode, list);").append(LS);
+    sb.append("    for (int i = ").append(aInit).append("; ").append(aCond).append("; ").append(aIncr)
+      .append(") {").append(LS);
+    sb.append("      final ").append(nodeToken).append(" t = ").append(aWhich)
+      .append("Token(list.get(i));").append(LS);
+    sb.append("      if (t != null)").append(LS);
+    sb.append("        return t;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    return null;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the children collecting visitor.
+   */
+  private void genChildren() {
+    if (javaDocComments)
+      sb.append("  /** Collects the children of a node into a list */").append(LS);
+    sb.append("  protected static class Children implements ").append(iVoidVisitor).append(" {")
+      .append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("    /** The list to collect into */").append(LS);
+    sb.append("    protected List<").append(iNode).append("> list;").append(LS).append(LS);
+    final String loop = "      for (int i = 0; i < n.size(); i++)" + LS +
+                        "        list.add(n.elementAt(i));";
+    genNestedVisit(nodeChoice, "      list.add(n.choice);");
+    genNestedVisit(nodeList, loop);
+    genNestedVisit(nodeListOpt, loop);
+    genNestedVisit(nodeOpt, "      if (n.present())" + LS + "        list.add(n.node);");
+    genNestedVisit(nodeSeq, loop);
+    genNestedVisit(nodeToken, null);
+    genNestedVisit(nodeTCF, null);
+    final StringBuilder body = new StringBuilder(128);
+    for (final ClassInfo ci : classList) {
+      body.setLength(0);
+      if (ci.fieldNames != null)
+        for (final String fn : ci.fieldNames) {
+          if (body.length() > 0)
+            body.append(LS);
+          body.append("      list.add(n.").append(fn).append(");");
+        }
+      genNestedVisit(ci.className, body.length() == 0 ? null : body.toString());
+    }
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the child setting visitor.
+   */
+  private void genSetter() {
+    if (javaDocComments)
+      sb.append("  /** Replaces a child of a node */").append(LS);
+    sb.append("  protected static class Setter implements ").append(iVoidVisitor).append(" {")
+      .append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("    /** The child index */").append(LS);
+    sb.append("    protected int index;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("    /** The new child */").append(LS);
+    sb.append("    protected ").append(iNode).append(" child;").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Replaces a child of a node.").append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param aParent - the node").append(LS);
+      sb.append("     * @param aIndex - the child index (in the node's children, as collected by ")
+        .append("the Children visitor)").append(LS);
+      sb.append("     * @param aChild - the new child").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    public void set(final ").append(iNode).append(" aParent, final int aIndex, final ")
+      .append(iNode).append(" aChild) {").append(LS);
+    sb.append("      index = aIndex;").append(LS);
+    sb.append("      child = aChild;").append(LS);
+    sb.append("      if (aParent instanceof ").append(nodeChoice).append(')').append(LS);
+    sb.append("        visit((").append(nodeChoice).append(") aParent);").append(LS);
+    sb.append("      else").append(LS);
+    sb.append("        aParent.accept(this);").append(LS);
+    if (parentPointer)
+      sb.append("      aChild.setParent(aParent);").append(LS);
+    sb.append("    }").append(LS).append(LS);
+    final String set = arrayLists ? "      n.nodes[index] = child;" : "      n.nodes.set(index, child);";
+    genNestedVisit(nodeChoice, "      n.choice = child;");
+    genNestedVisit(nodeList, set);
+    genNestedVisit(nodeListOpt, set);
+    genNestedVisit(nodeOpt, "      n.node = child;");
+    genNestedVisit(nodeSeq, "      n.nodes.set(index, child);");
+    genNestedVisit(nodeToken, null);
+    genNestedVisit(nodeTCF, null);
+    final StringBuilder body = new StringBuilder(256);
+    for (final ClassInfo ci : classList) {
+      body.setLength(0);
+      if (ci.fieldNames != null && ci.fieldNames.size() == 1)
+        body.append("      n.").append(ci.fieldNames.get(0)).append(" = (")
+          .append(ci.fieldTypes.get(0)).append(") child;");
+      else if (ci.fieldNames != null && ci.fieldNames.size() > 1) {
+        body.append("      switch (index) {").append(LS);
+        for (int i = 0; i < ci.fieldNames.size(); i++) {
+          body.append("        case ").append(i).append(':').append(LS);
+          body.append("          n.").append(ci.fieldNames.get(i)).append(" = (")
+            .append(ci.fieldTypes.get(i)).append(") child;").append(LS);
+          body.append("          break;").append(LS);
+        }
+        body.append("        default:").append(LS);
+        body.append("          throw new IndexOutOfBoundsException(\"No child \" + index + \" in ")
+          .append(ci.className).append("\");").append(LS);
+        body.append("      }");
+      }
+      genNestedVisit(ci.className, body.length() == 0 ? null : body.toString());
+    }
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the token shifting visitor.
+   */
+  private void genShifter() {
+    if (javaDocComments)
+      sb.append("  /** Shifts the positions of all the tokens of a subtree following the edit */")
+        .append(LS);
+    sb.append("  protected class Shifter implements ").append(iVoidVisitor).append(" {").append(LS)
+      .append(LS);
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Shifts the tokens of a subtree.").append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param aNode - the subtree root").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    public void walk(final ").append(iNode).append(" aNode) {").append(LS);
+    sb.append("      if (aNode instanceof ").append(nodeChoice).append(')').append(LS);
+    sb.append("        visit((").append(nodeChoice).append(") aNode);").append(LS);
+    sb.append("      else").append(LS);
+    sb.append("        aNode.accept(this);").append(LS);
+    sb.append("    }").append(LS).append(LS);
+    final String loop = "      for (int i = 0; i < n.size(); i++)" + LS +
+                        "        walk(n.elementAt(i));";
+    final String tk = "      shift(n);" + LS + "      for (int i = 0; i < n.numSpecials(); i++)" + LS +
+                      "        shift(n.getSpecialAt(i));";
+    genNestedVisit(nodeChoice, "      walk(n.choice);");
+    genNestedVisit(nodeList, loop);
+    genNestedVisit(nodeListOpt, loop);
+    genNestedVisit(nodeOpt, "      if (n.present())" + LS + "        walk(n.node);");
+    genNestedVisit(nodeSeq, loop);
+    genNestedVisit(nodeToken, tk);
+    genNestedVisit(nodeTCF, tk);
+    final StringBuilder body = new StringBuilder(128);
+    for (final ClassInfo ci : classList) {
+      body.setLength(0);
+      if (ci.fieldNames != null)
+        for (final String fn : ci.fieldNames) {
+          if (body.length() > 0)
+            body.append(LS);
+          body.append("      walk(n.").append(fn).append(");");
+        }
+      genNestedVisit(ci.className, body.length() == 0 ? null : body.toString());
+    }
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates a nested visitor visit method.
+   * 
+   * @param aClassName - the visited node class name
+   * @param aBody - the method body (null if none)
+   */
+  private void genNestedVisit(final String aClassName, final String aBody) {
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Visits a {@link ").append(aClassName).append("} node.").append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param n - the node").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    @Override").append(LS);
+    if (aBody == null)
+      sb.append("    @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("    public void visit(final ").append(aClassName).append(" n) {").append(LS);
+    if (aBody == null)
+      sb.append("      // no children").append(LS);
+    else
+      sb.append(aBody).append(LS);
+    sb.append("    }").append(LS).append(LS);
+  }
+}
@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class IterativeVisitorGenerator generates the IterativeDepthFirstVoidVisitor visitor, which walks
+ * the tree in depth-first order without recursion : it uses an explicit, reusable, array based
+ * stack of nodes and calls enter / exit callbacks, so trees of any depth are walked in constant
+ * native stack.<br>
+ * Its visit methods only push the children of the visited node on the stack (in reverse order).<br>
+ * Similar to {@link TreeDumperGenerator} class.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class IterativeVisitorGenerator {
+
+  /** The visitor class name */
+  public static final String    visitorName = "IterativeDepthFirstVoidVisitor";
+  /** The visitor source file name */
+  public static final String    outFilename = visitorName + ".java";
+  /** The visitors directory */
+  private final File            visitorDir;
+  /** The classes list */
+  private final List<ClassInfo> classList;
+  /** The buffer to print into */
+  protected StringBuilder       sb;
+
+  /**
+   * Constructor. Will create the visitors directory if it does not exist.
+   * 
+   * @param classes - the classes list
+   */
+  public IterativeVisitorGenerator(final List<ClassInfo> classes) {
+    classList = classes;
+    visitorDir = new File(visitorsDirName);
+    sb = new StringBuilder(4 * 1024 + classes.size() * 200);
+
+    if (!visitorDir.exists())
+      visitorDir.mkdir();
+  }
+
+  /**
+   * Saves the current buffer in the output file (global variable).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void saveToFile() throws FileExistsException, IOException {
+    try {
+      final File file = new File(visitorDir, outFilename);
+
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(outFilename);
+
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Generates the iterative depth first visitor source in the buffer.
+   */
+  public void generateIterativeVisitor() {
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Provides an iterative (non recursive) depth-first walk of the tree, using an ")
+        .append("explicit,<br>").append(LS);
+      sb.append(" * reusable, array based stack : trees of any depth are walked in constant ")
+        .append("native stack.<br>").append(LS);
+      sb.append(" * Extend this class and override {@link #enter(").append(iNode)
+        .append(")} and {@link #exit(").append(iNode).append(")},<br>").append(LS);
+      sb.append(" * and start the walk with {@link #traverse(").append(iNode).append(")}.<br>")
+        .append(LS);
+      sb.append(" * The visit methods only push the children of the visited node on the stack.")
+        .append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(visitorName).append(" implements ").append(iVoidVisitor)
+      .append(" {").append(LS).append(LS);
+
+    if (javaDocComments)
+      sb.append("  /** The stack of the nodes to enter or exit */").append(LS);
+    sb.append("  protected ").append(iNode).append("[] stack = new ").append(iNode)
+      .append("[64];").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The stack of the flags telling if the node is to be exited (or entered) */")
+        .append(LS);
+    sb.append("  protected boolean[] exits = new boolean[64];").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The number of elements in the stack */").append(LS);
+    sb.append("  protected int top = 0;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The depth of the current node (0 for the root node) */").append(LS);
+    sb.append("  protected int depth = -1;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Walks a tree in depth-first order, calling {@link #enter(").append(iNode)
+        .append(")} before the children of a node<br>").append(LS);
+      sb.append("   * and {@link #exit(").append(iNode).append(")} after them.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param root - the root node of the tree").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void traverse(final ").append(iNode).append(" root) {").append(LS);
+    sb.append("    top = 0;").append(LS);
+    sb.append("    depth = -1;").append(LS);
+    sb.append("    push(root);").append(LS);
+    sb.append("    while (top > 0) {").append(LS);
+    sb.append("      final ").append(iNode).append(" n = stack[--top];").append(LS);
+    sb.append("      stack[top] = null;").append(LS);
+    sb.append("      if (exits[top]) {").append(LS);
+    sb.append("        exit(n);").append(LS);
+    sb.append("        depth--;").append(LS);
+    sb.append("      } else {").append(LS);
+    sb.append("        depth++;").append(LS);
+    sb.append("        if (enter(n)) {").append(LS);
+    sb.append("          pushExit(n);").append(LS);
+    sb.append("          // push the children").append(LS);
+    sb.append("          // (").append(nodeChoice).append(".accept() calls directly the choice's accept())")
+      .append(LS);
+    sb.append("          if (n instanceof ").append(nodeChoice).append(')').append(LS);
+    sb.append("            push(((").append(nodeChoice).append(") n).choice);").append(LS);
+    sb.append("          else").append(LS);
+    sb.append("            n.accept(this);").append(LS);
+    sb.append("        } else").append(LS);
+    sb.append("          depth--;").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Called when a node is entered, before its children.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   * @return true to walk the children of the node (and then exit it), ")
+        .append("false to skip them (and not exit it)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("  public boolean enter(final ").append(iNode).append(" n) {").append(LS);
+    sb.append("    return true;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Called when a node is exited, after its children.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("  public void exit(final ").append(iNode).append(" n) {").append(LS);
+    sb.append("    return;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Pushes a node to be entered (if not null).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void push(final ").append(iNode).append(" n) {").append(LS);
+    sb.append("    if (n == null)").append(LS);
+    sb.append("      return;").append(LS);
+    sb.append("    if (top == stack.length)").append(LS);
+    sb.append("      grow();").append(LS);
+    sb.append("    stack[top] = n;").append(LS);
+    sb.append("    exits[top++] = false;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Pushes a node to be exited.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void pushExit(final ").append(iNode).append(" n) {").append(LS);
+    sb.append("    if (top == stack.length)").append(LS);
+    sb.append("      grow();").append(LS);
+    sb.append("    stack[top] = n;").append(LS);
+    sb.append("    exits[top++] = true;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Doubles the stack size.").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  private void grow() {").append(LS);
+    sb.append("    stack = java.util.Arrays.copyOf(stack, stack.length * 2);").append(LS);
+    sb.append("    exits = java.util.Arrays.copyOf(exits, exits.length * 2);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /*").append(LS);
+      sb.append("   * Base nodes classes visit methods (push the children)").append(LS);
+      sb.append("   */").append(LS).append(LS);
+    }
+    genVisit(nodeChoice, "    push(n.choice);");
+    genVisit(nodeList, "    for (int i = n.size() - 1; i >= 0; i--)" + LS +
+                       "      push(n.elementAt(i));");
+    genVisit(nodeListOpt, "    for (int i = n.size() - 1; i >= 0; i--)" + LS +
+                          "      push(n.elementAt(i));");
+    genVisit(nodeOpt, "    push(n.node);");
+    genVisit(nodeSeq, "    for (int i = n.size() - 1; i >= 0; i--)" + LS +
+                      "      push(n.elementAt(i));");
+    genVisit(nodeTCF, null);
+    genVisit(nodeToken, null);
+
+    if (javaDocComments) {
+      sb.append("  /*").append(LS);
+      sb.append("   * User grammar generated visit methods (push the children)").append(LS);
+      sb.append("   */").append(LS).append(LS);
+    }
+    final StringBuilder body = new StringBuilder(128);
+    for (final ClassInfo ci : classList) {
+      body.setLength(0);
+      if (ci.fieldNames != null)
+        for (int i = ci.fieldNames.size() - 1; i >= 0; i--) {
+          if (body.length() > 0)
+            body.append(LS);
+          body.append("    push(n.").append(ci.fieldNames.get(i)).append(");");
+        }
+      genVisit(ci.className, body.length() == 0 ? null : body.toString());
+    }
+
+    sb.append('}').append(LS);
+  }
+
+  /**
+   * Generates a visit method.
+   * 
+   * @param aClassName - the visited node class name
+   * @param aBody - the method body (null if none)
+   */
+  private void genVisit(final String aClassName, final String aBody) {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Pushes the children of a {@link ").append(aClassName).append("} node.")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @Override").append(LS);
+    if (aBody == null)
+      sb.append("  @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("  public void visit(final ").append(aClassName).append(" n) {").append(LS);
+    sb.append(aBody == null ? "    return;" : aBody).append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+}
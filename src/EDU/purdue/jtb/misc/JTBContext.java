@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.PrintStream;
+
+/**
+ * Class JTBContext holds the per invocation data of a {@link EDU.purdue.jtb.JTBEngine} run : the
+ * options values (the changeable flags and names of {@link Globals}), the streams the messages are
+ * printed on and, after the run, the messages counts and the return code.<br>
+ * The options values of a context are the defaults that the command line and the input file
+ * options overwrite ; they are not modified by a run, so a context can be reused for several runs.<br>
+ * The JTB and JavaCC generator data being static, the engine installs the context in the static
+ * fields ({@link #install()}) before a run, and saves the run results in it (
+ * {@link #saveResults(int)}) after.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class JTBContext {
+
+  /** See {@link Globals#printClassList} */
+  public boolean printClassList        = false;
+  /** See {@link Globals#noOverwrite} */
+  public boolean noOverwrite           = false;
+  /** See {@link Globals#noSemanticCheck} */
+  public boolean noSemanticCheck       = false;
+  /** See {@link Globals#javaDocComments} */
+  public boolean javaDocComments       = false;
+  /** See {@link Globals#descriptiveFieldNames} */
+  public boolean descriptiveFieldNames = false;
+  /** See {@link Globals#parentPointer} */
+  public boolean parentPointer         = false;
+  /** See {@link Globals#depthLevel} */
+  public boolean depthLevel            = false;
+  /** See {@link Globals#keepSpecialTokens} */
+  public boolean keepSpecialTokens     = false;
+  /** See {@link Globals#inlineAcceptMethods} */
+  public boolean inlineAcceptMethods   = false;
+  /** See {@link Globals#varargs} */
+  public boolean varargs               = false;
+  /** See {@link Globals#schemeToolkit} */
+  public boolean schemeToolkit         = false;
+  /** See {@link Globals#printerToolkit} */
+  public boolean printerToolkit        = false;
+  /** See {@link Globals#incremental} */
+  public boolean incremental           = false;
+  /** See {@link Globals#nbThreads} */
+  public int     nbThreads             = 1;
+  /** See {@link Globals#arrayLists} */
+  public boolean arrayLists            = false;
+  /** See {@link Globals#compactTokens} */
+  public boolean compactTokens         = false;
+  /** See {@link Globals#imagesStrategy} */
+  public String  imagesStrategy        = "intern";
+  /** See {@link Globals#tokenFactory} */
+  public boolean tokenFactory          = false;
+  /** See {@link Globals#iterativeVisitor} */
+  public boolean iterativeVisitor      = false;
+  /** See {@link Globals#parallelVisitor} */
+  public boolean parallelVisitor       = false;
+  /** See {@link Globals#switchDispatch} */
+  public boolean switchDispatch        = false;
+  /** See {@link Globals#flatTree} */
+  public boolean flatTree              = false;
+  /** See {@link Globals#treeCodec} */
+  public boolean treeCodec             = false;
+  /** See {@link Globals#parseCache} */
+  public boolean parseCache            = false;
+  /** See {@link Globals#incrementalReparse} */
+  public boolean incrementalReparse    = false;
+  /** See {@link Globals#embeddedJavaCC} */
+  public boolean embeddedJavaCC        = false;
+  /** See {@link Globals#streamedProductions} */
+  public String  streamedProductions   = "";
+  /** See {@link Globals#staticFlag} */
+  public boolean staticFlag            = false;
+  /** See {@link Globals#nodePrefix} */
+  public String  nodePrefix            = DEF_ND_PREFIX;
+  /** See {@link Globals#nodeSuffix} */
+  public String  nodeSuffix            = DEF_ND_SUFFIX;
+  /** See {@link Globals#nodesPackageName} */
+  public String  nodesPackageName      = DEF_ND_PKG_NAME;
+  /** See {@link Globals#visitorsPackageName} */
+  public String  visitorsPackageName   = DEF_VIS_PKG_NAME;
+  /** See {@link Globals#nodesDirName} */
+  public String  nodesDirName          = DEF_ND_DIR_NAME;
+  /** See {@link Globals#visitorsDirName} */
+  public String  visitorsDirName       = DEF_VIS_DIR_NAME;
+  /** See {@link Globals#nodesSuperclass} */
+  public String  nodesSuperclass       = null;
+  /** See {@link Globals#jtbInputFileName} */
+  public String  jtbInputFileName      = null;
+  /** See {@link Globals#jtbOutputFileName} */
+  public String  jtbOutputFileName     = DEF_OUT_FILE_NAME;
+  /** The stream of the informations and of the classes list (see {@link Messages#out()}) */
+  public PrintStream out               = System.out;
+  /** The stream of the progress messages, warnings and errors (see {@link Messages#err()}) */
+  public PrintStream err               = System.err;
+
+  /** The number of informations of the last run */
+  private int    infoCount             = 0;
+  /** The number of warnings of the last run */
+  private int    warningCount          = 0;
+  /** The number of errors of the last run */
+  private int    errorCount            = 0;
+  /** The return code of the last run (see {@link EDU.purdue.jtb.JTB#do_main(String[])}) */
+  private int    returnCode            = 0;
+  /** The number of files written by the last run in incremental mode */
+  private int    writtenCount          = 0;
+  /** The number of unchanged files skipped by the last run in incremental mode */
+  private int    skippedCount          = 0;
+
+  /**
+   * Installs the options values in the {@link Globals} static fields, and the streams and resets the
+   * counts of the {@link Messages}.
+   */
+  public void install() {
+    Globals.printClassList = printClassList;
+    Globals.noOverwrite = noOverwrite;
+    Globals.noSemanticCheck = noSemanticCheck;
+    Globals.javaDocComments = javaDocComments;
+    Globals.descriptiveFieldNames = descriptiveFieldNames;
+    Globals.parentPointer = parentPointer;
+    Globals.depthLevel = depthLevel;
+    Globals.keepSpecialTokens = keepSpecialTokens;
+    Globals.inlineAcceptMethods = inlineAcceptMethods;
+    Globals.varargs = varargs;
+    Globals.schemeToolkit = schemeToolkit;
+    Globals.printerToolkit = printerToolkit;
+    Globals.incremental = incremental;
+    Globals.nbThreads = nbThreads;
+    Globals.arrayLists = arrayLists;
+    Globals.compactTokens = compactTokens;
+    Globals.imagesStrategy = imagesStrategy;
+    Globals.tokenFactory = tokenFactory;
+    Globals.iterativeVisitor = iterativeVisitor;
+    Globals.parallelVisitor = parallelVisitor;
+    Globals.switchDispatch = switchDispatch;
+    Globals.flatTree = flatTree;
+    Globals.treeCodec = treeCodec;
+    Globals.parseCache = parseCache;
+    Globals.incrementalReparse = incrementalReparse;
+    Globals.embeddedJavaCC = embeddedJavaCC;
+    Globals.streamedProductions = streamedProductions;
+    Globals.staticFlag = staticFlag;
+    Globals.nodePrefix = nodePrefix;
+    Globals.nodeSuffix = nodeSuffix;
+    Globals.nodesPackageName = nodesPackageName;
+    Globals.visitorsPackageName = visitorsPackageName;
+    Globals.nodesDirName = nodesDirName;
+    Globals.visitorsDirName = visitorsDirName;
+    Globals.nodesSuperclass = nodesSuperclass;
+    Globals.jtbInputFileName = jtbInputFileName;
+    Globals.jtbOutputFileName = jtbOutputFileName;
+    Messages.setStreams(out, err);
+    Messages.resetCounts();
+  }
+
+  /**
+   * Saves the {@link Messages} counts and the return code of a run.
+   * 
+   * @param aReturnCode - the run return code
+   */
+  public void saveResults(final int aReturnCode) {
+    infoCount = Messages.infoCount();
+    warningCount = Messages.warningCount();
+    errorCount = Messages.errorCount();
+    returnCode = aReturnCode;
+    writtenCount = GeneratedFilesManifest.writtenCount();
+    skippedCount = GeneratedFilesManifest.skippedCount();
+  }
+
+  /**
+   * @return the number of informations of the last run
+   */
+  public int infoCount() {
+    return infoCount;
+  }
+
+  /**
+   * @return the number of warnings of the last run
+   */
+  public int warningCount() {
+    return warningCount;
+  }
+
+  /**
+   * @return the number of errors of the last run
+   */
+  public int errorCount() {
+    return errorCount;
+  }
+
+  /**
+   * @return the return code of the last run
+   */
+  public int returnCode() {
+    return returnCode;
+  }
+
+  /**
+   * @return the number of files written by the last run in incremental mode
+   */
+  public int writtenCount() {
+    return writtenCount;
+  }
+
+  /**
+   * @return the number of unchanged files skipped by the last run in incremental mode
+   */
+  public int skippedCount() {
+    return skippedCount;
+  }
+}
@@ -56,6 +56,8 @@ package EDU.purdue.jtb.misc;
 import static EDU.purdue.jtb.misc.Globals.SUPPORT;
 import static EDU.purdue.jtb.misc.Globals.jtbInputFileName;
 
+import java.io.PrintStream;
+
 /**
  * Class Messages handles messages (informations, warnings and fatal errors), printing a message to
  * the user and handling it appropriately.
@@ -65,26 +67,57 @@ import static EDU.purdue.jtb.misc.Globals.jtbInputFileName;
  * @version 1.4.7 : 09/2012 : MMa : fixed missing "soft error" label ; added column numbers
  * @version 1.4.8 : 10/2014 : MMa : fixed extra space before column number for "soft error"
  * @version 1.4.10 : 04/2015 : MMa : removed System.exit() in hardErr
+ * @version 1.4.13 : 10/2026 : agent : synchronized the counts (for the -threads option) ; added the
+ *          streams (for the {@link JTBContext})
  */
 public class Messages {
 
   /** The number of errors */
-  private static int numErrors   = 0;
+  private static int         numErrors   = 0;
   /** The number of warnings */
-  private static int numWarnings = 0;
+  private static int         numWarnings = 0;
   /** The number of informations */
-  private static int numInfos    = 0;
+  private static int         numInfos    = 0;
+  /** The stream of the informations */
+  private static PrintStream out         = System.out;
+  /** The stream of the warnings and errors */
+  private static PrintStream err         = System.err;
+
+  /**
+   * Sets the streams the messages are printed on.
+   * 
+   * @param aOut - the stream of the informations
+   * @param aErr - the stream of the warnings and errors
+   */
+  public static synchronized void setStreams(final PrintStream aOut, final PrintStream aErr) {
+    out = aOut;
+    err = aErr;
+  }
+
+  /**
+   * @return the stream of the informations (System.out by default)
+   */
+  public static synchronized PrintStream out() {
+    return out;
+  }
+
+  /**
+   * @return the stream of the warnings and errors (System.err by default)
+   */
+  public static synchronized PrintStream err() {
+    return err;
+  }
 
   /**
-   * Prints on System.err the number of informations, warnings and errors
+   * Prints on the errors stream the number of informations, warnings and errors
    */
   public static void printSummary() {
-    System.err.println(numInfos + " informations, " + numWarnings + " warnings, " + numErrors +
-                       " errors.");
+    err.println(numInfos + " informations, " + numWarnings + " warnings, " + numErrors +
+                " errors.");
   }
 
   /**
-   * Prints on System.out an information text.
+   * Prints on the informations stream an information text.
    * 
    * @param s - the information text
    */
@@ -93,24 +126,24 @@ public class Messages {
   }
 
   /**
-   * Prints on System.out an information text and its line number.
+   * Prints on the informations stream an information text and its line number.
    * 
    * @param s - the information text
    * @param lineNum - the information line number
    * @param colNum - the information column number
    */
-  public static void info(final String s, final int lineNum, final int colNum) {
+  public static synchronized void info(final String s, final int lineNum, final int colNum) {
     if (lineNum == -1)
-      System.out.println(jtbInputFileName + ":  info:  " + s);
+      out.println(jtbInputFileName + ":  info:  " + s);
     else
-      System.out.println(jtbInputFileName + " (" + Integer.toString(lineNum) + "," +
-                         Integer.toString(colNum) + "):  info:  " + s);
+      out.println(jtbInputFileName + " (" + Integer.toString(lineNum) + "," +
+                  Integer.toString(colNum) + "):  info:  " + s);
 
     ++numInfos;
   }
 
   /**
-   * Prints on System.err a warning text.
+   * Prints on the errors stream a warning text.
    * 
    * @param s - the warning text
    */
@@ -119,24 +152,24 @@ public class Messages {
   }
 
   /**
-   * Prints on System.err a warning text and its line number.
+   * Prints on the errors stream a warning text and its line number.
    * 
    * @param s - the warning text
    * @param lineNum - the warning line number
    * @param colNum - the warning column number
    */
-  public static void warning(final String s, final int lineNum, final int colNum) {
+  public static synchronized void warning(final String s, final int lineNum, final int colNum) {
     if (lineNum == -1)
-      System.err.println(jtbInputFileName + ":  warning:  " + s);
+      err.println(jtbInputFileName + ":  warning:  " + s);
     else
-      System.err.println(jtbInputFileName + " (" + Integer.toString(lineNum) + "," +
-                         Integer.toString(colNum) + "):  warning:  " + s);
+      err.println(jtbInputFileName + " (" + Integer.toString(lineNum) + "," +
+                  Integer.toString(colNum) + "):  warning:  " + s);
 
     ++numWarnings;
   }
 
   /**
-   * Prints on System.err a soft (non fatal) error text.
+   * Prints on the errors stream a soft (non fatal) error text.
    * 
    * @param s - an error text
    */
@@ -145,24 +178,24 @@ public class Messages {
   }
 
   /**
-   * Prints on System.err a soft (non fatal) error text and its line number.
+   * Prints on the errors stream a soft (non fatal) error text and its line number.
    * 
    * @param s - the error text
    * @param lineNum - the error line number
    * @param colNum - the error column number
    */
-  public static void softErr(final String s, final int lineNum, final int colNum) {
+  public static synchronized void softErr(final String s, final int lineNum, final int colNum) {
     if (lineNum == -1)
-      System.err.println(jtbInputFileName + ":  soft error:  " + s);
+      err.println(jtbInputFileName + ":  soft error:  " + s);
     else
-      System.err.println(jtbInputFileName + " (" + Integer.toString(lineNum) + "," +
-                         Integer.toString(colNum) + "):  soft error:  " + s);
+      err.println(jtbInputFileName + " (" + Integer.toString(lineNum) + "," +
+                  Integer.toString(colNum) + "):  soft error:  " + s);
 
     ++numErrors;
   }
 
   //  /**
-  //   * Prints on System.err a message.
+  //   * Prints on the errors stream a message.
   //   * 
   //   * @param s - a message
   //   */
@@ -171,50 +204,50 @@ public class Messages {
   //  }
 
   /**
-   * Prints on System.err a fatal error message and the stack trace.
+   * Prints on the errors stream a fatal error message and the stack trace.
    * 
    * @param s - a message
    */
   public static void hardErr(final String s) {
     final String msg = jtbInputFileName + ":  unexpected program error:  " + s;
-    System.err.println();
-    System.err.println(msg);
-    System.err.println("Please report this to " + SUPPORT);
-    System.err.println();
-    new Throwable().printStackTrace();
+    err.println();
+    err.println(msg);
+    err.println("Please report this to " + SUPPORT);
+    err.println();
+    new Throwable().printStackTrace(err);
   }
 
   /**
-   * Prints on System.err a fatal error message and the stack trace.
+   * Prints on the errors stream a fatal error message and the stack trace.
    * 
    * @param t - a Throwable
    */
   public static void hardErr(final Throwable t) {
-    System.err.println();
-    System.err.println(jtbInputFileName + ":  unexpected program error:  " + t.getMessage());
-    System.err.println("Please report this to " + SUPPORT);
-    System.err.println();
-    t.printStackTrace();
+    err.println();
+    err.println(jtbInputFileName + ":  unexpected program error:  " + t.getMessage());
+    err.println("Please report this to " + SUPPORT);
+    err.println();
+    t.printStackTrace(err);
   }
 
   /**
    * @return the number of informations
    */
-  public static int infoCount() {
+  public static synchronized int infoCount() {
     return numInfos;
   }
 
   /**
    * @return the number of warnings
    */
-  public static int warningCount() {
+  public static synchronized int warningCount() {
     return numWarnings;
   }
 
   /**
    * @return the number of errors
    */
-  public static int errorCount() {
+  public static synchronized int errorCount() {
     return numErrors;
   }
 
@@ -223,7 +256,7 @@ public class Messages {
    * 
    * @param i - the number of errors
    */
-  public static void setErrorCount(final int i) {
+  public static synchronized void setErrorCount(final int i) {
     numErrors = i;
   }
 
@@ -232,7 +265,7 @@ public class Messages {
    * 
    * @param i - the number of warnings
    */
-  public static void setWarningCount(final int i) {
+  public static synchronized void setWarningCount(final int i) {
     numWarnings = i;
   }
 
@@ -241,14 +274,14 @@ public class Messages {
    * 
    * @param i - the number of informations
    */
-  public static void setInfoCount(final int i) {
+  public static synchronized void setInfoCount(final int i) {
     numInfos = i;
   }
 
   /**
    * Resets to zero the number of errors and warnings.
    */
-  public static void resetCounts() {
+  public static synchronized void resetCounts() {
     numErrors = numWarnings = numInfos = 0;
   }
 }
@@ -0,0 +1,460 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class ParallelVisitorsGenerator generates one of the ParallelDepthFirst visitors, which extend
+ * the DepthFirst visitors and walk the elements of the large {@link Globals#nodeList} and
+ * {@link Globals#nodeListOpt} nodes in parallel : above a (configurable) size threshold, the list
+ * elements are split in ranges visited by fork / join tasks in a ForkJoinPool.<br>
+ * The "Ret" variants combine the results of the elements through an overridable merge method.<br>
+ * The visitors share one default pool (held by the void visitor), and the tasks visit their ranges
+ * with the visitor given by an overridable fork method (the visitor itself by default), whose state
+ * is merged back through an overridable join method. The depth level (-dl option) is not
+ * maintained by the tasks, so the two options are exclusive.<br>
+ * The generated classes need a Java 7 runtime.<br>
+ * Similar to {@link IterativeVisitorGenerator} class.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class ParallelVisitorsGenerator {
+
+  /** The visitor class name prefix */
+  public static final String prefix = "Parallel";
+  /** The visitors directory */
+  private final File         visitorDir;
+  /** The visitor class name */
+  private final String       visitorName;
+  /** The DepthFirst visitor class name the visitor extends */
+  private final String       superName;
+  /** The true if the visitor has a return type, false otherwise */
+  private final boolean      ret;
+  /** The true if the visitor has a user argument, false otherwise */
+  private final boolean      argu;
+  /** The buffer to print into */
+  protected StringBuilder    sb;
+
+  /**
+   * Constructor. Will create the visitors directory if it does not exist.
+   * 
+   * @param aRet - true for a visitor with a return type, false otherwise
+   * @param aArgu - true for a visitor with a user argument, false otherwise
+   */
+  public ParallelVisitorsGenerator(final boolean aRet, final boolean aArgu) {
+    ret = aRet;
+    argu = aArgu;
+    superName = aRet ? (aArgu ? dFRetArguVisitor : dFRetVisitor) : (aArgu ? dFVoidArguVisitor
+                                                                         : dFVoidVisitor);
+    visitorName = getVisitorName(aRet, aArgu);
+    visitorDir = new File(visitorsDirName);
+    sb = new StringBuilder(6 * 1024);
+
+    if (!visitorDir.exists())
+      visitorDir.mkdir();
+  }
+
+  /**
+   * Gives a parallel visitor class name.
+   * 
+   * @param aRet - true for a visitor with a return type, false otherwise
+   * @param aArgu - true for a visitor with a user argument, false otherwise
+   * @return the visitor class name
+   */
+  public static String getVisitorName(final boolean aRet, final boolean aArgu) {
+    return prefix +
+           (aRet ? (aArgu ? dFRetArguVisitor : dFRetVisitor) : (aArgu ? dFVoidArguVisitor
+                                                                     : dFVoidVisitor));
+  }
+
+  /**
+   * Saves the current buffer in the output file (global variable).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void saveToFile() throws FileExistsException, IOException {
+    final String outFilename = visitorName + ".java";
+    try {
+      final File file = new File(visitorDir, outFilename);
+
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(outFilename);
+
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Generates the parallel depth first visitor source in the buffer.
+   */
+  public void generateParallelVisitor() {
+    // type parameters, return type, user argument parameter & variable
+    final String tp = ret ? (argu ? "<" + genRetType + ", " + genArguType + ">" : "<" +
+                                                                                 genRetType + ">")
+                         : (argu ? "<" + genArguType + ">" : "");
+    final String rt = ret ? genRetType : "void";
+    final String ap = argu ? ", final " + (varargs ? genArgusType : genArguType) + " " +
+                             genArguVar : "";
+    final String av = argu ? ", " + genArguVar : "";
+    final String tk = ret ? "RecursiveTask<" + genRetType + ">" : "RecursiveAction";
+
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    sb.append("import java.util.concurrent.ForkJoinPool;").append(LS);
+    sb.append("import java.util.concurrent.ForkJoinTask;").append(LS);
+    sb.append("import java.util.concurrent.").append(ret ? "RecursiveTask" : "RecursiveAction")
+      .append(';').append(LS).append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Provides a depth-first walk of the tree which visits in parallel the elements ")
+        .append("of the ").append(nodeList).append(" and ").append(nodeListOpt).append(LS);
+      sb.append(" * nodes whose size reaches a threshold : the elements are split in ranges ")
+        .append("visited by fork / join tasks.<br>").append(LS);
+      if (ret)
+        sb.append(" * The results of the elements are combined by {@link #merge(Object, Object)}.<br>")
+          .append(LS);
+      sb.append(" * The visitor instance and the user argument are shared by the tasks : if the visitor ")
+        .append("holds a state which<br>").append(LS);
+      sb.append(" * is not thread safe, override {@link #forkVisitor()} to give a new instance to ")
+        .append("each task, and<br>").append(LS);
+      sb.append(" * {@link #joinVisitor(").append(visitorName)
+        .append(")} to merge its state back into this visitor.").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(visitorName).append(tp).append(" extends ").append(superName)
+      .append(tp).append(" {").append(LS).append(LS);
+
+    if (javaDocComments)
+      sb.append("  /** The default minimum list size visited in parallel */").append(LS);
+    sb.append("  public static final int DEFAULT_THRESHOLD = 64;").append(LS).append(LS);
+    final String poolOwner = getVisitorName(false, false);
+    if (!ret && !argu) {
+      if (javaDocComments)
+        sb.append("  /** The holder of the default pool (created on first use) */").append(LS);
+      sb.append("  private static final class PoolHolder {").append(LS);
+      sb.append("    static final ForkJoinPool POOL = new ForkJoinPool();").append(LS);
+      sb.append("  }").append(LS).append(LS);
+
+      if (javaDocComments) {
+        sb.append("  /**").append(LS);
+        sb.append("   * @return the default pool, shared by all the parallel visitors").append(LS);
+        sb.append("   */").append(LS);
+      }
+      sb.append("  public static ForkJoinPool defaultPool() {").append(LS);
+      sb.append("    return PoolHolder.POOL;").append(LS);
+      sb.append("  }").append(LS).append(LS);
+    }
+    if (javaDocComments)
+      sb.append("  /** The pool running the tasks */").append(LS);
+    sb.append("  protected final ForkJoinPool pool;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The minimum list size visited in parallel (and maximum range size of a task) */")
+        .append(LS);
+    sb.append("  protected final int threshold;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Constructor with the default pool and threshold.").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(visitorName).append("() {").append(LS);
+    sb.append("    this(").append(ret || argu ? poolOwner + "." : "")
+      .append("defaultPool(), DEFAULT_THRESHOLD);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Constructor.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aPool - the pool running the tasks").append(LS);
+      sb.append("   * @param aThreshold - the minimum list size visited in parallel (at least 2)")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(visitorName)
+      .append("(final ForkJoinPool aPool, final int aThreshold) {").append(LS);
+    sb.append("    pool = aPool;").append(LS);
+    sb.append("    threshold = aThreshold < 2 ? 2 : aThreshold;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Gives the visitor used by a task to visit its range of elements.<br>")
+        .append(LS);
+      sb.append("   * Override it to return a new instance if the visitor holds a state which ")
+        .append("is not thread safe.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return this visitor").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected ").append(visitorName).append(tp).append(" forkVisitor() {")
+      .append(LS);
+    sb.append("    return this;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Merges the state of a visitor given by {@link #forkVisitor()} into this ")
+        .append("visitor, after it has visited<br>").append(LS);
+      sb.append("   * its range of elements (not called if it is this visitor).<br>").append(LS);
+      sb.append("   * The calls are serialized (under this visitor lock), in no particular order.")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aVis - the forked visitor").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("  protected void joinVisitor(final ").append(visitorName).append(tp)
+      .append(" aVis) {").append(LS);
+    sb.append("    return;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (ret) {
+      if (javaDocComments) {
+        sb.append("  /**").append(LS);
+        sb.append("   * Combines the results of two consecutive elements (or ranges of elements) ")
+          .append("of a list, in order.<br>").append(LS);
+        sb.append("   * Override it to return a combined result ; it must be associative, ")
+          .append("as ranges are merged in parallel.").append(LS);
+        sb.append("   *").append(LS);
+        sb.append("   * @param aLeft - the left result (null before the first element)")
+          .append(LS);
+        sb.append("   * @param aRight - the right result").append(LS);
+        sb.append("   * @return the combined result (null by default, as in the ")
+          .append(superName).append(" list visits)").append(LS);
+        sb.append("   */").append(LS);
+      }
+      sb.append("  @SuppressWarnings(\"unused\")").append(LS);
+      sb.append("  protected ").append(genRetType).append(" merge(final ").append(genRetType)
+        .append(" aLeft, final ").append(genRetType).append(" aRight) {").append(LS);
+      sb.append("    return null;").append(LS);
+      sb.append("  }").append(LS).append(LS);
+    }
+
+    sb.append("  @Override").append(LS);
+    sb.append("  public ").append(rt).append(" visit(final ").append(nodeList).append(" n")
+      .append(ap).append(") {").append(LS);
+    sb.append("    ").append(ret ? "return " : "").append("visitList(n").append(av).append(");")
+      .append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    sb.append("  @Override").append(LS);
+    sb.append("  public ").append(rt).append(" visit(final ").append(nodeListOpt).append(" n")
+      .append(ap).append(") {").append(LS);
+    sb.append("    if (n.present())").append(LS);
+    sb.append("      ").append(ret ? "return " : "").append("visitList(n").append(av)
+      .append(");").append(LS);
+    if (ret) {
+      sb.append("    else").append(LS);
+      sb.append("      return null;").append(LS);
+    }
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Visits the elements of a list, sequentially if its size is below the ")
+        .append("threshold, in parallel otherwise.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the list node").append(LS);
+      if (argu)
+        sb.append("   * @param ").append(genArguVar).append(" - the user argument").append(LS);
+      if (ret)
+        sb.append("   * @return the merged results of the elements").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected ").append(rt).append(" visitList(final ").append(iNodeList)
+      .append(" n").append(ap).append(") {").append(LS);
+    sb.append("    final int sz = n.size();").append(LS);
+    sb.append("    if (sz < threshold) {").append(LS);
+    if (ret) {
+      sb.append("      ").append(genRetType).append(" nRes = null;").append(LS);
+      sb.append("      for (int i = 0; i < sz; i++)").append(LS);
+      sb.append("        nRes = merge(nRes, n.elementAt(i).accept(this").append(av).append("));")
+        .append(LS);
+      sb.append("      return nRes;").append(LS);
+    } else {
+      sb.append("      for (int i = 0; i < sz; i++)").append(LS);
+      sb.append("        n.elementAt(i).accept(this").append(av).append(");").append(LS);
+      sb.append("      return;").append(LS);
+    }
+    sb.append("    }").append(LS);
+    sb.append("    final ListTask task = new ListTask(n, 0, sz").append(av).append(");")
+      .append(LS);
+    sb.append("    // already in a task of the pool : run it in the current worker, otherwise submit it")
+      .append(LS);
+    if (ret)
+      sb.append("    return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);")
+        .append(LS);
+    else {
+      sb.append("    if (ForkJoinTask.getPool() == pool)").append(LS);
+      sb.append("      task.invoke();").append(LS);
+      sb.append("    else").append(LS);
+      sb.append("      pool.invoke(task);").append(LS);
+    }
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * The task visiting a range of elements of a list, splitting it in halves ")
+        .append("while it is above the threshold.").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected class ListTask extends ").append(tk).append(" {").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("    /** Default serialVersionUID */").append(LS);
+    sb.append("    private static final long serialVersionUID = 1L;").append(LS);
+    if (javaDocComments)
+      sb.append("    /** The list node */").append(LS);
+    sb.append("    private final ").append(iNodeList).append(" list;").append(LS);
+    if (javaDocComments)
+      sb.append("    /** The range start index (inclusive) */").append(LS);
+    sb.append("    private final int from;").append(LS);
+    if (javaDocComments)
+      sb.append("    /** The range end index (exclusive) */").append(LS);
+    sb.append("    private final int to;").append(LS);
+    if (argu) {
+      if (javaDocComments)
+        sb.append("    /** The user argument */").append(LS);
+      sb.append("    private final ").append(varargs ? genArguType + "[]" : genArguType)
+        .append(" ").append(genArguVar).append(";").append(LS);
+    }
+    sb.append(LS);
+
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Constructor.").append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param aList - the list node").append(LS);
+      sb.append("     * @param aFrom - the range start index (inclusive)").append(LS);
+      sb.append("     * @param aTo - the range end index (exclusive)").append(LS);
+      if (argu)
+        sb.append("     * @param aArgu - the user argument").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    ListTask(final ").append(iNodeList).append(" aList, final int aFrom, final int aTo");
+    if (argu)
+      sb.append(", final ").append(varargs ? genArguType + "[]" : genArguType).append(" aArgu");
+    sb.append(") {").append(LS);
+    sb.append("      list = aList;").append(LS);
+    sb.append("      from = aFrom;").append(LS);
+    sb.append("      to = aTo;").append(LS);
+    if (argu)
+      sb.append("      ").append(genArguVar).append(" = aArgu;").append(LS);
+    sb.append("    }").append(LS).append(LS);
+
+    sb.append("    @Override").append(LS);
+    sb.append("    protected ").append(rt).append(" compute() {").append(LS);
+    sb.append("      if (to - from <= threshold) {").append(LS);
+    sb.append("        final ").append(visitorName).append(tp).append(" vis = forkVisitor();")
+      .append(LS);
+    if (ret) {
+      sb.append("        ").append(genRetType).append(" nRes = null;").append(LS);
+      sb.append("        for (int i = from; i < to; i++)").append(LS);
+      sb.append("          nRes = merge(nRes, list.elementAt(i).accept(vis").append(av)
+        .append("));").append(LS);
+      sb.append("        joinForked(vis);").append(LS);
+      sb.append("        return nRes;").append(LS);
+    } else {
+      sb.append("        for (int i = from; i < to; i++)").append(LS);
+      sb.append("          list.elementAt(i).accept(vis").append(av).append(");").append(LS);
+      sb.append("        joinForked(vis);").append(LS);
+      sb.append("        return;").append(LS);
+    }
+    sb.append("      }").append(LS);
+    sb.append("      final int mid = (from + to) >>> 1;").append(LS);
+    sb.append("      final ListTask left = new ListTask(list, from, mid").append(av).append(");")
+      .append(LS);
+    sb.append("      left.fork();").append(LS);
+    if (ret) {
+      sb.append("      final ").append(genRetType).append(" right = new ListTask(list, mid, to")
+        .append(av).append(").compute();").append(LS);
+      sb.append("      return merge(left.join(), right);").append(LS);
+    } else {
+      sb.append("      new ListTask(list, mid, to").append(av).append(").compute();").append(LS);
+      sb.append("      left.join();").append(LS);
+    }
+    sb.append("    }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Merges the state of a forked visitor into the outer visitor.").append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param aVis - the visitor given by {@link #forkVisitor()}").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    private void joinForked(final ").append(visitorName).append(tp).append(" aVis) {")
+      .append(LS);
+    sb.append("      final ").append(visitorName).append(tp).append(" outer = ")
+      .append(visitorName).append(".this;").append(LS);
+    sb.append("      if (aVis != outer)").append(LS);
+    sb.append("        synchronized (outer) {").append(LS);
+    sb.append("          outer.joinVisitor(aVis);").append(LS);
+    sb.append("        }").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS);
+    sb.append("}").append(LS);
+  }
+}
@@ -0,0 +1,526 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class ParseCacheGenerator generates the ParseCache class, a facade around the parser which keeps
+ * the trees of the parsed sources in a cache directory, keyed by a hash of the sources contents :
+ * the trees are written by the TreeCodec (see {@link TreeCodecGenerator}) and reloaded through a
+ * memory mapped file, so a cache hit does not run the parser (nor the token manager).<br>
+ * The cache size on disk is bounded, the least recently used entries being evicted, and the entries
+ * written with another grammar (their TreeCodec signature differs) are rejected and replaced.<br>
+ * As JTB does not know the parser package, the parser is given to the cache through a callback.<br>
+ * Similar to {@link IterativeVisitorGenerator} class.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class ParseCacheGenerator {
+
+  /** The cache class name */
+  public static final String cacheName   = "ParseCache";
+  /** The cache source file name */
+  public static final String outFilename = cacheName + ".java";
+  /** The visitors directory */
+  private final File         visitorDir;
+  /** The buffer to print into */
+  protected StringBuilder    sb;
+
+  /**
+   * Constructor. Will create the visitors directory if it does not exist.
+   */
+  public ParseCacheGenerator() {
+    visitorDir = new File(visitorsDirName);
+    sb = new StringBuilder(12 * 1024);
+
+    if (!visitorDir.exists())
+      visitorDir.mkdir();
+  }
+
+  /**
+   * Saves the current buffer in the output file (global variable).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void saveToFile() throws FileExistsException, IOException {
+    try {
+      final File file = new File(visitorDir, outFilename);
+
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(outFilename);
+
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Generates the parse cache source in the buffer.
+   */
+  public void generateParseCache() {
+    final String codec = TreeCodecGenerator.codecName;
+
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    sb.append("import java.io.BufferedOutputStream;").append(LS);
+    sb.append("import java.io.DataInputStream;").append(LS);
+    sb.append("import java.io.DataOutputStream;").append(LS);
+    sb.append("import java.io.File;").append(LS);
+    sb.append("import java.io.FileOutputStream;").append(LS);
+    sb.append("import java.io.IOException;").append(LS);
+    sb.append("import java.io.InputStream;").append(LS);
+    sb.append("import java.io.RandomAccessFile;").append(LS);
+    sb.append("import java.io.Reader;").append(LS);
+    sb.append("import java.io.StringReader;").append(LS);
+    sb.append("import java.nio.ByteBuffer;").append(LS);
+    sb.append("import java.nio.channels.FileChannel;").append(LS);
+    sb.append("import java.security.MessageDigest;").append(LS);
+    sb.append("import java.security.NoSuchAlgorithmException;").append(LS);
+    sb.append("import java.util.Arrays;").append(LS);
+    sb.append("import java.util.Comparator;").append(LS);
+    sb.append("import java.util.Iterator;").append(LS);
+    sb.append("import java.util.LinkedHashMap;").append(LS);
+    sb.append("import java.util.Map;").append(LS).append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * A facade around the parser keeping the trees of the parsed sources in a cache ")
+        .append("directory, keyed by<br>").append(LS);
+      sb.append(" * a hash of the sources contents : the trees are written by the {@link ")
+        .append(codec).append("} and reloaded through<br>").append(LS);
+      sb.append(" * a memory mapped file, so a cache hit does not run the parser.<br>").append(LS);
+      sb.append(" * The cache size on disk is bounded, the least recently used entries being ")
+        .append("evicted (the files last<br>").append(LS);
+      sb.append(" * modification times keep the order across the restarts), and the entries ")
+        .append("written with another grammar<br>").append(LS);
+      sb.append(" * (with another {@link ").append(codec).append("#SIGNATURE}) are rejected and ")
+        .append("replaced.").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(cacheName).append(" {").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * The parser of the sources which are not in the cache.").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public interface Parser {").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Parses a source (usually by calling the root production of a new parser).")
+        .append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param aReader - the source reader").append(LS);
+      sb.append("     * @return the tree").append(LS);
+      sb.append("     * @throws Exception if parse problem").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    ").append(iNode).append(" parse(Reader aReader) throws Exception;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments)
+      sb.append("  /** The cache files extension */").append(LS);
+    sb.append("  public static final String EXT = \".tree\";").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The cache directory */").append(LS);
+    sb.append("  protected final File dir;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The maximum size of the cache files (in bytes) */").append(LS);
+    sb.append("  protected final long maxBytes;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The parser */").append(LS);
+    sb.append("  protected final Parser parser;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The cache files sizes, the least recently used first */").append(LS);
+    sb.append("  protected final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(64, 0.75f, true);")
+      .append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The total size of the cache files (in bytes) */").append(LS);
+    sb.append("  protected long totalBytes = 0;").append(LS).append(LS);
+
+    genConstructor();
+    genParseMethods();
+    genKey();
+    genLoadStore();
+    genBookkeeping();
+    genBufferInputStream();
+
+    sb.append('}').append(LS);
+  }
+
+  /**
+   * Generates the constructor (which loads the entries of an existing cache directory).
+   */
+  private void genConstructor() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Constructs a cache, loading the entries already in its directory (and ")
+        .append("creating it if needed).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aDir - the cache directory").append(LS);
+      sb.append("   * @param aMaxBytes - the maximum size of the cache files (in bytes)").append(LS);
+      sb.append("   * @param aParser - the parser of the sources which are not in the cache")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(cacheName)
+      .append("(final File aDir, final long aMaxBytes, final Parser aParser) {").append(LS);
+    sb.append("    dir = aDir;").append(LS);
+    sb.append("    maxBytes = aMaxBytes;").append(LS);
+    sb.append("    parser = aParser;").append(LS);
+    sb.append("    if (!dir.exists())").append(LS);
+    sb.append("      dir.mkdirs();").append(LS);
+    sb.append("    final File[] files = dir.listFiles();").append(LS);
+    sb.append("    if (files == null)").append(LS);
+    sb.append("      return;").append(LS);
+    sb.append("    Arrays.sort(files, new Comparator<File>() {").append(LS).append(LS);
+    sb.append("      @Override").append(LS);
+    sb.append("      public int compare(final File f1, final File f2) {").append(LS);
+    sb.append("        final long d = f1.lastModified() - f2.lastModified();").append(LS);
+    sb.append("        return d < 0 ? -1 : d > 0 ? 1 : 0;").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("    });").append(LS);
+    sb.append("    for (final File f : files) {").append(LS);
+    sb.append("      if (f.getName().endsWith(EXT)) {").append(LS);
+    sb.append("        entries.put(f.getName(), Long.valueOf(f.length()));").append(LS);
+    sb.append("        totalBytes += f.length();").append(LS);
+    sb.append("      } else if (f.getName().endsWith(\".tmp\"))").append(LS);
+    sb.append("        // left by an interrupted store").append(LS);
+    sb.append("        f.delete();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    evict();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the public parse methods.
+   */
+  private void genParseMethods() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Gives the tree of a source, reloaded from the cache if present and written ")
+        .append("with the current grammar,<br>").append(LS);
+      sb.append("   * otherwise parsed and stored in the cache.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aSource - the source").append(LS);
+      sb.append("   * @return the tree").append(LS);
+      sb.append("   * @throws Exception if parse problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(iNode).append(" parse(final String aSource) throws Exception {")
+      .append(LS);
+    sb.append("    final String name = key(aSource) + EXT;").append(LS);
+    sb.append("    final File file = new File(dir, name);").append(LS);
+    sb.append("    if (touch(name)) {").append(LS);
+    sb.append("      try {").append(LS);
+    sb.append("        final ").append(iNode).append(" n = load(file);").append(LS);
+    sb.append("        file.setLastModified(System.currentTimeMillis());").append(LS);
+    sb.append("        return n;").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("      catch (final Exception e) {").append(LS);
+    sb.append("        // stale (written with another grammar) or corrupted entry").append(LS);
+    sb.append("        remove(name);").append(LS);
+    sb.append("      }").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    final ").append(iNode).append(" n = parser.parse(new StringReader(aSource));")
+      .append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      store(n, name);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    catch (final IOException e) {").append(LS);
+    sb.append("      // the source will be parsed again next time").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    return n;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Gives the tree of a source file (see {@link #parse(String)}).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aFile - the source file").append(LS);
+      sb.append("   * @param aCharset - the source file charset name").append(LS);
+      sb.append("   * @return the tree").append(LS);
+      sb.append("   * @throws Exception if IO or parse problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(iNode)
+      .append(" parse(final File aFile, final String aCharset) throws Exception {").append(LS);
+    sb.append("    final RandomAccessFile raf = new RandomAccessFile(aFile, \"r\");").append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      final byte[] b = new byte[(int) raf.length()];").append(LS);
+    sb.append("      raf.readFully(b);").append(LS);
+    sb.append("      return parse(new String(b, aCharset));").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    finally {").append(LS);
+    sb.append("      raf.close();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the key method.
+   */
+  private void genKey() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Computes the key of a source (the hexadecimal SHA-256 hash of its UTF-8 bytes).")
+        .append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aSource - the source").append(LS);
+      sb.append("   * @return the key").append(LS);
+      sb.append("   * @throws IOException if the UTF-8 charset or the SHA-256 algorithm is missing")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public static String key(final String aSource) throws IOException {").append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      final byte[] h = MessageDigest.getInstance(\"SHA-256\").digest(aSource.getBytes(\"UTF-8\"));")
+      .append(LS);
+    sb.append("      final StringBuilder buf = new StringBuilder(2 * h.length);").append(LS);
+    sb.append("      for (final byte b : h)").append(LS);
+    sb.append("        buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));")
+      .append(LS);
+    sb.append("      return buf.toString();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    catch (final NoSuchAlgorithmException e) {").append(LS);
+    sb.append("      throw new IOException(e.getMessage());").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the load and store methods.
+   */
+  private void genLoadStore() {
+    final String codec = TreeCodecGenerator.codecName;
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reloads a tree from a cache file, through a memory mapped buffer.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aFile - the cache file").append(LS);
+      sb.append("   * @return the tree").append(LS);
+      sb.append("   * @throws IOException if IO problem or if the tree was written with another ")
+        .append("grammar").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected ").append(iNode).append(" load(final File aFile) throws IOException {")
+      .append(LS);
+    sb.append("    final RandomAccessFile raf = new RandomAccessFile(aFile, \"r\");").append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      final FileChannel ch = raf.getChannel();").append(LS);
+    sb.append("      final ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());")
+      .append(LS);
+    sb.append("      return new ").append(codec)
+      .append("().read(new DataInputStream(new BufferInputStream(buf)));").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    finally {").append(LS);
+    sb.append("      raf.close();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Stores a tree in a cache file (written in a temporary file then renamed), ")
+        .append("evicting the least<br>").append(LS);
+      sb.append("   * recently used entries if the cache becomes too large.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aNode - the tree").append(LS);
+      sb.append("   * @param aName - the cache file name").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void store(final ").append(iNode)
+      .append(" aNode, final String aName) throws IOException {").append(LS);
+    sb.append("    final File tmp = File.createTempFile(\"jtb\", \".tmp\", dir);").append(LS);
+    sb.append("    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));")
+      .append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      new ").append(codec).append("().write(aNode, out);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    finally {").append(LS);
+    sb.append("      out.close();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    final File file = new File(dir, aName);").append(LS);
+    sb.append("    if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {").append(LS);
+    sb.append("      tmp.delete();").append(LS);
+    sb.append("      throw new IOException(\"Could not rename \" + tmp + \" to \" + file);")
+      .append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    add(aName, file.length());").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the entries bookkeeping methods.
+   */
+  private void genBookkeeping() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Marks an entry as the most recently used one.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aName - the cache file name").append(LS);
+      sb.append("   * @return true if the entry is in the cache, false otherwise").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected synchronized boolean touch(final String aName) {").append(LS);
+    sb.append("    return entries.get(aName) != null;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Adds (or replaces) an entry as the most recently used one, and evicts the ")
+        .append("least recently used ones<br>").append(LS);
+      sb.append("   * if the cache becomes too large.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aName - the cache file name").append(LS);
+      sb.append("   * @param aLength - the cache file size").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected synchronized void add(final String aName, final long aLength) {")
+      .append(LS);
+    sb.append("    final Long old = entries.put(aName, Long.valueOf(aLength));").append(LS);
+    sb.append("    if (old != null)").append(LS);
+    sb.append("      totalBytes -= old.longValue();").append(LS);
+    sb.append("    totalBytes += aLength;").append(LS);
+    sb.append("    evict();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Removes an entry and its file.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aName - the cache file name").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected synchronized void remove(final String aName) {").append(LS);
+    sb.append("    final Long old = entries.remove(aName);").append(LS);
+    sb.append("    if (old != null)").append(LS);
+    sb.append("      totalBytes -= old.longValue();").append(LS);
+    sb.append("    new File(dir, aName).delete();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Evicts the least recently used entries while the cache is too large (keeping ")
+        .append("at least the last one).").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected synchronized void evict() {").append(LS);
+    sb.append("    final Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();")
+      .append(LS);
+    sb.append("    while (totalBytes > maxBytes && entries.size() > 1) {").append(LS);
+    sb.append("      final Map.Entry<String, Long> e = it.next();").append(LS);
+    sb.append("      new File(dir, e.getKey()).delete();").append(LS);
+    sb.append("      totalBytes -= e.getValue().longValue();").append(LS);
+    sb.append("      it.remove();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * @return the total size of the cache files (in bytes)").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public synchronized long size() {").append(LS);
+    sb.append("    return totalBytes;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the nested input stream on a byte buffer.
+   */
+  private void genBufferInputStream() {
+    if (javaDocComments)
+      sb.append("  /** An input stream reading a byte buffer */").append(LS);
+    sb.append("  protected static class BufferInputStream extends InputStream {").append(LS)
+      .append(LS);
+    if (javaDocComments)
+      sb.append("    /** The byte buffer */").append(LS);
+    sb.append("    private final ByteBuffer buf;").append(LS).append(LS);
+    if (javaDocComments) {
+      sb.append("    /**").append(LS);
+      sb.append("     * Constructs the stream.").append(LS);
+      sb.append("     *").append(LS);
+      sb.append("     * @param aBuf - the byte buffer").append(LS);
+      sb.append("     */").append(LS);
+    }
+    sb.append("    public BufferInputStream(final ByteBuffer aBuf) {").append(LS);
+    sb.append("      buf = aBuf;").append(LS);
+    sb.append("    }").append(LS).append(LS);
+    sb.append("    @Override").append(LS);
+    sb.append("    public int read() {").append(LS);
+    sb.append("      return buf.hasRemaining() ? buf.get() & 0xFF : -1;").append(LS);
+    sb.append("    }").append(LS).append(LS);
+    sb.append("    @Override").append(LS);
+    sb.append("    public int read(final byte[] b, final int off, final int len) {").append(LS);
+    sb.append("      if (!buf.hasRemaining())").append(LS);
+    sb.append("        return -1;").append(LS);
+    sb.append("      final int n = Math.min(len, buf.remaining());").append(LS);
+    sb.append("      buf.get(b, off, n);").append(LS);
+    sb.append("      return n;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+}
@@ -0,0 +1,714 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class TreeCodecGenerator generates the TreeCodec class, which writes a tree to a DataOutput and
+ * reads it back from a DataInput in a compact binary format (instead of the java.io.Serializable
+ * one) : the nodes kinds (when the type of a node is not known from its parent), the choices
+ * indexes, the lists lengths and the tokens kinds and positions are written as varints, and the
+ * tokens images as references into a string table deduplicated on the fly.<br>
+ * The grammar nodes classes are written and read field by field, as given by the
+ * {@link ClassInfo} fields lists ; the nodes kinds are the ones of the -sd option (see
+ * {@link ClassInfo#nodeKind}).<br>
+ * Similar to {@link IterativeVisitorGenerator} class.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class TreeCodecGenerator {
+
+  /** The codec class name */
+  public static final String    codecName   = "TreeCodec";
+  /** The codec source file name */
+  public static final String    outFilename = codecName + ".java";
+  /** The visitors directory */
+  private final File            visitorDir;
+  /** The classes list */
+  private final List<ClassInfo> classList;
+  /** The names of the classes with their own write and read methods */
+  private final Set<String>     typedNames  = new HashSet<String>();
+  /** The buffer to print into */
+  protected StringBuilder       sb;
+
+  /**
+   * Constructor. Will create the visitors directory if it does not exist.
+   * 
+   * @param classes - the classes list
+   */
+  public TreeCodecGenerator(final List<ClassInfo> classes) {
+    classList = classes;
+    visitorDir = new File(visitorsDirName);
+    sb = new StringBuilder(8 * 1024 + classes.size() * 400);
+
+    if (!visitorDir.exists())
+      visitorDir.mkdir();
+  }
+
+  /**
+   * Saves the current buffer in the output file (global variable).
+   * 
+   * @throws FileExistsException - if the file exists and the noOverwrite flag is set
+   * @throws IOException if IO problem
+   */
+  public void saveToFile() throws FileExistsException, IOException {
+    try {
+      final File file = new File(visitorDir, outFilename);
+
+      if (noOverwrite && file.exists())
+        throw new FileExistsException(outFilename);
+
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
+    }
+    catch (final IOException e) {
+      Messages.hardErr(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Computes the grammar signature : a 64 bits FNV-1a hash of the nodes classes names and fields
+   * types (and of the -tk option, which changes the tokens format).
+   * 
+   * @return the signature
+   */
+  long signature() {
+    final StringBuilder buf = new StringBuilder(1024);
+    buf.append(keepSpecialTokens ? "tk" : "").append(';');
+    for (final ClassInfo ci : classList) {
+      buf.append(ci.className).append(':').append(ci.nodeKind);
+      if (ci.fieldTypes != null)
+        for (final String ft : ci.fieldTypes)
+          buf.append(',').append(ft);
+      buf.append(';');
+    }
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < buf.length(); i++) {
+      h ^= buf.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+
+  /**
+   * Generates the tree codec source in the buffer.
+   */
+  public void generateTreeCodec() {
+    typedNames.clear();
+    typedNames.add(nodeChoice);
+    typedNames.add(nodeList);
+    typedNames.add(nodeListOpt);
+    typedNames.add(nodeOpt);
+    typedNames.add(nodeSeq);
+    typedNames.add(nodeToken);
+    typedNames.add(nodeTCF);
+    for (final ClassInfo ci : classList)
+      typedNames.add(ci.className);
+
+    sb.append(genFileHeaderComment()).append(LS);
+    sb.append("package ").append(visitorsPackageName).append(';').append(LS).append(LS);
+    sb.append("import java.io.DataInput;").append(LS);
+    sb.append("import java.io.DataOutput;").append(LS);
+    sb.append("import java.io.IOException;").append(LS);
+    sb.append("import java.util.ArrayList;").append(LS);
+    sb.append("import java.util.HashMap;").append(LS);
+    if (keepSpecialTokens)
+      sb.append("import java.util.List;").append(LS);
+    sb.append(LS);
+    if (!visitorsPackageName.equals(nodesPackageName))
+      sb.append("import ").append(nodesPackageName).append(".*;").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("/**").append(LS);
+      sb.append(" * Writes a tree to a DataOutput and reads it back from a DataInput in a compact ")
+        .append("binary format :<br>").append(LS);
+      sb.append(" * the grammar signature, then the nodes in preorder, the kind of a node being ")
+        .append("written only when its type<br>").append(LS);
+      sb.append(" * is not known from its parent ; the choices indexes, lists lengths and tokens ")
+        .append("kinds and positions are varints,<br>").append(LS);
+      sb.append(" * the tokens images are references into a string table deduplicated on the fly.<br>")
+        .append(LS);
+      sb.append(" * An instance is not thread safe, but can be reused.").append(LS);
+      sb.append(" */").append(LS);
+    }
+    sb.append("public class ").append(codecName).append(" {").append(LS).append(LS);
+
+    if (javaDocComments)
+      sb.append("  /** The grammar signature (a hash of the nodes classes and their fields types) */")
+        .append(LS);
+    sb.append("  public static final long SIGNATURE = 0x").append(Long.toHexString(signature()))
+      .append("L;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The current output */").append(LS);
+    sb.append("  protected DataOutput out;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The current input */").append(LS);
+    sb.append("  protected DataInput in;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The written strings table (string to index) */").append(LS);
+    sb.append("  protected final HashMap<String, Integer> outStrings = new HashMap<String, Integer>();")
+      .append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The read strings table */").append(LS);
+    sb.append("  protected final ArrayList<String> inStrings = new ArrayList<String>();").append(LS)
+      .append(LS);
+    if (javaDocComments)
+      sb.append("  /** The line of the last written or read token (the lines are written as deltas) */")
+        .append(LS);
+    sb.append("  protected int lastLine;").append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("  /** The visitor giving the kinds of the nodes */").append(LS);
+    sb.append("  protected final KindGetter kindGetter = new KindGetter();").append(LS).append(LS);
+
+    genWriteRead();
+    genVarints();
+    genINodeMethods();
+
+    if (javaDocComments) {
+      sb.append("  /*").append(LS);
+      sb.append("   * Base nodes classes write and read methods").append(LS);
+      sb.append("   */").append(LS).append(LS);
+    }
+    genChoiceMethods();
+    genListMethods(nodeList);
+    genListMethods(nodeListOpt);
+    genOptMethods();
+    genListMethods(nodeSeq);
+    genTokenMethods(nodeToken);
+    genTokenMethods(nodeTCF);
+
+    if (javaDocComments) {
+      sb.append("  /*").append(LS);
+      sb.append("   * User grammar generated write and read methods").append(LS);
+      sb.append("   */").append(LS).append(LS);
+    }
+    for (final ClassInfo ci : classList)
+      genClassMethods(ci);
+
+    genKindGetter();
+
+    sb.append('}').append(LS);
+  }
+
+  /**
+   * Generates the public write and read methods.
+   */
+  private void genWriteRead() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Writes a tree.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the root node of the tree").append(LS);
+      sb.append("   * @param aOut - the output").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public void write(final ").append(iNode)
+      .append(" n, final DataOutput aOut) throws IOException {").append(LS);
+    sb.append("    out = aOut;").append(LS);
+    sb.append("    lastLine = 0;").append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      out.writeLong(SIGNATURE);").append(LS);
+    sb.append("      write").append(iNode).append("(n);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    finally {").append(LS);
+    sb.append("      out = null;").append(LS);
+    sb.append("      outStrings.clear();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reads a tree.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param aIn - the input").append(LS);
+      sb.append("   * @return the root node of the tree").append(LS);
+      sb.append("   * @throws IOException if IO problem or if the tree was written by another grammar")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  public ").append(iNode).append(" read(final DataInput aIn) throws IOException {")
+      .append(LS);
+    sb.append("    in = aIn;").append(LS);
+    sb.append("    lastLine = 0;").append(LS);
+    sb.append("    try {").append(LS);
+    sb.append("      if (in.readLong() != SIGNATURE)").append(LS);
+    sb.append("        throw new IOException(\"Tree written with another grammar\");").append(LS);
+    sb.append("      return read").append(iNode).append("();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    finally {").append(LS);
+    sb.append("      in = null;").append(LS);
+    sb.append("      inStrings.clear();").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the varints and strings write and read methods.
+   */
+  private void genVarints() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Writes a non negative int as a varint (7 bits per byte).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param v - the value").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void writeVarint(final int v) throws IOException {").append(LS);
+    sb.append("    int u = v;").append(LS);
+    sb.append("    while ((u & ~0x7F) != 0) {").append(LS);
+    sb.append("      out.writeByte((u & 0x7F) | 0x80);").append(LS);
+    sb.append("      u >>>= 7;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    out.writeByte(u);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reads a varint.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the value").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int readVarint() throws IOException {").append(LS);
+    sb.append("    int v = 0;").append(LS);
+    sb.append("    for (int shift = 0;; shift += 7) {").append(LS);
+    sb.append("      final int b = in.readByte();").append(LS);
+    sb.append("      v |= (b & 0x7F) << shift;").append(LS);
+    sb.append("      if ((b & 0x80) == 0)").append(LS);
+    sb.append("        return v;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Writes an int as a zigzag varint (small negative values are short).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param v - the value").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void writeSigned(final int v) throws IOException {").append(LS);
+    sb.append("    writeVarint((v << 1) ^ (v >> 31));").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reads a zigzag varint.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the value").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected int readSigned() throws IOException {").append(LS);
+    sb.append("    final int u = readVarint();").append(LS);
+    sb.append("    return (u >>> 1) ^ -(u & 1);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Writes a string as a reference into the strings table (0 for a new string, ")
+        .append("followed by<br>").append(LS);
+      sb.append("   * its UTF-8 bytes length and bytes, or its index + 1).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param s - the string").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void writeString(final String s) throws IOException {").append(LS);
+    sb.append("    final Integer ref = outStrings.get(s);").append(LS);
+    sb.append("    if (ref != null) {").append(LS);
+    sb.append("      writeVarint(ref.intValue() + 1);").append(LS);
+    sb.append("      return;").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    outStrings.put(s, Integer.valueOf(outStrings.size()));").append(LS);
+    sb.append("    final byte[] b = s.getBytes(\"UTF-8\");").append(LS);
+    sb.append("    writeVarint(0);").append(LS);
+    sb.append("    writeVarint(b.length);").append(LS);
+    sb.append("    out.write(b);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reads a string reference.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the string").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected String readString() throws IOException {").append(LS);
+    sb.append("    final int ref = readVarint();").append(LS);
+    sb.append("    if (ref > 0)").append(LS);
+    sb.append("      return inStrings.get(ref - 1);").append(LS);
+    sb.append("    final byte[] b = new byte[readVarint()];").append(LS);
+    sb.append("    in.readFully(b);").append(LS);
+    sb.append("    final String s = new String(b, \"UTF-8\");").append(LS);
+    sb.append("    inStrings.add(s);").append(LS);
+    sb.append("    return s;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the write and read methods of the nodes of unknown type (written with their kind).
+   */
+  private void genINodeMethods() {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Writes a node of unknown type (its kind, then the node).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   * @throws IOException if IO problem or if the node was not generated by JTB")
+        .append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void write").append(iNode).append("(final ").append(iNode)
+      .append(" n) throws IOException {").append(LS);
+    sb.append("    // (").append(nodeChoice).append(".accept() calls directly the choice's accept())")
+      .append(LS);
+    sb.append("    if (n instanceof ").append(nodeChoice).append(')').append(LS);
+    sb.append("      kindGetter.kind = ").append(BaseClasses.choiceKind).append(';').append(LS);
+    sb.append("    else {").append(LS);
+    sb.append("      kindGetter.kind = -1;").append(LS);
+    sb.append("      n.accept(kindGetter);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("    final int kind = kindGetter.kind;").append(LS);
+    sb.append("    writeVarint(kind);").append(LS);
+    sb.append("    switch (kind) {").append(LS);
+    genWriteCase(nodeChoice, BaseClasses.choiceKind);
+    genWriteCase(nodeList, BaseClasses.listKind);
+    genWriteCase(nodeListOpt, BaseClasses.listOptKind);
+    genWriteCase(nodeOpt, BaseClasses.optKind);
+    genWriteCase(nodeSeq, BaseClasses.seqKind);
+    genWriteCase(nodeToken, BaseClasses.tokenKind);
+    genWriteCase(nodeTCF, BaseClasses.tcfKind);
+    for (final ClassInfo ci : classList)
+      genWriteCase(ci.className, ci.nodeKind);
+    sb.append("      default:").append(LS);
+    sb.append("        throw new IOException(\"Unknown node class \" + n.getClass().getName());")
+      .append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reads a node of unknown type (its kind, then the node).").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the node").append(LS);
+      sb.append("   * @throws IOException if IO problem or if the kind is unknown").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected ").append(iNode).append(" read").append(iNode)
+      .append("() throws IOException {").append(LS);
+    sb.append("    final int kind = readVarint();").append(LS);
+    sb.append("    switch (kind) {").append(LS);
+    genReadCase(nodeChoice, BaseClasses.choiceKind);
+    genReadCase(nodeList, BaseClasses.listKind);
+    genReadCase(nodeListOpt, BaseClasses.listOptKind);
+    genReadCase(nodeOpt, BaseClasses.optKind);
+    genReadCase(nodeSeq, BaseClasses.seqKind);
+    genReadCase(nodeToken, BaseClasses.tokenKind);
+    genReadCase(nodeTCF, BaseClasses.tcfKind);
+    for (final ClassInfo ci : classList)
+      genReadCase(ci.className, ci.nodeKind);
+    sb.append("      default:").append(LS);
+    sb.append("        throw new IOException(\"Unknown node kind \" + kind);").append(LS);
+    sb.append("    }").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates a case of the switch on the kind of a node to write.
+   * 
+   * @param aClassName - the node class name
+   * @param aKind - the node kind
+   */
+  private void genWriteCase(final String aClassName, final int aKind) {
+    sb.append("      case ").append(aKind).append(':').append(LS);
+    sb.append("        write").append(aClassName).append("((").append(aClassName).append(") n);")
+      .append(LS);
+    sb.append("        return;").append(LS);
+  }
+
+  /**
+   * Generates a case of the switch on the kind of a node to read.
+   * 
+   * @param aClassName - the node class name
+   * @param aKind - the node kind
+   */
+  private void genReadCase(final String aClassName, final int aKind) {
+    sb.append("      case ").append(aKind).append(':').append(LS);
+    sb.append("        return read").append(aClassName).append("();").append(LS);
+  }
+
+  /**
+   * Generates the beginnings of a write method and of its javadoc comment.
+   * 
+   * @param aClassName - the node class name
+   */
+  private void genWriteDecl(final String aClassName) {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Writes a {@link ").append(aClassName).append("} node.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @param n - the node").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected void write").append(aClassName).append("(final ").append(aClassName)
+      .append(" n) throws IOException {").append(LS);
+  }
+
+  /**
+   * Generates the beginnings of a read method and of its javadoc comment.
+   * 
+   * @param aClassName - the node class name
+   */
+  private void genReadDecl(final String aClassName) {
+    if (javaDocComments) {
+      sb.append("  /**").append(LS);
+      sb.append("   * Reads a {@link ").append(aClassName).append("} node.").append(LS);
+      sb.append("   *").append(LS);
+      sb.append("   * @return the node").append(LS);
+      sb.append("   * @throws IOException if IO problem").append(LS);
+      sb.append("   */").append(LS);
+    }
+    sb.append("  protected ").append(aClassName).append(" read").append(aClassName)
+      .append("() throws IOException {").append(LS);
+  }
+
+  /**
+   * Generates the {@link Globals#nodeChoice} write and read methods.
+   */
+  private void genChoiceMethods() {
+    genWriteDecl(nodeChoice);
+    sb.append("    writeVarint(n.which);").append(LS);
+    sb.append("    writeVarint(n.total);").append(LS);
+    sb.append("    write").append(iNode).append("(n.choice);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    genReadDecl(nodeChoice);
+    sb.append("    final int which = readVarint();").append(LS);
+    sb.append("    final int total = readVarint();").append(LS);
+    sb.append("    return new ").append(nodeChoice).append("(read").append(iNode)
+      .append("(), which, total);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the write and read methods of a list or sequence base node class.
+   * 
+   * @param aClassName - the node class name
+   */
+  private void genListMethods(final String aClassName) {
+    genWriteDecl(aClassName);
+    sb.append("    final int sz = n.size();").append(LS);
+    sb.append("    writeVarint(sz);").append(LS);
+    sb.append("    for (int i = 0; i < sz; i++)").append(LS);
+    sb.append("      write").append(iNode).append("(n.elementAt(i));").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    genReadDecl(aClassName);
+    sb.append("    final int sz = readVarint();").append(LS);
+    sb.append("    final ").append(aClassName).append(" n = new ").append(aClassName)
+      .append("(sz);").append(LS);
+    sb.append("    for (int i = 0; i < sz; i++)").append(LS);
+    sb.append("      n.addNode(read").append(iNode).append("());").append(LS);
+    sb.append("    return n;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the {@link Globals#nodeOpt} write and read methods.
+   */
+  private void genOptMethods() {
+    genWriteDecl(nodeOpt);
+    sb.append("    out.writeBoolean(n.present());").append(LS);
+    sb.append("    if (n.present())").append(LS);
+    sb.append("      write").append(iNode).append("(n.node);").append(LS);
+    sb.append("  }").append(LS).append(LS);
+
+    genReadDecl(nodeOpt);
+    sb.append("    return in.readBoolean() ? new ").append(nodeOpt).append("(read").append(iNode)
+      .append("()) : new ").append(nodeOpt).append("();").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the write and read methods of a token base node class (the image reference, the
+   * kind, the positions (the first line as a delta from the previous token) and, with the -tk
+   * option, the special tokens).
+   * 
+   * @param aClassName - the node class name
+   */
+  private void genTokenMethods(final String aClassName) {
+    genWriteDecl(aClassName);
+    sb.append("    writeString(n.tokenImage);").append(LS);
+    sb.append("    writeSigned(n.kind);").append(LS);
+    sb.append("    final int bl = ").append(BaseClasses.tkPos("n", "beginLine")).append(';')
+      .append(LS);
+    sb.append("    writeSigned(bl - lastLine);").append(LS);
+    sb.append("    lastLine = bl;").append(LS);
+    sb.append("    writeSigned(").append(BaseClasses.tkPos("n", "beginColumn")).append(");")
+      .append(LS);
+    sb.append("    writeSigned(").append(BaseClasses.tkPos("n", "endLine")).append(" - bl);")
+      .append(LS);
+    sb.append("    writeSigned(").append(BaseClasses.tkPos("n", "endColumn")).append(");")
+      .append(LS);
+    if (keepSpecialTokens) {
+      sb.append("    final List<").append(nodeToken).append("> st = ")
+        .append(BaseClasses.tkSpecials("n")).append(';').append(LS);
+      sb.append("    final int sz = st == null ? 0 : st.size();").append(LS);
+      sb.append("    writeVarint(sz);").append(LS);
+      sb.append("    for (int i = 0; i < sz; i++)").append(LS);
+      sb.append("      write").append(nodeToken).append("(st.get(i));").append(LS);
+    }
+    sb.append("  }").append(LS).append(LS);
+
+    genReadDecl(aClassName);
+    sb.append("    final String s = readString();").append(LS);
+    sb.append("    final int kn = readSigned();").append(LS);
+    sb.append("    final int bl = lastLine + readSigned();").append(LS);
+    sb.append("    lastLine = bl;").append(LS);
+    sb.append("    final int bc = readSigned();").append(LS);
+    sb.append("    final int el = bl + readSigned();").append(LS);
+    sb.append("    final ").append(aClassName).append(" n = new ").append(aClassName)
+      .append("(s, kn, bl, bc, el, readSigned());").append(LS);
+    if (keepSpecialTokens) {
+      sb.append("    for (int i = readVarint(); i > 0; i--)").append(LS);
+      sb.append("      n.addSpecial(read").append(nodeToken).append("());").append(LS);
+    }
+    sb.append("    return n;").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the write and read methods of a grammar node class (its fields in order, the ones of
+   * a type not generated by JTB with their kind).
+   * 
+   * @param aCi - the class info
+   */
+  private void genClassMethods(final ClassInfo aCi) {
+    final int nb = aCi.fieldTypes == null ? 0 : aCi.fieldTypes.size();
+
+    genWriteDecl(aCi.className);
+    if (nb == 0)
+      sb.append("    return;").append(LS);
+    for (int i = 0; i < nb; i++) {
+      final String ft = aCi.fieldTypes.get(i);
+      sb.append("    write").append(typedNames.contains(ft) ? ft : iNode).append("(n.")
+        .append(aCi.fieldNames.get(i)).append(");").append(LS);
+    }
+    sb.append("  }").append(LS).append(LS);
+
+    genReadDecl(aCi.className);
+    sb.append("    return new ").append(aCi.className).append('(');
+    for (int i = 0; i < nb; i++) {
+      final String ft = aCi.fieldTypes.get(i);
+      if (i > 0)
+        sb.append(", ");
+      if (typedNames.contains(ft))
+        sb.append("read").append(ft).append("()");
+      else
+        sb.append('(').append(ft).append(") read").append(iNode).append("()");
+    }
+    sb.append(");").append(LS);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates the nested visitor giving the kinds of the nodes.
+   */
+  private void genKindGetter() {
+    if (javaDocComments)
+      sb.append("  /** The visitor giving the kinds of the nodes */").append(LS);
+    sb.append("  protected static class KindGetter implements ").append(iVoidVisitor).append(" {")
+      .append(LS).append(LS);
+    if (javaDocComments)
+      sb.append("    /** The kind of the last visited node */").append(LS);
+    sb.append("    public int kind;").append(LS).append(LS);
+    genKindVisit(nodeChoice, BaseClasses.choiceKind);
+    genKindVisit(nodeList, BaseClasses.listKind);
+    genKindVisit(nodeListOpt, BaseClasses.listOptKind);
+    genKindVisit(nodeOpt, BaseClasses.optKind);
+    genKindVisit(nodeSeq, BaseClasses.seqKind);
+    genKindVisit(nodeToken, BaseClasses.tokenKind);
+    genKindVisit(nodeTCF, BaseClasses.tcfKind);
+    for (final ClassInfo ci : classList)
+      genKindVisit(ci.className, ci.nodeKind);
+    sb.append("  }").append(LS).append(LS);
+  }
+
+  /**
+   * Generates a visit method of the kind getter.
+   * 
+   * @param aClassName - the node class name
+   * @param aKind - the node kind
+   */
+  private void genKindVisit(final String aClassName, final int aKind) {
+    sb.append("    @Override").append(LS);
+    sb.append("    @SuppressWarnings(\"unused\")").append(LS);
+    sb.append("    public void visit(final ").append(aClassName).append(" n) {").append(LS);
+    sb.append("      kind = ").append(aKind).append(';').append(LS);
+    sb.append("    }").append(LS).append(LS);
+  }
+}
@@ -52,13 +52,12 @@
  */
 package EDU.purdue.jtb.misc;
 
+import static EDU.purdue.jtb.misc.BaseClasses.tkPos;
+import static EDU.purdue.jtb.misc.BaseClasses.tkSpecials;
 import static EDU.purdue.jtb.misc.Globals.*;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 
 /**
  * Class TreeDumperBuilder generates the TreeDumper visitor which simply prints all the tokens in
@@ -67,6 +66,8 @@ import java.io.PrintWriter;
  * 
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar and JDK 1.5
+ * @version 1.4.13 : 10/2026 : agent : incremental generation ; compact NodeToken accessors (-ct
+ *          option)
  */
 public class TreeDumperGenerator {
 
@@ -103,9 +104,7 @@ public class TreeDumperGenerator {
       if (noOverwrite && file.exists())
         throw new FileExistsException(outFilename);
 
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), sb.length()));
-      out.print(sb);
-      out.close();
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
     }
     catch (final IOException e) {
       Messages.hardErr(e);
@@ -209,7 +208,8 @@ public class TreeDumperGenerator {
     sb.append("   */").append(LS);
     sb.append("  @Override").append(LS);
     sb.append("  public void visit(final " + nodeToken + " n) {").append(LS);
-    sb.append("    if (n.beginLine == -1 || n.beginColumn == -1) {").append(LS);
+    sb.append("    if (" + tkPos("n", "beginLine") + " == -1 || " + tkPos("n", "beginColumn") +
+                  " == -1) {").append(LS);
     sb.append("      printToken(n.tokenImage);").append(LS);
     sb.append("      return;").append(LS);
     sb.append("    }").append(LS).append(LS);
@@ -218,41 +218,44 @@ public class TreeDumperGenerator {
     sb.append("    //").append(LS);
     sb.append("    if (printSpecials && n.numSpecials() > 0)").append(LS);
     sb.append("      for (final Iterator<" + nodeToken +
-                  "> e = n.specialTokens.iterator(); e.hasNext();)").append(LS);
+                  "> e = " + tkSpecials("n") + ".iterator(); e.hasNext();)").append(LS);
     sb.append("        visit(e.next());").append(LS).append(LS);
     sb.append("    //").append(LS);
     sb.append("    // Handle startAtNextToken option").append(LS);
     sb.append("    //").append(LS);
     sb.append("    if (startAtNextToken) {").append(LS);
-    sb.append("      curLine = n.beginLine;").append(LS);
+    sb.append("      curLine = " + tkPos("n", "beginLine") + ";").append(LS);
     sb.append("      curColumn = 1;").append(LS);
     sb.append("      startAtNextToken = false;").append(LS).append(LS);
-    sb.append("      if (n.beginColumn < curColumn)").append(LS);
+    sb.append("      if (" + tkPos("n", "beginColumn") + " < curColumn)").append(LS);
     sb.append("        out.println();").append(LS);
     sb.append("    }").append(LS).append(LS);
     sb.append("    //").append(LS);
     sb.append("    // Check for invalid token position relative to current position.").append(LS);
     sb.append("    //").append(LS);
-    sb.append("    if (n.beginLine < curLine)").append(LS);
+    sb.append("    if (" + tkPos("n", "beginLine") + " < curLine)").append(LS);
     sb.append("      throw new IllegalStateException(\"at token \\\"\" + n.tokenImage +")
       .append(LS);
-    sb.append("        \"\\\", n.beginLine = \" + Integer.toString(n.beginLine) +").append(LS);
+    sb.append("        \"\\\", n.beginLine = \" + Integer.toString(" + tkPos("n", "beginLine") +
+                  ") +").append(LS);
     sb.append("        \", curLine = \" + Integer.toString(curLine));").append(LS);
-    sb.append("    else if (n.beginLine == curLine && n.beginColumn < curColumn)").append(LS);
+    sb.append("    else if (" + tkPos("n", "beginLine") + " == curLine && " +
+                  tkPos("n", "beginColumn") + " < curColumn)").append(LS);
     sb.append("      throw new IllegalStateException(\"at token \\\"\" + n.tokenImage +")
       .append(LS);
     sb.append("        \"\\\", n.beginColumn = \" +").append(LS);
-    sb.append("        Integer.toString(n.beginColumn) + \", curColumn = \" +").append(LS);
+    sb.append("        Integer.toString(" + tkPos("n", "beginColumn") +
+                  ") + \", curColumn = \" +").append(LS);
     sb.append("        Integer.toString(curColumn));").append(LS).append(LS);
     sb.append("    //").append(LS);
     sb.append("    // Move output \"cursor\" to proper location, then print the token").append(LS);
     sb.append("    //").append(LS);
-    sb.append("    if (curLine < n.beginLine) {").append(LS);
+    sb.append("    if (curLine < " + tkPos("n", "beginLine") + ") {").append(LS);
     sb.append("      curColumn = 1;").append(LS);
-    sb.append("      for (; curLine < n.beginLine; ++curLine)").append(LS);
+    sb.append("      for (; curLine < " + tkPos("n", "beginLine") + "; ++curLine)").append(LS);
     sb.append("        out.println();").append(LS);
     sb.append("    }").append(LS).append(LS);
-    sb.append("    for (; curColumn < n.beginColumn; ++curColumn)").append(LS);
+    sb.append("    for (; curColumn < " + tkPos("n", "beginColumn") + "; ++curColumn)").append(LS);
     sb.append("      out.print(\" \");").append(LS).append(LS);
     sb.append("    printToken(n.tokenImage);").append(LS);
     sb.append("  }").append(LS).append(LS);
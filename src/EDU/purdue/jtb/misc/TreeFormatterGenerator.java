@@ -52,13 +52,13 @@
  */
 package EDU.purdue.jtb.misc;
 
+import static EDU.purdue.jtb.misc.BaseClasses.tkPos;
+import static EDU.purdue.jtb.misc.BaseClasses.tkSetPos;
+import static EDU.purdue.jtb.misc.BaseClasses.tkSpecials;
 import static EDU.purdue.jtb.misc.Globals.*;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Iterator;
 import java.util.List;
 
@@ -79,6 +79,8 @@ import java.util.List;
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar and JDK 1.5
  * @version 1.4.3 : 03/2010 : MMa : fixed output of constructor
  * @version 1.4.8 : 10/2014 : MMa : fixed NPE on classes without fields
+ * @version 1.4.13 : 10/2026 : agent : incremental generation ; compact NodeToken accessors (-ct
+ *          option)
  */
 public class TreeFormatterGenerator {
 
@@ -123,9 +125,7 @@ public class TreeFormatterGenerator {
       if (file.exists())
         throw new FileExistsException(outFilename);
 
-      final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), sb.length()));
-      out.print(sb);
-      out.close();
+      GeneratedFilesManifest.writeFile(file, sb, sb.length());
     }
     catch (final IOException e) {
       Messages.hardErr(e);
@@ -365,7 +365,7 @@ public class TreeFormatterGenerator {
     sb.append("    //").append(LS);
     sb.append("    if (n.numSpecials() > 0)").append(LS);
     sb.append("      for (final Iterator<" + nodeToken +
-                  "> e = n.specialTokens.iterator(); e.hasNext();) {").append(LS);
+                  "> e = " + tkSpecials("n") + ".iterator(); e.hasNext();) {").append(LS);
     sb.append("       NodeToken special = e.next();").append(LS).append(LS);
     sb.append("       //").append(LS);
     sb.append("       // Place the token").append(LS);
@@ -373,11 +373,11 @@ public class TreeFormatterGenerator {
     sb.append("       // Don't update curColumn - want to keep current indent level").append(LS);
     sb.append("       //").append(LS);
     sb.append("       placeToken(special, curLine, curColumn);").append(LS);
-    sb.append("       curLine = special.endLine + 1;").append(LS);
+    sb.append("       curLine = " + tkPos("special", "endLine") + " + 1;").append(LS);
     sb.append("      }").append(LS).append(LS);
     sb.append("    placeToken(n, curLine, curColumn);").append(LS);
-    sb.append("    curLine = n.endLine;").append(LS);
-    sb.append("    curColumn = n.endColumn;").append(LS);
+    sb.append("    curLine = " + tkPos("n", "endLine") + ";").append(LS);
+    sb.append("    curColumn = " + tkPos("n", "endColumn") + ";").append(LS);
     sb.append("  }").append(LS).append(LS);
 
     sb.append("  /**").append(LS);
@@ -401,13 +401,13 @@ public class TreeFormatterGenerator {
     sb.append("    //").append(LS);
     sb.append("    if (!lineWrap || n.tokenImage.indexOf('\\n') != -1 ||").append(LS);
     sb.append("       column + length <= wrapWidth)").append(LS);
-    sb.append("       n.beginColumn = column;").append(LS);
+    sb.append("       " + tkSetPos("n", "beginColumn", "column")).append(LS);
     sb.append("    else {").append(LS);
     sb.append("       ++line;").append(LS);
     sb.append("       column = curIndent + indentAmt + 1;").append(LS);
-    sb.append("       n.beginColumn = column;").append(LS);
+    sb.append("       " + tkSetPos("n", "beginColumn", "column")).append(LS);
     sb.append("    }").append(LS).append(LS);
-    sb.append("    n.beginLine = line;").append(LS).append(LS);
+    sb.append("    " + tkSetPos("n", "beginLine", "line")).append(LS).append(LS);
     sb.append("    //").append(LS);
     sb.append("    // Find end of token; don't count '\\n' if it's the last character").append(LS);
     sb.append("    //").append(LS);
@@ -419,8 +419,8 @@ public class TreeFormatterGenerator {
     sb.append("       else").append(LS);
     sb.append("        ++column;").append(LS);
     sb.append("    }").append(LS).append(LS);
-    sb.append("    n.endLine = line;").append(LS);
-    sb.append("    n.endColumn = column;").append(LS);
+    sb.append("    " + tkSetPos("n", "endLine", "line")).append(LS);
+    sb.append("    " + tkSetPos("n", "endColumn", "column")).append(LS);
     sb.append("  }").append(LS).append(LS);
 
     sb.append("  //").append(LS);
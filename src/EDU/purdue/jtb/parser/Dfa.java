@@ -0,0 +1,638 @@
+/* Copyright (c) 2006, Sun Microsystems, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright notice,
+ *       this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the Sun Microsystems, Inc. nor the names of its
+ *       contributors may be used to endorse or promote products derived from
+ *       this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package EDU.purdue.jtb.parser;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A Deterministic Finite Automaton, for the table driven token manager (TABLE_DRIVEN_LEXER option).
+ * <p>
+ * The regular expressions of a lexical state are turned into a private NFA (independent of the
+ * {@link NfaState} ones), which is determinized (subset construction) and minimized at generation
+ * time. The DFA is dumped as compact tables : the characters are mapped to equivalence classes
+ * (through a direct table for the ASCII characters and a table of ranges for the other Unicode
+ * characters), and the transitions form a (state x class) table. The generated jjMoveDfa method
+ * is a simple table lookup loop, without any state set bookkeeping.<br>
+ * The tables are encoded in strings (each value plus one in a char), which are decoded at class
+ * initialization : this keeps the static initializer small whatever the size of the tables.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ * @version 1.4.13 : 10/2026 : agent : added the matching of a string (for {@link KeywordHash})
+ */
+public class Dfa {
+
+  /** The greatest character value */
+  static final int                  MAX_CHAR   = 0xFFFF;
+  /** The maximum length of a string constant of the encoded tables */
+  static final int                  CHUNK_SIZE = 8192;
+
+  /** The NFA states moves (triplets of lowest character, highest character, target state) */
+  private final List<List<int[]>>   moves      = new ArrayList<List<int[]>>();
+  /** The NFA states epsilon moves */
+  private final List<List<Integer>> epsMoves   = new ArrayList<List<Integer>>();
+  /** The NFA states matched kinds (-1 if not final) */
+  private final List<Integer>       nfaKinds   = new ArrayList<Integer>();
+  /** The NFA start state */
+  private final int                 nfaStart;
+
+  /** The number of DFA states (the start state is 0) */
+  int                               nbStates;
+  /** The number of characters equivalence classes */
+  int                               nbClasses;
+  /** The transitions table (nbStates x nbClasses, -1 for no transition) */
+  int[]                             trans;
+  /** The DFA states matched kinds (-1 if not final) */
+  int[]                             kinds;
+  /** The equivalence classes of the ASCII characters */
+  int[]                             asciiClass;
+  /** The starts of the ranges of the non ASCII characters (the first one is 128) */
+  int[]                             rangeStart;
+  /** The equivalence classes of the ranges of the non ASCII characters */
+  int[]                             rangeClass;
+
+  /** Standard constructor */
+  public Dfa() {
+    nfaStart = NewState();
+  }
+
+  /**
+   * Adds a regular expression to the automaton.<br>
+   * Must be called after the {@link NfaState} NFA has been generated for the regular expression,
+   * as it may have been transformed by this generation (case neutral or merged character lists).
+   * 
+   * @param re - the regular expression
+   * @param kind - the kind (ordinal) matched by the regular expression
+   * @param ignoreCase - true to ignore case
+   */
+  public void AddRegularExpression(final RegularExpression_ re, final int kind,
+                                   final boolean ignoreCase) {
+    final int[] se = Generate(re, ignoreCase);
+    nfaKinds.set(se[1], Integer.valueOf(kind));
+    epsMoves.get(nfaStart).add(Integer.valueOf(se[0]));
+  }
+
+  /**
+   * Creates a new NFA state.
+   * 
+   * @return the new state index
+   */
+  private int NewState() {
+    moves.add(new ArrayList<int[]>());
+    epsMoves.add(new ArrayList<Integer>());
+    nfaKinds.add(Integer.valueOf(-1));
+    return nfaKinds.size() - 1;
+  }
+
+  /**
+   * Adds an epsilon move between two NFA states.
+   * 
+   * @param from - the origin state
+   * @param to - the target state
+   */
+  private void AddEpsilon(final int from, final int to) {
+    epsMoves.get(from).add(Integer.valueOf(to));
+  }
+
+  /**
+   * Adds the moves on a set of characters between two NFA states.
+   * 
+   * @param from - the origin state
+   * @param set - the set of characters (sorted pairs of lowest and highest characters)
+   * @param to - the target state
+   */
+  private void AddMoves(final int from, final int[] set, final int to) {
+    for (int i = 0; i < set.length; i += 2)
+      moves.get(from).add(new int[] {
+          set[i], set[i + 1], to });
+  }
+
+  /**
+   * Generates the NFA fragment of a regular expression (Thompson construction).
+   * 
+   * @param re - the regular expression
+   * @param ignoreCase - true to ignore case
+   * @return the fragment start and end states
+   */
+  private int[] Generate(final RegularExpression_ re, final boolean ignoreCase) {
+    if (re instanceof RJustName)
+      return Generate(((RJustName) re).regexpr, ignoreCase);
+
+    final int start = NewState();
+    int end;
+    if (re instanceof RStringLiteral) {
+      final String image = ((RStringLiteral) re).image;
+      end = start;
+      for (int i = 0; i < image.length(); i++) {
+        final BitSet bs = new BitSet(MAX_CHAR + 1);
+        AddChar(bs, image.charAt(i), ignoreCase);
+        final int next = NewState();
+        AddMoves(end, ToRanges(bs), next);
+        end = next;
+      }
+    } else if (re instanceof RCharacterList) {
+      final RCharacterList cl = (RCharacterList) re;
+      final BitSet bs = new BitSet(MAX_CHAR + 1);
+      for (final Object d : cl.descriptors) {
+        if (d instanceof SingleCharacter)
+          AddChar(bs, ((SingleCharacter) d).ch, ignoreCase);
+        else {
+          final CharacterRange cr = (CharacterRange) d;
+          for (int c = cr.getLeft(); c <= cr.getRight(); c++)
+            AddChar(bs, (char) c, ignoreCase);
+        }
+      }
+      if (cl.negated_list)
+        bs.flip(0, MAX_CHAR + 1);
+      end = NewState();
+      AddMoves(start, ToRanges(bs), end);
+    } else if (re instanceof RSequence) {
+      end = start;
+      for (final RegularExpression_ unit : ((RSequence) re).units) {
+        final int[] se = Generate(unit, ignoreCase);
+        AddEpsilon(end, se[0]);
+        end = se[1];
+      }
+    } else if (re instanceof RChoice) {
+      end = NewState();
+      for (final RegularExpression_ choice : ((RChoice) re).getChoices()) {
+        final int[] se = Generate(choice, ignoreCase);
+        AddEpsilon(start, se[0]);
+        AddEpsilon(se[1], end);
+      }
+    } else if (re instanceof ROneOrMore) {
+      final int[] se = Generate(((ROneOrMore) re).regexpr, ignoreCase);
+      end = NewState();
+      AddEpsilon(start, se[0]);
+      AddEpsilon(se[1], se[0]);
+      AddEpsilon(se[1], end);
+    } else if (re instanceof RZeroOrMore) {
+      final int[] se = Generate(((RZeroOrMore) re).regexpr, ignoreCase);
+      end = NewState();
+      AddEpsilon(start, se[0]);
+      AddEpsilon(start, end);
+      AddEpsilon(se[1], se[0]);
+      AddEpsilon(se[1], end);
+    } else if (re instanceof RZeroOrOne) {
+      final int[] se = Generate(((RZeroOrOne) re).regexpr, ignoreCase);
+      end = NewState();
+      AddEpsilon(start, se[0]);
+      AddEpsilon(start, end);
+      AddEpsilon(se[1], end);
+    } else if (re instanceof RRepetitionRange) {
+      // same structure as in RRepetitionRange.GenerateNfa()
+      final RRepetitionRange rr = (RRepetitionRange) re;
+      end = start;
+      int i;
+      for (i = 0; i < rr.min; i++) {
+        final int[] se = Generate(rr.regexpr, ignoreCase);
+        AddEpsilon(end, se[0]);
+        end = se[1];
+      }
+      if (rr.hasMax && rr.max == -1) {
+        // unlimited
+        final int[] se = Generate(rr.regexpr, ignoreCase);
+        final int next = NewState();
+        AddEpsilon(end, se[0]);
+        AddEpsilon(end, next);
+        AddEpsilon(se[1], se[0]);
+        AddEpsilon(se[1], next);
+        end = next;
+      }
+      while (i++ < rr.max) {
+        final int[] se = Generate(rr.regexpr, ignoreCase);
+        final int next = NewState();
+        AddEpsilon(end, se[0]);
+        AddEpsilon(end, next);
+        AddEpsilon(se[1], next);
+        end = next;
+      }
+    } else {
+      // REndOfFile : never matched by the token manager
+      end = NewState();
+    }
+    return new int[] {
+        start, end };
+  }
+
+  /**
+   * Adds a character (and its lower and upper case variants if ignoring case) to a set.
+   * 
+   * @param bs - the set of characters
+   * @param c - the character
+   * @param ignoreCase - true to ignore case
+   */
+  private static void AddChar(final BitSet bs, final char c, final boolean ignoreCase) {
+    bs.set(c);
+    if (ignoreCase) {
+      bs.set(Character.toLowerCase(c));
+      bs.set(Character.toUpperCase(c));
+    }
+  }
+
+  /**
+   * Converts a set of characters into ranges.
+   * 
+   * @param bs - the set of characters
+   * @return the sorted pairs of lowest and highest characters
+   */
+  private static int[] ToRanges(final BitSet bs) {
+    final List<Integer> l = new ArrayList<Integer>();
+    for (int lo = bs.nextSetBit(0); lo >= 0; lo = bs.nextSetBit(lo)) {
+      int hi = bs.nextClearBit(lo);
+      l.add(Integer.valueOf(lo));
+      l.add(Integer.valueOf(hi - 1));
+      lo = hi;
+    }
+    final int[] r = new int[l.size()];
+    for (int i = 0; i < r.length; i++)
+      r[i] = l.get(i).intValue();
+    return r;
+  }
+
+  /**
+   * Computes the epsilon closure of a set of NFA states (in place).
+   * 
+   * @param set - the set of states
+   * @return the closure
+   */
+  private BitSet Closure(final BitSet set) {
+    final int[] stack = new int[nfaKinds.size()];
+    int top = 0;
+    for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1))
+      stack[top++] = s;
+    while (top > 0) {
+      for (final Integer t : epsMoves.get(stack[--top])) {
+        final int ts = t.intValue();
+        if (!set.get(ts)) {
+          set.set(ts);
+          stack[top++] = ts;
+        }
+      }
+    }
+    return set;
+  }
+
+  /**
+   * Builds the minimal DFA and its compressed tables from the NFA.
+   */
+  public void Build() {
+    // split the characters in atoms (intervals on which all the moves agree)
+    final TreeSet<Integer> bounds = new TreeSet<Integer>();
+    bounds.add(Integer.valueOf(0));
+    bounds.add(Integer.valueOf(MAX_CHAR + 1));
+    for (final List<int[]> l : moves)
+      for (final int[] mv : l) {
+        bounds.add(Integer.valueOf(mv[0]));
+        bounds.add(Integer.valueOf(mv[1] + 1));
+      }
+    final int nbAtoms = bounds.size() - 1;
+    final int[] atomStart = new int[nbAtoms + 1];
+    int k = 0;
+    for (final Integer b : bounds)
+      atomStart[k++] = b.intValue();
+
+    // subset construction on the atoms
+    final Map<BitSet, Integer> ids = new HashMap<BitSet, Integer>();
+    final List<BitSet> sets = new ArrayList<BitSet>();
+    final List<int[]> rows = new ArrayList<int[]>();
+    final BitSet startSet = new BitSet();
+    startSet.set(nfaStart);
+    Closure(startSet);
+    ids.put(startSet, Integer.valueOf(0));
+    sets.add(startSet);
+    for (int d = 0; d < sets.size(); d++) {
+      final BitSet[] targets = new BitSet[nbAtoms];
+      final BitSet set = sets.get(d);
+      for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1))
+        for (final int[] mv : moves.get(s)) {
+          final int aLo = Arrays.binarySearch(atomStart, mv[0]);
+          final int aHi = Arrays.binarySearch(atomStart, mv[1] + 1) - 1;
+          for (int a = aLo; a <= aHi; a++) {
+            if (targets[a] == null)
+              targets[a] = new BitSet();
+            targets[a].set(mv[2]);
+          }
+        }
+      final int[] row = new int[nbAtoms];
+      for (int a = 0; a < nbAtoms; a++) {
+        if (targets[a] == null) {
+          row[a] = -1;
+          continue;
+        }
+        final BitSet ts = Closure(targets[a]);
+        Integer id = ids.get(ts);
+        if (id == null) {
+          id = Integer.valueOf(sets.size());
+          ids.put(ts, id);
+          sets.add(ts);
+        }
+        row[a] = id.intValue();
+      }
+      rows.add(row);
+    }
+
+    // matched kinds (the lowest ordinal wins)
+    final int nbDfa = sets.size();
+    final int[] dfaKinds = new int[nbDfa];
+    for (int d = 0; d < nbDfa; d++) {
+      dfaKinds[d] = -1;
+      final BitSet set = sets.get(d);
+      for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+        final int sk = nfaKinds.get(s).intValue();
+        if (sk >= 0 && (dfaKinds[d] < 0 || sk < dfaKinds[d]))
+          dfaKinds[d] = sk;
+      }
+    }
+
+    // minimization (Moore partition refinement), the start state staying in block 0
+    int[] block = new int[nbDfa];
+    int nbBlocks = Renumber(block, new KeyMaker() {
+
+      @Override
+      public String key(final int d, final int[] curBlock) {
+        return String.valueOf(dfaKinds[d]);
+      }
+    });
+    for (;;) {
+      final int[] curBlock = block;
+      final int[] newBlock = new int[nbDfa];
+      final int nb = Renumber(newBlock, new KeyMaker() {
+
+        @Override
+        public String key(final int d, final int[] unused) {
+          final StringBuilder sb = new StringBuilder();
+          sb.append(curBlock[d]);
+          final int[] row = rows.get(d);
+          for (int a = 0; a < row.length; a++)
+            sb.append(',').append(row[a] < 0 ? -1 : curBlock[row[a]]);
+          return sb.toString();
+        }
+      });
+      block = newBlock;
+      if (nb == nbBlocks)
+        break;
+      nbBlocks = nb;
+    }
+    nbStates = nbBlocks;
+
+    // equivalence classes of the atoms (identical columns of the minimal DFA)
+    final int[] repr = new int[nbStates];
+    Arrays.fill(repr, -1);
+    for (int d = 0; d < nbDfa; d++)
+      if (repr[block[d]] < 0)
+        repr[block[d]] = d;
+    final Map<String, Integer> classIds = new HashMap<String, Integer>();
+    final int[] atomClass = new int[nbAtoms];
+    final List<Integer> classAtom = new ArrayList<Integer>();
+    for (int a = 0; a < nbAtoms; a++) {
+      final StringBuilder sb = new StringBuilder();
+      for (int m = 0; m < nbStates; m++) {
+        final int t = rows.get(repr[m])[a];
+        sb.append(t < 0 ? -1 : block[t]).append(',');
+      }
+      final String key = sb.toString();
+      Integer id = classIds.get(key);
+      if (id == null) {
+        id = Integer.valueOf(classAtom.size());
+        classIds.put(key, id);
+        classAtom.add(Integer.valueOf(a));
+      }
+      atomClass[a] = id.intValue();
+    }
+    nbClasses = classAtom.size();
+
+    // tables
+    trans = new int[nbStates * nbClasses];
+    kinds = new int[nbStates];
+    for (int m = 0; m < nbStates; m++) {
+      kinds[m] = dfaKinds[repr[m]];
+      final int[] row = rows.get(repr[m]);
+      for (int c = 0; c < nbClasses; c++) {
+        final int t = row[classAtom.get(c).intValue()];
+        trans[m * nbClasses + c] = t < 0 ? -1 : block[t];
+      }
+    }
+    asciiClass = new int[128];
+    final List<Integer> rs = new ArrayList<Integer>();
+    final List<Integer> rc = new ArrayList<Integer>();
+    for (int a = 0; a < nbAtoms; a++) {
+      for (int c = atomStart[a]; c < atomStart[a + 1] && c < 128; c++)
+        asciiClass[c] = atomClass[a];
+      if (atomStart[a + 1] > 128 && (rc.isEmpty() || rc.get(rc.size() - 1).intValue() != atomClass[a])) {
+        rs.add(Integer.valueOf(Math.max(atomStart[a], 128)));
+        rc.add(Integer.valueOf(atomClass[a]));
+      }
+    }
+    rangeStart = new int[rs.size()];
+    rangeClass = new int[rc.size()];
+    for (int i = 0; i < rangeStart.length; i++) {
+      rangeStart[i] = rs.get(i).intValue();
+      rangeClass[i] = rc.get(i).intValue();
+    }
+  }
+
+  /**
+   * Gives the kind matched by the DFA on a whole string (must be called after {@link #Build()}).
+   * 
+   * @param s - the string
+   * @return the kind (the lowest ordinal) matched on the whole string, -1 if none
+   */
+  public int Match(final String s) {
+    int state = 0;
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      final int cls;
+      if (c < 128)
+        cls = asciiClass[c];
+      else {
+        final int r = Arrays.binarySearch(rangeStart, c);
+        cls = rangeClass[r < 0 ? -r - 2 : r];
+      }
+      if ((state = trans[state * nbClasses + cls]) < 0)
+        return -1;
+    }
+    return kinds[state];
+  }
+
+  /**
+   * Gives the partition key of a DFA state.
+   */
+  private interface KeyMaker {
+
+    /**
+     * @param d - the DFA state
+     * @param curBlock - the current partition
+     * @return the key of the state
+     */
+    String key(int d, int[] curBlock);
+  }
+
+  /**
+   * Numbers the blocks of a partition in the order of their first state.
+   * 
+   * @param block - the partition to fill
+   * @param km - the partition key maker
+   * @return the number of blocks
+   */
+  private static int Renumber(final int[] block, final KeyMaker km) {
+    final Map<String, Integer> bids = new HashMap<String, Integer>();
+    for (int d = 0; d < block.length; d++) {
+      final String key = km.key(d, block);
+      Integer id = bids.get(key);
+      if (id == null) {
+        id = Integer.valueOf(bids.size());
+        bids.put(key, id);
+      }
+      block[d] = id.intValue();
+    }
+    return bids.size();
+  }
+
+  /**
+   * Dumps the tables of the DFA of the current lexical state.
+   * 
+   * @param out - the output to print into
+   */
+  public void DumpTables(final PrintWriter out) {
+    final String sfx = LexGen.lexStateSuffix;
+    out.println("");
+    out.println("/* Table driven DFA of lexical state " +
+                LexGen.lexStateName[LexGen.lexStateIndex] + " : " + nbStates + " states, " +
+                nbClasses + " character classes */");
+    DumpTable(out, "jjDfaAsciiClass" + sfx, asciiClass);
+    DumpTable(out, "jjDfaRangeStart" + sfx, rangeStart);
+    DumpTable(out, "jjDfaRangeClass" + sfx, rangeClass);
+    DumpTable(out, "jjDfaKind" + sfx, kinds);
+    DumpTable(out, "jjDfaTrans" + sfx, trans);
+  }
+
+  /**
+   * Dumps a table encoded in strings.
+   * 
+   * @param out - the output to print into
+   * @param name - the table name
+   * @param table - the table values (between -1 and 65534)
+   */
+  private static void DumpTable(final PrintWriter out, final String name, final int[] table) {
+    out.print("static final int[] " + name + " = jjUnpackDfa(new String[] {");
+    for (int i = 0; i < table.length; i++) {
+      if (i % CHUNK_SIZE == 0)
+        out.print((i == 0 ? "" : "\",") + "\n   \"");
+      else if (i % 64 == 0)
+        out.print("\" +\n   \"");
+      final int v = table[i] + 1;
+      if (v >= 32 && v < 127 && v != '"' && v != '\\')
+        out.print((char) v);
+      else if (v < 256)
+        // 3 digits, as a following digit would be taken as part of the escape
+        out.print("\\" + Integer.toOctalString(01000 | v).substring(1));
+      else
+        out.print("\\u" + Integer.toHexString(0x10000 | v).substring(1));
+    }
+    out.println((table.length == 0 ? "" : "\"") + "});");
+  }
+
+  /**
+   * Dumps the table driven matching method of the current lexical state.<br>
+   * Like the jjMoveStringLiteralDfa0 method it replaces, it starts on the current character and
+   * sets jjmatchedKind and jjmatchedPos for the longest match, and returns the number of characters
+   * read.
+   * 
+   * @param out - the output to print into
+   */
+  public void DumpMoveDfa(final PrintWriter out) {
+    final String sfx = LexGen.lexStateSuffix;
+    out.println("");
+    out.println((Options.getStatic() ? "static " : "") + "private int jjMoveDfa" + sfx + "()");
+    out.println("{");
+    out.println("   int curPos = 0;");
+    out.println("   int state = 0;");
+    out.println("   for (;;)");
+    out.println("   {");
+    out.println("      final int cls = curChar < 128 ? jjDfaAsciiClass" + sfx + "[curChar] : " +
+                "jjDfaClass(jjDfaRangeStart" + sfx + ", jjDfaRangeClass" + sfx + ", curChar);");
+    out.println("      if ((state = jjDfaTrans" + sfx + "[state * " + nbClasses + " + cls]) < 0)");
+    out.println("         return curPos + 1;");
+    out.println("      if (jjDfaKind" + sfx + "[state] >= 0)");
+    out.println("      {");
+    out.println("         jjmatchedKind = jjDfaKind" + sfx + "[state];");
+    out.println("         jjmatchedPos = curPos;");
+    out.println("      }");
+    out.println("      ++curPos;");
+    out.println("      try { curChar = input_stream.readChar(); }");
+    out.println("      catch(java.io.IOException e) { return curPos; }");
+    out.println("   }");
+    out.println("}");
+  }
+
+  /**
+   * Dumps the methods shared by the table driven matching methods of all the lexical states.
+   * 
+   * @param out - the output to print into
+   */
+  public static void DumpBoilerPlate(final PrintWriter out) {
+    out.println("");
+    out.println("/** Decodes a table encoded in strings (each value plus one in a char). */");
+    out.println("private static int[] jjUnpackDfa(final String[] chunks)");
+    out.println("{");
+    out.println("   int len = 0;");
+    out.println("   for (int i = 0; i < chunks.length; i++)");
+    out.println("      len += chunks[i].length();");
+    out.println("   final int[] table = new int[len];");
+    out.println("   int k = 0;");
+    out.println("   for (int i = 0; i < chunks.length; i++)");
+    out.println("      for (int j = 0; j < chunks[i].length(); j++)");
+    out.println("         table[k++] = chunks[i].charAt(j) - 1;");
+    out.println("   return table;");
+    out.println("}");
+    out.println("");
+    out.println("/** Gives the class of a non ASCII character (binary search in the ranges table). */");
+    out.println("private static int jjDfaClass(final int[] starts, final int[] classes, final int c)");
+    out.println("{");
+    out.println("   int lo = 0;");
+    out.println("   int hi = starts.length - 1;");
+    out.println("   while (lo < hi)");
+    out.println("   {");
+    out.println("      final int mid = (lo + hi + 1) >>> 1;");
+    out.println("      if (starts[mid] <= c)");
+    out.println("         lo = mid;");
+    out.println("      else");
+    out.println("         hi = mid - 1;");
+    out.println("   }");
+    out.println("   return classes[lo];");
+    out.println("}");
+  }
+}
@@ -27,12 +27,15 @@
  */
 package EDU.purdue.jtb.parser;
 
+import EDU.purdue.jtb.misc.Messages;
+
 /**
  * Output error messages and keep track of totals.
  * 
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc
+ * @version 1.4.13 : 10/2026 : agent : printed the messages on the {@link Messages} stream
  */
 public final class JavaCCErrors {
 
@@ -53,22 +56,22 @@ public final class JavaCCErrors {
   private static void printLocationInfo(final Object node) {
     if (node instanceof NormalProduction) {
       final NormalProduction n = (NormalProduction) node;
-      System.err.print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
+      Messages.err().print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
     } else if (node instanceof TokenProduction) {
       final TokenProduction n = (TokenProduction) node;
-      System.err.print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
+      Messages.err().print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
     } else if (node instanceof Expansion_) {
       final Expansion_ n = (Expansion_) node;
-      System.err.print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
+      Messages.err().print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
     } else if (node instanceof CharacterRange) {
       final CharacterRange n = (CharacterRange) node;
-      System.err.print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
+      Messages.err().print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
     } else if (node instanceof SingleCharacter) {
       final SingleCharacter n = (SingleCharacter) node;
-      System.err.print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
+      Messages.err().print("Line " + n.getLine() + ", Column " + n.getColumn() + ": ");
     } else if (node instanceof Token) {
       final Token t = (Token) node;
-      System.err.print("Line " + t.beginLine + ", Column " + t.beginColumn + ": ");
+      Messages.err().print("Line " + t.beginLine + ", Column " + t.beginColumn + ": ");
     }
   }
 
@@ -77,9 +80,9 @@ public final class JavaCCErrors {
    * @param mess - the error message
    */
   public static void parse_error(final Object node, final String mess) {
-    System.err.print("Error: ");
+    Messages.err().print("Error: ");
     printLocationInfo(node);
-    System.err.println(mess);
+    Messages.err().println(mess);
     parse_error_count++;
   }
 
@@ -87,8 +90,8 @@ public final class JavaCCErrors {
    * @param mess - the error message
    */
   public static void parse_error(final String mess) {
-    System.err.print("Error: ");
-    System.err.println(mess);
+    Messages.err().print("Error: ");
+    Messages.err().println(mess);
     parse_error_count++;
   }
 
@@ -104,9 +107,9 @@ public final class JavaCCErrors {
    * @param mess - the error message
    */
   public static void semantic_error(final Object node, final String mess) {
-    System.err.print("Error: ");
+    Messages.err().print("Error: ");
     printLocationInfo(node);
-    System.err.println(mess);
+    Messages.err().println(mess);
     semantic_error_count++;
   }
 
@@ -114,8 +117,8 @@ public final class JavaCCErrors {
    * @param mess - the error message
    */
   public static void semantic_error(final String mess) {
-    System.err.print("Error: ");
-    System.err.println(mess);
+    Messages.err().print("Error: ");
+    Messages.err().println(mess);
     semantic_error_count++;
   }
 
@@ -131,9 +134,9 @@ public final class JavaCCErrors {
    * @param mess - the error message
    */
   public static void warning(final Object node, final String mess) {
-    System.err.print("Warning: ");
+    Messages.err().print("Warning: ");
     printLocationInfo(node);
-    System.err.println(mess);
+    Messages.err().println(mess);
     warning_count++;
   }
 
@@ -141,8 +144,8 @@ public final class JavaCCErrors {
    * @param mess - the error message
    */
   public static void warning(final String mess) {
-    System.err.print("Warning: ");
-    System.err.println(mess);
+    Messages.err().print("Warning: ");
+    Messages.err().println(mess);
     warning_count++;
   }
 
@@ -47,6 +47,7 @@ import EDU.purdue.jtb.utils.JavaFileGenerator;
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc ; changed versions from 4.2.j.m to 5.0 ; moved
  *          to imports static
+ * @version 1.4.13 : 10/2026 : agent : added the BufferCharStream class (BUFFER_CHAR_STREAM option)
  */
 public class JavaFiles extends JavaCCGlobals {
 
@@ -239,6 +240,532 @@ public class JavaFiles extends JavaCCGlobals {
     }
   }
 
+  /**
+   * Generates the BufferCharStream class (BUFFER_CHAR_STREAM option) : an alternative to the
+   * SimpleCharStream class which holds the whole input in a single buffer (a decoded memory mapped
+   * file, a given CharBuffer or the chars read at once from a Reader), so there is no per character
+   * filling / expanding overhead ; the line and column numbers are computed only when asked for (at
+   * the token boundaries), and the tokens images are offset / length views on the buffer which are
+   * materialized only on demand (by {@code GetImage()}).<br>
+   * The line and column numbers of any offset can also be resolved on demand through an index of the
+   * lines starts (built once), which the LAZY_LINE_COLUMN option uses.
+   */
+  public static void gen_BufferCharStream() {
+    try {
+      final File file = new File(Options.getOutputDirectory(), "BufferCharStream.java");
+      final OutputFile outputFile = new OutputFile(file, charStreamVersion, new String[] {
+          "STATIC", "SUPPORT_CLASS_VISIBILITY_PUBLIC" });
+      if (!outputFile.needToWrite) {
+        return;
+      }
+      final PrintWriter out = outputFile.getPrintWriter();
+      if (cu_to_insertion_point_1.size() != 0 && (cu_to_insertion_point_1.get(0)).kind == PACKAGE) {
+        for (int i = 1; i < cu_to_insertion_point_1.size(); i++) {
+          if ((cu_to_insertion_point_1.get(i)).kind == SEMICOLON) {
+            cline = ((cu_to_insertion_point_1.get(0))).beginLine;
+            ccol = ((cu_to_insertion_point_1.get(0))).beginColumn;
+            for (int j = 0; j <= i; j++) {
+              printToken((cu_to_insertion_point_1.get(j)), out);
+            }
+            out.println("");
+            out.println("");
+            break;
+          }
+        }
+      }
+      final String p = (Options.getStatic() ? "static " : "");
+      out.println("/**");
+      out.println(" * An implementation of the CharStream interface holding the whole input in a single buffer (a");
+      out.println(" * decoded memory mapped file, a given CharBuffer or the chars read at once from a Reader).");
+      out.println(" * There is no per character filling / expanding overhead, the line and column numbers are");
+      out.println(" * computed only when asked for, and the tokens images are offset / length views on the buffer");
+      out.println(" * materialized only on demand. No unicode processing is done.");
+      out.println(" */");
+      out.println("");
+      out.println((Options.getSupportClassVisibilityPublic() ? "public " : "") + "class BufferCharStream");
+      out.println("{");
+      out.println("  /** Whether parser is static. */");
+      out.println("  public static final boolean staticFlag = " + Options.getStatic() + ";");
+      out.println("  /** The buffer holding the whole input */");
+      out.println("  " + p + "char[] buffer;");
+      out.println("  /** The index of the first input char in the buffer */");
+      out.println("  " + p + "int base;");
+      out.println("  /** The number of input chars */");
+      out.println("  " + p + "int length;");
+      out.println("  /** Position of the last char read (-1 if none) */");
+      out.println("  " + p + "int bufpos = -1;");
+      out.println("  /** Position of the first char of the current token */");
+      out.println("  " + p + "int tokenBegin;");
+      out.println("  /** The tab size */");
+      out.println("  " + p + "protected int tabSize = 8;");
+      out.println("  /** The line and column of the first input char */");
+      out.println("  " + p + "int startLine, startColumn;");
+      out.println("  /** The position, line, column and line break flags of the line / column cursor */");
+      out.println("  " + p + "int lcPos, lcLine, lcColumn;");
+      out.println("  " + p + "boolean lcCR, lcLF;");
+      out.println("  /** The cursor state of the last adjustment (see adjustBeginLineColumn()) */");
+      out.println("  " + p + "int adjPos, adjLine, adjColumn;");
+      out.println("  " + p + "boolean adjCR, adjLF;");
+      out.println("  /** The offsets of the lines starts (built at the first use) and their number */");
+      out.println("  " + p + "int[] lineStarts;");
+      out.println("  " + p + "int nbLines;");
+      out.println("  /** The line index, offset and column of the last resolved column (to continue a line scan) */");
+      out.println("  " + p + "int lastLine, lastOffset, lastColumn;");
+      out.println("");
+      out.println("  " + p + "public void setTabSize(int i) { tabSize = i; }");
+      out.println("  " + p + "public int getTabSize() { return tabSize; }");
+      out.println("");
+      out.println("  /** Read a character. */");
+      out.println("  " + p + "public char readChar() throws java.io.IOException {");
+      out.println("    if (++bufpos >= length) {");
+      out.println("      --bufpos;");
+      out.println("      if (tokenBegin == -1)");
+      out.println("        tokenBegin = bufpos;");
+      out.println("      throw new java.io.IOException();");
+      out.println("    }");
+      out.println("    return buffer[base + bufpos];");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Start. */");
+      out.println("  " + p + "public char BeginToken() throws java.io.IOException {");
+      out.println("    tokenBegin = -1;");
+      out.println("    final char c = readChar();");
+      out.println("    tokenBegin = bufpos;");
+      out.println("    return c;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Backup a number of characters. */");
+      out.println("  " + p + "public void backup(int amount) {");
+      out.println("    bufpos -= amount;");
+      out.println("  }");
+      out.println("");
+      out.println("  /**");
+      out.println("   * Moves the line / column cursor to a given position (must be in the input or -1).");
+      out.println("   * The getters return 0 for the position -1 (no char read), as SimpleCharStream does.");
+      out.println("   */");
+      out.println("  " + p + "private void moveTo(final int pos) {");
+      out.println("    if (pos < lcPos) {");
+      out.println("      lcPos = adjPos; lcLine = adjLine; lcColumn = adjColumn; lcCR = adjCR; lcLF = adjLF;");
+      out.println("      if (pos < adjPos) {");
+      out.println("        lcPos = -1; lcLine = startLine; lcColumn = startColumn - 1; lcCR = false; lcLF = false;");
+      out.println("      }");
+      out.println("    }");
+      out.println("    final char[] b = buffer;");
+      out.println("    int line = lcLine, column = lcColumn;");
+      out.println("    boolean cr = lcCR, lf = lcLF;");
+      out.println("    for (int i = base + lcPos + 1, n = base + pos; i <= n; i++) {");
+      out.println("      final char c = b[i];");
+      out.println("      column++;");
+      out.println("      if (lf) {");
+      out.println("        lf = false;");
+      out.println("        line += (column = 1);");
+      out.println("      } else if (cr) {");
+      out.println("        cr = false;");
+      out.println("        if (c == '\\n')");
+      out.println("          lf = true;");
+      out.println("        else");
+      out.println("          line += (column = 1);");
+      out.println("      }");
+      out.println("      switch (c) {");
+      out.println("        case '\\r' :");
+      out.println("          cr = true;");
+      out.println("          break;");
+      out.println("        case '\\n' :");
+      out.println("          lf = true;");
+      out.println("          break;");
+      out.println("        case '\\t' :");
+      out.println("          column--;");
+      out.println("          column += (tabSize - (column % tabSize));");
+      out.println("          break;");
+      out.println("        default :");
+      out.println("          break;");
+      out.println("      }");
+      out.println("    }");
+      out.println("    lcPos = pos; lcLine = line; lcColumn = column; lcCR = cr; lcLF = lf;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token end column number. */");
+      out.println("  " + p + "public int getEndColumn() {");
+      out.println("    moveTo(bufpos);");
+      out.println("    return bufpos < 0 ? 0 : lcColumn;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token end line number. */");
+      out.println("  " + p + "public int getEndLine() {");
+      out.println("    moveTo(bufpos);");
+      out.println("    return bufpos < 0 ? 0 : lcLine;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token beginning column number. */");
+      out.println("  " + p + "public int getBeginColumn() {");
+      out.println("    moveTo(tokenBegin);");
+      out.println("    return tokenBegin < 0 ? 0 : lcColumn;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token beginning line number. */");
+      out.println("  " + p + "public int getBeginLine() {");
+      out.println("    moveTo(tokenBegin);");
+      out.println("    return tokenBegin < 0 ? 0 : lcLine;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** @deprecated @see #getEndColumn */");
+      out.println("  @Deprecated");
+      out.println("  " + p + "public int getColumn() {");
+      out.println("    return getEndColumn();");
+      out.println("  }");
+      out.println("");
+      out.println("  /** @deprecated @see #getEndLine */");
+      out.println("  @Deprecated");
+      out.println("  " + p + "public int getLine() {");
+      out.println("    return getEndLine();");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token beginning offset (from the start of the input). */");
+      out.println("  " + p + "public int getBeginOffset() {");
+      out.println("    return tokenBegin;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token end offset (from the start of the input, exclusive). */");
+      out.println("  " + p + "public int getEndOffset() {");
+      out.println("    return bufpos + 1;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get token literal value. */");
+      out.println("  " + p + "public String GetImage() {");
+      out.println("    return bufpos >= tokenBegin ? new String(buffer, base + tokenBegin, bufpos - tokenBegin + 1) : \"\";");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get a view (not a copy) on the token literal value, valid until Done() or ReInit(). */");
+      out.println("  " + p + "public CharSequence GetImageView() {");
+      out.println("    return bufpos >= tokenBegin ? java.nio.CharBuffer.wrap(buffer, base + tokenBegin, bufpos - tokenBegin + 1) : \"\";");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get the literal value between two offsets (as returned by getBeginOffset() and getEndOffset()). */");
+      out.println("  " + p + "public String getImage(int beginOffset, int endOffset) {");
+      out.println("    return new String(buffer, base + beginOffset, endOffset - beginOffset);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Builds the index of the lines starts (once per input). */");
+      out.println("  " + p + "private void buildLineStarts() {");
+      out.println("    int[] ls = new int[Math.max(16, length >> 5)];");
+      out.println("    int n = 0;");
+      out.println("    ls[n++] = 0;");
+      out.println("    final char[] b = buffer;");
+      out.println("    for (int i = base, e = base + length; i < e; i++) {");
+      out.println("      final char c = b[i];");
+      out.println("      if (c == '\\n' || (c == '\\r' && (i + 1 == e || b[i + 1] != '\\n'))) {");
+      out.println("        if (n == ls.length) {");
+      out.println("          final int[] nls = new int[2 * n];");
+      out.println("          System.arraycopy(ls, 0, nls, 0, n);");
+      out.println("          ls = nls;");
+      out.println("        }");
+      out.println("        ls[n++] = i - base + 1;");
+      out.println("      }");
+      out.println("    }");
+      out.println("    lineStarts = ls;");
+      out.println("    nbLines = n;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get the index (from 0) of the line holding an offset (binary search in the lines starts). */");
+      out.println("  " + p + "private int lineIndex(int offset) {");
+      out.println("    if (lineStarts == null)");
+      out.println("      buildLineStarts();");
+      out.println("    final int[] ls = lineStarts;");
+      out.println("    int lo = 0, hi = nbLines - 1;");
+      out.println("    while (lo < hi) {");
+      out.println("      final int mid = (lo + hi + 1) >>> 1;");
+      out.println("      if (ls[mid] <= offset)");
+      out.println("        lo = mid;");
+      out.println("      else");
+      out.println("        hi = mid - 1;");
+      out.println("    }");
+      out.println("    return lo;");
+      out.println("  }");
+      out.println("");
+      out.println("  /**");
+      out.println("   * Get the line number of the char at a given offset (from the start of the input), through the");
+      out.println("   * lines starts index (built once at the first call ; adjustBeginLineColumn() is not taken in account) ;");
+      out.println("   * 0 for the offset -1 (no char read).");
+      out.println("   */");
+      out.println("  " + p + "public int getLine(int offset) {");
+      out.println("    return offset < 0 ? 0 : startLine + lineIndex(offset);");
+      out.println("  }");
+      out.println("");
+      out.println("  /**");
+      out.println("   * Get the column number of the char at a given offset (from the start of the input), through the");
+      out.println("   * lines starts index (built once at the first call ; adjustBeginLineColumn() is not taken in account) ;");
+      out.println("   * 0 for the offset -1 (no char read).");
+      out.println("   */");
+      out.println("  " + p + "public int getColumn(int offset) {");
+      out.println("    if (offset < 0)");
+      out.println("      return 0;");
+      out.println("    final int li = lineIndex(offset);");
+      out.println("    int column, i;");
+      out.println("    if (li == lastLine && offset >= lastOffset) {");
+      out.println("      column = lastColumn;");
+      out.println("      i = lastOffset + 1;");
+      out.println("    } else {");
+      out.println("      column = li == 0 ? startColumn - 1 : 0;");
+      out.println("      i = lineStarts[li];");
+      out.println("    }");
+      out.println("    for (final char[] b = buffer; i <= offset; i++) {");
+      out.println("      column++;");
+      out.println("      if (b[base + i] == '\\t') {");
+      out.println("        column--;");
+      out.println("        column += (tabSize - (column % tabSize));");
+      out.println("      }");
+      out.println("    }");
+      out.println("    lastLine = li;");
+      out.println("    lastOffset = offset;");
+      out.println("    lastColumn = column;");
+      out.println("    return column;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Get the suffix. */");
+      out.println("  " + p + "public char[] GetSuffix(int len) {");
+      out.println("    final char[] ret = new char[len];");
+      out.println("    System.arraycopy(buffer, base + bufpos - len + 1, ret, 0, len);");
+      out.println("    return ret;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reset buffer when finished. */");
+      out.println("  " + p + "public void Done() {");
+      out.println("    buffer = null;");
+      out.println("  }");
+      out.println("");
+      out.println("  /**");
+      out.println("   * Method to adjust line and column numbers for the start of a token.");
+      out.println("   */");
+      out.println("  " + p + "public void adjustBeginLineColumn(int newLine, int newCol) {");
+      out.println("    moveTo(tokenBegin);");
+      out.println("    lcLine = newLine;");
+      out.println("    lcColumn = newCol;");
+      out.println("    adjPos = lcPos; adjLine = lcLine; adjColumn = lcColumn; adjCR = lcCR; adjLF = lcLF;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise on a CharBuffer (shared if it has an accessible array, copied otherwise). */");
+      out.println("  " + p + "public void ReInit(java.nio.CharBuffer cb, int startline, int startcolumn) {");
+      out.println("    length = cb.remaining();");
+      out.println("    if (cb.hasArray()) {");
+      out.println("      buffer = cb.array();");
+      out.println("      base = cb.arrayOffset() + cb.position();");
+      out.println("    } else {");
+      out.println("      buffer = new char[length];");
+      out.println("      cb.duplicate().get(buffer);");
+      out.println("      base = 0;");
+      out.println("    }");
+      out.println("    bufpos = tokenBegin = -1;");
+      out.println("    startLine = startline;");
+      out.println("    startColumn = startcolumn;");
+      out.println("    lcPos = adjPos = -1;");
+      out.println("    lcLine = adjLine = startline;");
+      out.println("    lcColumn = adjColumn = startcolumn - 1;");
+      out.println("    lcCR = adjCR = lcLF = adjLF = false;");
+      out.println("    lineStarts = null;");
+      out.println("    lastLine = -1;");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise on a CharBuffer. */");
+      out.println("  " + p + "public void ReInit(java.nio.CharBuffer cb) {");
+      out.println("    ReInit(cb, 1, 1);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise (reads at once the whole Reader, and closes it). */");
+      out.println("  " + p + "public void ReInit(java.io.Reader dstream, int startline, int startcolumn, int buffersize) {");
+      out.println("    char[] b = new char[buffersize > 0 ? buffersize : 4096];");
+      out.println("    int n = 0;");
+      out.println("    try {");
+      out.println("      int i;");
+      out.println("      while ((i = dstream.read(b, n, b.length - n)) != -1) {");
+      out.println("        n += i;");
+      out.println("        if (n == b.length) {");
+      out.println("          final char[] nb = new char[2 * b.length];");
+      out.println("          System.arraycopy(b, 0, nb, 0, n);");
+      out.println("          b = nb;");
+      out.println("        }");
+      out.println("      }");
+      out.println("      dstream.close();");
+      out.println("    }");
+      out.println("    catch (java.io.IOException e) {");
+      out.println("      throw new Error(\"Could not read the input stream : \" + e.getMessage());");
+      out.println("    }");
+      out.println("    ReInit(java.nio.CharBuffer.wrap(b, 0, n), startline, startcolumn);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.Reader dstream, int startline, int startcolumn) {");
+      out.println("    ReInit(dstream, startline, startcolumn, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.Reader dstream) {");
+      out.println("    ReInit(dstream, 1, 1, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /**");
+      out.println("   * Reinitialise (a FileInputStream is memory mapped and decoded at once, any other InputStream");
+      out.println("   * is read at once through a Reader).");
+      out.println("   */");
+      out.println("  " + p + "public void ReInit(java.io.InputStream dstream, String encoding, int startline, int startcolumn, int buffersize) throws java.io.UnsupportedEncodingException {");
+      out.println("    if (dstream instanceof java.io.FileInputStream) {");
+      out.println("      final java.nio.charset.Charset cs;");
+      out.println("      try {");
+      out.println("        cs = encoding == null ? java.nio.charset.Charset.defaultCharset() : java.nio.charset.Charset.forName(encoding);");
+      out.println("      }");
+      out.println("      catch (IllegalArgumentException e) {");
+      out.println("        throw new java.io.UnsupportedEncodingException(encoding);");
+      out.println("      }");
+      out.println("      try {");
+      out.println("        final java.nio.channels.FileChannel fc = ((java.io.FileInputStream) dstream).getChannel();");
+      out.println("        final long pos = fc.position();");
+      out.println("        ReInit(decode(fc.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, pos, fc.size() - pos), cs), startline, startcolumn);");
+      out.println("        dstream.close();");
+      out.println("      }");
+      out.println("      catch (java.io.IOException e) {");
+      out.println("        throw new Error(\"Could not read the input stream : \" + e.getMessage());");
+      out.println("      }");
+      out.println("    } else {");
+      out.println("      ReInit(encoding == null ? new java.io.InputStreamReader(dstream) : new java.io.InputStreamReader(dstream, encoding), startline, startcolumn, buffersize);");
+      out.println("    }");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.InputStream dstream, int startline, int startcolumn, int buffersize) {");
+      out.println("    try {");
+      out.println("      ReInit(dstream, null, startline, startcolumn, buffersize);");
+      out.println("    }");
+      out.println("    catch (java.io.UnsupportedEncodingException e) {");
+      out.println("      throw new Error(e.getMessage());");
+      out.println("    }");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.InputStream dstream, String encoding, int startline, int startcolumn) throws java.io.UnsupportedEncodingException {");
+      out.println("    ReInit(dstream, encoding, startline, startcolumn, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.InputStream dstream, int startline, int startcolumn) {");
+      out.println("    ReInit(dstream, startline, startcolumn, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.InputStream dstream, String encoding) throws java.io.UnsupportedEncodingException {");
+      out.println("    ReInit(dstream, encoding, 1, 1, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Reinitialise. */");
+      out.println("  " + p + "public void ReInit(java.io.InputStream dstream) {");
+      out.println("    ReInit(dstream, 1, 1, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Decodes at once a byte buffer (malformed and unmappable input is replaced). */");
+      out.println("  private static java.nio.CharBuffer decode(java.nio.ByteBuffer bb, java.nio.charset.Charset cs) throws java.io.IOException {");
+      out.println("    return cs.newDecoder().onMalformedInput(java.nio.charset.CodingErrorAction.REPLACE)");
+      out.println("             .onUnmappableCharacter(java.nio.charset.CodingErrorAction.REPLACE).decode(bb);");
+      out.println("  }");
+      out.println("");
+      out.println("  /**");
+      out.println("   * Memory maps and decodes at once a file.");
+      out.println("   * @param file - the file");
+      out.println("   * @param encoding - the file encoding (null for the platform default)");
+      out.println("   * @return a CharBuffer (to be given to a constructor or to ReInit())");
+      out.println("   * @throws java.io.IOException if the file cannot be read or decoded");
+      out.println("   */");
+      out.println("  public static java.nio.CharBuffer map(java.io.File file, String encoding) throws java.io.IOException {");
+      out.println("    final java.io.FileInputStream fis = new java.io.FileInputStream(file);");
+      out.println("    try {");
+      out.println("      final java.nio.channels.FileChannel fc = fis.getChannel();");
+      out.println("      return decode(fc.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0, fc.size()),");
+      out.println("                    encoding == null ? java.nio.charset.Charset.defaultCharset() : java.nio.charset.Charset.forName(encoding));");
+      out.println("    }");
+      out.println("    finally {");
+      out.println("      fis.close();");
+      out.println("    }");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor on a CharBuffer. */");
+      out.println("  public BufferCharStream(java.nio.CharBuffer cb, int startline, int startcolumn) {");
+      printStaticCheck(out);
+      out.println("    ReInit(cb, startline, startcolumn);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor on a CharBuffer. */");
+      out.println("  public BufferCharStream(java.nio.CharBuffer cb) {");
+      out.println("    this(cb, 1, 1);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.Reader dstream, int startline, int startcolumn, int buffersize) {");
+      printStaticCheck(out);
+      out.println("    ReInit(dstream, startline, startcolumn, buffersize);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.Reader dstream, int startline, int startcolumn) {");
+      out.println("    this(dstream, startline, startcolumn, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.Reader dstream) {");
+      out.println("    this(dstream, 1, 1, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.InputStream dstream, String encoding, int startline, int startcolumn, int buffersize) throws java.io.UnsupportedEncodingException {");
+      printStaticCheck(out);
+      out.println("    ReInit(dstream, encoding, startline, startcolumn, buffersize);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.InputStream dstream, int startline, int startcolumn, int buffersize) {");
+      printStaticCheck(out);
+      out.println("    ReInit(dstream, startline, startcolumn, buffersize);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.InputStream dstream, String encoding, int startline, int startcolumn) throws java.io.UnsupportedEncodingException {");
+      out.println("    this(dstream, encoding, startline, startcolumn, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.InputStream dstream, int startline, int startcolumn) {");
+      out.println("    this(dstream, startline, startcolumn, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.InputStream dstream, String encoding) throws java.io.UnsupportedEncodingException {");
+      out.println("    this(dstream, encoding, 1, 1, 4096);");
+      out.println("  }");
+      out.println("");
+      out.println("  /** Constructor. */");
+      out.println("  public BufferCharStream(java.io.InputStream dstream) {");
+      out.println("    this(dstream, 1, 1, 4096);");
+      out.println("  }");
+      out.println("}");
+      out.close();
+    }
+    catch (final IOException e) {
+      System.err.println("Failed to create BufferCharStream " + e);
+      JavaCCErrors.semantic_error("Could not open file BufferCharStream.java for writing.");
+      throw new Error();
+    }
+  }
+
+  /**
+   * Prints the check that a static BufferCharStream is not constructed twice.
+   * 
+   * @param out - the output writer
+   */
+  private static void printStaticCheck(final PrintWriter out) {
+    if (!Options.getStatic())
+      return;
+    out.println("    if (buffer != null)");
+    out.println("      throw new Error(\"\\n   ERROR: Second call to the constructor of a static BufferCharStream.\\n\" +");
+    out.println("      \"       You must either use ReInit() or set the JavaCC option STATIC to false\\n\" +");
+    out.println("      \"       during the generation of this class.\");");
+  }
+
   /**
    * Generates the CharStream class.
    */
@@ -0,0 +1,292 @@
+/* Copyright (c) 2006, Sun Microsystems, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright notice,
+ *       this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the Sun Microsystems, Inc. nor the names of its
+ *       contributors may be used to endorse or promote products derived from
+ *       this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package EDU.purdue.jtb.parser;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A minimal perfect hash of the keywords of a lexical state, for the KEYWORD_HASH option.
+ * <p>
+ * The keywords are the string literals which are also fully matched (with a greater ordinal) by a
+ * regular expression of the NFA (usually the identifier one) : they are removed from the string
+ * literals DFA, so an identifier or a keyword is scanned by a single NFA pass, and the keyword is
+ * then recognized in jjFillToken through a constant time lookup of the token image.<br>
+ * The hash is built by "hash and displace" on the images hash codes : the keywords are split in
+ * buckets, and each bucket gets a displacement which sends its keywords to free slots of a table
+ * as large as the number of keywords.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class KeywordHash {
+
+  /** The maximum number of displacements tried for a bucket */
+  private static final int           MAX_DISP = 1 << 16;
+
+  /** The lexical state index */
+  private final int                  lexState;
+  /** The kinds of the regular expressions which match the keywords in the NFA */
+  private final List<Integer>        carriers = new ArrayList<Integer>();
+  /** The keywords (in their ordinals order) */
+  private final List<RStringLiteral> keywords = new ArrayList<RStringLiteral>();
+  /** The keywords images, at their hash index */
+  private String[]                   images;
+  /** The keywords kinds, at their hash index */
+  private int[]                      kinds;
+  /** The buckets displacements */
+  private int[]                      disp;
+  /** The number of bits of the bucket index */
+  private int                        bucketBits;
+  /** The shortest keyword length */
+  private int                        minLen   = Integer.MAX_VALUE;
+  /** The longest keyword length */
+  private int                        maxLen   = 0;
+
+  /**
+   * Standard constructor.
+   * 
+   * @param ls - the lexical state index
+   */
+  public KeywordHash(final int ls) {
+    lexState = ls;
+  }
+
+  /**
+   * @return the lexical state index
+   */
+  public int getLexState() {
+    return lexState;
+  }
+
+  /**
+   * Adds a keyword, if its hash code differs from the ones of the keywords already added.
+   * 
+   * @param lit - the string literal
+   * @param carrier - the kind matching the image in the NFA
+   * @return true if added, false otherwise (the literal must stay in the string literals DFA)
+   */
+  public boolean Add(final RStringLiteral lit, final int carrier) {
+    final int h = lit.image.hashCode();
+    for (final RStringLiteral k : keywords)
+      if (k.image.hashCode() == h)
+        return false;
+    keywords.add(lit);
+    if (!carriers.contains(Integer.valueOf(carrier)))
+      carriers.add(Integer.valueOf(carrier));
+    minLen = Math.min(minLen, lit.image.length());
+    maxLen = Math.max(maxLen, lit.image.length());
+    return true;
+  }
+
+  /**
+   * @return the keywords
+   */
+  public List<RStringLiteral> getKeywords() {
+    return keywords;
+  }
+
+  /**
+   * Gives the bucket of a hash code.
+   * 
+   * @param h - the hash code
+   * @param bits - the number of bits of the bucket index
+   * @return the bucket index
+   */
+  static int Bucket(final int h, final int bits) {
+    return (h * 0x9E3779B9) >>> (32 - bits);
+  }
+
+  /**
+   * Gives the table index of a hash code with a displacement.
+   * 
+   * @param h - the hash code
+   * @param d - the displacement
+   * @param n - the table size
+   * @return the table index
+   */
+  static int Index(final int h, final int d, final int n) {
+    int x = (h ^ d) * 0x85EBCA6B;
+    x ^= x >>> 13;
+    return (x & 0x7FFFFFFF) % n;
+  }
+
+  /**
+   * Builds the hash, with the smallest number of buckets for which each bucket gets a
+   * displacement.
+   * 
+   * @return true if built, false otherwise (the keywords must stay in the string literals DFA)
+   */
+  public boolean Build() {
+    final int n = keywords.size();
+    int bits = 1;
+    while ((1 << bits) < (n + 1) / 2)
+      bits++;
+    for (; bits <= 16; bits++)
+      if (TryBuild(bits))
+        return true;
+    return false;
+  }
+
+  /**
+   * Tries to build the hash with a given number of buckets.
+   * 
+   * @param bits - the number of bits of the bucket index
+   * @return true if built, false otherwise
+   */
+  private boolean TryBuild(final int bits) {
+    final int n = keywords.size();
+    final int nb = 1 << bits;
+    final List<List<Integer>> buckets = new ArrayList<List<Integer>>(nb);
+    for (int b = 0; b < nb; b++)
+      buckets.add(new ArrayList<Integer>());
+    for (int i = 0; i < n; i++)
+      buckets.get(Bucket(keywords.get(i).image.hashCode(), bits)).add(Integer.valueOf(i));
+    // the largest buckets first
+    final Integer[] order = new Integer[nb];
+    for (int b = 0; b < nb; b++)
+      order[b] = Integer.valueOf(b);
+    Arrays.sort(order, new Comparator<Integer>() {
+
+      @Override
+      public int compare(final Integer b1, final Integer b2) {
+        return buckets.get(b2.intValue()).size() - buckets.get(b1.intValue()).size();
+      }
+    });
+    final int[] d = new int[nb];
+    final int[] slot = new int[n];
+    Arrays.fill(slot, -1);
+    final int[] idx = new int[n];
+    for (final Integer b : order) {
+      final List<Integer> bucket = buckets.get(b.intValue());
+      if (bucket.isEmpty())
+        break;
+      int dv = 0;
+      for (; dv < MAX_DISP; dv++) {
+        boolean ok = true;
+        for (int j = 0; ok && j < bucket.size(); j++) {
+          idx[j] = Index(keywords.get(bucket.get(j).intValue()).image.hashCode(), dv, n);
+          if (slot[idx[j]] >= 0)
+            ok = false;
+          for (int k = 0; ok && k < j; k++)
+            if (idx[k] == idx[j])
+              ok = false;
+        }
+        if (ok)
+          break;
+      }
+      if (dv == MAX_DISP)
+        return false;
+      d[b.intValue()] = dv;
+      for (int j = 0; j < bucket.size(); j++)
+        slot[idx[j]] = bucket.get(j).intValue();
+    }
+    bucketBits = bits;
+    disp = d;
+    images = new String[n];
+    kinds = new int[n];
+    for (int i = 0; i < n; i++) {
+      final RStringLiteral lit = keywords.get(slot[i]);
+      images[i] = lit.image;
+      kinds[i] = lit.ordinal;
+    }
+    return true;
+  }
+
+  /**
+   * Dumps the hash tables and the lookup method of the lexical state.
+   * 
+   * @param out - the output to print into
+   */
+  public void DumpTables(final PrintWriter out) {
+    final String sfx = "_" + lexState;
+    final int n = images.length;
+    out.println("");
+    out.println("/* Minimal perfect hash of the " + n + " keywords of lexical state " +
+                LexGen.lexStateName[lexState] + " */");
+    out.print("static final String[] jjKeywordImages" + sfx + " = {");
+    for (int i = 0; i < n; i++)
+      out.print((i % 8 == 0 ? "\n   " : " ") + "\"" + JavaCCGlobals.add_escapes(images[i]) + "\",");
+    out.println("\n};");
+    out.print("static final int[] jjKeywordKinds" + sfx + " = {");
+    for (int i = 0; i < n; i++)
+      out.print((i % 16 == 0 ? "\n   " : " ") + kinds[i] + ",");
+    out.println("\n};");
+    out.print("static final int[] jjKeywordDisp" + sfx + " = {");
+    for (int i = 0; i < disp.length; i++)
+      out.print((i % 16 == 0 ? "\n   " : " ") + disp[i] + ",");
+    out.println("\n};");
+    out.println("");
+    out.println("/** Gives the kind of the keyword of a given image, or -1 if it is not a keyword. */");
+    out.println("private static int jjKeywordKind" + sfx + "(final String image)");
+    out.println("{");
+    out.println("   final int len = image.length();");
+    out.println("   if (len < " + minLen + " || len > " + maxLen + ")");
+    out.println("      return -1;");
+    out.println("   final int h = image.hashCode();");
+    out.println("   int x = (h ^ jjKeywordDisp" + sfx + "[(h * 0x9E3779B9) >>> " + (32 - bucketBits) +
+                "]) * 0x85EBCA6B;");
+    out.println("   x ^= x >>> 13;");
+    out.println("   final int i = (x & 0x7FFFFFFF) % " + n + ";");
+    out.println("   return image.equals(jjKeywordImages" + sfx + "[i]) ? jjKeywordKinds" + sfx +
+                "[i] : -1;");
+    out.println("}");
+  }
+
+  /**
+   * Dumps the jjFillToken code which turns a token matched by a carrier regular expression into a
+   * keyword token (on the local variable im holding the literal image, null for a carrier).
+   * 
+   * @param out - the output to print into
+   * @param prefix - the indentation prefix
+   * @param checkState - true to check the current lexical state (several states have keywords)
+   */
+  public void DumpLookup(final PrintWriter out, final String prefix, final boolean checkState) {
+    final String sfx = "_" + lexState;
+    final StringBuilder cond = new StringBuilder("im == null");
+    if (checkState)
+      cond.append(" && curLexState == ").append(lexState);
+    cond.append(" && (");
+    for (int i = 0; i < carriers.size(); i++)
+      cond.append(i == 0 ? "" : " || ").append("jjmatchedKind == ").append(carriers.get(i));
+    cond.append(')');
+    out.println(prefix + "if (" + cond + ")");
+    out.println(prefix + "{");
+    out.println(prefix + "   im = input_stream.GetImage();");
+    out.println(prefix + "   final int kw = jjKeywordKind" + sfx + "(im);");
+    out.println(prefix + "   if (kw >= 0)");
+    out.println(prefix + "   {");
+    out.println(prefix + "      jjmatchedKind = kw;");
+    out.println(prefix + "      im = jjstrLiteralImages[kw];");
+    out.println(prefix + "   }");
+    out.println(prefix + "}");
+  }
+}
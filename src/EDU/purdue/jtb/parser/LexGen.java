@@ -44,6 +44,14 @@ import java.util.Map;
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : moved to imports static
+ * @version 1.4.13 : 10/2026 : agent : added the table driven token manager (TABLE_DRIVEN_LEXER option,
+ *          see {@link Dfa})
+ * @version 1.4.13 : 10/2026 : agent : added the report of the methods too big for the JIT (see
+ *          {@link MethodSplitter})
+ * @version 1.4.13 : 10/2026 : agent : added the BufferCharStream class (BUFFER_CHAR_STREAM option)
+ * @version 1.4.13 : 10/2026 : agent : added the tokens offsets (LAZY_LINE_COLUMN option)
+ * @version 1.4.13 : 10/2026 : agent : added the keywords perfect hash (KEYWORD_HASH option, see
+ *          {@link KeywordHash})
  */
 public class LexGen extends JavaCCGlobals {
 
@@ -92,6 +100,10 @@ public class LexGen extends JavaCCGlobals {
   static boolean                                  hasMore         = false;
   public static RegularExpression_                curRE;
   public static boolean                           keepLineCol;
+  /** True to generate a table driven token manager (TABLE_DRIVEN_LEXER option) */
+  public static boolean                           tableLexer;
+  /** The keywords hashes of the lexical states (KEYWORD_HASH option) */
+  public static List<KeywordHash>                 keywordHashes;
 
   static void PrintClassHead() {
     int i, j;
@@ -329,6 +341,10 @@ public class LexGen extends JavaCCGlobals {
       return;
 
     keepLineCol = Options.getKeepLineColumn();
+    tableLexer = Options.getTableDrivenLexer();
+    keywordHashes = new ArrayList<KeywordHash>();
+    // the image of a token preceded by MORE tokens is not the string matched by its regular expression
+    final boolean kwHash = Options.getKeywordHash() && !HasMoreRegularExpression();
     final List<RegularExpression_> choices = new ArrayList<RegularExpression_>();
     Enumeration<String> e;
     TokenProduction tp;
@@ -353,6 +369,11 @@ public class LexGen extends JavaCCGlobals {
       lexStateIndex = GetIndex(key);
       lexStateSuffix = "_" + lexStateIndex;
       final List<TokenProduction> allTps = allTpsForState.get(key);
+      // the regular expressions of the table driven DFA and their ignore case flags
+      final List<RegularExpression_> dfaREs = new ArrayList<RegularExpression_>();
+      final List<Boolean> dfaICs = new ArrayList<Boolean>();
+      // the string literals which may be keywords (KEYWORD_HASH option)
+      final List<RStringLiteral> kwLits = new ArrayList<RStringLiteral>();
       initStates.put(key, initialState = new NfaState());
       ignoring = false;
 
@@ -385,8 +406,16 @@ public class LexGen extends JavaCCGlobals {
           }
 
           if (curRE instanceof RStringLiteral && !((RStringLiteral) curRE).image.equals("")) {
-            // ((RStringLiteral) curRE).GenerateDfa(out, curRE.ordinal);
-            ((RStringLiteral) curRE).GenerateDfa();
+            if (kwHash && kind == TokenProduction.TOKEN && !ignore && tp.lexStates.length == 1 &&
+                ((RStringLiteral) curRE).image.length() > 1) {
+              // may be a keyword : decided once the NFA is generated
+              kwLits.add((RStringLiteral) curRE);
+            } else {
+              // ((RStringLiteral) curRE).GenerateDfa(out, curRE.ordinal);
+              ((RStringLiteral) curRE).GenerateDfa();
+              dfaREs.add(curRE);
+              dfaICs.add(Boolean.valueOf(ignore));
+            }
             if (i != 0 && !mixed[lexStateIndex] && ignoring != ignore)
               mixed[lexStateIndex] = true;
           } else if (curRE.CanMatchAnyChar()) {
@@ -403,6 +432,8 @@ public class LexGen extends JavaCCGlobals {
             temp.endNfaState.isFinal = true;
             temp.endNfaState.kind = curRE.ordinal;
             initialState.AddMove(temp.startNfaState);
+            dfaREs.add(curRE);
+            dfaICs.add(Boolean.valueOf(ignore));
           }
 
           if (kinds.length < curRE.ordinal) {
@@ -454,6 +485,8 @@ public class LexGen extends JavaCCGlobals {
         }
       }
 
+      final KeywordHash kwh = kwLits.isEmpty() ? null : SelectKeywords(kwLits, dfaREs, dfaICs);
+
       // Generate a static block for initializing the nfa transitions
       NfaState.ComputeClosures();
 
@@ -485,13 +518,33 @@ public class LexGen extends JavaCCGlobals {
 
       RStringLiteral.FillSubString();
 
-      if (hasNfa[lexStateIndex] && !mixed[lexStateIndex])
-        RStringLiteral.GenerateNfaStartStates(out, initialState);
+      if (tableLexer) {
+        // the string literals and the NFA are replaced by a DFA
+        final Dfa dfa = new Dfa();
+        for (int k = 0; k < dfaREs.size(); k++) {
+          final RegularExpression_ re = dfaREs.get(k);
+          dfa.AddRegularExpression(re, re.ordinal, dfaICs.get(k).booleanValue());
+        }
+        dfa.Build();
+        dfa.DumpTables(out);
+        dfa.DumpMoveDfa(out);
+      } else {
+        if (hasNfa[lexStateIndex] && !mixed[lexStateIndex])
+          RStringLiteral.GenerateNfaStartStates(out, initialState);
 
-      RStringLiteral.DumpDfaCode(out);
+        RStringLiteral.DumpDfaCode(out);
 
-      if (hasNfa[lexStateIndex])
-        NfaState.DumpMoveNfa(out);
+        if (hasNfa[lexStateIndex])
+          NfaState.DumpMoveNfa(out);
+      }
+
+      if (kwh != null) {
+        kwh.DumpTables(out);
+        keywordHashes.add(kwh);
+        // the keywords images are needed only now, in the literal images table
+        for (final RStringLiteral lit : kwh.getKeywords())
+          RStringLiteral.allImages[lit.ordinal] = lit.image;
+      }
 
       if (stateSetSize < NfaState.generatedStates)
         stateSetSize = NfaState.generatedStates;
@@ -503,6 +556,8 @@ public class LexGen extends JavaCCGlobals {
     NfaState.DumpStateSets(out);
     CheckEmptyStringMatch();
     NfaState.DumpNonAsciiMoveMethods(out);
+    if (tableLexer)
+      Dfa.DumpBoilerPlate(out);
     RStringLiteral.DumpStrLiteralImages(out);
     DumpStaticVarDeclarations();
     DumpFillToken();
@@ -529,6 +584,7 @@ public class LexGen extends JavaCCGlobals {
     NfaState.PrintBoilerPlate(out);
     out.println(/*{*/"}");
     out.close();
+    MethodSplitter.Report();
   }
 
   static void CheckEmptyStringMatch() {
@@ -689,6 +745,8 @@ public class LexGen extends JavaCCGlobals {
     else {
       if (Options.getJavaUnicodeEscape())
         charStreamName = "JavaCharStream";
+      else if (Options.getBufferCharStream())
+        charStreamName = "BufferCharStream";
       else
         charStreamName = "SimpleCharStream";
     }
@@ -727,6 +785,8 @@ public class LexGen extends JavaCCGlobals {
     } else if (!Options.getUserCharStream()) {
       if (Options.getJavaUnicodeEscape())
         out.println("   if (JavaCharStream.staticFlag)");
+      else if (Options.getBufferCharStream())
+        out.println("   if (BufferCharStream.staticFlag)");
       else
         out.println("   if (SimpleCharStream.staticFlag)");
 
@@ -805,9 +865,77 @@ public class LexGen extends JavaCCGlobals {
     return 0xffff;
   }
 
+  /**
+   * @return true if a MORE regular expression is defined in the grammar
+   */
+  static boolean HasMoreRegularExpression() {
+    for (final TokenProduction tp : rexprlist)
+      if (tp.kind == TokenProduction.MORE)
+        return true;
+    return false;
+  }
+
+  /**
+   * Selects the keywords of the current lexical state among the candidate string literals : a
+   * literal is a keyword if the NFA alone matches its whole image with a greater ordinal TOKEN
+   * regular expression (so the longest match is the same without the literal, and only the kind has
+   * to be changed when the image is the literal one).<br>
+   * The other literals are added to the string literals DFA.
+   * 
+   * @param lits - the candidate string literals
+   * @param res - the regular expressions of the lexical state (the other literals and the NFA ones)
+   * @param ics - the ignore case flags of the regular expressions
+   * @return the keywords hash, or null if no keyword
+   */
+  static KeywordHash SelectKeywords(final List<RStringLiteral> lits,
+                                    final List<RegularExpression_> res, final List<Boolean> ics) {
+    KeywordHash kwh = null;
+    final List<RStringLiteral> others = new ArrayList<RStringLiteral>();
+    if (mixed[lexStateIndex])
+      others.addAll(lits);
+    else {
+      final Dfa nfa = new Dfa();
+      for (int k = 0; k < res.size(); k++)
+        if (!(res.get(k) instanceof RStringLiteral))
+          nfa.AddRegularExpression(res.get(k), res.get(k).ordinal, ics.get(k).booleanValue());
+      nfa.Build();
+      kwh = new KeywordHash(lexStateIndex);
+      for (final RStringLiteral lit : lits) {
+        final int k = nfa.Match(lit.image);
+        if (k <= lit.ordinal || kinds[k] != TokenProduction.TOKEN || !kwh.Add(lit, k))
+          others.add(lit);
+      }
+      if (kwh.getKeywords().isEmpty() || !kwh.Build()) {
+        others.addAll(kwh.getKeywords());
+        kwh = null;
+      }
+    }
+    for (final RStringLiteral lit : others) {
+      curRE = lit;
+      lit.GenerateDfa();
+      res.add(lit);
+      ics.add(Boolean.FALSE);
+    }
+    return kwh;
+  }
+
+  /**
+   * Dumps the jjFillToken code changing a token matched by the NFA into a keyword token (KEYWORD_HASH
+   * option).
+   * 
+   * @param prefix - the indentation prefix
+   */
+  static void DumpKeywordLookup(final String prefix) {
+    for (final KeywordHash kwh : keywordHashes)
+      kwh.DumpLookup(out, prefix, maxLexStates > 1);
+  }
+
   static void DumpFillToken() {
     final double tokenVersion = JavaFiles.getVersion("Token.java");
     final boolean hasBinaryNewToken = tokenVersion > 4.09;
+    // with LAZY_LINE_COLUMN the line fields are set to 0 (unresolved) and the column fields to the
+    // begin and end offsets ; the parser resolves them through the lines starts index of the stream
+    final boolean lazy = Options.getLazyLineColumn();
 
     out.println(staticString + "protected Token jjFillToken()");
     out.println("{");
@@ -828,7 +956,10 @@ public class LexGen extends JavaCCGlobals {
       out.println("      else");
       out.println("         curTokenImage = image.toString();");
 
-      if (keepLineCol) {
+      if (lazy) {
+        out.println("      startLine = endLine = 0;");
+        out.println("      beginColumn = endColumn = input_stream.getBeginOffset();");
+      } else if (keepLineCol) {
         out.println("      startLine = endLine = input_stream.getBeginLine();");
         out.println("      beginColumn = endColumn = input_stream.getBeginColumn();");
       }
@@ -837,9 +968,14 @@ public class LexGen extends JavaCCGlobals {
       out.println("   else");
       out.println("   {");
       out.println("      String im = jjstrLiteralImages[jjmatchedKind];");
+      DumpKeywordLookup("      ");
       out.println("      curTokenImage = (im == null) ? input_stream.GetImage() : im;");
 
-      if (keepLineCol) {
+      if (lazy) {
+        out.println("      startLine = endLine = 0;");
+        out.println("      beginColumn = input_stream.getBeginOffset();");
+        out.println("      endColumn = input_stream.getEndOffset() - 1;");
+      } else if (keepLineCol) {
         out.println("      startLine = input_stream.getBeginLine();");
         out.println("      beginColumn = input_stream.getBeginColumn();");
         out.println("      endLine = input_stream.getEndLine();");
@@ -849,8 +985,13 @@ public class LexGen extends JavaCCGlobals {
       out.println("   }");
     } else {
       out.println("   String im = jjstrLiteralImages[jjmatchedKind];");
+      DumpKeywordLookup("   ");
       out.println("   curTokenImage = (im == null) ? input_stream.GetImage() : im;");
-      if (keepLineCol) {
+      if (lazy) {
+        out.println("   startLine = endLine = 0;");
+        out.println("   beginColumn = input_stream.getBeginOffset();");
+        out.println("   endColumn = input_stream.getEndOffset() - 1;");
+      } else if (keepLineCol) {
         out.println("   startLine = input_stream.getBeginLine();");
         out.println("   beginColumn = input_stream.getBeginColumn();");
         out.println("   endLine = input_stream.getEndLine();");
@@ -1018,7 +1159,8 @@ public class LexGen extends JavaCCGlobals {
                     "TokenMgrError.addEscapes(String.valueOf(curChar)) + \" (\" + (int)curChar + \") " +
                     "at line \" + input_stream.getEndLine() + \" column \" + input_stream.getEndColumn());");
 
-      out.println(prefix + "curPos = jjMoveStringLiteralDfa0_" + i + "();");
+      out.println(prefix + "curPos = " + (tableLexer ? "jjMoveDfa_" : "jjMoveStringLiteralDfa0_") +
+                  i + "();");
 
       if (canMatchAnyChar[i] != -1) {
         if (initMatch[i] != Integer.MAX_VALUE && initMatch[i] != 0)
@@ -1481,6 +1623,7 @@ public class LexGen extends JavaCCGlobals {
     hasSkip = false;
     hasMore = false;
     curRE = null;
+    keywordHashes = null;
   }
 
 }
@@ -30,10 +30,13 @@ package EDU.purdue.jtb.parser;
 import java.util.ArrayList;
 import java.util.List;
 
+import EDU.purdue.jtb.misc.Messages;
+
 /**
  *
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
+ * @version 1.4.13 : 10/2026 : agent : printed the warnings on the {@link Messages} stream
  */
 public class LookaheadCalc extends JavaCCGlobals {
 
@@ -180,25 +183,25 @@ public class LookaheadCalc extends JavaCCGlobals {
       }
       if (minLA[i] > Options.getChoiceAmbiguityCheck()) {
         JavaCCErrors.warning("Choice conflict involving two expansions at");
-        System.err.print("         line " + (ch.getChoices().get(i)).getLine());
-        System.err.print(", column " + (ch.getChoices().get(i)).getColumn());
-        System.err.print(" and line " + (ch.getChoices().get(other[i])).getLine());
-        System.err.print(", column " + (ch.getChoices().get(other[i])).getColumn());
-        System.err.println(" respectively.");
-        System.err.println("         A common prefix is: " + image(overlapInfo[i]));
-        System.err.println("         Consider using a lookahead of " + minLA[i] +
-                           " or more for earlier expansion.");
+        Messages.err().print("         line " + (ch.getChoices().get(i)).getLine());
+        Messages.err().print(", column " + (ch.getChoices().get(i)).getColumn());
+        Messages.err().print(" and line " + (ch.getChoices().get(other[i])).getLine());
+        Messages.err().print(", column " + (ch.getChoices().get(other[i])).getColumn());
+        Messages.err().println(" respectively.");
+        Messages.err().println("         A common prefix is: " + image(overlapInfo[i]));
+        Messages.err().println("         Consider using a lookahead of " + minLA[i] +
+                               " or more for earlier expansion.");
       }
       else if (minLA[i] > 1) {
         JavaCCErrors.warning("Choice conflict involving two expansions at");
-        System.err.print("         line " + (ch.getChoices().get(i)).getLine());
-        System.err.print(", column " + (ch.getChoices().get(i)).getColumn());
-        System.err.print(" and line " + (ch.getChoices().get(other[i])).getLine());
-        System.err.print(", column " + (ch.getChoices().get(other[i])).getColumn());
-        System.err.println(" respectively.");
-        System.err.println("         A common prefix is: " + image(overlapInfo[i]));
-        System.err.println("         Consider using a lookahead of " + minLA[i] +
-                           " for earlier expansion.");
+        Messages.err().print("         line " + (ch.getChoices().get(i)).getLine());
+        Messages.err().print(", column " + (ch.getChoices().get(i)).getColumn());
+        Messages.err().print(" and line " + (ch.getChoices().get(other[i])).getLine());
+        Messages.err().print(", column " + (ch.getChoices().get(other[i])).getColumn());
+        Messages.err().println(" respectively.");
+        Messages.err().println("         A common prefix is: " + image(overlapInfo[i]));
+        Messages.err().println("         Consider using a lookahead of " + minLA[i] +
+                               " for earlier expansion.");
       }
     }
   }
@@ -278,19 +281,19 @@ public class LookaheadCalc extends JavaCCGlobals {
     if (la > Options.getOtherAmbiguityCheck()) {
       JavaCCErrors.warning("Choice conflict in " + image(exp) + " construct " + "at line " +
                            exp.getLine() + ", column " + exp.getColumn() + ".");
-      System.err
-                .println("         Expansion_ nested within construct and expansion following construct");
-      System.err.println("         have common prefixes, one of which is: " + image(m1));
-      System.err.println("         Consider using a lookahead of " + la +
-                         " or more for nested expansion.");
+      Messages.err()
+              .println("         Expansion_ nested within construct and expansion following construct");
+      Messages.err().println("         have common prefixes, one of which is: " + image(m1));
+      Messages.err().println("         Consider using a lookahead of " + la +
+                             " or more for nested expansion.");
     }
     else if (la > 1) {
       JavaCCErrors.warning("Choice conflict in " + image(exp) + " construct " + "at line " +
                            exp.getLine() + ", column " + exp.getColumn() + ".");
-      System.err
-                .println("         Expansion_ nested within construct and expansion following construct");
-      System.err.println("         have common prefixes, one of which is: " + image(m1));
-      System.err.println("         Consider using a lookahead of " + la + " for nested expansion.");
+      Messages.err()
+              .println("         Expansion_ nested within construct and expansion following construct");
+      Messages.err().println("         have common prefixes, one of which is: " + image(m1));
+      Messages.err().println("         Consider using a lookahead of " + la + " for nested expansion.");
     }
   }
 }
@@ -0,0 +1,534 @@
+/* Copyright (c) 2006, Sun Microsystems, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright notice,
+ *       this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of the Sun Microsystems, Inc. nor the names of its
+ *       contributors may be used to endorse or promote products derived from
+ *       this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+ * THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package EDU.purdue.jtb.parser;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the big generated token manager methods (jjMoveNfa and jjMoveStringLiteralDfa) under the
+ * HUGE_METHOD_LIMIT option (by default the HotSpot HugeMethodLimit, 8000 bytes of bytecode) : the
+ * JIT does not compile a bigger method, so such a lexer method stays interpreted forever.
+ * <p>
+ * The generators write each of these methods in a buffer, and the splitter dumps it unchanged if
+ * its estimated bytecode size is under the limit. Otherwise the case arms of its switches are
+ * partitioned into helper methods, each one chaining to the next through its default arm.<br>
+ * The methods still estimated over the limit (a single case arm cannot be split) are collected and
+ * listed in a warning at the end of the token manager generation.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class MethodSplitter {
+
+  /** The line separator of the generated code */
+  static final String        LS               = System.getProperty("line.separator");
+  /** The estimated size of the jjMoveNfa code outside the switches */
+  static final int           NFA_LOOP_SIZE    = 300;
+  /** The estimated size of a helper method code outside its switch arms */
+  static final int           HELPER_SIZE      = 60;
+  /** The indentation of the jjMoveNfa case arms */
+  static final String        NFA_CASE         = "               case ";
+  /** The indentation of the jjMoveNfa terminal statements */
+  static final String        NFA_STMT         = "                  ";
+  /** The indentation of the jjMoveStringLiteralDfa case arms */
+  static final String        DFA_CASE         = "      case ";
+  /** The indentation of the jjMoveStringLiteralDfa terminal statements */
+  static final String        DFA_STMT         = "         ";
+  /** The names of the methods still over the limit and their estimated sizes */
+  static final List<String>  oversizedMethods = new ArrayList<String>();
+  /** The pattern of the tokens of a generated line */
+  static final Pattern       TOKEN            = Pattern
+                                                  .compile("\"(?:[^\"\\\\]|\\\\.)*\"|'(?:[^'\\\\]|\\\\.)*'|0x[0-9a-fA-F]+L?|[0-9]+L?|[A-Za-z_$][A-Za-z_$0-9]*|>>>=?|<<=?|>>=?|[-+&|^=!<>]=|\\+\\+|--|&&|\\|\\||[-+*/%&|^!~<>=\\[]");
+  /** The pattern of the local declarations at the beginning of a jjMoveNfa switch block */
+  static final Pattern       LOCAL_DECL       = Pattern.compile("^\\s*(int|long) (\\w+) = ");
+  /** The pattern of the active kinds variables used in a jjMoveStringLiteralDfa case arm */
+  static final Pattern       ACTIVE_VAR       = Pattern.compile("\\bactive([0-9]+)\\b");
+
+  /**
+   * Reinitializes the splitter.
+   */
+  public static void reInit() {
+    oversizedMethods.clear();
+  }
+
+  /**
+   * Estimates the bytecode size of some generated code, with a rough (slightly pessimistic) cost of
+   * each token of each line.
+   * 
+   * @param code - the generated code
+   * @return the estimated size in bytes
+   */
+  static int EstimateSize(final String code) {
+    int size = 0;
+    final String[] lines = code.split("\r?\n");
+    for (int i = 0; i < lines.length; i++) {
+      final Matcher m = TOKEN.matcher(lines[i]);
+      boolean inCase = false;
+      while (m.find()) {
+        final String t = m.group();
+        final char c = t.charAt(0);
+        if (inCase) {
+          // the case value is in the switch table entry
+          inCase = false;
+          continue;
+        }
+        if (c == '"' || c == '\'') {
+          size += 3;
+        } else if (c >= '0' && c <= '9') {
+          size += LiteralSize(t);
+        } else if (Character.isJavaIdentifierStart(c)) {
+          if (t.equals("case")) {
+            // a lookupswitch entry and the jump around the arm
+            size += 10;
+            inCase = true;
+          } else if (t.equals("switch")) {
+            size += 16;
+          } else if (t.equals("if") || t.equals("while") || t.equals("for") || t.equals("else") ||
+                     t.equals("break") || t.equals("continue") || t.equals("new")) {
+            size += 3;
+          } else if (t.equals("return") || t.equals("throw")) {
+            size += 1;
+          } else if (t.equals("try") || t.equals("catch")) {
+            size += 4;
+          } else if (t.equals("default") || t.equals("do") || t.equals("final") || t.equals("int") ||
+                     t.equals("long") || t.equals("boolean") || t.equals("char") ||
+                     t.equals("static") || t.equals("private") || t.equals("public")) {
+            // no code
+          } else if (m.end() < lines[i].length() && lines[i].charAt(m.end()) == '(') {
+            // a method call
+            size += 4;
+          } else if (t.startsWith("jj") || t.equals("curChar") || t.equals("input_stream")) {
+            // a field of the token manager
+            size += 4;
+          } else {
+            // a local variable
+            size += 2;
+          }
+        } else if (t.equals("++") || t.equals("--")) {
+          // a field increment (dup and put)
+          size += 6;
+        } else if (t.equals("=")) {
+          size += 2;
+        } else {
+          size += 1;
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @param lit - an integer or long literal
+   * @return the size of the instruction loading it
+   */
+  private static int LiteralSize(final String lit) {
+    if (lit.startsWith("0x"))
+      return lit.endsWith("L") && !lit.equals("0x0L") ? 3 : 2;
+    if (lit.endsWith("L"))
+      return lit.equals("0L") || lit.equals("1L") ? 1 : 3;
+    final long v = Long.parseLong(lit);
+    return v <= 5 ? 1 : v <= 127 ? 2 : 3;
+  }
+
+  /**
+   * @return the method modifiers of the generated helper methods
+   */
+  private static String Modifiers() {
+    return (Options.getStatic() ? "static " : "") + "private int ";
+  }
+
+  /**
+   * Dumps a generated jjMoveNfa method, moving the biggest of its three switch blocks (the ASCII
+   * characters under 64, the other ASCII characters, the non ASCII characters) in helper methods
+   * while it is estimated over the limit.
+   * 
+   * @param out - the output
+   * @param name - the method name
+   * @param code - the method code
+   */
+  static void DumpMoveNfaMethod(final PrintWriter out, final String name, final String code) {
+    final int limit = Options.getHugeMethodLimit();
+    final String[] lines = code.split("\r?\n");
+    // find the switch blocks, between "      {" and "      }" after the curChar tests
+    final int[] begin = new int[3];
+    final int[] end = new int[3];
+    final int[] sizes = new int[3];
+    int nb = 0;
+    for (int i = 0; i < lines.length && nb < 3; i++) {
+      if (lines[i].startsWith("      if (curChar < 64)") || lines[i].equals("      else if (curChar < 128)") ||
+          lines[i].equals("      else")) {
+        begin[nb] = i + 2;
+        int j = begin[nb];
+        while (!lines[j].equals("      }"))
+          j++;
+        end[nb] = j;
+        sizes[nb] = EstimateSize(Join(lines, begin[nb], end[nb], 0));
+        nb++;
+      }
+    }
+    int size = sizes[0] + sizes[1] + sizes[2] + NFA_LOOP_SIZE;
+    if (nb < 3 || size <= limit) {
+      out.print(code);
+      return;
+    }
+    // choose the blocks to move, biggest first
+    final boolean[] moved = new boolean[3];
+    while (size > limit) {
+      int k = -1;
+      for (int b = 0; b < 3; b++)
+        if (!moved[b] && (k == -1 || sizes[b] > sizes[k]))
+          k = b;
+      if (k == -1)
+        break;
+      moved[k] = true;
+      size -= sizes[k];
+    }
+    final String[] blockNames = {
+        "jjMoveNfaAscii0", "jjMoveNfaAscii1", "jjMoveNfaUnicode" };
+    final StringBuilder sb = new StringBuilder(code.length() + 1000);
+    final StringBuilder helpers = new StringBuilder(code.length());
+    int i = 0;
+    for (int b = 0; b < 3; b++) {
+      for (; i < begin[b]; i++)
+        sb.append(lines[i]).append(LS);
+      if (moved[b]) {
+        final String helper = blockNames[b] + LexGen.lexStateSuffix;
+        sb.append("         kind = ").append(helper).append("(startsAt, i, kind);").append(LS);
+        GenMoveNfaBlock(helpers, helper, lines, begin[b], end[b], sizes[b], limit);
+        i = end[b];
+      }
+    }
+    for (; i < lines.length; i++)
+      sb.append(lines[i]).append(LS);
+    JavaCCErrors.warning("Method " + name + " of the token manager is estimated to " +
+                         (sizes[0] + sizes[1] + sizes[2] + NFA_LOOP_SIZE) +
+                         " bytes, over the HUGE_METHOD_LIMIT of " + limit +
+                         " bytes ; it has been split in helper methods.");
+    out.print(sb);
+    out.print(helpers);
+  }
+
+  /**
+   * Generates the helper method of a jjMoveNfa switch block, and the helper methods of its case arms
+   * if it is still over the limit.
+   * 
+   * @param sb - the buffer to append to
+   * @param helper - the helper method name
+   * @param lines - the jjMoveNfa method lines
+   * @param begin - the index of the first line of the block
+   * @param end - the index of the line after the block
+   * @param size - the estimated size of the block
+   * @param limit - the method size limit
+   */
+  private static void GenMoveNfaBlock(final StringBuilder sb, final String helper,
+                                      final String[] lines, final int begin, final int end,
+                                      final int size, final int limit) {
+    // the block is : the local declarations, "do", "{", "switch(...)", "{", the arms,
+    // "default : break;", "}", "} while(i != startsAt);"
+    int sw = begin;
+    final StringBuilder params = new StringBuilder();
+    final StringBuilder args = new StringBuilder();
+    for (; !lines[sw].trim().startsWith("switch"); sw++) {
+      final Matcher m = LOCAL_DECL.matcher(lines[sw]);
+      if (m.find()) {
+        params.append(", ").append(m.group(1)).append(' ').append(m.group(2));
+        args.append(", ").append(m.group(2));
+      }
+    }
+    final int armsBegin = sw + 2;
+    final int armsEnd = end - 3;
+    sb.append(LS);
+    sb.append(Modifiers()).append(helper).append("(int startsAt, int i, int kind)").append(LS);
+    sb.append("{").append(LS);
+    sb.append(Join(lines, begin, armsBegin, 6));
+    final List<String> chunks = size + HELPER_SIZE > limit ? SplitArms(lines, armsBegin, armsEnd,
+                                                                        NFA_CASE, NFA_STMT, limit)
+                                                          : null;
+    if (chunks == null || chunks.size() == 1) {
+      sb.append(Join(lines, armsBegin, end, 6));
+      sb.append("   return kind;").append(LS);
+      sb.append("}").append(LS);
+      if (size + HELPER_SIZE > limit)
+        oversizedMethods.add(helper + " (" + (size + HELPER_SIZE) + " bytes)");
+      return;
+    }
+    final String tail = "(jjstateSet[i]" + args + ", kind); break;" + LS;
+    sb.append(Dedent(chunks.get(0), 6));
+    sb.append("         default : kind = ").append(helper).append("Part1").append(tail);
+    sb.append(Join(lines, armsEnd + 1, end, 6));
+    sb.append("   return kind;").append(LS);
+    sb.append("}").append(LS);
+    CheckSize(helper, chunks.get(0), limit);
+    for (int p = 1; p < chunks.size(); p++) {
+      final String part = helper + "Part" + p;
+      sb.append(LS);
+      sb.append(Modifiers()).append(part).append("(int state").append(params)
+        .append(", int kind)").append(LS);
+      sb.append("{").append(LS);
+      sb.append("   switch(state)").append(LS);
+      sb.append("   {").append(LS);
+      sb.append(Dedent(chunks.get(p), 9));
+      if (p + 1 < chunks.size())
+        sb.append("      default : kind = ").append(helper).append("Part").append(p + 1)
+          .append("(state").append(args).append(", kind); break;").append(LS);
+      else
+        sb.append("      default : break;").append(LS);
+      sb.append("   }").append(LS);
+      sb.append("   return kind;").append(LS);
+      sb.append("}").append(LS);
+      CheckSize(part, chunks.get(p), limit);
+    }
+  }
+
+  /**
+   * Dumps a generated jjMoveStringLiteralDfa method, moving the case arms of its switch on the
+   * current character in chained helper methods if it is estimated over the limit.<br>
+   * A helper method returns the position to return, -1 if the caller must break out of its switch,
+   * or -2 if it has no case arm for the current character (the caller then executes its default
+   * arm).
+   * 
+   * @param out - the output
+   * @param name - the method name
+   * @param code - the method code
+   */
+  static void DumpStringLiteralDfaMethod(final PrintWriter out, final String name, final String code) {
+    final int limit = Options.getHugeMethodLimit();
+    final int size = EstimateSize(code);
+    if (size <= limit) {
+      out.print(code);
+      return;
+    }
+    final String[] lines = code.split("\r?\n");
+    int sw = 0;
+    while (sw < lines.length && !lines[sw].equals("   switch(curChar)"))
+      sw++;
+    if (sw == lines.length) {
+      out.print(code);
+      oversizedMethods.add(name + " (" + size + " bytes)");
+      return;
+    }
+    final int armsBegin = sw + 2;
+    int armsEnd = armsBegin;
+    while (!lines[armsEnd].equals("      default :"))
+      armsEnd++;
+    final int outer = size - EstimateSize(Join(lines, armsBegin, armsEnd, 0));
+    final List<String> chunks = SplitArms(lines, armsBegin, armsEnd, DFA_CASE, DFA_STMT, limit -
+                                                                                         outer);
+    if (chunks.size() == 1) {
+      out.print(code);
+      oversizedMethods.add(name + " (" + size + " bytes)");
+      return;
+    }
+    // the active kinds variables used in the arms, passed to the helpers
+    final TreeSet<Integer> actives = new TreeSet<Integer>();
+    final Matcher m = ACTIVE_VAR.matcher(Join(lines, armsBegin, armsEnd, 0));
+    while (m.find())
+      actives.add(Integer.valueOf(m.group(1)));
+    final StringBuilder params = new StringBuilder();
+    final StringBuilder args = new StringBuilder();
+    for (final Integer a : actives) {
+      if (params.length() > 0) {
+        params.append(", ");
+        args.append(", ");
+      }
+      params.append("final long active").append(a);
+      args.append("active").append(a);
+    }
+    // the helpers must tell their caller to break out of the switch only if they have break arms
+    final boolean[] breaks = new boolean[chunks.size()];
+    boolean anyBreaks = false;
+    for (int p = 1; p < chunks.size(); p++) {
+      final String[] chunkLines = chunks.get(p).split("\r?\n");
+      for (int i = 0; i < chunkLines.length && !breaks[p]; i++)
+        breaks[p] = chunkLines[i].equals(DFA_STMT + "break;");
+      anyBreaks |= breaks[p];
+    }
+    final StringBuilder sb = new StringBuilder(code.length() + 1000);
+    sb.append(Join(lines, 0, armsBegin, 0));
+    sb.append(chunks.get(0));
+    sb.append("      default :").append(LS);
+    sb.append("      {").append(LS);
+    sb.append("         final int jjr = ").append(name).append("Part1(").append(args).append(");").append(LS);
+    sb.append("         if (jjr >= 0)").append(LS);
+    sb.append("            return jjr;").append(LS);
+    if (anyBreaks) {
+      sb.append("         if (jjr == -1)").append(LS);
+      sb.append("            break;").append(LS);
+    }
+    sb.append("      }").append(LS);
+    sb.append(Join(lines, armsEnd + 1, lines.length, 0));
+    CheckSize(name, sb.toString(), limit);
+    for (int p = 1; p < chunks.size(); p++) {
+      final String part = name + "Part" + p;
+      final String chunk = chunks.get(p);
+      sb.append(LS);
+      sb.append(Modifiers()).append(part).append("(").append(params).append(")").append(LS);
+      sb.append("{").append(LS);
+      sb.append("   switch(curChar)").append(LS);
+      sb.append("   {").append(LS);
+      sb.append(chunk);
+      sb.append("      default :").append(LS);
+      if (p + 1 < chunks.size())
+        sb.append("         return ").append(name).append("Part").append(p + 1).append("(")
+          .append(args).append(");").append(LS);
+      else
+        sb.append("         return -2;").append(LS);
+      sb.append("   }").append(LS);
+      if (breaks[p])
+        sb.append("   return -1;").append(LS);
+      sb.append("}").append(LS);
+      CheckSize(part, chunk, limit - HELPER_SIZE);
+    }
+    JavaCCErrors.warning("Method " + name + " of the token manager is estimated to " + size +
+                         " bytes, over the HUGE_METHOD_LIMIT of " + limit +
+                         " bytes ; it has been split in helper methods.");
+    out.print(sb);
+  }
+
+  /**
+   * Partitions the case arms of a switch in chunks estimated under a size budget. An arm starts on
+   * a case line following a terminal (break or return) statement, so a case falling through the
+   * next one is kept with it.
+   * 
+   * @param lines - the method lines
+   * @param begin - the index of the first line of the arms
+   * @param end - the index of the line after the arms
+   * @param caseIndent - the beginning of the case lines
+   * @param stmtIndent - the indentation of the arms terminal statements
+   * @param budget - the size budget of a chunk
+   * @return the chunks (the text of their arms)
+   */
+  static List<String> SplitArms(final String[] lines, final int begin, final int end,
+                                final String caseIndent, final String stmtIndent, final int budget) {
+    // keep a margin for the estimation errors
+    final int max = budget - budget / 10 - HELPER_SIZE;
+    final List<String> chunks = new ArrayList<String>();
+    StringBuilder chunk = new StringBuilder();
+    int chunkSize = 0;
+    int armBegin = begin;
+    for (int i = begin + 1; i <= end; i++) {
+      if (i < end && !(lines[i].startsWith(caseIndent) && IsTerminal(lines[i - 1], stmtIndent)))
+        continue;
+      final String arm = Join(lines, armBegin, i, 0);
+      final int armSize = EstimateSize(arm);
+      if (chunkSize > 0 && chunkSize + armSize > max) {
+        chunks.add(chunk.toString());
+        chunk = new StringBuilder();
+        chunkSize = 0;
+      }
+      chunk.append(arm);
+      chunkSize += armSize;
+      armBegin = i;
+    }
+    if (chunk.length() > 0)
+      chunks.add(chunk.toString());
+    return chunks;
+  }
+
+  /**
+   * @param line - a generated line
+   * @param indent - the indentation of the terminal statements
+   * @return true if the line is an unconditional break or return statement
+   */
+  private static boolean IsTerminal(final String line, final String indent) {
+    if (!line.startsWith(indent) || line.length() == indent.length() ||
+        line.charAt(indent.length()) == ' ')
+      return false;
+    final String stmt = line.substring(indent.length());
+    return stmt.equals("break;") || stmt.startsWith("return ");
+  }
+
+  /**
+   * Records a generated helper method if it is still over the limit.
+   * 
+   * @param name - the method name
+   * @param code - the method code (or its switch arms)
+   * @param limit - the method size limit
+   */
+  private static void CheckSize(final String name, final String code, final int limit) {
+    final int size = EstimateSize(code) + HELPER_SIZE;
+    if (size > limit)
+      oversizedMethods.add(name + " (" + size + " bytes)");
+  }
+
+  /**
+   * Warns about the methods still over the limit after the splits.
+   */
+  static void Report() {
+    if (oversizedMethods.isEmpty())
+      return;
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("The following token manager methods are still estimated over the HUGE_METHOD_LIMIT of ")
+      .append(Options.getHugeMethodLimit())
+      .append(" bytes and will not be compiled by the JIT (a single case arm cannot be split) :");
+    for (final String m : oversizedMethods)
+      sb.append(' ').append(m);
+    sb.append('.');
+    JavaCCErrors.warning(sb.toString());
+  }
+
+  /**
+   * @param lines - some lines
+   * @param begin - the index of the first line
+   * @param end - the index of the line after the last one
+   * @param dedent - the number of leading spaces to remove
+   * @return the lines joined and terminated by a line separator
+   */
+  private static String Join(final String[] lines, final int begin, final int end, final int dedent) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = begin; i < end; i++)
+      sb.append(Dedent(lines[i], dedent)).append(LS);
+    return sb.toString();
+  }
+
+  /**
+   * @param text - some lines
+   * @param n - the number of leading spaces to remove
+   * @return the lines without their n first leading spaces
+   */
+  private static String Dedent(final String text, final int n) {
+    if (n == 0)
+      return text;
+    final StringBuilder sb = new StringBuilder(text.length());
+    final String[] lines = text.split("\r?\n", -1);
+    for (int i = 0; i < lines.length; i++) {
+      int k = 0;
+      while (k < n && k < lines[i].length() && lines[i].charAt(k) == ' ')
+        k++;
+      sb.append(lines[i].substring(k));
+      if (i + 1 < lines.length)
+        sb.append(LS);
+    }
+    return sb.toString();
+  }
+}
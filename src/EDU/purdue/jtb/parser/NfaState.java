@@ -28,6 +28,7 @@
 package EDU.purdue.jtb.parser;
 
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -42,6 +43,7 @@ import java.util.Vector;
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc
+ * @version 1.4.13 : 10/2026 : agent : jjMoveNfa split if too big for the JIT (see {@link MethodSplitter})
  */
 public class NfaState {
 
@@ -2365,7 +2367,7 @@ public class NfaState {
   static int[][]   kinds;
   static int[][][] statesForState;
 
-  public static void DumpMoveNfa(final PrintWriter out) {
+  public static void DumpMoveNfa(final PrintWriter ostr) {
     //if (!boilerPlateDumped)
     //   PrintBoilerPlate(out);
 
@@ -2396,7 +2398,7 @@ public class NfaState {
       kindsForStates[temp.stateName] = temp.lookingFor;
       statesForState[LexGen.lexStateIndex][temp.stateName] = temp.compositeStates;
 
-      temp.GenerateNonAsciiMoves(out);
+      temp.GenerateNonAsciiMoves(ostr);
     }
 
     final Enumeration<String> e = stateNameForComposite.keys();
@@ -2414,13 +2416,19 @@ public class NfaState {
 
     kinds[LexGen.lexStateIndex] = kindsForStates;
 
-    out.println((Options.getStatic() ? "static " : "") + "private int " + "jjMoveNfa" +
-                LexGen.lexStateSuffix + "(int startState, int curPos)");
+    // the method is written in a buffer, to be split if it is too big for the JIT
+    final String name = "jjMoveNfa" + LexGen.lexStateSuffix;
+    final StringWriter sw = new StringWriter();
+    final PrintWriter out = new PrintWriter(sw);
+    out.println((Options.getStatic() ? "static " : "") + "private int " + name +
+                "(int startState, int curPos)");
     out.println("{");
 
     if (generatedStates == 0) {
       out.println("   return curPos;");
       out.println("}");
+      out.flush();
+      ostr.print(sw);
       return;
     }
 
@@ -2544,6 +2552,8 @@ public class NfaState {
     }
 
     out.println("}");
+    out.flush();
+    MethodSplitter.DumpMoveNfaMethod(ostr, name, sw.toString());
     allStates.clear();
   }
 
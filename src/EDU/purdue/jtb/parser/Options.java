@@ -30,8 +30,11 @@ package EDU.purdue.jtb.parser;
 import static EDU.purdue.jtb.misc.Globals.*;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -43,6 +46,7 @@ import java.util.Set;
  *          1.4.0 : 11/2009 : MMa : added JTB options
  * @version 1.4.6 : 01/2011 : FA/MMa : added JTB_VA and JTB_NPFX and JTB_NSFX options
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc
+ * @version 1.4.13 : 10/2026 : agent : added the options of the embedded generator and JTB_JCC
  */
 public class Options {
 
@@ -62,6 +66,37 @@ public class Options {
   //  protected static Map<String, Object> optionValues = null; ;
   protected static Map<String, Object> optionValues = new HashMap<String, Object>(70); ;
 
+  /**
+   * The options implemented only by the embedded generator ; setting one of them in the input file
+   * runs this generator as the JTB_JCC option does (see {@link #isEmbeddedOnlyOptionSet()}).
+   */
+  public static final Set<String>      EMBEDDED_ONLY_OPTIONS = Collections
+                                                                .unmodifiableSet(new HashSet<String>(Arrays
+                                                                .asList("BUFFER_CHAR_STREAM",
+                                                                        "HUGE_METHOD_LIMIT",
+                                                                        "KEYWORD_HASH",
+                                                                        "KIND_DISPATCH",
+                                                                        "LAZY_LINE_COLUMN",
+                                                                        "MEMO_LOOKAHEAD",
+                                                                        "RING_BUFFER_LOOKAHEAD",
+                                                                        "TABLE_DRIVEN_LEXER",
+                                                                        "TWO_PASS_ERROR_REPORTING")));
+
+  /**
+   * Tells whether the input file sets an option implemented only by the embedded generator.
+   * 
+   * @return true if one of the {@link #EMBEDDED_ONLY_OPTIONS} is set in the input file, false
+   *         otherwise
+   */
+  public static boolean isEmbeddedOnlyOptionSet() {
+    if (inputFileSetting == null)
+      return false;
+    for (final Iterator<String> e = EMBEDDED_ONLY_OPTIONS.iterator(); e.hasNext();)
+      if (inputFileSetting.contains(e.next()))
+        return true;
+    return false;
+  }
+
   /**
    * Convenience method to retrieve integer options.
    * 
@@ -120,6 +155,7 @@ public class Options {
     cmdLineSetting = new HashSet<String>();
     inputFileSetting = new HashSet<String>();
     // JavaCC & JJTree options
+    optionValues.put("BUFFER_CHAR_STREAM", Boolean.FALSE);
     optionValues.put("BUILD_PARSER", Boolean.TRUE);
     optionValues.put("BUILD_TOKEN_MANAGER", Boolean.TRUE);
     optionValues.put("CACHE_TOKENS", Boolean.FALSE);
@@ -135,28 +171,40 @@ public class Options {
     optionValues.put("GENERATE_GENERICS", Boolean.FALSE);
     optionValues.put("GENERATE_STRING_BUILDER", Boolean.FALSE);
     optionValues.put("GENERATE_VARARG_ARGUMENT", Boolean.FALSE);
+    optionValues.put("HUGE_METHOD_LIMIT", new Integer(8000));
     optionValues.put("IGNORE_CASE", Boolean.FALSE);
     optionValues.put("JAVA_UNICODE_ESCAPE", Boolean.FALSE);
     optionValues.put("JDK_VERSION", "1.5");
     optionValues.put("KEEP_LINE_COLUMN", Boolean.TRUE);
+    optionValues.put("KEYWORD_HASH", Boolean.FALSE);
+    optionValues.put("KIND_DISPATCH", Boolean.FALSE);
+    optionValues.put("LAZY_LINE_COLUMN", Boolean.FALSE);
     optionValues.put("LOOKAHEAD", new Integer(1));
+    optionValues.put("MEMO_LOOKAHEAD", new Integer(0));
     optionValues.put("NODE_PREFIX", "");
     optionValues.put("NODE_SUFFIX", "");
     optionValues.put("OTHER_AMBIGUITY_CHECK", new Integer(1));
     optionValues.put("OUTPUT_DIRECTORY", ".");
+    optionValues.put("RING_BUFFER_LOOKAHEAD", Boolean.FALSE);
     optionValues.put("SANITY_CHECK", Boolean.TRUE);
     optionValues.put("STATIC", Boolean.TRUE);
     optionValues.put("SUPPORT_CLASS_VISIBILITY_PUBLIC", Boolean.TRUE);
+    optionValues.put("TABLE_DRIVEN_LEXER", Boolean.FALSE);
     optionValues.put("TOKEN_EXTENDS", "");
     optionValues.put("TOKEN_FACTORY", "");
     optionValues.put("TOKEN_MANAGER_USES_PARSER", Boolean.FALSE);
+    optionValues.put("TWO_PASS_ERROR_REPORTING", Boolean.FALSE);
     optionValues.put("UNICODE_INPUT", Boolean.FALSE);
     optionValues.put("USER_CHAR_STREAM", Boolean.FALSE);
     optionValues.put("USER_TOKEN_MANAGER", Boolean.FALSE);
     // JTB Options (with default values or command line arguments)
     // -h & -si are not managed in an input file
+    if (optionValues.get("JTB_AL") == null)
+      optionValues.put("JTB_AL", new Boolean(arrayLists));
     if (optionValues.get("JTB_CL") == null)
       optionValues.put("JTB_CL", new Boolean(printClassList));
+    if (optionValues.get("JTB_CT") == null)
+      optionValues.put("JTB_CT", new Boolean(compactTokens));
     if (optionValues.get("JTB_D") == null)
       optionValues.put("JTB_D", "");
     if (optionValues.get("JTB_DL") == null)
@@ -165,8 +213,20 @@ public class Options {
       optionValues.put("JTB_E", new Boolean(noSemanticCheck));
     if (optionValues.get("JTB_F") == null)
       optionValues.put("JTB_F", new Boolean(descriptiveFieldNames));
+    if (optionValues.get("JTB_FL") == null)
+      optionValues.put("JTB_FL", new Boolean(flatTree));
+    if (optionValues.get("JTB_INC") == null)
+      optionValues.put("JTB_INC", new Boolean(incremental));
     if (optionValues.get("JTB_IA") == null)
       optionValues.put("JTB_IA", new Boolean(inlineAcceptMethods));
+    if (optionValues.get("JTB_IR") == null)
+      optionValues.put("JTB_IR", new Boolean(incrementalReparse));
+    if (optionValues.get("JTB_IS") == null)
+      optionValues.put("JTB_IS", imagesStrategy);
+    if (optionValues.get("JTB_IV") == null)
+      optionValues.put("JTB_IV", new Boolean(iterativeVisitor));
+    if (optionValues.get("JTB_JCC") == null)
+      optionValues.put("JTB_JCC", new Boolean(embeddedJavaCC));
     if (optionValues.get("JTB_JD") == null)
       optionValues.put("JTB_JD", new Boolean(javaDocComments));
     if (optionValues.get("JTB_ND") == null)
@@ -183,12 +243,26 @@ public class Options {
       optionValues.put("JTB_O", DEF_OUT_FILE_NAME);
     if (optionValues.get("JTB_P") == null)
       optionValues.put("JTB_P", "");
+    if (optionValues.get("JTB_PC") == null)
+      optionValues.put("JTB_PC", new Boolean(parseCache));
     if (optionValues.get("JTB_PP") == null)
       optionValues.put("JTB_PP", new Boolean(parentPointer));
+    if (optionValues.get("JTB_PV") == null)
+      optionValues.put("JTB_PV", new Boolean(parallelVisitor));
     if (optionValues.get("JTB_PRINTER") == null)
       optionValues.put("JTB_PRINTER", new Boolean(printerToolkit));
     if (optionValues.get("JTB_SCHEME") == null)
       optionValues.put("JTB_SCHEME", new Boolean(schemeToolkit));
+    if (optionValues.get("JTB_SD") == null)
+      optionValues.put("JTB_SD", new Boolean(switchDispatch));
+    if (optionValues.get("JTB_SP") == null)
+      optionValues.put("JTB_SP", streamedProductions);
+    if (optionValues.get("JTB_TC") == null)
+      optionValues.put("JTB_TC", new Boolean(treeCodec));
+    if (optionValues.get("JTB_TF") == null)
+      optionValues.put("JTB_TF", new Boolean(tokenFactory));
+    if (optionValues.get("JTB_THREADS") == null)
+      optionValues.put("JTB_THREADS", new Integer(nbThreads));
     if (optionValues.get("JTB_TK") == null)
       optionValues.put("JTB_TK", new Boolean(keepSpecialTokens));
     if (optionValues.get("JTB_VA") == null)
@@ -400,6 +474,16 @@ public class Options {
     optionValues.put("GENERATE_ANNOTATIONS", Boolean.valueOf(jdkVersionAtLeast(1.5)));
   }
 
+  /**
+   * Find the buffer char stream value (overridden by the JAVA_UNICODE_ESCAPE and USER_CHAR_STREAM
+   * options).
+   * 
+   * @return The requested buffer char stream value.
+   */
+  public static boolean getBufferCharStream() {
+    return booleanValue("BUFFER_CHAR_STREAM") && !getJavaUnicodeEscape() && !getUserCharStream();
+  }
+
   /**
    * Find the build parser value.
    * 
@@ -526,6 +610,15 @@ public class Options {
     return booleanValue("GENERATE_STRING_BUILDER");
   }
 
+  /**
+   * Find the huge method limit value.
+   * 
+   * @return The requested huge method limit value.
+   */
+  public static int getHugeMethodLimit() {
+    return intValue("HUGE_METHOD_LIMIT");
+  }
+
   /**
    * Find the ignore case value.
    * 
@@ -562,6 +655,35 @@ public class Options {
     return booleanValue("KEEP_LINE_COLUMN");
   }
 
+  /**
+   * Find the keyword hash value (effective only without the IGNORE_CASE option).
+   * 
+   * @return The requested keyword hash value.
+   */
+  public static boolean getKeywordHash() {
+    return booleanValue("KEYWORD_HASH") && !getIgnoreCase();
+  }
+
+  /**
+   * Find the kind dispatch value.
+   * 
+   * @return The requested kind dispatch value.
+   */
+  public static boolean getKindDispatch() {
+    return booleanValue("KIND_DISPATCH");
+  }
+
+  /**
+   * Find the lazy line column value (effective only with the KEEP_LINE_COLUMN and
+   * BUFFER_CHAR_STREAM options and a generated token manager).
+   * 
+   * @return The requested lazy line column value.
+   */
+  public static boolean getLazyLineColumn() {
+    return booleanValue("LAZY_LINE_COLUMN") && getKeepLineColumn() && getBufferCharStream()
+           && !getUserTokenManager();
+  }
+
   /**
    * Find the lookahead setting.
    * 
@@ -571,6 +693,16 @@ public class Options {
     return intValue("LOOKAHEAD");
   }
 
+  /**
+   * Find the memo lookahead value (the size of the lookahead routines results table, 0 for none).
+   * 
+   * @return The requested memo lookahead value.
+   */
+  public static int getMemoLookahead() {
+    final int size = intValue("MEMO_LOOKAHEAD");
+    return size < 0 ? 0 : size;
+  }
+
   /**
    * Find the other ambiguity check value.
    * 
@@ -589,6 +721,16 @@ public class Options {
     return new File(stringValue("OUTPUT_DIRECTORY"));
   }
 
+  /**
+   * Find the ring buffer lookahead value.
+   * 
+   * @return The requested ring buffer lookahead value.
+   */
+  public static boolean getRingBufferLookahead() {
+    // the memo lookahead records the scan positions in the kinds ring
+    return booleanValue("RING_BUFFER_LOOKAHEAD") || getMemoLookahead() > 0;
+  }
+
   /**
    * Find the sanity check value.
    * 
@@ -616,6 +758,15 @@ public class Options {
     return booleanValue("SUPPORT_CLASS_VISIBILITY_PUBLIC");
   }
 
+  /**
+   * Find the table driven lexer value.
+   * 
+   * @return The requested table driven lexer value.
+   */
+  public static boolean getTableDrivenLexer() {
+    return booleanValue("TABLE_DRIVEN_LEXER");
+  }
+
   /**
    * Return the Token's superclass.
    * 
@@ -643,6 +794,18 @@ public class Options {
     return stringValue("TOKEN_FACTORY");
   }
 
+  /**
+   * Find the two pass error reporting value (effective only with the ERROR_REPORTING option).<br>
+   * With this option, all the tokens of a parse are kept until its end, and on a parse error the
+   * actions met before the error are run a second time (see
+   * {@link ParseEngine#buildTwoPassWrapper(BNFProduction_, boolean)}).
+   * 
+   * @return The requested two pass error reporting value.
+   */
+  public static boolean getTwoPassErrorReporting() {
+    return booleanValue("TWO_PASS_ERROR_REPORTING") && getErrorReporting();
+  }
+
   /**
    * Find the Unicode input value.
    * 
@@ -692,4 +855,14 @@ public class Options {
       return "StringBuilder";
     }
   }
+
+  /**
+   * Reinitializes (clears all the options values, including the JTB command line ones).
+   */
+  public static void reInit() {
+    optionValues.clear();
+    cmdLineSetting = null;
+    inputFileSetting = null;
+  }
+
 }
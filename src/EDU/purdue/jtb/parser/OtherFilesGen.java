@@ -44,6 +44,7 @@ import java.util.List;
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc ; moved to imports static
+ * @version 1.4.13 : 10/2026 : agent : added the BufferCharStream class (BUFFER_CHAR_STREAM option)
  */
 public class OtherFilesGen extends JavaCCGlobals {
 
@@ -76,6 +77,8 @@ public class OtherFilesGen extends JavaCCGlobals {
     } else {
       if (Options.getJavaUnicodeEscape()) {
         JavaFiles.gen_JavaCharStream();
+      } else if (Options.getBufferCharStream()) {
+        JavaFiles.gen_BufferCharStream();
       } else {
         JavaFiles.gen_SimpleCharStream();
       }
@@ -33,12 +33,23 @@ import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc
+ * @version 1.4.13 : 10/2026 : agent : added the lookahead over a ring buffer of the tokens kinds
+ *          (RING_BUFFER_LOOKAHEAD option)
+ * @version 1.4.13 : 10/2026 : agent : added the memoization of the productions lookahead routines
+ *          (MEMO_LOOKAHEAD option ; not for the results depending on a semantic
+ *          lookahead
+ * @version 1.4.13 : 10/2026 : agent : added the choices dispatch on the next token kind (KIND_DISPATCH
+ *          option)
+ * @version 1.4.13 : 10/2026 : agent : added the productions wrappers and the bookkeeping guards
+ *          (TWO_PASS_ERROR_REPORTING option)
  */
 public class ParseEngine extends JavaCCGlobals {
 
@@ -227,6 +238,12 @@ public class ParseEngine extends JavaCCGlobals {
   // for           case NOOPENSTM:
   static String buildLookaheadChecker(final Lookahead[] conds, final String[] actions) {
 
+    if (Options.getKindDispatch()) {
+      final String dispatch = buildKindDispatch(conds, actions);
+      if (dispatch != null)
+        return dispatch;
+    }
+
     // The state variables.
     int state = NOOPENSTM;
     int indentAmt = 0;
@@ -274,7 +291,7 @@ public class ParseEngine extends JavaCCGlobals {
             case OPENSWITCH:
               retval.append("\u0002\n" + "default:" + "\u0001");
               if (Options.getErrorReporting()) {
-                retval.append("\njj_la1[").append(maskindex).append("] = jj_gen;");
+                retval.append(la1Record(maskindex));
                 maskindex++;
               }
               maskVals.add(tokenMask);
@@ -379,7 +396,7 @@ public class ParseEngine extends JavaCCGlobals {
           case OPENSWITCH:
             retval.append("\u0002\n" + "default:" + "\u0001");
             if (Options.getErrorReporting()) {
-              retval.append("\njj_la1[").append(maskindex).append("] = jj_gen;");
+              retval.append(la1Record(maskindex));
               maskindex++;
             }
             maskVals.add(tokenMask);
@@ -425,7 +442,7 @@ public class ParseEngine extends JavaCCGlobals {
       case OPENSWITCH:
         retval.append("\u0002\n" + "default:" + "\u0001");
         if (Options.getErrorReporting()) {
-          retval.append("\njj_la1[").append(maskindex).append("] = jj_gen;");
+          retval.append(la1Record(maskindex));
           maskVals.add(tokenMask);
           maskindex++;
         }
@@ -439,6 +456,266 @@ public class ParseEngine extends JavaCCGlobals {
 
   }
 
+  /**
+   * @param index - a jj_la1 index
+   * @return the code recording that a switch has been passed without matching the next token (only
+   *         in the second pass with the TWO_PASS_ERROR_REPORTING option)
+   */
+  static String la1Record(final int index) {
+    return (Options.getTwoPassErrorReporting() ? "\nif (jj_report) jj_la1[" : "\njj_la1[") + index +
+           "] = jj_gen;";
+  }
+
+  /**
+   * Constants used in the following method "buildKindDispatch" : the kinds of the conditions.
+   */
+  static final int SEMANTICLA  = 0;
+  static final int LL1LA       = 1;
+  static final int SYNTACTICLA = 2;
+
+  /**
+   * Builds the same code as {@link #buildLookaheadChecker(Lookahead[], String[])} (for the
+   * KIND_DISPATCH option) as a switch on the next token kind selecting an alternative, followed by a
+   * switch on the selected alternative giving its action.<br>
+   * For each kind, only the semantic lookaheads and the syntactic lookaheads whose first set holds
+   * this kind are evaluated, in the conditions order, up to the first LL(1) condition holding this
+   * kind ; the kinds giving the same sequence of evaluations share the same case.<br>
+   * With error reporting, the skipped syntactic lookaheads and the passed LL(1) switches are still
+   * recorded (as if they had failed on the first token), so the error messages are unchanged.
+   * 
+   * @param conds - the lookahead conditions
+   * @param actions - the lookahead actions
+   * @return the corresponding java code, or null if there is less than 2 conditions or no syntactic
+   *         lookahead
+   */
+  static String buildKindDispatch(final Lookahead[] conds, final String[] actions) {
+
+    // The kinds and first sets of the conditions (the same cases as in "buildLookaheadChecker").
+    final int[] types = new int[conds.length];
+    final boolean[][] sets = new boolean[conds.length][];
+    int nb = 0;
+    int nbSyn = 0;
+    while (nb < conds.length) {
+      final Lookahead la = conds[nb];
+      if ((la.getAmount() == 0) || Semanticize.emptyExpansionExists(la.getLaExpansion()) ||
+          javaCodeCheck(la.getLaExpansion())) {
+        if (la.getActionTokens().size() == 0) {
+          break;
+        }
+        types[nb] = SEMANTICLA;
+      } else {
+        firstSet = new boolean[tokenCount];
+        jj2LA = false;
+        genFirstSet(la.getLaExpansion());
+        sets[nb] = firstSet;
+        if (la.getAmount() == 1 && la.getActionTokens().size() == 0 && !jj2LA) {
+          types[nb] = LL1LA;
+        } else {
+          types[nb] = SYNTACTICLA;
+          nbSyn++;
+        }
+      }
+      nb++;
+    }
+    firstSet = null;
+    if (nb < 2 || nbSyn == 0) {
+      return null;
+    }
+
+    // The jj2 routines and the LL(1) switches masks, in the same order as in "buildLookaheadChecker".
+    final boolean errorReporting = Options.getErrorReporting();
+    final int tokenMaskSize = (tokenCount - 1) / 32 + 1;
+    final int[] jj2 = new int[nb];
+    final int[] run = new int[nb];
+    int[] tokenMask = null;
+    for (int i = 0; i < nb; i++) {
+      if (types[i] == SYNTACTICLA) {
+        jj2index++;
+        jj2[i] = jj2index;
+        conds[i].getLaExpansion().internal_name = "_" + jj2index;
+        phase2list.add(conds[i]);
+      } else if (types[i] == LL1LA) {
+        if (i == 0 || types[i - 1] != LL1LA) {
+          tokenMask = new int[tokenMaskSize];
+        }
+        for (int k = 0; k < tokenCount; k++) {
+          if (sets[i][k]) {
+            tokenMask[k / 32] |= 1 << (k % 32);
+          }
+        }
+        if (i == nb - 1 || types[i + 1] != LL1LA) {
+          // end of an LL(1) switch
+          run[i] = -1;
+          if (errorReporting) {
+            run[i] = maskindex++;
+            maskVals.add(tokenMask);
+          }
+        } else {
+          run[i] = -2;
+        }
+      }
+    }
+
+    // The sequence of evaluations of each kind ("-1" for a kind in no first set).
+    final Map<String, List<Integer>> cases = new LinkedHashMap<String, List<Integer>>();
+    String defaultSteps = null;
+    for (int k = -1; k < tokenCount; k++) {
+      final StringBuilder steps = new StringBuilder(64);
+      for (int i = 0; i < nb; i++) {
+        if (types[i] == SEMANTICLA) {
+          steps.append(" T").append(i);
+        } else if (types[i] == SYNTACTICLA) {
+          if (k >= 0 && sets[i][k]) {
+            steps.append(" T").append(i);
+          } else if (errorReporting) {
+            steps.append(" S").append(i);
+          }
+        } else if (k >= 0 && sets[i][k]) {
+          steps.append(" A").append(i);
+          break;
+        } else if (run[i] >= 0) {
+          steps.append(" R").append(i);
+        }
+      }
+      final String key = steps.toString();
+      if (k < 0) {
+        defaultSteps = key;
+      } else if (!key.equals(defaultSteps)) {
+        List<Integer> kinds = cases.get(key);
+        if (kinds == null) {
+          kinds = new ArrayList<Integer>();
+          cases.put(key, kinds);
+        }
+        kinds.add(new Integer(k));
+      }
+    }
+
+    // The switch on the kind, then the switch on the alternative.
+    final String alt = "jj_alt_" + ++gensymindex;
+    final boolean[] selected = new boolean[nb];
+    final StringBuilder retval = new StringBuilder(1024);
+    retval.append("\n" + "int ").append(alt).append(" = -1;");
+    retval.append("\n" + "switch (");
+    if (Options.getCacheTokens()) {
+      retval.append("jj_nt.kind) {\u0001");
+    } else {
+      retval.append("(jj_ntk==-1)?jj_ntk():jj_ntk) {\u0001");
+    }
+    for (final Iterator<Map.Entry<String, List<Integer>>> it = cases.entrySet().iterator(); it.hasNext();) {
+      final Map.Entry<String, List<Integer>> entry = it.next();
+      for (final Iterator<Integer> kit = entry.getValue().iterator(); kit.hasNext();) {
+        final Integer k = kit.next();
+        final String s = (names_of_tokens.get(k));
+        retval.append("\u0002\ncase ").append(s == null ? k.toString() : s).append(":\u0001");
+      }
+      dispatchSteps(retval, entry.getKey(), conds, types, jj2, run, alt, selected);
+      retval.append("\nbreak;");
+    }
+    retval.append("\u0002\n" + "default:" + "\u0001");
+    dispatchSteps(retval, defaultSteps, conds, types, jj2, run, alt, selected);
+    retval.append("\u0002\n}");
+    retval.append("\n" + "switch (").append(alt).append(") {\u0001");
+    for (int i = 0; i < nb; i++) {
+      if (selected[i]) {
+        retval.append("\u0002\ncase ").append(i).append(":\u0001");
+        retval.append(actions[i]);
+        retval.append("\nbreak;");
+      }
+    }
+    retval.append("\u0002\n" + "default:" + "\u0001");
+    retval.append(actions[nb]);
+    retval.append("\u0002\n}");
+    return retval.toString();
+  }
+
+  /**
+   * Generates the evaluations of a case of the kind switch of
+   * {@link #buildKindDispatch(Lookahead[], String[])} : an if / else if chain on the tested
+   * conditions, setting the alternative variable, with the skipped syntactic lookaheads and passed
+   * LL(1) switches records in else blocks.
+   * 
+   * @param retval - the buffer to append the code to
+   * @param steps - the sequence of evaluations (" T" for a test, " S" for a skipped syntactic
+   *          lookahead, " R" for a passed LL(1) switch, " A" for the selected LL(1) alternative,
+   *          followed by the condition index)
+   * @param conds - the lookahead conditions
+   * @param types - the conditions kinds
+   * @param jj2 - the conditions jj2 routines indexes
+   * @param run - the conditions LL(1) switches mask indexes
+   * @param alt - the alternative variable name
+   * @param selected - the selectable alternatives (updated)
+   */
+  private static void dispatchSteps(final StringBuilder retval, final String steps,
+                                    final Lookahead[] conds, final int[] types, final int[] jj2,
+                                    final int[] run, final String alt, final boolean[] selected) {
+    boolean inIf = false;
+    int depth = 0;
+    int taken = -1;
+    final String[] list = steps.length() == 0 ? new String[0] : steps.substring(1).split(" ");
+    for (int j = 0; j < list.length; j++) {
+      final char step = list[j].charAt(0);
+      final int i = Integer.parseInt(list[j].substring(1));
+      if (step == 'T') {
+        retval.append(inIf ? "\u0002\n} else if (" : "\nif (");
+        final Lookahead la = conds[i];
+        if (types[i] == SYNTACTICLA) {
+          retval.append("jj_2_").append(jj2[i]).append("(").append(la.getAmount()).append(")");
+          if (la.getActionTokens().size() != 0) {
+            retval.append(" && (").append(semanticLookahead(la)).append(")");
+          }
+        } else {
+          retval.append(semanticLookahead(la));
+        }
+        retval.append(") {\u0001\n").append(alt).append(" = ").append(i).append(";");
+        selected[i] = true;
+        inIf = true;
+      } else if (step == 'A') {
+        taken = i;
+        selected[i] = true;
+      } else {
+        if (inIf) {
+          retval.append("\u0002\n} else {\u0001");
+          depth++;
+          inIf = false;
+        }
+        if (step == 'S') {
+          retval.append(Options.getTwoPassErrorReporting() ? "\nif (jj_report) jj_skip("
+                                                           : "\njj_skip(");
+          retval.append(jj2[i] - 1).append(", ").append(conds[i].getAmount()).append(");");
+        } else {
+          retval.append(la1Record(run[i]));
+        }
+      }
+    }
+    if (inIf) {
+      if (taken >= 0) {
+        retval.append("\u0002\n} else {\u0001\n").append(alt).append(" = ").append(taken).append(";");
+      }
+      retval.append("\u0002\n}");
+    } else if (taken >= 0) {
+      retval.append("\n").append(alt).append(" = ").append(taken).append(";");
+    }
+    for (int d = 0; d < depth; d++) {
+      retval.append("\u0002\n}");
+    }
+  }
+
+  /**
+   * @param la - a lookahead with a semantic lookahead
+   * @return the semantic lookahead expression
+   */
+  private static String semanticLookahead(final Lookahead la) {
+    Token t = null;
+    final StringBuilder sb = new StringBuilder(64);
+    printTokenSetup((la.getActionTokens().get(0)));
+    for (final Iterator<Token> it = la.getActionTokens().iterator(); it.hasNext();) {
+      t = it.next();
+      sb.append(printToken(t));
+    }
+    sb.append(printTrailingComments(t));
+    return sb.toString();
+  }
+
   static void dumpFormattedString(final String str) {
     char ch = ' ';
     char prevChar;
@@ -476,36 +753,11 @@ public class ParseEngine extends JavaCCGlobals {
     if (t.kind == JavaCCParserConstants.VOID) {
       voidReturn = true;
     }
-    printTokenSetup(t);
-    ccol = 1;
-    printLeadingComments(t, out);
-    out.print("  " + staticOpt() + "final " +
-              (p.getAccessMod() != null ? p.getAccessMod() : "public") + " ");
-    cline = t.beginLine;
-    ccol = t.beginColumn;
-    printTokenOnly(t, out);
-    for (int i = 1; i < p.getReturnTypeTokens().size(); i++) {
-      t = (p.getReturnTypeTokens().get(i));
-      printToken(t, out);
-    }
-    printTrailingComments(t, out);
-    out.print(" " + p.getLhs() + "(");
-    if (p.getParameterListTokens().size() != 0) {
-      printTokenSetup((p.getParameterListTokens().get(0)));
-      for (final Iterator<Token> it = p.getParameterListTokens().iterator(); it.hasNext();) {
-        t = it.next();
-        printToken(t, out);
-      }
-      printTrailingComments(t, out);
-    }
-    out.print(") throws ParseException");
-    for (final Iterator<List<Token>> it = p.getThrowsList().iterator(); it.hasNext();) {
-      out.print(", ");
-      final List<Token> name = it.next();
-      for (final Iterator<Token> it2 = name.iterator(); it2.hasNext();) {
-        t = it2.next();
-        out.print(t.image);
-      }
+    if (Options.getTwoPassErrorReporting()) {
+      buildTwoPassWrapper(p, voidReturn);
+      printPhase1Header(p, "private", "jj_" + p.getLhs(), false);
+    } else {
+      printPhase1Header(p, p.getAccessMod() != null ? p.getAccessMod() : "public", p.getLhs(), true);
     }
     out.print(" {");
     indentamt = 4;
@@ -540,6 +792,122 @@ public class ParseEngine extends JavaCCGlobals {
     out.println("");
   }
 
+  /**
+   * Prints the header of a production routine (up to the throws clause).
+   * 
+   * @param p - the production
+   * @param accessMod - the routine access modifier
+   * @param name - the routine name
+   * @param comments - true to print the production leading comments
+   */
+  static void printPhase1Header(final BNFProduction_ p, final String accessMod, final String name,
+                                final boolean comments) {
+    Token t = (p.getReturnTypeTokens().get(0));
+    printTokenSetup(t);
+    ccol = 1;
+    if (comments) {
+      printLeadingComments(t, out);
+    }
+    out.print("  " + staticOpt() + "final " + accessMod + " ");
+    cline = t.beginLine;
+    ccol = t.beginColumn;
+    printTokenOnly(t, out);
+    for (int i = 1; i < p.getReturnTypeTokens().size(); i++) {
+      t = (p.getReturnTypeTokens().get(i));
+      printToken(t, out);
+    }
+    printTrailingComments(t, out);
+    out.print(" " + name + "(");
+    if (p.getParameterListTokens().size() != 0) {
+      printTokenSetup((p.getParameterListTokens().get(0)));
+      for (final Iterator<Token> it = p.getParameterListTokens().iterator(); it.hasNext();) {
+        t = it.next();
+        printToken(t, out);
+      }
+      printTrailingComments(t, out);
+    }
+    out.print(") throws ParseException");
+    for (final Iterator<List<Token>> it = p.getThrowsList().iterator(); it.hasNext();) {
+      out.print(", ");
+      final List<Token> tname = it.next();
+      for (final Iterator<Token> it2 = tname.iterator(); it2.hasNext();) {
+        t = it2.next();
+        out.print(t.image);
+      }
+    }
+  }
+
+  /**
+   * Generates, for the TWO_PASS_ERROR_REPORTING option, the method of a production, which runs the
+   * production routine (named with a "jj_" prefix) without the error reporting bookkeeping and, if it
+   * throws a ParseException, runs it again from the same token with the bookkeeping, to throw the
+   * detailed ParseException. The productions routines call each other directly, and a wrapper
+   * called during a parse (by some user code) just runs its routine.<br>
+   * So, in a parse with this option :
+   * <ul>
+   * <li>all the tokens from the start token are kept (chained) until the end of the parse, and not
+   * only the ones referenced by the tree or by the user code,</li>
+   * <li>on a parse error, the actions (and the semantic lookaheads) met before the error are run a
+   * second time ; they must not have side effects that cannot be run twice.</li>
+   * </ul>
+   * 
+   * @param p - the production
+   * @param voidReturn - true if the production returns void
+   */
+  static void buildTwoPassWrapper(final BNFProduction_ p, final boolean voidReturn) {
+    printPhase1Header(p, p.getAccessMod() != null ? p.getAccessMod() : "public", p.getLhs(), true);
+    out.println(" {");
+    // the parameters names : the last identifier of each parameter
+    final StringBuilder names = new StringBuilder(32);
+    int depth = 0;
+    String name = null;
+    for (final Iterator<Token> it = p.getParameterListTokens().iterator(); it.hasNext();) {
+      final String img = it.next().image;
+      if ("<".equals(img) || "(".equals(img)) {
+        depth++;
+      } else if (">".equals(img) || ")".equals(img)) {
+        depth--;
+      } else if (">>".equals(img)) {
+        depth -= 2;
+      } else if (">>>".equals(img)) {
+        depth -= 3;
+      } else if (",".equals(img) && depth == 0) {
+        names.append(name).append(", ");
+        name = null;
+      } else if (Character.isJavaIdentifierStart(img.charAt(0))) {
+        name = img;
+      }
+    }
+    if (name != null) {
+      names.append(name);
+    }
+    final String call = "jj_" + p.getLhs() + "(" + names + ");";
+    final String ret = voidReturn ? "" : "return ";
+    if (voidReturn) {
+      out.println("    if (jj_parsing) { " + call + " return; }");
+    } else {
+      out.println("    if (jj_parsing) return " + call);
+    }
+    out.println("    // all the tokens from jj_start are kept until the end of the parse");
+    out.println("    final Token jj_start = token;");
+    out.println("    jj_parsing = true;");
+    out.println("    try {");
+    out.println("      " + ret + call);
+    out.println("    } catch (ParseException e) {");
+    out.println("      // second pass with the error reporting bookkeeping : the actions before the error run again");
+    out.println("      jj_rewind(jj_start);");
+    out.println("      try {");
+    out.println("        " + ret + call);
+    out.println("      } finally {");
+    out.println("        jj_report = false;");
+    out.println("      }");
+    out.println("    } finally {");
+    out.println("      jj_parsing = false;");
+    out.println("    }");
+    out.println("  }");
+    out.println("");
+  }
+
   static void phase1NewLine() {
     out.println("");
     for (int i = 0; i < indentamt; i++) {
@@ -587,6 +955,9 @@ public class ParseEngine extends JavaCCGlobals {
         retval += printTrailingComments(t);
         retval += " = ";
       }
+      if (Options.getTwoPassErrorReporting() && e_nrw.getProd() instanceof BNFProduction_) {
+        retval += "jj_";
+      }
       retval += e_nrw.getName() + "(";
       if (e_nrw.getArgumentTokens().size() != 0) {
         printTokenSetup((e_nrw.getArgumentTokens().get(0)));
@@ -753,10 +1124,21 @@ public class ParseEngine extends JavaCCGlobals {
   static void buildPhase2Routine(final Lookahead la) {
     final Expansion_ e = la.getLaExpansion();
     out.println("  " + staticOpt() + "private boolean jj_2" + e.internal_name + "(int xla) {");
-    out.println("    jj_la = xla; jj_lastpos = jj_scanpos = token;");
+    if (Options.getRingBufferLookahead()) {
+      // scan over the kinds ring, anchored on the current token
+      out.println("    jj_la = xla; jj_lastidx = jj_scanidx = 0;");
+      out.println("    if (jj_ring_anchor != token) jj_ring_move(token);");
+      if (Options.getMemoLookahead() > 0)
+        out.println("    jj_memo_lim = xla;");
+    } else {
+      out.println("    jj_la = xla; jj_lastpos = jj_scanpos = token;");
+    }
     out.println("    try { return !jj_3" + e.internal_name + "(); }");
     out.println("    catch(LookaheadSuccess ls) { return true; }");
-    if (Options.getErrorReporting())
+    if (Options.getTwoPassErrorReporting())
+      out.println("    finally { if (jj_report) jj_save(" +
+                  (Integer.parseInt(e.internal_name.substring(1)) - 1) + ", xla); }");
+    else if (Options.getErrorReporting())
       out.println("    finally { jj_save(" + (Integer.parseInt(e.internal_name.substring(1)) - 1) +
                   ", xla); }");
     out.println("  }");
@@ -768,6 +1150,31 @@ public class ParseEngine extends JavaCCGlobals {
 
   static private boolean xsp_declared;
 
+  /** The number of memoized (productions) phase 3 routines */
+  static private int     memo_ids;
+
+  /**
+   * @return the phase 3 scan position variable (an index in the kinds ring with the
+   *         RING_BUFFER_LOOKAHEAD option, a token otherwise)
+   */
+  static String scanPos() {
+    return Options.getRingBufferLookahead() ? "jj_scanidx" : "jj_scanpos";
+  }
+
+  /**
+   * @return the phase 3 last scanned position variable
+   */
+  static String lastPos() {
+    return Options.getRingBufferLookahead() ? "jj_lastidx" : "jj_lastpos";
+  }
+
+  /**
+   * @return the phase 3 saved scan position declaration
+   */
+  static String xspDecl() {
+    return Options.getRingBufferLookahead() ? "    int xsp;" : "    Token xsp;";
+  }
+
   static Expansion_      jj3_expansion;
 
   static String genReturn(final boolean value) {
@@ -886,7 +1293,24 @@ public class ParseEngine extends JavaCCGlobals {
       return;
 
     if (!recursive_call) {
-      out.println("  " + staticOpt() + "private boolean jj_3" + e.internal_name + "() {");
+      if (Options.getMemoLookahead() > 0 && e.parent instanceof NormalProduction) {
+        // a production routine looks up / records its result at the scan position in the memo table,
+        // and the scan itself goes in a separate routine ; a result depending on a semantic lookahead
+        // (evaluated by the routine or by the ones it calls) is not recorded
+        out.println("  " + staticOpt() + "private boolean jj_3" + e.internal_name + "() {");
+        out.println("    final int m = jj_memo_get(" + memo_ids + ");");
+        out.println("    if (m >= 0) return m == 0;");
+        out.println("    final int s = jj_scanidx, sem = jj_memo_sem;");
+        out.println("    final boolean r = jj_3" + e.internal_name + "_scan();");
+        out.println("    if (sem == jj_memo_sem) jj_memo_put(" + memo_ids + ", s, r);");
+        out.println("    return r;");
+        out.println("  }");
+        out.println("");
+        memo_ids++;
+        out.println("  " + staticOpt() + "private boolean jj_3" + e.internal_name + "_scan() {");
+      } else {
+        out.println("  " + staticOpt() + "private boolean jj_3" + e.internal_name + "() {");
+      }
       xsp_declared = false;
       if (Options.getDebugLookahead() && e.parent instanceof NormalProduction) {
         out.print("    ");
@@ -921,7 +1345,8 @@ public class ParseEngine extends JavaCCGlobals {
       final NonTerminal e_nrw = (NonTerminal) e;
       final NormalProduction ntprod = (production_table.get(e_nrw.getName()));
       if (ntprod instanceof JavaCodeProduction_) {
-        out.println("    if (true) { jj_la = 0; jj_scanpos = jj_lastpos; " + genReturn(false) + "}");
+        out.println("    if (true) { jj_la = 0; " + scanPos() + " = " + lastPos() + "; " + genReturn(false) +
+                    "}");
       } else {
         final Expansion_ ntexp = ntprod.getExpansion();
         //out.println("    if (jj_3" + ntexp.internal_name + "()) " + genReturn(true));
@@ -934,9 +1359,9 @@ public class ParseEngine extends JavaCCGlobals {
       if (e_nrw.getChoices().size() != 1) {
         if (!xsp_declared) {
           xsp_declared = true;
-          out.println("    Token xsp;");
+          out.println(xspDecl());
         }
-        out.println("    xsp = jj_scanpos;");
+        out.println("    xsp = " + scanPos() + ";");
       }
       for (int i = 0; i < e_nrw.getChoices().size(); i++) {
         nested_seq = (Sequence) (e_nrw.getChoices().get(i));
@@ -945,6 +1370,8 @@ public class ParseEngine extends JavaCCGlobals {
           // We have semantic lookahead that must be evaluated.
           lookaheadNeeded = true;
           out.println("    jj_lookingAhead = true;");
+          if (Options.getMemoLookahead() > 0)
+            out.println("    jj_memo_sem++;");
           out.print("    jj_semLA = ");
           printTokenSetup((la.getActionTokens().get(0)));
           for (final Iterator<Token> it = la.getActionTokens().iterator(); it.hasNext();) {
@@ -962,7 +1389,7 @@ public class ParseEngine extends JavaCCGlobals {
         if (i != e_nrw.getChoices().size() - 1) {
           //out.println("jj_3" + nested_seq.internal_name + "()) {");
           out.println(genjj_3Call(nested_seq) + ") {");
-          out.println("    jj_scanpos = xsp;");
+          out.println("    " + scanPos() + " = xsp;");
         } else {
           //out.println("jj_3" + nested_seq.internal_name + "()) " + genReturn(true));
           out.println(genjj_3Call(nested_seq) + ") " + genReturn(true));
@@ -995,7 +1422,7 @@ public class ParseEngine extends JavaCCGlobals {
     } else if (e instanceof OneOrMore) {
       if (!xsp_declared) {
         xsp_declared = true;
-        out.println("    Token xsp;");
+        out.println(xspDecl());
       }
       final OneOrMore e_nrw = (OneOrMore) e;
       final Expansion_ nested_e = e_nrw.expansion;
@@ -1003,34 +1430,34 @@ public class ParseEngine extends JavaCCGlobals {
       out.println("    if (" + genjj_3Call(nested_e) + ") " + genReturn(true));
       //out.println("    if (jj_la == 0 && jj_scanpos == jj_lastpos) " + genReturn(false));
       out.println("    while (true) {");
-      out.println("      xsp = jj_scanpos;");
+      out.println("      xsp = " + scanPos() + ";");
       //out.println("      if (jj_3" + nested_e.internal_name + "()) { jj_scanpos = xsp; break; }");
-      out.println("      if (" + genjj_3Call(nested_e) + ") { jj_scanpos = xsp; break; }");
+      out.println("      if (" + genjj_3Call(nested_e) + ") { " + scanPos() + " = xsp; break; }");
       //out.println("      if (jj_la == 0 && jj_scanpos == jj_lastpos) " + genReturn(false));
       out.println("    }");
     } else if (e instanceof ZeroOrMore) {
       if (!xsp_declared) {
         xsp_declared = true;
-        out.println("    Token xsp;");
+        out.println(xspDecl());
       }
       final ZeroOrMore e_nrw = (ZeroOrMore) e;
       final Expansion_ nested_e = e_nrw.expansion;
       out.println("    while (true) {");
-      out.println("      xsp = jj_scanpos;");
+      out.println("      xsp = " + scanPos() + ";");
       //out.println("      if (jj_3" + nested_e.internal_name + "()) { jj_scanpos = xsp; break; }");
-      out.println("      if (" + genjj_3Call(nested_e) + ") { jj_scanpos = xsp; break; }");
+      out.println("      if (" + genjj_3Call(nested_e) + ") { " + scanPos() + " = xsp; break; }");
       //out.println("      if (jj_la == 0 && jj_scanpos == jj_lastpos) " + genReturn(false));
       out.println("    }");
     } else if (e instanceof ZeroOrOne) {
       if (!xsp_declared) {
         xsp_declared = true;
-        out.println("    Token xsp;");
+        out.println(xspDecl());
       }
       final ZeroOrOne e_nrw = (ZeroOrOne) e;
       final Expansion_ nested_e = e_nrw.expansion;
-      out.println("    xsp = jj_scanpos;");
+      out.println("    xsp = " + scanPos() + ";");
       //out.println("    if (jj_3" + nested_e.internal_name + "()) jj_scanpos = xsp;");
-      out.println("    if (" + genjj_3Call(nested_e) + ") jj_scanpos = xsp;");
+      out.println("    if (" + genjj_3Call(nested_e) + ") " + scanPos() + " = xsp;");
       //out.println("    else if (jj_la == 0 && jj_scanpos == jj_lastpos) " + genReturn(false));
     }
     if (!recursive_call) {
@@ -1208,6 +1635,7 @@ public class ParseEngine extends JavaCCGlobals {
     phase3table = new Hashtable<Expansion_, Phase3Data>();
     firstSet = null;
     xsp_declared = false;
+    memo_ids = 0;
     jj3_expansion = null;
   }
 
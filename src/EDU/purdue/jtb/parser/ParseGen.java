@@ -45,6 +45,17 @@ import java.util.List;
  * @author Marc Mazas
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : moved to imports static
+ * @version 1.4.13 : 10/2026 : agent : added the BufferCharStream class (BUFFER_CHAR_STREAM option)
+ * @version 1.4.13 : 10/2026 : agent : added the tokens lines and columns resolution (LAZY_LINE_COLUMN
+ *          option)
+ * @version 1.4.13 : 10/2026 : agent : added the lookahead over a ring buffer of the tokens kinds
+ *          (RING_BUFFER_LOOKAHEAD option)
+ * @version 1.4.13 : 10/2026 : agent : added the memoization of the productions lookahead routines
+ *          (MEMO_LOOKAHEAD option ; not for the results depending on a semantic
+ *          lookahead
+ * @version 1.4.13 : 10/2026 : agent : added the jj_skip method (KIND_DISPATCH option)
+ * @version 1.4.13 : 10/2026 : agent : added the error reporting second pass (TWO_PASS_ERROR_REPORTING
+ *          option)
  */
 public class ParseGen extends JavaCCGlobals {
 
@@ -116,6 +127,8 @@ public class ParseGen extends JavaCCGlobals {
         if (!Options.getUserCharStream()) {
           if (Options.getJavaUnicodeEscape()) {
             out.println("  " + staticOpt() + "JavaCharStream jj_input_stream;");
+          } else if (Options.getBufferCharStream()) {
+            out.println("  " + staticOpt() + "BufferCharStream jj_input_stream;");
           } else {
             out.println("  " + staticOpt() + "SimpleCharStream jj_input_stream;");
           }
@@ -129,7 +142,31 @@ public class ParseGen extends JavaCCGlobals {
         out.println("  " + staticOpt() + "private int jj_ntk;");
       }
       if (jj2index != 0) {
-        out.println("  " + staticOpt() + "private Token jj_scanpos, jj_lastpos;");
+        if (Options.getRingBufferLookahead()) {
+          out.println("  " + staticOpt() + "private int jj_scanidx, jj_lastidx;");
+          out.println("  /** The kinds of the tokens following jj_ring_anchor (a ring buffer). */");
+          out.println("  " + staticOpt() + "private int[] jj_ring = new int[64];");
+          out.println("  " + staticOpt() + "private int jj_ring_base, jj_ring_filled;");
+          out.println("  " + staticOpt() + "private Token jj_ring_anchor, jj_ring_last;");
+          if (Options.getMemoLookahead() > 0) {
+            int size = 1;
+            while (size < Options.getMemoLookahead())
+              size <<= 1;
+            out.println("  /** The absolute position of jj_ring_anchor (increasing, with gaps on the ring resets). */");
+            out.println("  " + staticOpt() + "private long jj_ring_abs;");
+            out.println("  /** The scan limit (jj_la + jj_lastidx) of the current lookahead. */");
+            out.println("  " + staticOpt() + "private int jj_memo_lim;");
+            out.println("  /** The lookahead routines results table (absolute position, routine, length or -1, reach). */");
+            out.println("  " + staticOpt() + "final private long[] jj_memo_pos = new long[" + size + "];");
+            out.println("  " + staticOpt() + "final private int[] jj_memo_id = new int[" + size + "];");
+            out.println("  " + staticOpt() + "final private int[] jj_memo_len = new int[" + size + "];");
+            out.println("  " + staticOpt() + "final private int[] jj_memo_reach = new int[" + size + "];");
+            out.println("  /** The number of semantic lookaheads evaluated by the lookahead routines. */");
+            out.println("  " + staticOpt() + "private int jj_memo_sem;");
+          }
+        } else {
+          out.println("  " + staticOpt() + "private Token jj_scanpos, jj_lastpos;");
+        }
         out.println("  " + staticOpt() + "private int jj_la;");
         if (lookaheadNeeded) {
           out.println("  /** Whether we are looking ahead. */");
@@ -164,6 +201,10 @@ public class ParseGen extends JavaCCGlobals {
         out.println("  " + staticOpt() + "private boolean jj_rescan = false;");
         out.println("  " + staticOpt() + "private int jj_gc = 0;");
       }
+      if (Options.getTwoPassErrorReporting()) {
+        out.println("  /** Whether a production is being parsed, and whether it is the error reporting pass. */");
+        out.println("  " + staticOpt() + "private boolean jj_parsing, jj_report;");
+      }
       out.println("");
       if (!Options.getUserTokenManager()) {
         if (Options.getUserCharStream()) {
@@ -249,12 +290,13 @@ public class ParseGen extends JavaCCGlobals {
                           + "catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }");
             }
           } else {
+            final String csn = Options.getBufferCharStream() ? "BufferCharStream" : "SimpleCharStream";
             if (!Options.getGenerateChainedException()) {
-              out.println("    try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } "
+              out.println("    try { jj_input_stream = new " + csn + "(stream, encoding, 1, 1); } "
                           + "catch(java.io.UnsupportedEncodingException e) { "
                           + "throw new RuntimeException(e.getMessage()); }");
             } else {
-              out.println("    try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } "
+              out.println("    try { jj_input_stream = new " + csn + "(stream, encoding, 1, 1); } "
                           + "catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }");
             }
           }
@@ -327,6 +369,8 @@ public class ParseGen extends JavaCCGlobals {
           }
           if (Options.getJavaUnicodeEscape()) {
             out.println("    jj_input_stream = new JavaCharStream(stream, 1, 1);");
+          } else if (Options.getBufferCharStream()) {
+            out.println("    jj_input_stream = new BufferCharStream(stream, 1, 1);");
           } else {
             out.println("    jj_input_stream = new SimpleCharStream(stream, 1, 1);");
           }
@@ -452,20 +496,31 @@ public class ParseGen extends JavaCCGlobals {
       }
       out.println("    if (token.kind == kind) {");
       if (Options.getErrorReporting()) {
-        out.println("      jj_gen++;");
+        // with TWO_PASS_ERROR_REPORTING, only in the error reporting pass
+        final String ind = Options.getTwoPassErrorReporting() ? "  " : "";
+        if (Options.getTwoPassErrorReporting()) {
+          out.println("      if (jj_report) {");
+        }
+        out.println(ind + "      jj_gen++;");
         if (jj2index != 0) {
-          out.println("      if (++jj_gc > 100) {");
-          out.println("        jj_gc = 0;");
-          out.println("        for (int i = 0; i < jj_2_rtns.length; i++) {");
-          out.println("          JJCalls c = jj_2_rtns[i];");
-          out.println("          while (c != null) {");
-          out.println("            if (c.gen < jj_gen) c.first = null;");
-          out.println("            c = c.next;");
-          out.println("          }");
-          out.println("        }");
+          out.println(ind + "      if (++jj_gc > 100) {");
+          out.println(ind + "        jj_gc = 0;");
+          out.println(ind + "        for (int i = 0; i < jj_2_rtns.length; i++) {");
+          out.println(ind + "          JJCalls c = jj_2_rtns[i];");
+          out.println(ind + "          while (c != null) {");
+          out.println(ind + "            if (c.gen < jj_gen) c.first = null;");
+          out.println(ind + "            c = c.next;");
+          out.println(ind + "          }");
+          out.println(ind + "        }");
+          out.println(ind + "      }");
+        }
+        if (Options.getTwoPassErrorReporting()) {
           out.println("      }");
         }
       }
+      if (Options.getLazyLineColumn()) {
+        out.println("      if (token.beginLine == 0) jj_resolve_line_column(token);");
+      }
       if (Options.getDebugParser()) {
         out.println("      trace_token(token, \"\");");
       }
@@ -485,6 +540,9 @@ public class ParseGen extends JavaCCGlobals {
         out.println("  static private final class LookaheadSuccess extends java.lang.Error { }");
         out.println("  " + staticOpt() +
                     "final private LookaheadSuccess jj_ls = new LookaheadSuccess();");
+        if (Options.getRingBufferLookahead()) {
+          genRingScanToken(tsClassOrVar);
+        } else {
         out.println("  " + staticOpt() + "private boolean jj_scan_token(int kind) {");
         out.println("    if (jj_scanpos == jj_lastpos) {");
         out.println("      jj_la--;");
@@ -515,6 +573,7 @@ public class ParseGen extends JavaCCGlobals {
         out.println("    return false;");
         out.println("  }");
         out.println("");
+        }
       }
       out.println("");
       out.println("/** Get the next Token. */");
@@ -527,9 +586,14 @@ public class ParseGen extends JavaCCGlobals {
         out.println("    else token = token.next = " + tsClassOrVar + ".getNextToken();");
         out.println("    jj_ntk = -1;");
       }
-      if (Options.getErrorReporting()) {
+      if (Options.getTwoPassErrorReporting()) {
+        out.println("    if (jj_report) jj_gen++;");
+      } else if (Options.getErrorReporting()) {
         out.println("    jj_gen++;");
       }
+      if (Options.getLazyLineColumn()) {
+        out.println("    if (token.beginLine == 0) jj_resolve_line_column(token);");
+      }
       if (Options.getDebugParser()) {
         out.println("      trace_token(token, \" (in getNextToken)\");");
       }
@@ -539,7 +603,10 @@ public class ParseGen extends JavaCCGlobals {
       out.println("/** Get the specific Token. */");
       out.println("  " + staticOpt() + "final public Token getToken(int index) {");
       if (lookaheadNeeded) {
-        out.println("    Token t = jj_lookingAhead ? jj_scanpos : token;");
+        if (Options.getRingBufferLookahead())
+          out.println("    Token t = jj_lookingAhead ? jj_ring_token(jj_scanidx) : token;");
+        else
+          out.println("    Token t = jj_lookingAhead ? jj_scanpos : token;");
       } else {
         out.println("    Token t = token;");
       }
@@ -547,9 +614,31 @@ public class ParseGen extends JavaCCGlobals {
       out.println("      if (t.next != null) t = t.next;");
       out.println("      else t = t.next = " + tsClassOrVar + ".getNextToken();");
       out.println("    }");
+      if (Options.getLazyLineColumn()) {
+        out.println("    if (t.beginLine == 0) jj_resolve_line_column(t);");
+      }
       out.println("    return t;");
       out.println("  }");
       out.println("");
+      if (Options.getLazyLineColumn()) {
+        out.println("  /**");
+        out.println("   * Resolves the line and column numbers of a token and of its special tokens, which the token");
+        out.println("   * manager sets to their offsets (LAZY_LINE_COLUMN option).");
+        out.println("   */");
+        out.println("  " + staticOpt() + "private void jj_resolve_line_column(Token t) {");
+        out.println("    final BufferCharStream s = " + tsClassOrVar + ".input_stream;");
+        out.println("    for (; t != null; t = t.specialToken) {");
+        out.println("      if (t.beginLine == 0) {");
+        out.println("        final int b = t.beginColumn, e = t.endColumn;");
+        out.println("        t.beginLine = s.getLine(b);");
+        out.println("        t.beginColumn = s.getColumn(b);");
+        out.println("        t.endLine = s.getLine(e);");
+        out.println("        t.endColumn = s.getColumn(e);");
+        out.println("      }");
+        out.println("    }");
+        out.println("  }");
+        out.println("");
+      }
       if (!Options.getCacheTokens()) {
         out.println("  " + staticOpt() + "private int jj_ntk() {");
         out.println("    if ((jj_nt=token.next) == null)");
@@ -599,6 +688,24 @@ public class ParseGen extends JavaCCGlobals {
           out.println("  }");
         }
         out.println("");
+        if (Options.getTwoPassErrorReporting()) {
+          out.println("  /** Rewinds to a token and turns on the error reporting bookkeeping (second pass). */");
+          out.println("  " + staticOpt() + "private void jj_rewind(Token t) {");
+          out.println("    token = t;");
+          if (Options.getCacheTokens()) {
+            out.println("    jj_nt = t.next;");
+          } else {
+            out.println("    jj_ntk = -1;");
+          }
+          out.println("    jj_gen = 0;");
+          out.println("    for (int i = 0; i < " + maskindex + "; i++) jj_la1[i] = -1;");
+          if (jj2index != 0) {
+            out.println("    for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();");
+          }
+          out.println("    jj_report = true;");
+          out.println("  }");
+          out.println("");
+        }
         out.println("  /** Generate ParseException. */");
         out.println("  " + staticOpt() + "public ParseException generateParseException() {");
         out.println("    jj_expentries.clear();");
@@ -641,12 +748,17 @@ public class ParseGen extends JavaCCGlobals {
         else
           out.println("      exptokseq[i] = jj_expentries.get(i);");
         out.println("    }");
+        if (Options.getLazyLineColumn()) {
+          out.println("    jj_resolve_line_column(token.next);");
+        }
         out.println("    return new ParseException(token, exptokseq, tokenImage);");
         out.println("  }");
       } else {
         out.println("  /** Generate ParseException. */");
         out.println("  " + staticOpt() + "public ParseException generateParseException() {");
         out.println("    Token errortok = token.next;");
+        if (Options.getLazyLineColumn())
+          out.println("    jj_resolve_line_column(errortok);");
         if (Options.getKeepLineColumn())
           out.println("    int line = errortok.beginLine, column = errortok.beginColumn;");
         out.println("    String mess = (errortok.kind == 0) ? tokenImage[0] : errortok.image;");
@@ -732,7 +844,12 @@ public class ParseGen extends JavaCCGlobals {
         out.println("      JJCalls p = jj_2_rtns[i];");
         out.println("      do {");
         out.println("        if (p.gen > jj_gen) {");
-        out.println("          jj_la = p.arg; jj_lastpos = jj_scanpos = p.first;");
+        if (Options.getRingBufferLookahead()) {
+          out.println("          jj_la = p.arg; jj_lastidx = jj_scanidx = 0;");
+          out.println("          if (jj_ring_anchor != p.first) jj_ring_move(p.first);");
+        } else {
+          out.println("          jj_la = p.arg; jj_lastpos = jj_scanpos = p.first;");
+        }
         out.println("          switch (i) {");
         for (int i = 0; i < jj2index; i++) {
           out.println("            case " + i + ": jj_3_" + (i + 1) + "(); break;");
@@ -755,6 +872,14 @@ public class ParseGen extends JavaCCGlobals {
         out.println("    p.gen = jj_gen + xla - jj_la; p.first = token; p.arg = xla;");
         out.println("  }");
         out.println("");
+        if (Options.getKindDispatch()) {
+          out.println("  /** Records a lookahead not run as the next token is not in its first set. */");
+          out.println("  " + staticOpt() + "private void jj_skip(int index, int xla) {");
+          out.println("    jj_la = xla - 1;");
+          out.println("    jj_save(index, xla);");
+          out.println("  }");
+          out.println("");
+        }
       }
       if (jj2index != 0 && Options.getErrorReporting()) {
         out.println("  static final class JJCalls {");
@@ -781,6 +906,134 @@ public class ParseGen extends JavaCCGlobals {
     return cu_name;
   }
 
+  /**
+   * Generates the jj_scan_token method and its helpers for the RING_BUFFER_LOOKAHEAD option : the
+   * phase 3 scan position is an index in a ring buffer of the kinds of the tokens following the
+   * token where the lookahead started (its anchor), so the lookahead routines compare ints instead
+   * of walking the tokens chain ; the ring keeps the kinds already scanned as long as its anchor is
+   * moved forward, and only grows (by doubling) for a lookahead deeper than its capacity.
+   * 
+   * @param tsClassOrVar - the token manager class (static parser) or variable
+   */
+  static void genRingScanToken(final String tsClassOrVar) {
+    out.println("  " + staticOpt() + "private boolean jj_scan_token(int kind) {");
+    out.println("    if (jj_scanidx == jj_lastidx) {");
+    out.println("      jj_la--;");
+    out.println("      jj_lastidx = ++jj_scanidx;");
+    out.println("    } else {");
+    out.println("      jj_scanidx++;");
+    out.println("    }");
+    out.println("    final int k = jj_scanidx <= jj_ring_filled ? "
+                + "jj_ring[(jj_ring_base + jj_scanidx) & (jj_ring.length - 1)] : jj_ring_fill(jj_scanidx);");
+    if (Options.getErrorReporting()) {
+      out.println("    if (jj_rescan) {");
+      out.println("      int i = 0; Token tok = token; final Token scanpos = jj_ring_token(jj_scanidx);");
+      out.println("      while (tok != null && tok != scanpos) { i++; tok = tok.next; }");
+      out.println("      if (tok != null) jj_add_error_token(kind, i);");
+      if (Options.getDebugLookahead()) {
+        out.println("    } else {");
+        out.println("      trace_scan(jj_ring_token(jj_scanidx), kind);");
+      }
+      out.println("    }");
+    } else if (Options.getDebugLookahead()) {
+      out.println("    trace_scan(jj_ring_token(jj_scanidx), kind);");
+    }
+    out.println("    if (k != kind) return true;");
+    out.println("    if (jj_la == 0 && jj_scanidx == jj_lastidx) throw jj_ls;");
+    out.println("    return false;");
+    out.println("  }");
+    out.println("");
+    out.println("  /** Fills the kinds ring up to a given distance after its anchor, and returns the kind there. */");
+    out.println("  " + staticOpt() + "private int jj_ring_fill(int i) {");
+    out.println("    Token t = jj_ring_last;");
+    out.println("    while (jj_ring_filled < i) {");
+    out.println("      if (t.next == null) t.next = " + tsClassOrVar + ".getNextToken();");
+    out.println("      t = t.next;");
+    out.println("      if (jj_ring_filled == jj_ring.length - 1) {");
+    out.println("        final int[] r = new int[2 * jj_ring.length];");
+    out.println("        for (int j = 1; j <= jj_ring_filled; j++) r[j] = jj_ring[(jj_ring_base + j) & (jj_ring.length - 1)];");
+    out.println("        jj_ring = r;");
+    out.println("        jj_ring_base = 0;");
+    out.println("      }");
+    out.println("      jj_ring[(jj_ring_base + ++jj_ring_filled) & (jj_ring.length - 1)] = t.kind;");
+    out.println("    }");
+    out.println("    jj_ring_last = t;");
+    out.println("    return jj_ring[(jj_ring_base + i) & (jj_ring.length - 1)];");
+    out.println("  }");
+    out.println("");
+    out.println("  /** Moves the kinds ring anchor to a token, keeping the kinds following it if already filled. */");
+    out.println("  " + staticOpt() + "private void jj_ring_move(Token t) {");
+    out.println("    Token a = jj_ring_anchor;");
+    out.println("    int d = 0;");
+    out.println("    while (a != t && d < jj_ring_filled) { a = a.next; d++; }");
+    out.println("    if (a == t) {");
+    out.println("      jj_ring_base = (jj_ring_base + d) & (jj_ring.length - 1);");
+    out.println("      jj_ring_filled -= d;");
+    if (Options.getMemoLookahead() > 0)
+      out.println("      jj_ring_abs += d;");
+    out.println("    } else {");
+    if (Options.getMemoLookahead() > 0)
+      out.println("      jj_ring_abs += jj_ring_filled + 1;");
+    out.println("      jj_ring_filled = 0;");
+    out.println("      jj_ring_last = t;");
+    out.println("    }");
+    out.println("    jj_ring_anchor = t;");
+    out.println("  }");
+    out.println("");
+    out.println("  /** Returns the (already filled) token at a given distance after the kinds ring anchor. */");
+    out.println("  " + staticOpt() + "private Token jj_ring_token(int i) {");
+    out.println("    Token t = jj_ring_anchor;");
+    out.println("    while (i-- > 0) t = t.next;");
+    out.println("    return t;");
+    out.println("  }");
+    out.println("");
+    if (Options.getMemoLookahead() > 0)
+      genMemoLookahead();
+  }
+
+  /**
+   * Generates the jj_memo_get and jj_memo_put methods for the MEMO_LOOKAHEAD option : the results
+   * (failure or success and matched length) of the productions lookahead routines are recorded in a
+   * direct mapped table keyed by the absolute scan position and the routine, a newer result
+   * evicting an older one. A result is reused only if the routine could not have reached the
+   * lookahead limit, and it is recorded only if the routine did not meet a JAVACODE production (the
+   * results must not depend on the lookahead limit) nor evaluate a semantic lookahead (the results
+   * must not depend on the parser state, see jj_memo_sem), so the parse is the same as without the
+   * table.
+   */
+  static void genMemoLookahead() {
+    final String rescan = Options.getErrorReporting() ? "jj_rescan || " : "";
+    out.println("  /** Replays the recorded result of a lookahead routine at the scan position : "
+                + "-1 if none, 0 if it failed, 1 if it succeeded. */");
+    out.println("  " + staticOpt() + "private int jj_memo_get(int id) {");
+    out.println("    if (" + rescan + "jj_la + jj_lastidx != jj_memo_lim) return -1;");
+    out.println("    final long pos = jj_ring_abs + jj_scanidx;");
+    out.println("    final int i = ((int) pos + id * 0x9E3779B1) & (jj_memo_pos.length - 1);");
+    out.println("    if (jj_memo_pos[i] != pos || jj_memo_id[i] != id) return -1;");
+    out.println("    final int reach = jj_scanidx + jj_memo_reach[i];");
+    out.println("    if (reach >= jj_memo_lim) return -1;");
+    out.println("    if (reach > jj_lastidx) {");
+    out.println("      jj_la -= reach - jj_lastidx;");
+    out.println("      jj_lastidx = reach;");
+    out.println("    }");
+    out.println("    if (jj_memo_len[i] < 0) return 0;");
+    out.println("    jj_scanidx += jj_memo_len[i];");
+    out.println("    return 1;");
+    out.println("  }");
+    out.println("");
+    out.println("  /** Records the result of a lookahead routine started at a scan position. */");
+    out.println("  " + staticOpt() + "private void jj_memo_put(int id, int s, boolean failed) {");
+    out.println("    if (" + rescan + "jj_la + jj_lastidx != jj_memo_lim) return;");
+    out.println("    final long pos = jj_ring_abs + s;");
+    out.println("    final int i = ((int) pos + id * 0x9E3779B1) & (jj_memo_pos.length - 1);");
+    out.println("    jj_memo_pos[i] = pos;");
+    out.println("    jj_memo_id[i] = id;");
+    out.println("    jj_memo_len[i] = failed ? -1 : jj_scanidx - s;");
+    out.println("    jj_memo_reach[i] = jj_lastidx - s;");
+    out.println("  }");
+    out.println("");
+  }
+
   /** Reinitializes */
   public static void reInit() {
     out = null;
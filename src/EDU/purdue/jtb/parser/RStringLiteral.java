@@ -28,6 +28,7 @@
 package EDU.purdue.jtb.parser;
 
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -466,7 +467,7 @@ public class RStringLiteral extends RegularExpression_ {
     return ret;
   }
 
-  static void DumpDfaCode(final PrintWriter out) {
+  static void DumpDfaCode(final PrintWriter ostr) {
     Hashtable<String, KindInfo> tab;
     String key;
     KindInfo info;
@@ -476,15 +477,15 @@ public class RStringLiteral extends RegularExpression_ {
     LexGen.maxLongsReqd[LexGen.lexStateIndex] = maxLongsReqd;
 
     if (maxLen == 0) {
-      out.println((Options.getStatic() ? "static " : "") + "private int " +
+      ostr.println((Options.getStatic() ? "static " : "") + "private int " +
                   "jjMoveStringLiteralDfa0" + LexGen.lexStateSuffix + "()");
 
-      DumpNullStrLiterals(out);
+      DumpNullStrLiterals(ostr);
       return;
     }
 
     if (!boilerPlateDumped) {
-      DumpBoilerPlate(out);
+      DumpBoilerPlate(ostr);
       boilerPlateDumped = true;
     }
 
@@ -495,9 +496,12 @@ public class RStringLiteral extends RegularExpression_ {
       boolean startNfaNeeded = false;
       tab = charPosKind.get(i);
       final String[] keys = ReArrange(tab);
+      // the method is written in a buffer, to be split if it is too big for the JIT
+      final String name = "jjMoveStringLiteralDfa" + i + LexGen.lexStateSuffix;
+      final StringWriter sw = new StringWriter();
+      final PrintWriter out = new PrintWriter(sw);
 
-      out.print((Options.getStatic() ? "static " : "") + "private int " + "jjMoveStringLiteralDfa" +
-                i + LexGen.lexStateSuffix + "(");
+      out.print((Options.getStatic() ? "static " : "") + "private int " + name + "(");
 
       if (i != 0) {
         if (i == 1) {
@@ -879,10 +883,12 @@ public class RStringLiteral extends RegularExpression_ {
       }
 
       out.println("}");
+      out.flush();
+      MethodSplitter.DumpStringLiteralDfaMethod(ostr, name, sw.toString());
     }
 
     if (!LexGen.mixed[LexGen.lexStateIndex] && NfaState.generatedStates != 0 && createStartNfa)
-      DumpStartWithStates(out);
+      DumpStartWithStates(ostr);
   }
 
   static final int GetStrKind(final String str) {
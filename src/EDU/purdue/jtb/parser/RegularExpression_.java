@@ -38,6 +38,8 @@ import java.util.Set;
  * @version 1.4.0 : 05/2009 : MMa : adapted to JavaCC v4.2 grammar
  * @version 1.4.8 : 12/2014 : MMa : improved javadoc ; remove local variable ordinal hiding
  *          superclass's one
+ * @version 1.4.13 : 10/2026 : agent : restored the ordinal field : the token kind must not be
+ *          overwritten by the position in the parent expansion (which broke &lt;EOF&gt; in the BNF)
  */
 public abstract class RegularExpression_ extends Expansion_ {
 
@@ -45,12 +47,12 @@ public abstract class RegularExpression_ extends Expansion_ {
    * The label of the regular expression (if any). If no label is present, this is set to "".
    */
   public String          label        = "";
-  //  /**
-  //   * The ordinal value assigned to the regular expression. It is used for internal processing and
-  //   * passing information between the parser and the lexical analyzer.
-  //   */
-  //  // hides Expansion_.ordinal !!!
-  //  int                    ordinal;
+  /**
+   * The ordinal value assigned to the regular expression. It is used for internal processing and
+   * passing information between the parser and the lexical analyzer.<br>
+   * It hides on purpose {@link Expansion_#ordinal}, the position in the parent expansion.
+   */
+  int                    ordinal;
   /**
    * The LHS to which the token value of the regular expression is assigned. In case there is no
    * LHS, then the list remains empty.
@@ -14,6 +14,7 @@ import EDU.purdue.jtb.syntaxtree.ExpansionChoices;
 import EDU.purdue.jtb.syntaxtree.ExpansionUnit;
 import EDU.purdue.jtb.syntaxtree.ExpansionUnitTCF;
 import EDU.purdue.jtb.syntaxtree.INode;
+import EDU.purdue.jtb.syntaxtree.IdentifierAsString;
 import EDU.purdue.jtb.syntaxtree.NodeChoice;
 import EDU.purdue.jtb.syntaxtree.NodeList;
 import EDU.purdue.jtb.syntaxtree.NodeListOptional;
@@ -51,6 +52,8 @@ import EDU.purdue.jtb.syntaxtree.NodeToken;
  * @version 1.4.8 : 10/2012 : MMa : added JavaCodeProduction class generation if requested<br>
  *          1.4.8 : 12/2014 : MMa : added variables short names generation ;<br>
  *          commented visit(IdentifierAsString) as it seems not used ; improved some debug printing
+ * @version 1.4.13 : 10/2026 : agent : added the typed visits generation (for the SwitchDispatchVisitor,
+ *          -sd option)
  */
 public class AcceptInliner extends JavaCCPrinter {
 
@@ -125,6 +128,11 @@ public class AcceptInliner extends JavaCCPrinter {
   int                  expLvl;
   /** The ExpansionUnitTCF level we are in : -1 : none; 0, 1, ... : first, second, ... */
   int                  tcfLvl;
+  /**
+   * The flag telling to generate direct visit calls on the nodes casted to their type instead of
+   * accept calls (for the SwitchDispatchVisitor)
+   */
+  boolean              typedVisits;
 
   /**
    * Constructor which does nothing.
@@ -164,6 +172,26 @@ public class AcceptInliner extends JavaCCPrinter {
     aCI.astEcNode.accept(this);
   }
 
+  /**
+   * Generates the typed visit calls for all the node tree (for the SwitchDispatchVisitor) : as with
+   * {@link #genAcceptMethods(StringBuilder, Spacing, ClassInfo, boolean, boolean)}, but the leaf
+   * nodes (productions and tokens) are casted to their type and visited directly, so no call
+   * dispatches on the node type.
+   * 
+   * @param aSb - the buffer to write into (must be allocated)
+   * @param aSpc - an indentation (must be valid)
+   * @param aCI - the ClassInfo to work on (must be fully initialized, in particular field comments)
+   */
+  public void genTypedVisits(final StringBuilder aSb, final Spacing aSpc, final ClassInfo aCI) {
+    typedVisits = true;
+    try {
+      genAcceptMethods(aSb, aSpc, aCI, false, false);
+    }
+    finally {
+      typedVisits = false;
+    }
+  }
+
   /*
    * Convenience methods
    */
@@ -308,6 +336,18 @@ public class AcceptInliner extends JavaCCPrinter {
     scn++;
   }
 
+  /**
+   * Outputs the direct visit call on the current variable, casted to a given type if needed.
+   * 
+   * @param aType - the node type
+   */
+  void typedVisit(final String aType) {
+    sb.append(spc.spc).append("visit(");
+    if (!aType.equals(type))
+      sb.append('(').append(aType).append(") ");
+    sb.append(var).append(");");
+  }
+
   /*
    * User grammar generated and overridden visit methods below
    */
@@ -757,35 +797,45 @@ public class AcceptInliner extends JavaCCPrinter {
           if (!((NodeOptional) seq1.elementAt(2)).present()) {
             // generate node creation if not requested not to do so
             // $0 IdentifierAsString() $1 Arguments() $2 [ "!" ]
-            if (depthLevel)
-              DepthFirstVisitorsGenerator.increaseDepthLevel(sb, spc);
-            sb.append(spc.spc);
-            if (ret)
-              sb.append(genRetVar).append(" = ");
-            sb.append(var).append(".accept(this");
-            if (argu)
-              sb.append(", ").append(genArguVar);
-            sb.append(");");
-            oneNewLine(n, "4_0_RegularExpression");
-            if (depthLevel)
-              DepthFirstVisitorsGenerator.decreaseDepthLevel(sb, spc);
+            if (typedVisits) {
+              typedVisit(getFixedName(((IdentifierAsString) seq1.elementAt(0)).f0.tokenImage));
+              oneNewLine(n, "4_0_RegularExpression");
+            } else {
+              if (depthLevel)
+                DepthFirstVisitorsGenerator.increaseDepthLevel(sb, spc);
+              sb.append(spc.spc);
+              if (ret)
+                sb.append(genRetVar).append(" = ");
+              sb.append(var).append(".accept(this");
+              if (argu)
+                sb.append(", ").append(genArguVar);
+              sb.append(");");
+              oneNewLine(n, "4_0_RegularExpression");
+              if (depthLevel)
+                DepthFirstVisitorsGenerator.decreaseDepthLevel(sb, spc);
+            }
           }
         } else {
           // $0 RegularExpression() $1 [ ?0 "." ?1 < IDENTIFIER > ] $2 [ "!" ]
           if (!((NodeOptional) seq1.elementAt(2)).present()) {
             // generate node creation if not requested not to do so
-            if (depthLevel)
-              DepthFirstVisitorsGenerator.increaseDepthLevel(sb, spc);
-            sb.append(spc.spc);
-            if (ret)
-              sb.append(genRetVar).append(" = ");
-            sb.append(var).append(".accept(this");
-            if (argu)
-              sb.append(", ").append(genArguVar);
-            sb.append(");");
-            oneNewLine(n, "4_1_RegularExpression");
-            if (depthLevel)
-              DepthFirstVisitorsGenerator.decreaseDepthLevel(sb, spc);
+            if (typedVisits) {
+              typedVisit(nodeToken);
+              oneNewLine(n, "4_1_RegularExpression");
+            } else {
+              if (depthLevel)
+                DepthFirstVisitorsGenerator.increaseDepthLevel(sb, spc);
+              sb.append(spc.spc);
+              if (ret)
+                sb.append(genRetVar).append(" = ");
+              sb.append(var).append(".accept(this");
+              if (argu)
+                sb.append(", ").append(genArguVar);
+              sb.append(");");
+              oneNewLine(n, "4_1_RegularExpression");
+              if (depthLevel)
+                DepthFirstVisitorsGenerator.decreaseDepthLevel(sb, spc);
+            }
             // $1 [ ?0 "." ?1 < IDENTIFIER > ]
             opt = (NodeOptional) seq1.elementAt(1);
             if (opt.present()) {
@@ -58,12 +58,17 @@ import static EDU.purdue.jtb.visitor.GlobalDataBuilder.DONT_CREATE;
 import static EDU.purdue.jtb.visitor.GlobalDataBuilder.JC_IND;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
+import EDU.purdue.jtb.misc.IncrementalReparserGenerator;
 import EDU.purdue.jtb.misc.Messages;
 import EDU.purdue.jtb.misc.Spacing;
 import EDU.purdue.jtb.misc.VarInfo;
+import EDU.purdue.jtb.parser.Options;
 import EDU.purdue.jtb.syntaxtree.BNFProduction;
 import EDU.purdue.jtb.syntaxtree.Block;
 import EDU.purdue.jtb.syntaxtree.BlockStatement;
@@ -91,7 +96,9 @@ import EDU.purdue.jtb.syntaxtree.NodeListOptional;
 import EDU.purdue.jtb.syntaxtree.NodeOptional;
 import EDU.purdue.jtb.syntaxtree.NodeSequence;
 import EDU.purdue.jtb.syntaxtree.NodeToken;
+import EDU.purdue.jtb.syntaxtree.PackageDeclaration;
 import EDU.purdue.jtb.syntaxtree.PrimitiveType;
+import EDU.purdue.jtb.syntaxtree.Production;
 import EDU.purdue.jtb.syntaxtree.ReferenceType;
 import EDU.purdue.jtb.syntaxtree.RegularExprProduction;
 import EDU.purdue.jtb.syntaxtree.RegularExpression;
@@ -146,6 +153,12 @@ import EDU.purdue.jtb.syntaxtree.WhileStatement;
  * @version 1.4.9 : 01/2015 : MMa : fixed regression in {@link #bnfFinalActions(VarInfo)}
  * @version 1.4.11 : 03/2016 : MMa : fixed column numbers in warnings, and conditions for warning
  *          "Empty choice : a NodeChoice with a 'null' choice member ..."
+ * @version 1.4.13 : 10/2026 : agent : trimToSize() call on the array based lists (-al option) ;<br>
+ *          shared images of the constant tokens (-ct option) ; images strategies (-is option) ;<br>
+ *          streamed productions (-sp option) ; parser Token class extending NodeToken (-tf option),
+ *          without redeclaring its fields ;<br>
+ *          incremental reparser in the parser class (-ir option), rejecting the changed special
+ *          tokens of the following token, and reparsing only the void productions
  */
 public class Annotator extends JavaCCPrinter {
 
@@ -198,6 +211,18 @@ public class Annotator extends JavaCCPrinter {
    * production under an ExpansionChoices
    */
   final ExpansionChoicesLineNumber lnftfv             = new ExpansionChoicesLineNumber();
+  /** The parser name */
+  String                           parserName         = null;
+  /** The parser package name ("" if none) */
+  String                           parserPackage      = "";
+  /** The names of the productions handed to the streaming consumer (-sp option) */
+  final Set<String>                streamedProds      = new HashSet<String>();
+  /** True if the streaming consumer declarations have been generated, false otherwise */
+  boolean                          consumerDeclared   = false;
+  /** The names of the productions the incremental reparser can parse alone (-ir option) */
+  final List<String>               reparsedProds      = new ArrayList<String>();
+  /** True if the incremental reparser declarations have been generated, false otherwise */
+  boolean                          reparserDeclared   = false;
 
   /**
    * Constructor which will allocate a default buffer and indentation.
@@ -209,6 +234,16 @@ public class Annotator extends JavaCCPrinter {
     jccpv = new JavaCCPrinter(aGdbv, sb, spc);
     cupv = new CompilationUnitPrinter(sb, spc);
     inEUT3 = false;
+    if (streamedProductions.length() > 0)
+      for (final String prod : streamedProductions.split(",")) {
+        final String ident = prod.trim();
+        final String ind = aGdbv.getProdHT().get(ident);
+        if (ind != null && ind.startsWith(BNF_IND) && !aGdbv.getNsnHT().containsKey(ident))
+          streamedProds.add(ident);
+        else
+          Messages.warning("Streamed production '" + ident +
+                           "()' is not a (standard) BNFProduction of the grammar ; ignored.");
+      }
   }
 
   /*
@@ -325,7 +360,10 @@ public class Annotator extends JavaCCPrinter {
     oneNewLine(n);
     sb.append(spc.spc);
     // f0 -> JavaCCOptions() : don't want to annotate under
+    final int optBeg = sb.length();
     n.f0.accept(jccpv);
+    if (tokenFactory)
+      addTokenFactoryOptions(optBeg);
     twoNewLines(n);
     sb.append(spc.spc);
     // f1 -> "PARSER_BEGIN"
@@ -334,6 +372,9 @@ public class Annotator extends JavaCCPrinter {
     n.f2.accept(this);
     // f3 -> IdentifierAsString()
     n.f3.accept(this);
+    parserName = n.f3.f0.tokenImage;
+    if (incrementalReparse)
+      findReparsedProds(n);
     // f4 -> ")"
     n.f4.accept(this);
     oneNewLine(n);
@@ -363,6 +404,60 @@ public class Annotator extends JavaCCPrinter {
     oneNewLine(n);
   }
 
+  /**
+   * Collects the names of the productions the incremental reparser can parse alone : the void
+   * BNFProductions with a node and without parameters (-ir option) ; the result of a non void one
+   * would be lost.
+   * 
+   * @param n - the JavaCCInput node
+   */
+  void findReparsedProds(final JavaCCInput n) {
+    if (Options.getStatic() || Options.getUserCharStream() || Options.getUserTokenManager()) {
+      Messages.softErr("The -ir option cannot be used with the STATIC, USER_CHAR_STREAM or " +
+                       "USER_TOKEN_MANAGER options.");
+      return;
+    }
+    for (final Iterator<INode> e = n.f10.elements(); e.hasNext();) {
+      final INode ch = ((Production) e.next()).f0.choice;
+      if (ch instanceof BNFProduction) {
+        final BNFProduction bnf = (BNFProduction) ch;
+        // f1 -> ResultType() : %0 "void" | %1 Type()
+        if (bnf.f1.f0.which == 0 && !bnf.f5.present() && !bnf.f3.f1.present())
+          reparsedProds.add(bnf.f2.f0.tokenImage);
+      }
+    }
+  }
+
+  /**
+   * @return the parser package name ("" if none), known once the grammar has been visited
+   */
+  public String getParserPackage() {
+    return parserPackage;
+  }
+
+  /**
+   * Adds to the printed options the JavaCC options making the parser Token class extend the
+   * NodeToken class and, without the special tokens in the tree, create its tokens through the
+   * JTBToolkit (-tf option).
+   * 
+   * @param aBeg - the position of the printed options in the buffer
+   */
+  void addTokenFactoryOptions(final int aBeg) {
+    if (Options.getTokenExtends().length() > 0 || Options.getTokenFactory().length() > 0) {
+      Messages.softErr("The -tf option cannot be used with the TOKEN_EXTENDS or TOKEN_FACTORY options.");
+      return;
+    }
+    final String nt = "".equals(nodesPackageName) ? nodeToken : nodesPackageName + "." + nodeToken;
+    final StringBuilder opts = new StringBuilder(128);
+    opts.append("  TOKEN_EXTENDS = \"").append(nt).append("\";").append(LS);
+    if (!keepSpecialTokens)
+      opts.append("  TOKEN_FACTORY = \"JTBToolkit\";").append(LS);
+    if (sb.length() == aBeg)
+      sb.append("options").append(LS).append('{').append(LS).append(opts).append('}');
+    else
+      sb.insert(sb.lastIndexOf("}"), opts);
+  }
+
   /**
    * Visits a {@link JavaCodeProduction} node, whose children are the following :
    * <p>
@@ -574,6 +669,12 @@ public class Annotator extends JavaCCPrinter {
         sb.append(spc.spc);
       }
     }
+    if (streamedProds.contains(curProduction)) {
+      // entering a streamed production node (decremented in the RHS finally block)
+      oneNewLine(n, "d1");
+      sb.append(spc.spc);
+      sb.append(jtbStreamDepthVar).append("++;");
+    }
     // f7 -> Block() (user variables declarations)
     if (n.f7.f1.present()) {
       // print block declarations only if non empty
@@ -702,6 +803,14 @@ public class Annotator extends JavaCCPrinter {
     oneNewLine(n, "generateBnfRHS a");
     spc.updateSpc(+1);
     sb.append(spc.spc);
+    // a streamed production node leaves its nesting depth even if the RHS fails
+    final boolean streamed = streamedProds.contains(curProduction);
+    if (streamed) {
+      sb.append("try {");
+      oneNewLine(n, "generateBnfRHS a1");
+      spc.updateSpc(+1);
+      sb.append(spc.spc);
+    }
     // outerVars will be set further down the tree in finalActions
     // f9 -> ExpansionChoices()
     n.f9.accept(this);
@@ -715,6 +824,12 @@ public class Annotator extends JavaCCPrinter {
     }
     sb.append("); }");
     oneNewLine(n, "generateBnfRHS b");
+    if (streamed) {
+      spc.updateSpc(-1);
+      sb.append(spc.spc);
+      sb.append("} finally { ").append(jtbStreamDepthVar).append("--; }");
+      oneNewLine(n, "generateBnfRHS b1");
+    }
     spc.updateSpc(-1);
     sb.append(spc.spc);
     // f10 -> "}"
@@ -995,6 +1110,22 @@ public class Annotator extends JavaCCPrinter {
     return "{ ".concat(parentName).concat(".addNode(").concat(varName).concat("); }");
   }
 
+  /**
+   * Returns the java block for handing a streamed production node to the streaming consumer, or for
+   * adding it to its parent list if there is no consumer or if the list is nested in a streamed
+   * production node (whose subtree must stay complete).
+   * 
+   * @param parentName - the parent node
+   * @param varName - the node's variable name
+   * @return the java block
+   */
+  final static String streamNodeOrAddToParent(final String parentName, final String varName) {
+    return "{ if (".concat(jtbConsumerVar).concat(" != null && ").concat(jtbStreamDepthVar)
+                   .concat(" == 0) ").concat(jtbConsumerVar)
+                   .concat(".consume(").concat(varName).concat("); else ").concat(parentName)
+                   .concat(".addNode(").concat(varName).concat("); }");
+  }
+
   /**
    * Visits a {@link LocalLookahead} node, whose children are the following :
    * <p>
@@ -1470,7 +1601,10 @@ public class Annotator extends JavaCCPrinter {
           // in an ExpansionChoices choice or without an Expansion or ExpansionUnit Lookahead
           genExpChInExpUnit(ec);
         }
-        sb.append(addNodeToParent(name, parentVar.getName()));
+        if (ch.which != 2 && streamedProds.contains(parentVar.getType()))
+          sb.append(streamNodeOrAddToParent(name, parentVar.getName()));
+        else
+          sb.append(addNodeToParent(name, parentVar.getName()));
         bnfFinalActions(varInfo);
       }
       oneNewLine(n, "genParenExpCh 6");
@@ -1489,7 +1623,7 @@ public class Annotator extends JavaCCPrinter {
         //          .append(eutc.getNumNormals()).append("); }");
         //        oneNewLine(n);
         sb.append(spc.spc);
-        sb.append("{ ").append(name).append(".nodes.trimToSize(); }");
+        sb.append("{ ").append(name).append(arrayLists ? ".trimToSize(); }" : ".nodes.trimToSize(); }");
         oneNewLine(n, "genParenExpCh 8");
       }
     }
@@ -2636,6 +2770,15 @@ public class Annotator extends JavaCCPrinter {
     public void visit(final CompilationUnit n) {
       // f0 -> [ PackageDeclaration() ]
       if (n.f0.present()) {
+        final StringBuilder pkg = new StringBuilder(64);
+        ((PackageDeclaration) n.f0.node).f1.accept(new DepthFirstVoidVisitor() {
+
+          @Override
+          public void visit(final NodeToken t) {
+            pkg.append(t.tokenImage);
+          }
+        });
+        parserPackage = pkg.toString();
         n.f0.node.accept(this);
         twoNewLines(n);
       }
@@ -2652,12 +2795,18 @@ public class Annotator extends JavaCCPrinter {
         }
       }
       // builds specials into tree
-      if (!keepSpecialTokens) {
+      if (tokenFactory) {
+        genTokenFactoryToolkit();
+        oneNewLine(n);
+      } else if (!keepSpecialTokens) {
         sb.append(LS);
         sb.append("class JTBToolkit {").append(LS);
         sb.append(LS);
+        if (sharedImages())
+          genTokenImageMethod();
         sb.append("  static NodeToken makeNodeToken(final Token t) {").append(LS);
-        sb.append("    return new NodeToken(t.image.intern(), t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn);")
+        sb.append("    return new NodeToken(").append(sharedImages() ? "image(t)" : "t.image.intern()")
+          .append(", t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn);")
           .append(LS);
         sb.append("  }").append(LS);
         sb.append("}");
@@ -2666,8 +2815,12 @@ public class Annotator extends JavaCCPrinter {
         sb.append(LS);
         sb.append("class JTBToolkit {").append(LS);
         sb.append(LS);
+        if (sharedImages())
+          genTokenImageMethod();
         sb.append("  static NodeToken makeNodeToken(final Token tok) {").append(LS);
-        sb.append("    final NodeToken node = new NodeToken(tok.image.intern(), tok.kind, tok.beginLine, tok.beginColumn, tok.endLine, tok.endColumn);")
+        sb.append("    final NodeToken node = new NodeToken(")
+          .append(sharedImages() ? "image(tok)" : "tok.image.intern()")
+          .append(", tok.kind, tok.beginLine, tok.beginColumn, tok.endLine, tok.endColumn);")
           .append(LS);
         sb.append("    if (tok.specialToken == null)").append(LS);
         sb.append("      return node;").append(LS);
@@ -2682,7 +2835,8 @@ public class Annotator extends JavaCCPrinter {
         sb.append("    t = tok;").append(LS);
         sb.append("    while (t.specialToken != null) {").append(LS);
         sb.append("      t = t.specialToken;").append(LS);
-        sb.append("      temp.add(new NodeToken(t.image.intern(), t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn));")
+        sb.append("      temp.add(new NodeToken(").append(sharedImages() ? "image(t)" : "t.image.intern()")
+          .append(", t.kind, t.beginLine, t.beginColumn, t.endLine, t.endColumn));")
           .append(LS);
         sb.append("    }").append(LS);
         sb.append("    for (int i = nbt - 1; i >= 0; --i)").append(LS);
@@ -2695,6 +2849,142 @@ public class Annotator extends JavaCCPrinter {
       }
     }
 
+    /**
+     * Generates the JTBToolkit when the parser Token class extends the NodeToken class (-tf
+     * option) : the tokens created by the token manager are returned as the tree nodes, after
+     * setting their node image (and packing their positions with -ct), and, without -tk, the
+     * discarded special tokens are recycled (through a bounded per thread pool) by the token factory
+     * method, which creates all the tokens, the ones read by the lookahead included.
+     */
+    void genTokenFactoryToolkit() {
+      final String img = sharedImages() ? "image(t)" : "t.image.intern()";
+      // the token keeps only the shared image ; the kind and positions are already in the NodeToken
+      // fields, except with -ct
+      final String fill = compactTokens ? ".fill(t.image = " + img + ", t.kind, t.beginLine, " +
+                                          "t.beginColumn, t.endLine, t.endColumn);"
+                                       : ".tokenImage = t.image = " + img + ";";
+      sb.append(LS);
+      sb.append("class JTBToolkit {").append(LS);
+      sb.append(LS);
+      if (sharedImages())
+        genTokenImageMethod();
+      if (!keepSpecialTokens) {
+        sb.append("  /** The per thread pool size */").append(LS);
+        sb.append("  static final int POOL_SIZE = 256;").append(LS).append(LS);
+        sb.append("  /** A per thread pool of recycled special tokens */").append(LS);
+        sb.append("  static final class TokenPool {").append(LS).append(LS);
+        sb.append("    /** The recycled tokens */").append(LS);
+        sb.append("    final Token[] tokens = new Token[POOL_SIZE];").append(LS).append(LS);
+        sb.append("    /** The number of recycled tokens */").append(LS);
+        sb.append("    int size;").append(LS);
+        sb.append("  }").append(LS).append(LS);
+        sb.append("  /** The per thread pools */").append(LS);
+        sb.append("  static final ThreadLocal<TokenPool> POOL = new ThreadLocal<TokenPool>() {")
+          .append(LS).append(LS);
+        sb.append("    @Override").append(LS);
+        sb.append("    protected TokenPool initialValue() {").append(LS);
+        sb.append("      return new TokenPool();").append(LS);
+        sb.append("    }").append(LS);
+        sb.append("  };").append(LS).append(LS);
+        sb.append("  static Token newToken(final int kind, final String image) {").append(LS);
+        sb.append("    final TokenPool p = POOL.get();").append(LS);
+        sb.append("    if (p.size == 0)").append(LS);
+        sb.append("      return Token.newToken(kind, image);").append(LS);
+        sb.append("    final Token t = p.tokens[--p.size];").append(LS);
+        sb.append("    p.tokens[p.size] = null;").append(LS);
+        sb.append("    t.kind = kind;").append(LS);
+        sb.append("    t.image = image;").append(LS);
+        sb.append("    t.next = null;").append(LS);
+        sb.append("    t.specialToken = null;").append(LS);
+        sb.append("    return t;").append(LS);
+        sb.append("  }").append(LS).append(LS);
+        sb.append("  static NodeToken makeNodeToken(final Token t) {").append(LS);
+        sb.append("    t").append(fill).append(LS);
+        sb.append("    if (t.specialToken != null) {").append(LS);
+        sb.append("      final TokenPool p = POOL.get();").append(LS);
+        sb.append("      Token st = t.specialToken;").append(LS);
+        sb.append("      t.specialToken = null;").append(LS);
+        sb.append("      while (st != null && p.size < POOL_SIZE) {").append(LS);
+        sb.append("        final Token prev = st.specialToken;").append(LS);
+        sb.append("        p.tokens[p.size++] = st;").append(LS);
+        sb.append("        st = prev;").append(LS);
+        sb.append("      }").append(LS);
+        sb.append("    }").append(LS);
+        sb.append("    return t;").append(LS);
+        sb.append("  }").append(LS);
+      } else {
+        sb.append("  static NodeToken makeNodeToken(final Token tok) {").append(LS);
+        sb.append("    tok").append(fill.replace("t.", "tok.").replace("(t)", "(tok)")).append(LS);
+        sb.append("    if (tok.specialToken == null)").append(LS);
+        sb.append("      return tok;").append(LS);
+        sb.append("    Token t = tok.specialToken;").append(LS);
+        sb.append("    while (t.specialToken != null)").append(LS);
+        sb.append("      t = t.specialToken;").append(LS);
+        sb.append("    for (;; t = t.next) {").append(LS);
+        sb.append("      t").append(fill).append(LS);
+        sb.append("      tok.addSpecial(t);").append(LS);
+        sb.append("      if (t == tok.specialToken)").append(LS);
+        sb.append("        break;").append(LS);
+        sb.append("    }").append(LS);
+        sb.append("    return tok;").append(LS);
+        sb.append("  }").append(LS);
+      }
+      sb.append("}");
+    }
+
+    /**
+     * @return true if the JTBToolkit shares the tokens images through the constant images table (-ct
+     *         option, or -is option other than intern), false if it interns all of them
+     */
+    boolean sharedImages() {
+      return compactTokens || "const".equals(imagesStrategy) || "cache".equals(imagesStrategy);
+    }
+
+    /**
+     * Generates the JTBToolkit method returning the image of a token to store in its node (-ct and
+     * -is options).<br>
+     * The images of the constant tokens are shared with the token manager string literals table
+     * (indexed by kind) ; as the actual image may differ from the constant one (IGNORE_CASE), it is
+     * checked before being shared.<br>
+     * The other images are interned ("intern" strategy), kept as is ("const" strategy), or shared
+     * through a bounded per thread cache ("cache" strategy) : no global lock and no unbounded
+     * table, so the parsing throughput scales with the threads.
+     */
+    void genTokenImageMethod() {
+      final boolean cache = "cache".equals(imagesStrategy);
+      if (cache) {
+        sb.append("  /** The per thread images cache size (a power of 2) */").append(LS);
+        sb.append("  static final int CACHE_SIZE = 1024;").append(LS).append(LS);
+        sb.append("  /** The per thread images cache (direct mapped on the image hash code) */")
+          .append(LS);
+        sb.append("  static final ThreadLocal<String[]> CACHE = new ThreadLocal<String[]>() {")
+          .append(LS).append(LS);
+        sb.append("    @Override").append(LS);
+        sb.append("    protected String[] initialValue() {").append(LS);
+        sb.append("      return new String[CACHE_SIZE];").append(LS);
+        sb.append("    }").append(LS);
+        sb.append("  };").append(LS).append(LS);
+      }
+      sb.append("  static String image(final Token t) {").append(LS);
+      sb.append("    final String img = ").append(parserName)
+        .append("TokenManager.jjstrLiteralImages[t.kind];").append(LS);
+      sb.append("    if (img != null && img.equals(t.image))").append(LS);
+      sb.append("      return img;").append(LS);
+      if (cache) {
+        sb.append("    final String[] cache = CACHE.get();").append(LS);
+        sb.append("    final int i = t.image.hashCode() & (CACHE_SIZE - 1);").append(LS);
+        sb.append("    final String c = cache[i];").append(LS);
+        sb.append("    if (t.image.equals(c))").append(LS);
+        sb.append("      return c;").append(LS);
+        sb.append("    cache[i] = t.image;").append(LS);
+        sb.append("    return t.image;").append(LS);
+      } else if ("const".equals(imagesStrategy))
+        sb.append("    return t.image;").append(LS);
+      else
+        sb.append("    return t.image.intern();").append(LS);
+      sb.append("  }").append(LS).append(LS);
+    }
+
     /**
      * Visits the {@link ImportDeclaration}<br>
      * f0 -> "import"<br>
@@ -2799,6 +3089,16 @@ public class Annotator extends JavaCCPrinter {
         gdbv.getRetVarDecl().clear();
         spc.updateSpc(-1);
       }
+      // add the streaming consumer declarations
+      if (!streamedProds.isEmpty() && !consumerDeclared) {
+        genConsumerDecl(n);
+        consumerDeclared = true;
+      }
+      // add the incremental reparser declarations
+      if (!reparsedProds.isEmpty() && !reparserDeclared) {
+        genReparserDecl(n);
+        reparserDeclared = true;
+      }
       // f1 -> ( ClassOrInterfaceBodyDeclaration() )*
       if (n.f1.present()) {
         spc.updateSpc(+1);
@@ -2823,6 +3123,143 @@ public class Annotator extends JavaCCPrinter {
       oneNewLine(n, "e");
     }
 
+    /**
+     * Generates the streaming consumer interface and variable declarations in the parser class
+     * (-sp option).
+     * 
+     * @param n - the node for the node class comment
+     */
+    void genConsumerDecl(final ClassOrInterfaceBody n) {
+      spc.updateSpc(+1);
+      twoNewLines(n);
+      sb.append(spc.spc);
+      sb.append("/* --- JTB generated streaming consumer declarations --- */");
+      twoNewLines(n);
+      sb.append(spc.spc);
+      sb.append("/** Consumer of the streamed productions nodes (");
+      boolean first = true;
+      for (final String prod : new TreeSet<String>(streamedProds)) {
+        sb.append(first ? "" : ", ").append(prod).append("()");
+        first = false;
+      }
+      sb.append(") */");
+      oneNewLine(n, "f");
+      sb.append(spc.spc);
+      sb.append("public interface ").append(jtbConsumerType).append(" {");
+      oneNewLine(n, "g");
+      spc.updateSpc(+1);
+      sb.append(spc.spc);
+      sb.append("/** Called as soon as a streamed node is built (it is then not stored in the tree) */");
+      oneNewLine(n, "h");
+      sb.append(spc.spc);
+      sb.append("void consume(").append(iNode).append(" node);");
+      oneNewLine(n, "i");
+      spc.updateSpc(-1);
+      sb.append(spc.spc);
+      sb.append("}");
+      twoNewLines(n);
+      sb.append(spc.spc);
+      sb.append("/** The streamed nodes consumer ; if null, the streamed nodes are stored in the tree */");
+      oneNewLine(n, "j");
+      sb.append(spc.spc);
+      sb.append("public ").append(staticFlag ? "static " : "").append(jtbConsumerType).append(' ')
+        .append(jtbConsumerVar).append(" = null;");
+      twoNewLines(n);
+      sb.append(spc.spc);
+      sb.append("/** The nesting depth of the streamed productions nodes being built ")
+        .append("(only the outermost ones are streamed) */");
+      oneNewLine(n, "k");
+      sb.append(spc.spc);
+      sb.append(staticFlag ? "static " : "").append("int ").append(jtbStreamDepthVar).append(" = 0;");
+      spc.updateSpc(-1);
+    }
+
+    /**
+     * Generates the incremental reparser class in the parser class (-ir option) : it parses alone the
+     * productions without parameters, through a new parser instance reading the given text from the
+     * given position.
+     * 
+     * @param n - the node for the node class comment
+     */
+    void genReparserDecl(final ClassOrInterfaceBody n) {
+      final String csn = Options.getJavaUnicodeEscape() ? "JavaCharStream"
+                                                        : Options.getBufferCharStream() ? "BufferCharStream"
+                                                                                        : "SimpleCharStream";
+      final String irn = "".equals(visitorsPackageName) ? IncrementalReparserGenerator.reparserName
+                                                        : visitorsPackageName + "." +
+                                                          IncrementalReparserGenerator.reparserName;
+      final List<String> lines = new ArrayList<String>();
+      lines.add("/** The incremental reparser of the trees built by this parser (see " + irn + ") */");
+      lines.add("public static class " + jtbReparserType + " extends " + irn + " {");
+      lines.add("");
+      lines.add("  /** {@inheritDoc} */");
+      lines.add("  @Override");
+      lines.add("  protected " + iNode + " parse(final " + iNode +
+                " aNode, final String aText, final int aLine, final int aColumn,");
+      lines.add("                        final " + nodeToken + " aFollow) {");
+      lines.add("    final " + csn + " cs = new " + csn +
+                "(new java.io.StringReader(aText), aLine, aColumn);");
+      lines.add("    cs.setTabSize(tabSize);");
+      lines.add("    final " + parserName + " p = new " + parserName + "(new " + parserName +
+                "TokenManager(cs));");
+      lines.add("    try {");
+      lines.add("      final " + iNode + " node;");
+      boolean first = true;
+      for (final String prod : reparsedProds) {
+        final String name = getFixedName(prod);
+        lines.add("      " + (first ? "" : "else ") + "if (aNode instanceof " + name + ")");
+        lines.add("        node = p." + name + "();");
+        first = false;
+      }
+      lines.add("      else");
+      lines.add("        return null;");
+      lines.add("      final Token t = p.getToken(1);");
+      lines.add("      if (aFollow == null ? t.kind != EOF : t.kind != aFollow.kind ||");
+      lines.add("                                           !t.image.equals(aFollow.tokenImage) ||");
+      if (keepSpecialTokens)
+        lines.add("                                           !sameSpecials(t, aFollow) ||");
+      lines.add("                                           p.getToken(2).kind != EOF)");
+      lines.add("        return null;");
+      lines.add("      return node;");
+      lines.add("    }");
+      lines.add("    catch (final Exception e) {");
+      lines.add("      return null;");
+      lines.add("    }");
+      lines.add("    catch (final TokenMgrError e) {");
+      lines.add("      return null;");
+      lines.add("    }");
+      lines.add("  }");
+      if (keepSpecialTokens) {
+        lines.add("");
+        lines.add("  /**");
+        lines.add("   * @param aToken - the token read after the production");
+        lines.add("   * @param aFollow - the old token following the production");
+        lines.add("   * @return true if both tokens have the same special tokens, false otherwise");
+        lines.add("   */");
+        lines.add("  private static boolean sameSpecials(final Token aToken, final " + nodeToken +
+                  " aFollow) {");
+        lines.add("    int i = aFollow.numSpecials();");
+        lines.add("    for (Token s = aToken.specialToken; s != null; s = s.specialToken)");
+        lines.add("      if (--i < 0 || !s.image.equals(aFollow.getSpecialAt(i).tokenImage))");
+        lines.add("        return false;");
+        lines.add("    return i == 0;");
+        lines.add("  }");
+      }
+      lines.add("}");
+      spc.updateSpc(+1);
+      twoNewLines(n);
+      sb.append(spc.spc);
+      sb.append("/* --- JTB generated incremental reparser --- */");
+      twoNewLines(n);
+      for (int i = 0; i < lines.size(); i++) {
+        if (lines.get(i).length() > 0)
+          sb.append(spc.spc).append(lines.get(i));
+        if (i < lines.size() - 1 || !n.f1.present())
+          oneNewLine(n, "k");
+      }
+      spc.updateSpc(-1);
+    }
+
     /**
      * Visits a {@link IdentifierAsString} node, whose children are the following :
      * <p>
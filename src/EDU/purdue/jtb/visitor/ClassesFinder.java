@@ -83,6 +83,7 @@ import EDU.purdue.jtb.syntaxtree.TokenManagerDecls;
  *          reference to the {@link GlobalDataBuilder}
  * @version 1.4.8 : 10/2012 : MMa : added {@link JavaCodeProduction} class generation ; changed
  *          {@link BNFProduction} class generation to unless not requested
+ * @version 1.4.13 : 10/2026 : agent : set the classes node kinds (-sd option)
  */
 public class ClassesFinder extends DepthFirstVoidVisitor {
 
@@ -171,6 +172,7 @@ public class ClassesFinder extends DepthFirstVoidVisitor {
       gen.reset();
       // f6 -> [ "%" ]
       ci = new ClassInfo(null, n.f3.f0.tokenImage, gdbv);
+      ci.nodeKind = ClassInfo.NB_BASE_NODE_KINDS + ciList.size();
       ciList.add(ci);
     }
   }
@@ -200,6 +202,7 @@ public class ClassesFinder extends DepthFirstVoidVisitor {
     if (!n.f5.present()) {
       gen.reset();
       ci = new ClassInfo(n.f9, n.f2.f0.tokenImage, gdbv);
+      ci.nodeKind = ClassInfo.NB_BASE_NODE_KINDS + ciList.size();
       ciList.add(ci);
       // f9 -> ExpansionChoices()
       n.f9.accept(this);
@@ -58,6 +58,7 @@ import EDU.purdue.jtb.syntaxtree.Type;
  *          TokenTableBuilder.
  * @version 1.4.8 : 10/2012 : MMa : added JavaCodeProduction class generation if requested ;
  *          modified error checking and messages
+ * @version 1.4.13 : 10/2026 : agent : fixed constant regular expressions made of several units
  */
 public class GlobalDataBuilder extends DepthFirstVoidVisitor {
 
@@ -517,8 +518,11 @@ public class GlobalDataBuilder extends DepthFirstVoidVisitor {
    */
   @Override
   public void visit(final ComplexRegularExpression n) {
-    // no difference with super class
-    n.f0.accept(this);
+    if (n.f0.size() > 1)
+      // a sequence of units isn't a constant regexpr
+      regExpr = "";
+    else
+      n.f0.accept(this);
   }
 
   /**
@@ -60,15 +60,13 @@ import static EDU.purdue.jtb.misc.Globals.noOverwrite;
 import static EDU.purdue.jtb.visitor.GlobalDataBuilder.BNF_IND;
 import static EDU.purdue.jtb.visitor.GlobalDataBuilder.JC_IND;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Iterator;
 import java.util.regex.Pattern;
 
 import EDU.purdue.jtb.misc.FileExistsException;
+import EDU.purdue.jtb.misc.GeneratedFilesManifest;
 import EDU.purdue.jtb.misc.JavaBranchPrinter;
 import EDU.purdue.jtb.misc.Messages;
 import EDU.purdue.jtb.misc.Spacing;
@@ -198,10 +196,7 @@ public class JavaCCPrinter extends DepthFirstVoidVisitor {
       if (noOverwrite && file.exists()) {
         throw new FileExistsException(outFile);
       } else {
-        final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file),
-                                                                   sb.length()));
-        out.print(sb);
-        out.close();
+        GeneratedFilesManifest.writeFile(file, sb, sb.length());
       }
     }
     catch (final IOException e) {
@@ -223,7 +218,9 @@ public class JavaCCPrinter extends DepthFirstVoidVisitor {
   public void visit(final NodeToken n) {
     //    sb.append(keepSpecialTokens ? n.withSpecials(spc.spc) : n.tokenImage);
     final String str = keepSpecialTokens && !withoutSpecials ? n.withSpecials(spc.spc, gvaStr)
-                                                             : n.tokenImage;
+                                                             : gvaStr == null ? n.tokenImage
+                                                                             : gvaStr +
+                                                                               n.tokenImage;
     sb.append(str);
     gvaStr = null;
   }
@@ -1514,7 +1511,9 @@ public class JavaCCPrinter extends DepthFirstVoidVisitor {
   @Override
   public void visit(final StringLiteral n) {
     final String str = keepSpecialTokens && !withoutSpecials ? n.f0.withSpecials(spc.spc, gvaStr)
-                                                             : n.f0.tokenImage;
+                                                             : gvaStr == null ? n.f0.tokenImage
+                                                                             : gvaStr +
+                                                                               n.f0.tokenImage;
     sb.append(UnicodeConverter.addUnicodeEscapes(str));
     gvaStr = null;
   }
@@ -0,0 +1,178 @@
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the flat tree (-fl option) : traces the object tree and the flat tree in preorder
+ * in the same format.
+ */
+public class FlDriver {
+
+  /**
+   * @param root - the root node
+   * @return the preorder trace of the object tree
+   */
+  public static String objectTrace(final INode root) {
+    final StringBuilder sb = new StringBuilder();
+    root.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final NodeChoice n) {
+        sb.append("Choice").append(n.which).append('(');
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final NodeListOptional n) {
+        sb.append("List").append(n.size()).append('(');
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final NodeOptional n) {
+        sb.append("Opt(");
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final NodeSequence n) {
+        sb.append("Seq").append(n.size()).append('(');
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final NodeToken n) {
+        sb.append(n.kind).append(':').append(n.tokenImage).append('@').append(n.beginLine)
+          .append(',').append(n.beginColumn).append('-').append(n.endLine).append(',')
+          .append(n.endColumn).append(' ');
+      }
+
+      @Override
+      public void visit(final Input n) {
+        sb.append("Input(");
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final Stmt n) {
+        sb.append("Stmt(");
+        // NodeChoice.accept() visits the choice, not the choice node
+        visit(n.f0);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final Block n) {
+        sb.append("Block(");
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final Expr n) {
+        sb.append("Expr(");
+        super.visit(n);
+        sb.append(") ");
+      }
+
+      @Override
+      public void visit(final Term n) {
+        sb.append("Term(");
+        // NodeChoice.accept() visits the choice, not the choice node
+        visit(n.f0);
+        sb.append(") ");
+      }
+    });
+    return sb.toString();
+  }
+
+  /**
+   * @param root - the root node
+   * @return the preorder trace of the flat tree built from the root node
+   */
+  public static String flatTrace(final INode root) {
+    final StringBuilder sb = new StringBuilder();
+    final FlatTree t = FlatTreeBuilder.build(root);
+    trace(t, 0, sb);
+    return t.ends[0] == t.size ? sb.toString() : "size " + t.size + " != end " + t.ends[0];
+  }
+
+  /**
+   * Builds two flat trees with the same builder, reset between them.
+   * 
+   * @param r1 - the first root node
+   * @param r2 - the second root node
+   * @return the preorder trace of the second flat tree
+   */
+  public static String reusedBuilderTrace(final INode r1, final INode r2) {
+    final FlatTreeBuilder b = new FlatTreeBuilder();
+    r1.accept(b);
+    b.getFlatTree();
+    b.reset();
+    r2.accept(b);
+    final StringBuilder sb = new StringBuilder();
+    trace(b.getFlatTree(), 0, sb);
+    return sb.toString();
+  }
+
+  /**
+   * @param root - the root node
+   * @return the number of statements, the number of terms of the first expression statement, and
+   *         the index of the <EOF> token, read through the cursors
+   */
+  public static int[] cursors(final INode root) {
+    final FlatTree t = FlatTreeBuilder.build(root);
+    final int stmts = FlatTree.InputCursor.f0(t, 0);
+    // the first statement : Stmt -> Choice -> Seq (ID EQ Expr SEMI)
+    final int seq = t.firstChild(t.firstChild(t.firstChild(stmts)));
+    final int expr = t.child(seq, 2);
+    final int terms = 1 + t.nbChildren(FlatTree.ExprCursor.f1(t, expr));
+    return new int[] { t.nbChildren(stmts), terms, t.token(FlatTree.InputCursor.f1(t, 0)) };
+  }
+
+  /**
+   * Appends the trace of a flat tree node.
+   * 
+   * @param t - the flat tree
+   * @param i - the node index
+   * @param sb - the buffer
+   */
+  static void trace(final FlatTree t, final int i, final StringBuilder sb) {
+    final int k = t.kinds[i];
+    if (k == FlatTree.NODE_TOKEN) {
+      final int tk = t.token(i);
+      sb.append(t.tokenKinds[tk]).append(':').append(t.images[tk]).append('@')
+        .append(t.beginLines[tk]).append(',').append(t.beginColumns[tk]).append('-')
+        .append(t.endLines[tk]).append(',').append(t.endColumns[tk]).append(' ');
+      return;
+    }
+    if (k == FlatTree.NODE_CHOICE)
+      sb.append("Choice").append(t.which(i));
+    else if (k == FlatTree.NODE_LIST_OPTIONAL)
+      sb.append("List").append(t.nbChildren(i));
+    else if (k == FlatTree.NODE_OPTIONAL)
+      sb.append("Opt");
+    else if (k == FlatTree.NODE_SEQUENCE)
+      sb.append("Seq").append(t.nbChildren(i));
+    else if (k == FlatTree.InputCursor.KIND)
+      sb.append("Input");
+    else if (k == FlatTree.StmtCursor.KIND)
+      sb.append("Stmt");
+    else if (k == FlatTree.BlockCursor.KIND)
+      sb.append("Block");
+    else if (k == FlatTree.ExprCursor.KIND)
+      sb.append("Expr");
+    else if (k == FlatTree.TermCursor.KIND)
+      sb.append("Term");
+    else
+      sb.append("?").append(k);
+    sb.append('(');
+    for (int c = t.firstChild(i); c != -1 && c < t.ends[i]; c = t.ends[c])
+      trace(t, c, sb);
+    sb.append(") ");
+  }
+}
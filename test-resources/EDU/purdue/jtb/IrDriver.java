@@ -0,0 +1,40 @@
+import java.io.StringReader;
+
+import syntaxtree.*;
+
+/**
+ * Test driver of the incremental reparser (-ir option) : parses a whole text or reparses an edit.
+ */
+public class IrDriver {
+
+  /**
+   * @param text - a text
+   * @return the tree of the text, or null if it does not parse
+   */
+  public static INode full(final String text) {
+    try {
+      final StmtParser p = new StmtParser(new StringReader(text));
+      final INode n = p.Input();
+      return p.getToken(1).kind == StmtParserConstants.EOF ? n : null;
+    }
+    catch (final Exception e) {
+      return null;
+    }
+    catch (final Error e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param tree - the tree of the old text
+   * @param oldText - the old text
+   * @param offset - the edit offset
+   * @param removed - the number of removed chars
+   * @param inserted - the inserted text
+   * @return the tree of the new text, or null if it does not parse
+   */
+  public static INode reparse(final INode tree, final String oldText, final int offset,
+                              final int removed, final String inserted) {
+    return new StmtParser.JTBReparser().reparse(tree, oldText, offset, removed, inserted);
+  }
+}
@@ -0,0 +1,66 @@
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the iterative visitor (-iv option) : lists the tokens in the visit order.
+ */
+public class IvDriver {
+
+  /**
+   * @param root - the root node
+   * @return the tokens images in the {@link DepthFirstVoidVisitor} order
+   */
+  public static String recursive(final INode root) {
+    final StringBuilder sb = new StringBuilder();
+    root.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final NodeToken n) {
+        sb.append(n.tokenImage).append(' ');
+      }
+    });
+    return sb.toString();
+  }
+
+  /**
+   * @param root - the root node
+   * @param skipBlocks - true to skip the Block subtrees
+   * @return the tokens images in the {@link IterativeDepthFirstVoidVisitor} order
+   */
+  public static String iterative(final INode root, final boolean skipBlocks) {
+    final StringBuilder sb = new StringBuilder();
+    new IterativeDepthFirstVoidVisitor() {
+
+      @Override
+      public boolean enter(final INode n) {
+        if (n instanceof NodeToken)
+          sb.append(((NodeToken) n).tokenImage).append(' ');
+        return !(skipBlocks && n instanceof Block);
+      }
+    }.traverse(root);
+    return sb.toString();
+  }
+
+  /**
+   * @param root - the root node
+   * @return the numbers of entered and exited nodes and the maximum depth
+   */
+  public static int[] counts(final INode root) {
+    final int[] c = new int[3];
+    new IterativeDepthFirstVoidVisitor() {
+
+      @Override
+      public boolean enter(final INode n) {
+        c[0]++;
+        c[2] = Math.max(c[2], depth);
+        return true;
+      }
+
+      @Override
+      public void exit(final INode n) {
+        c[1]++;
+      }
+    }.traverse(root);
+    return c;
+  }
+}
@@ -0,0 +1,48 @@
+import java.io.File;
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the parse cache (-pc option) : creates caches counting the parser runs.
+ */
+public class PcDriver {
+
+  /** The number of parser runs */
+  static final AtomicInteger PARSES = new AtomicInteger();
+
+  /**
+   * @param dir - the cache directory
+   * @param maxBytes - the cache maximum size
+   * @return a new cache on the directory, parsing with the StmtParser
+   */
+  public static ParseCache cache(final File dir, final long maxBytes) {
+    return new ParseCache(dir, maxBytes, new ParseCache.Parser() {
+
+      @Override
+      public INode parse(final Reader aReader) throws Exception {
+        PARSES.incrementAndGet();
+        return new StmtParser(aReader).Input();
+      }
+    });
+  }
+
+  /**
+   * @param cache - a cache
+   * @param text - a source text
+   * @return the tree of the source
+   * @throws Exception - if the parser fails
+   */
+  public static INode parse(final ParseCache cache, final String text) throws Exception {
+    return cache.parse(text);
+  }
+
+  /**
+   * @return the number of parser runs
+   */
+  public static int parses() {
+    return PARSES.get();
+  }
+}
@@ -0,0 +1,172 @@
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the parallel visitors (-pv option).
+ */
+public class PvDriver {
+
+  /** The threshold forcing the parallel visit of the lists of more than 2 elements */
+  private static final int THRESHOLD = 2;
+
+  /**
+   * A token counting visitor with a non thread safe state, forked for each task.
+   */
+  static class CountingVisitor extends ParallelDepthFirstVoidVisitor {
+
+    /** The number of visited tokens */
+    int tokens;
+    /** The number of merged forked visitors */
+    int joins;
+
+    /**
+     * Constructor.
+     */
+    CountingVisitor() {
+      super(defaultPool(), THRESHOLD);
+    }
+
+    @Override
+    public void visit(final NodeToken n) {
+      tokens++;
+    }
+
+    @Override
+    protected ParallelDepthFirstVoidVisitor forkVisitor() {
+      return new CountingVisitor();
+    }
+
+    @Override
+    protected void joinVisitor(final ParallelDepthFirstVoidVisitor aVis) {
+      tokens += ((CountingVisitor) aVis).tokens;
+      joins++;
+    }
+  }
+
+  /**
+   * @param root - the root node
+   * @return the numbers of tokens counted by the sequential visitor and by the parallel one, and
+   *         the number of merged forked visitors
+   */
+  public static int[] counts(final INode root) {
+    final int[] seq = new int[1];
+    root.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final NodeToken n) {
+        seq[0]++;
+      }
+    });
+    final CountingVisitor pv = new CountingVisitor();
+    root.accept(pv);
+    return new int[] { seq[0], pv.tokens, pv.joins };
+  }
+
+  /**
+   * @param root - the root node
+   * @return the number of tokens counted in a (thread safe) argument shared by the tasks
+   */
+  public static int arguCount(final INode root) {
+    final AtomicInteger nb = new AtomicInteger();
+    root.accept(new ParallelDepthFirstVoidArguVisitor<AtomicInteger>(ParallelDepthFirstVoidVisitor.defaultPool(),
+                                                                     THRESHOLD) {
+
+      @Override
+      public void visit(final NodeToken n, final AtomicInteger argu) {
+        argu.incrementAndGet();
+      }
+    }, nb);
+    return nb.get();
+  }
+
+  /**
+   * @param root - the root node
+   * @return the statements images merged by the parallel visitor
+   */
+  public static String stmts(final Input root) {
+    return root.f0.accept(new ParallelDepthFirstRetVisitor<String>(ParallelDepthFirstVoidVisitor.defaultPool(),
+                                                                   THRESHOLD) {
+
+      @Override
+      public String visit(final Stmt n) {
+        return image(n);
+      }
+
+      @Override
+      protected String merge(final String aLeft, final String aRight) {
+        return aLeft == null ? aRight : aRight == null ? aLeft : aLeft + aRight;
+      }
+    });
+  }
+
+  /**
+   * @param root - the root node
+   * @return the statements images in the sequential order
+   */
+  public static String seqStmts(final Input root) {
+    final StringBuilder sb = new StringBuilder();
+    for (final INode s : root.f0.nodes)
+      sb.append(image(s));
+    return sb.toString();
+  }
+
+  /**
+   * Runs a parallel visitor with its own pool from a task of another pool.
+   *
+   * @param root - the root node
+   * @return true if the statements have all been visited by the visitor pool, false otherwise
+   */
+  public static boolean ownPool(final Input root) {
+    final ForkJoinPool own = new ForkJoinPool(2);
+    final ForkJoinPool other = new ForkJoinPool(2);
+    final Set<ForkJoinPool> pools = new HashSet<ForkJoinPool>();
+    try {
+      other.invoke(new RecursiveTask<Boolean>() {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Boolean compute() {
+          root.f0.accept(new ParallelDepthFirstVoidVisitor(own, THRESHOLD) {
+
+            @Override
+            public void visit(final Stmt n) {
+              synchronized (pools) {
+                pools.add(ForkJoinTask.getPool());
+              }
+            }
+          });
+          return Boolean.TRUE;
+        }
+      });
+    }
+    finally {
+      own.shutdown();
+      other.shutdown();
+    }
+    return pools.size() == 1 && pools.contains(own);
+  }
+
+  /**
+   * @param n - a node
+   * @return the node tokens images, each followed by a space
+   */
+  static String image(final INode n) {
+    final StringBuilder sb = new StringBuilder();
+    n.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final NodeToken t) {
+        sb.append(t.tokenImage).append(' ');
+      }
+    });
+    return sb.toString();
+  }
+}
@@ -0,0 +1,212 @@
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the switch dispatch visitor (-sd option) : traces the visited productions and
+ * tokens.
+ */
+public class SdDriver {
+
+  /**
+   * @param root - the root node
+   * @return the trace of the {@link DepthFirstVoidVisitor}
+   */
+  public static String depthFirst(final INode root) {
+    final StringBuilder sb = new StringBuilder();
+    root.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final Stmt n) {
+        sb.append("Stmt ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Block n) {
+        sb.append("Block ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Expr n) {
+        sb.append("Expr ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Term n) {
+        sb.append("Term ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final NodeToken n) {
+        sb.append(n.tokenImage).append(' ');
+      }
+    });
+    return sb.toString();
+  }
+
+  /**
+   * @param root - the root node (dispatched through its kind)
+   * @return the trace of the {@link SwitchDispatchVisitor}
+   */
+  public static String switchDispatch(final INode root) {
+    final StringBuilder sb = new StringBuilder();
+    new SwitchDispatchVisitor() {
+
+      @Override
+      public void visit(final Stmt n) {
+        sb.append("Stmt ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Block n) {
+        sb.append("Block ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Expr n) {
+        sb.append("Expr ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Term n) {
+        sb.append("Term ");
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final NodeToken n) {
+        sb.append(n.tokenImage).append(' ');
+      }
+    }.dispatch(root);
+    return sb.toString();
+  }
+
+  /**
+   * @param root - the root node
+   * @return the statements list of the root node
+   */
+  public static INode stmts(final Input root) {
+    return root.f0;
+  }
+
+  /**
+   * @param n - a node
+   * @return a node not generated by JTB wrapping the given one
+   */
+  public static INode foreign(final INode n) {
+    return new Foreign(n);
+  }
+
+  /**
+   * @param root - the root node
+   * @return the number of nodes whose kind is not their class one
+   */
+  public static int wrongKinds(final INode root) {
+    final int[] nb = new int[1];
+    root.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final NodeListOptional n) {
+        nb[0] += n.nodeKind() == NodeListOptional.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final NodeSequence n) {
+        nb[0] += n.nodeKind() == NodeSequence.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final NodeChoice n) {
+        nb[0] += n.nodeKind() == NodeChoice.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Input n) {
+        nb[0] += n.nodeKind() == Input.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Stmt n) {
+        nb[0] += n.nodeKind() == Stmt.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Block n) {
+        nb[0] += n.nodeKind() == Block.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Expr n) {
+        nb[0] += n.nodeKind() == Expr.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final Term n) {
+        nb[0] += n.nodeKind() == Term.NODE_KIND ? 0 : 1;
+        super.visit(n);
+      }
+
+      @Override
+      public void visit(final NodeToken n) {
+        nb[0] += n.nodeKind() == NodeToken.NODE_KIND ? 0 : 1;
+      }
+    });
+    return nb[0];
+  }
+
+  /**
+   * A node not generated by JTB, delegating to a generated one.
+   */
+  static class Foreign implements INode {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The delegate node */
+    final INode node;
+
+    /**
+     * @param n - the delegate node
+     */
+    Foreign(final INode n) {
+      node = n;
+    }
+
+    @Override
+    public <R, A> R accept(final IRetArguVisitor<R, A> vis, final A argu) {
+      return node.accept(vis, argu);
+    }
+
+    @Override
+    public <R> R accept(final IRetVisitor<R> vis) {
+      return node.accept(vis);
+    }
+
+    @Override
+    public <A> void accept(final IVoidArguVisitor<A> vis, final A argu) {
+      node.accept(vis, argu);
+    }
+
+    @Override
+    public void accept(final IVoidVisitor vis) {
+      node.accept(vis);
+    }
+
+    @Override
+    public int nodeKind() {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the streamed productions (-sp option) : lists the streamed nodes.
+ */
+public class SpDriver {
+
+  /**
+   * @param text - the text to parse
+   * @return the tokens images of the streamed nodes, followed by the ones of the tree
+   * @throws ParseException - if the text cannot be parsed
+   */
+  public static List<String> stream(final String text) throws ParseException {
+    final List<String> res = new ArrayList<String>();
+    final StmtParser parser = new StmtParser(new StringReader(text));
+    parser.jtbConsumer = new StmtParser.JTBNodeConsumer() {
+
+      @Override
+      public void consume(final INode node) {
+        res.add(image(node));
+      }
+    };
+    res.add(image(parser.Input()));
+    return res;
+  }
+
+  /**
+   * @param n - a node
+   * @return the node tokens images, separated by spaces
+   */
+  static String image(final INode n) {
+    final StringBuilder sb = new StringBuilder();
+    n.accept(new DepthFirstVoidVisitor() {
+
+      @Override
+      public void visit(final NodeToken t) {
+        sb.append(sb.length() == 0 ? "" : " ").append(t.tokenImage);
+      }
+    });
+    return sb.toString();
+  }
+}
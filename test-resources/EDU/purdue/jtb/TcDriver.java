@@ -0,0 +1,50 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import syntaxtree.*;
+import visitor.*;
+
+/**
+ * Test driver of the tree codec (-tc option) : writes and reads trees in byte arrays.
+ */
+public class TcDriver {
+
+  /**
+   * @param n - a node
+   * @return the node written by the codec
+   * @throws IOException - if the node cannot be written
+   */
+  public static byte[] write(final INode n) throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream(bos);
+    new TreeCodec().write(n, dos);
+    dos.flush();
+    return bos.toByteArray();
+  }
+
+  /**
+   * @param b - a node written by the codec
+   * @return the node read by the codec
+   * @throws IOException - if the node cannot be read
+   */
+  public static INode read(final byte[] b) throws IOException {
+    return new TreeCodec().read(new DataInputStream(new ByteArrayInputStream(b)));
+  }
+
+  /**
+   * @param n - a node
+   * @return the node written by the java serialization
+   * @throws IOException - if the node cannot be written
+   */
+  public static byte[] serialize(final INode n) throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    final ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(n);
+    oos.close();
+    return bos.toByteArray();
+  }
+}
@@ -0,0 +1,578 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import EDU.purdue.jtb.misc.JTBContext;
+
+/**
+ * Test support : a test grammar processed by JTB in a work directory (under target/test-gen), the
+ * annotated grammar processed by JavaCC, and the generated parser, nodes and visitors compiled
+ * (together with some driver classes) and loaded in a class loader.<br>
+ * The test grammars and drivers are resources of the test-resources/EDU/purdue/jtb directory.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class GeneratedGrammar {
+
+  /** The resources path */
+  private static final String RES_PATH = "/EDU/purdue/jtb/";
+  /** The charset of the grammars and generated files */
+  private static final Charset CHARSET = Charset.forName("ISO-8859-1");
+  /** A text of the stmt.jtb grammar, with nested blocks and special tokens */
+  public static final String  STMT_TEXT = "# first\n" + "a = 1 + (b + 2);\n" +
+                                          "{ print a; # in block\n" + "  { x = y + 3; } }\n" +
+                                          "print (a + (b + (c + 4)));\n";
+  /** The work directory */
+  private final File          dir;
+  /** The compiled classes directory */
+  private final File          classesDir;
+  /** The class loader of the compiled classes (null if not compiled) */
+  private ClassLoader         loader;
+
+  /**
+   * Creates an empty work directory.
+   * 
+   * @param aName - the work directory name
+   * @throws IOException - if the directory cannot be cleaned
+   */
+  public GeneratedGrammar(final String aName) throws IOException {
+    dir = new File("target/test-gen", aName).getAbsoluteFile();
+    delete(dir);
+    if (!dir.mkdirs())
+      throw new IOException("Cannot create " + dir);
+    classesDir = new File(dir, "classes");
+  }
+
+  /**
+   * Creates a work directory, runs JTB and JavaCC on a grammar, and compiles the generated files.
+   * 
+   * @param aName - the work directory name
+   * @param aGrammar - the grammar resource name
+   * @param aOptions - the JTB command line options
+   * @return the work directory
+   * @throws Exception - if a step fails
+   */
+  public static GeneratedGrammar build(final String aName, final String aGrammar,
+                                       final String... aOptions) throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy(aGrammar);
+    gg.jtb(aGrammar, aOptions);
+    gg.javacc();
+    gg.compile();
+    return gg;
+  }
+
+  /**
+   * @return the work directory
+   */
+  public File getDir() {
+    return dir;
+  }
+
+  /**
+   * @param aPath - a path relative to the work directory
+   * @return the file
+   */
+  public File file(final String aPath) {
+    return new File(dir, aPath);
+  }
+
+  /**
+   * Copies a test resource in the work directory.
+   * 
+   * @param aRes - the resource name (relative to the resources path)
+   * @return the copied file
+   * @throws IOException - if the resource cannot be copied
+   */
+  public File copy(final String aRes) throws IOException {
+    final File f = new File(dir, new File(aRes).getName());
+    final InputStream is = GeneratedGrammar.class.getResourceAsStream(RES_PATH + aRes);
+    if (is == null)
+      throw new IOException("No resource " + aRes);
+    try {
+      final OutputStream os = new FileOutputStream(f);
+      try {
+        final byte[] buf = new byte[8192];
+        int n;
+        while ((n = is.read(buf)) > 0)
+          os.write(buf, 0, n);
+      }
+      finally {
+        os.close();
+      }
+    }
+    finally {
+      is.close();
+    }
+    return f;
+  }
+
+  /**
+   * @param aPath - a path relative to the work directory
+   * @return the file content
+   * @throws IOException - if the file cannot be read
+   */
+  public String read(final String aPath) throws IOException {
+    return new String(Files.readAllBytes(file(aPath).toPath()), CHARSET);
+  }
+
+  /**
+   * Reads all the files of the work directory (except the compiled classes).
+   * 
+   * @return the files contents, by path relative to the work directory
+   * @throws IOException - if a file cannot be read
+   */
+  public Map<String, String> readAll() throws IOException {
+    final Map<String, String> m = new TreeMap<String, String>();
+    readAll(dir, "", m);
+    return m;
+  }
+
+  /**
+   * Reads recursively the files of a directory.
+   * 
+   * @param aDir - the directory
+   * @param aPrefix - the directory path relative to the work directory
+   * @param aMap - the map to add into
+   * @throws IOException - if a file cannot be read
+   */
+  private void readAll(final File aDir, final String aPrefix, final Map<String, String> aMap)
+                                                                                             throws IOException {
+    for (final File f : aDir.listFiles())
+      if (f.isDirectory()) {
+        if (!f.equals(classesDir))
+          readAll(f, aPrefix + f.getName() + "/", aMap);
+      } else
+        aMap.put(aPrefix + f.getName(), read(aPrefix + f.getName()));
+  }
+
+  /**
+   * Writes a file in the work directory.
+   * 
+   * @param aPath - a path relative to the work directory
+   * @param aText - the file content
+   * @throws IOException - if the file cannot be written
+   */
+  public void write(final String aPath, final String aText) throws IOException {
+    final File f = file(aPath);
+    f.getParentFile().mkdirs();
+    Files.write(f.toPath(), aText.getBytes(CHARSET));
+  }
+
+  /**
+   * Runs JTB through a new {@link JTBEngine} on a grammar of the work directory, and checks it
+   * succeeds.
+   * 
+   * @param aGrammar - the grammar file name
+   * @param aOptions - the JTB command line options
+   * @return the engine context, holding the run results
+   */
+  public JTBContext jtb(final String aGrammar, final String... aOptions) {
+    final String[] args = Arrays.copyOf(aOptions, aOptions.length + 1);
+    args[aOptions.length] = file(aGrammar).getPath();
+    final JTBEngine engine = new JTBEngine();
+    assertEquals("JTB return code", 0, engine.run(args));
+    return engine.getContext();
+  }
+
+  /**
+   * Runs JavaCC on the annotated grammar of the work directory (jtb.out.jj), generating the parser
+   * in the work directory, and checks it succeeds.
+   * 
+   * @throws Exception - if JavaCC fails unexpectedly
+   */
+  public void javacc() throws Exception {
+    final int rc = org.javacc.parser.Main.mainProgram(new String[] {
+        "-OUTPUT_DIRECTORY=" + dir.getPath(), file("jtb.out.jj").getPath() });
+    assertEquals("JavaCC return code", 0, rc);
+  }
+
+  /**
+   * Compiles all the java files of the work directory and loads them in a new class loader.
+   * 
+   * @throws IOException - if the files cannot be listed or the loader created
+   */
+  public void compile() throws IOException {
+    final List<File> srcs = new ArrayList<File>();
+    listJavaFiles(dir, srcs);
+    classesDir.mkdirs();
+    final JavaCompiler jc = ToolProvider.getSystemJavaCompiler();
+    final DiagnosticCollector<JavaFileObject> dc = new DiagnosticCollector<JavaFileObject>();
+    final StandardJavaFileManager fm = jc.getStandardFileManager(dc, Locale.ROOT, CHARSET);
+    try {
+      final List<String> opts = Arrays.asList("-d", classesDir.getPath(), "-nowarn",
+                                              "-Xlint:none", "-proc:none");
+      if (!jc.getTask(null, fm, dc, opts, null, fm.getJavaFileObjectsFromFiles(srcs)).call()) {
+        final StringBuilder sb = new StringBuilder("Compilation failed in ").append(dir);
+        for (final Diagnostic<? extends JavaFileObject> d : dc.getDiagnostics())
+          if (d.getKind() == Diagnostic.Kind.ERROR)
+            sb.append('\n').append(d.toString());
+        fail(sb.toString());
+      }
+    }
+    finally {
+      fm.close();
+    }
+    loader = new URLClassLoader(new URL[] { classesDir.toURI().toURL() },
+                                GeneratedGrammar.class.getClassLoader());
+  }
+
+  /**
+   * @param aName - a compiled class name
+   * @return the class
+   * @throws ClassNotFoundException - if the class is not found
+   */
+  public Class<?> load(final String aName) throws ClassNotFoundException {
+    return Class.forName(aName, true, loader);
+  }
+
+  /**
+   * Calls a public static method of a compiled class (the first one with the given name and number
+   * of arguments).
+   * 
+   * @param aClass - the class name
+   * @param aMethod - the method name
+   * @param aArgs - the arguments
+   * @return the method result
+   * @throws Exception - the exception thrown by the method, or if it cannot be called
+   */
+  public Object call(final String aClass, final String aMethod, final Object... aArgs)
+                                                                                       throws Exception {
+    for (final Method m : load(aClass).getMethods())
+      if (m.getName().equals(aMethod) && m.getParameterTypes().length == aArgs.length &&
+          Modifier.isStatic(m.getModifiers()))
+        return invoke(m, null, aArgs);
+    throw new NoSuchMethodException(aClass + "." + aMethod);
+  }
+
+  /**
+   * Parses a text with a production of a generated (non static) parser.
+   * 
+   * @param aParser - the parser class name
+   * @param aProd - the production name
+   * @param aText - the text to parse
+   * @return the production node
+   * @throws Exception - the exception thrown by the parser, or if it cannot be called
+   */
+  public Object parse(final String aParser, final String aProd, final String aText)
+                                                                                   throws Exception {
+    final Object p = load(aParser).getConstructor(java.io.Reader.class)
+                                  .newInstance(new StringReader(aText));
+    return invoke(p.getClass().getMethod(aProd), p);
+  }
+
+  /**
+   * Prints a tree with the generated TreeDumper (-printer option).
+   * 
+   * @param aNode - a tree node
+   * @return the printed text
+   * @throws Exception - if the dumper cannot be called
+   */
+  public String print(final Object aNode) throws Exception {
+    final String vp = aNode.getClass().getPackage().getName().replace("syntaxtree", "visitor");
+    final StringWriter sw = new StringWriter();
+    final Object td = load(vp + ".TreeDumper").getConstructor(java.io.Writer.class).newInstance(sw);
+    accept(aNode, td);
+    td.getClass().getMethod("flushWriter").invoke(td);
+    return sw.toString();
+  }
+
+  /**
+   * Calls the accept method of a node for a visitor without argument and return value.
+   * 
+   * @param aNode - a tree node
+   * @param aVisitor - the visitor
+   * @throws Exception - the exception thrown by the visit, or if it cannot be called
+   */
+  public static void accept(final Object aNode, final Object aVisitor) throws Exception {
+    for (final Method m : aNode.getClass().getMethods())
+      if (m.getName().equals("accept") && m.getParameterTypes().length == 1 &&
+          m.getParameterTypes()[0].isInstance(aVisitor)) {
+        invoke(m, aNode, aVisitor);
+        return;
+      }
+    throw new NoSuchMethodException(aNode.getClass().getName() + ".accept");
+  }
+
+  /**
+   * Invokes a method and unwraps the exception it throws.
+   * 
+   * @param aMethod - the method
+   * @param aObj - the object (null for a static method)
+   * @param aArgs - the arguments
+   * @return the method result
+   * @throws Exception - the exception thrown by the method, or if it cannot be called
+   */
+  private static Object invoke(final Method aMethod, final Object aObj, final Object... aArgs)
+                                                                                            throws Exception {
+    try {
+      return aMethod.invoke(aObj, aArgs);
+    }
+    catch (final InvocationTargetException e) {
+      if (e.getCause() instanceof Exception)
+        throw (Exception) e.getCause();
+      if (e.getCause() instanceof Error)
+        throw (Error) e.getCause();
+      throw e;
+    }
+  }
+
+  /**
+   * Dumps a generated tree structure : the nodes classes, the choices indexes, and the tokens kinds,
+   * images, positions and special tokens (whatever the options the tree was generated with).
+   * 
+   * @param aNode - a tree node
+   * @return the dump
+   * @throws Exception - if the nodes cannot be inspected
+   */
+  public static String dump(final Object aNode) throws Exception {
+    final StringBuilder sb = new StringBuilder(1024);
+    dump(aNode, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Dumps a generated tree structure.
+   * 
+   * @param aNode - a tree node
+   * @param aSb - the buffer to dump into
+   * @throws Exception - if the nodes cannot be inspected
+   */
+  private static void dump(final Object aNode, final StringBuilder aSb) throws Exception {
+    if (aNode == null) {
+      aSb.append("null");
+      return;
+    }
+    final Class<?> c = aNode.getClass();
+    final String cn = c.getSimpleName();
+    if (isToken(c)) {
+      aSb.append('<').append(value(aNode, "kind")).append(':').append(value(aNode, "tokenImage"))
+         .append('@').append(value(aNode, "beginLine")).append(',')
+         .append(value(aNode, "beginColumn")).append('-').append(value(aNode, "endLine"))
+         .append(',').append(value(aNode, "endColumn"));
+      final int ns = ((Integer) c.getMethod("numSpecials").invoke(aNode)).intValue();
+      for (int i = 0; i < ns; i++) {
+        aSb.append(' ');
+        dump(c.getMethod("getSpecialAt", int.class).invoke(aNode, Integer.valueOf(i)), aSb);
+      }
+      aSb.append('>');
+      return;
+    }
+    aSb.append(cn).append('(');
+    if (cn.equals("NodeChoice")) {
+      aSb.append(value(aNode, "which")).append(' ');
+      dump(value(aNode, "choice"), aSb);
+    } else if (cn.equals("NodeOptional")) {
+      dump(value(aNode, "node"), aSb);
+    } else if (cn.equals("NodeList") || cn.equals("NodeListOptional") ||
+               cn.equals("NodeSequence")) {
+      final int n = ((Integer) c.getMethod("size").invoke(aNode)).intValue();
+      for (int i = 0; i < n; i++) {
+        if (i > 0)
+          aSb.append(' ');
+        dump(c.getMethod("elementAt", int.class).invoke(aNode, Integer.valueOf(i)), aSb);
+      }
+    } else {
+      boolean first = true;
+      for (final Field f : c.getFields()) {
+        if (Modifier.isStatic(f.getModifiers()) || f.getName().equals("parent") ||
+            !isNode(f.getType()))
+          continue;
+        if (!first)
+          aSb.append(' ');
+        first = false;
+        dump(f.get(aNode), aSb);
+      }
+    }
+    aSb.append(')');
+  }
+
+  /**
+   * Collects the tokens of a generated tree (without the special tokens), in the text order.
+   * 
+   * @param aNode - a tree node
+   * @param aList - the list to add the tokens nodes into
+   * @throws Exception - if the nodes cannot be inspected
+   */
+  public static void collectTokens(final Object aNode, final List<Object> aList) throws Exception {
+    if (aNode == null)
+      return;
+    final Class<?> c = aNode.getClass();
+    final String cn = c.getSimpleName();
+    if (isToken(c)) {
+      aList.add(aNode);
+    } else if (cn.equals("NodeChoice")) {
+      collectTokens(value(aNode, "choice"), aList);
+    } else if (cn.equals("NodeOptional")) {
+      collectTokens(value(aNode, "node"), aList);
+    } else if (cn.equals("NodeList") || cn.equals("NodeListOptional") ||
+               cn.equals("NodeSequence")) {
+      final int n = ((Integer) c.getMethod("size").invoke(aNode)).intValue();
+      for (int i = 0; i < n; i++)
+        collectTokens(c.getMethod("elementAt", int.class).invoke(aNode, Integer.valueOf(i)), aList);
+    } else {
+      for (final Field f : c.getFields())
+        if (!Modifier.isStatic(f.getModifiers()) && !f.getName().equals("parent") &&
+            isNode(f.getType()))
+          collectTokens(f.get(aNode), aList);
+    }
+  }
+
+  /**
+   * @param aClass - a class
+   * @return true if the class is a generated NodeToken (or a subclass)
+   */
+  private static boolean isToken(final Class<?> aClass) {
+    for (Class<?> c = aClass; c != null; c = c.getSuperclass())
+      if (c.getSimpleName().equals("NodeToken"))
+        return true;
+    return false;
+  }
+
+  /**
+   * @param aClass - a field type
+   * @return true if the type is a generated node type (implementing INode)
+   */
+  private static boolean isNode(final Class<?> aClass) {
+    if (aClass.getSimpleName().equals("INode"))
+      return true;
+    for (final Class<?> i : aClass.getInterfaces())
+      if (isNode(i))
+        return true;
+    return aClass.getSuperclass() != null && isNode(aClass.getSuperclass());
+  }
+
+  /**
+   * Gets a member value, through the public field or its getter.
+   * 
+   * @param aObj - an object
+   * @param aName - the member name
+   * @return the member value
+   * @throws Exception - if the member cannot be read
+   */
+  public static Object value(final Object aObj, final String aName) throws Exception {
+    try {
+      return aObj.getClass().getField(aName).get(aObj);
+    }
+    catch (final NoSuchFieldException e) {
+      return aObj.getClass()
+                 .getMethod("get" + Character.toUpperCase(aName.charAt(0)) + aName.substring(1))
+                 .invoke(aObj);
+    }
+  }
+
+  /**
+   * Lists recursively the java files of a directory.
+   * 
+   * @param aDir - the directory
+   * @param aList - the list to add into
+   */
+  private static void listJavaFiles(final File aDir, final List<File> aList) {
+    final File[] files = aDir.listFiles();
+    if (files == null)
+      return;
+    for (final File f : files)
+      if (f.isDirectory())
+        listJavaFiles(f, aList);
+      else if (f.getName().endsWith(".java"))
+        aList.add(f);
+  }
+
+  /**
+   * Deletes recursively a file or a directory.
+   * 
+   * @param aFile - the file or directory
+   * @throws IOException - if a file cannot be deleted
+   */
+  public static void delete(final File aFile) throws IOException {
+    final File[] files = aFile.listFiles();
+    if (files != null)
+      for (final File f : files)
+        delete(f);
+    if (aFile.exists() && !aFile.delete())
+      throw new IOException("Cannot delete " + aFile);
+  }
+}
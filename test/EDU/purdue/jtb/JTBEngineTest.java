@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import EDU.purdue.jtb.misc.JTBContext;
+
+/**
+ * Tests the runs of {@link JTBEngine}s in the same JVM.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class JTBEngineTest {
+
+  /** The options of the first grammar */
+  private static final String[] OPTS1 = {
+      "-jd", "-pp", "-printer" };
+  /** The options of the second grammar */
+  private static final String[] OPTS2 = {
+      "-f", "-ns", "EDU.purdue.jtb.NodeBase", "-scheme" };
+
+  /**
+   * A run of an engine does not see the command line options of its previous run.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void noOptionsLeakBetweenRuns() throws Exception {
+    final GeneratedGrammar ref = new GeneratedGrammar("engine-ref");
+    ref.copy("stmt.jtb");
+    ref.jtb("stmt.jtb");
+    final GeneratedGrammar g = new GeneratedGrammar("engine-reuse");
+    g.copy("stmt.jtb");
+    final JTBEngine engine = new JTBEngine();
+    assertEquals(0, engine.run(args(g, OPTS1)));
+    final Map<String, String> withOpts = g.readAll();
+    assertFalse(withOpts.equals(ref.readAll()));
+    for (final String f : withOpts.keySet())
+      GeneratedGrammar.delete(g.file(f));
+    g.copy("stmt.jtb");
+    assertEquals(0, engine.run(args(g)));
+    assertEquals(ref.readAll(), g.readAll());
+  }
+
+  /**
+   * The options of an engine context are the defaults of its runs, and the results are saved in it.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void contextOptionsAndResults() throws Exception {
+    final GeneratedGrammar ref = new GeneratedGrammar("engine-opts-ref");
+    ref.copy("stmt.jtb");
+    ref.jtb("stmt.jtb", "-jd");
+    final GeneratedGrammar g = new GeneratedGrammar("engine-opts");
+    g.copy("stmt.jtb");
+    final JTBContext ctx = new JTBContext();
+    ctx.javaDocComments = true;
+    final JTBEngine engine = new JTBEngine(ctx);
+    assertEquals(0, engine.run(args(g)));
+    assertEquals(ref.readAll(), g.readAll());
+    assertEquals(0, ctx.errorCount());
+    assertEquals(0, ctx.returnCode());
+    assertEquals(JTB.CL_EX, engine.run(args(g, "-unknownOption")));
+    assertEquals(JTB.CL_EX, ctx.returnCode());
+  }
+
+  /**
+   * Several engines called at the same time from several threads generate the same files as when run
+   * one after the other.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void concurrentRunsGenerateTheSameFiles() throws Exception {
+    final GeneratedGrammar ref1 = new GeneratedGrammar("engine-seq1");
+    ref1.copy("stmt.jtb");
+    ref1.jtb("stmt.jtb", OPTS1);
+    final GeneratedGrammar ref2 = new GeneratedGrammar("engine-seq2");
+    ref2.copy("stmt.jtb");
+    ref2.jtb("stmt.jtb", OPTS2);
+    final Map<String, String> files1 = ref1.readAll();
+    final Map<String, String> files2 = ref2.readAll();
+    assertFalse(files1.equals(files2));
+    final ExecutorService es = Executors.newFixedThreadPool(4);
+    try {
+      for (int round = 0; round < 3; round++) {
+        final GeneratedGrammar[] gs = new GeneratedGrammar[4];
+        @SuppressWarnings("unchecked")
+        final Future<Integer>[] fs = new Future[gs.length];
+        for (int i = 0; i < gs.length; i++) {
+          gs[i] = new GeneratedGrammar("engine-conc" + i);
+          gs[i].copy("stmt.jtb");
+          final String[] args = args(gs[i], i % 2 == 0 ? OPTS1 : OPTS2);
+          fs[i] = es.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+              return Integer.valueOf(new JTBEngine().run(args));
+            }
+          });
+        }
+        for (int i = 0; i < gs.length; i++) {
+          assertEquals(0, fs[i].get().intValue());
+          assertEquals(i % 2 == 0 ? files1 : files2, gs[i].readAll());
+        }
+      }
+    }
+    finally {
+      es.shutdown();
+    }
+  }
+
+  /**
+   * The messages of a run are printed on the context streams, and the next runs of other engines
+   * print on the standard streams again.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void messagesOnContextStreams() throws Exception {
+    final GeneratedGrammar g = new GeneratedGrammar("engine-streams");
+    g.copy("stmt.jtb");
+    final JTBContext ctx = new JTBContext();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    ctx.out = new PrintStream(out, true);
+    ctx.err = new PrintStream(err, true);
+    final JTBEngine engine = new JTBEngine(ctx);
+    assertEquals(0, engine.run(args(g, "-cl")));
+    assertTrue(err.toString().contains("jtb input file parsed successfully"));
+    assertTrue(out.toString().contains("class Stmt:"));
+    g.write("stmt.jtb", g.read("stmt.jtb").replace("void Block()", "void Block("));
+    assertEquals(JTB.PARSE_EX, engine.run(args(g)));
+    assertTrue(err.toString().contains("Encountered error(s) during parsing"));
+    final int len = err.size();
+    final GeneratedGrammar g2 = new GeneratedGrammar("engine-streams2");
+    g2.copy("stmt.jtb");
+    assertEquals(0, new JTBEngine().run(args(g2)));
+    assertEquals(len, err.size());
+  }
+
+  /**
+   * @param aGg - the work directory
+   * @param aOptions - the JTB command line options
+   * @return the command line arguments for the work directory grammar
+   */
+  private static String[] args(final GeneratedGrammar aGg, final String... aOptions) {
+    final String[] args = new String[aOptions.length + 1];
+    System.arraycopy(aOptions, 0, args, 0, aOptions.length);
+    args[aOptions.length] = aGg.file("stmt.jtb").getPath();
+    return args;
+  }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests the watch mode (-watch option) of {@link JTBWatcher}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created ; added the analysis cache and error code tests
+ */
+public class JTBWatcherTest {
+
+  /** The Block production */
+  private static final String BLOCK      = "void Block() : {} { <LB> ( Stmt() )* <RB> }";
+  /** The changed Block production */
+  private static final String NEW_BLOCK  = "void Block() : {} { <LB> ( Stmt() )+ <RB> }";
+  /** The parser class */
+  private static final String PARSER     = "public class StmtParser {\n}";
+  /** The changed parser class */
+  private static final String NEW_PARSER = "public class StmtParser {\n  int count;\n}";
+  /** The maximum time (in ms) to wait for a regeneration */
+  private static final long   TIMEOUT    = 30000;
+
+  /**
+   * The watch option is detected, but not as the value of another option.
+   */
+  @Test
+  public void watchModeDetection() {
+    assertTrue(JTBWatcher.isWatchMode(new String[] {
+        "-jd", "-watch", "a.jtb" }));
+    assertFalse(JTBWatcher.isWatchMode(new String[] {
+        "-jd", "a.jtb" }));
+    assertFalse(JTBWatcher.isWatchMode(new String[] {
+        "-o", "-watch", "a.jtb" }));
+  }
+
+  /**
+   * The watch mode needs a grammar file.
+   */
+  @Test
+  public void noGrammarIsAnError() {
+    assertEquals(JTB.CL_ERR, new JTBWatcher(new String[] {
+        "-watch", "-jd" }).watch());
+  }
+
+  /**
+   * A grammar is regenerated only when its content changes.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void regeneratesOnlyOnContentChange() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("watch-digest");
+    gg.copy("stmt.jtb");
+    final JTBWatcher w = new JTBWatcher(new String[] {
+        "-watch", "-jd", gg.file("stmt.jtb").getPath() });
+    final JTBWatcher.WatchedGrammar wg = w.new WatchedGrammar(gg.file("stmt.jtb").toPath());
+    wg.regenerateIfChanged();
+    final int written = wg.engine.getContext().writtenCount();
+    assertTrue(written > 0);
+    final String block = gg.read("syntaxtree/Block.java");
+    // same content (just touched) : not reprocessed, so the deleted file is not rewritten
+    assertTrue(gg.file("syntaxtree/Term.java").delete());
+    gg.write("stmt.jtb", gg.read("stmt.jtb"));
+    wg.regenerateIfChanged();
+    assertFalse(gg.file("syntaxtree/Term.java").exists());
+    // changed content : only the changed production node class and the visitors are regenerated
+    assertTrue(gg.file("visitor/DepthFirstVoidVisitor.java").delete());
+    gg.write("stmt.jtb", gg.read("stmt.jtb").replace(BLOCK, NEW_BLOCK));
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    assertFalse(block.equals(gg.read("syntaxtree/Block.java")));
+    assertFalse(gg.file("syntaxtree/Term.java").exists());
+    assertTrue(gg.file("visitor/DepthFirstVoidVisitor.java").exists());
+    assertTrue(wg.engine.getContext().writtenCount() < written);
+  }
+
+  /**
+   * A change in the parser class compilation unit reuses the analysis and regenerates only the jj
+   * file.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void parserCodeChangeReusesAnalysis() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("watch-parser-code");
+    gg.copy("stmt.jtb");
+    final JTBWatcher.WatchedGrammar wg = watched(gg, "-jd");
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    wg.engine.getContext().err = new PrintStream(err, true);
+    assertTrue(gg.file("syntaxtree/Block.java").delete());
+    assertTrue(gg.file("visitor/DepthFirstVoidVisitor.java").delete());
+    gg.write("stmt.jtb", gg.read("stmt.jtb").replace(PARSER, NEW_PARSER));
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    assertTrue(err.toString().contains("analysis reused"));
+    assertTrue(gg.read("jtb.out.jj").contains("int count;"));
+    assertFalse(gg.file("syntaxtree/Block.java").exists());
+    assertFalse(gg.file("visitor/DepthFirstVoidVisitor.java").exists());
+  }
+
+  /**
+   * The files regenerated from the cached analysis are the same as the ones of a full run.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void cachedRunEqualsFullRun() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("watch-cached");
+    gg.copy("stmt.jtb");
+    final JTBWatcher.WatchedGrammar wg = watched(gg, "-jd", "-pp");
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    gg.write("stmt.jtb", gg.read("stmt.jtb").replace(PARSER, NEW_PARSER));
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    gg.write("stmt.jtb", gg.read("stmt.jtb").replace(BLOCK, NEW_BLOCK));
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    final GeneratedGrammar full = new GeneratedGrammar("watch-full");
+    full.write("stmt.jtb", gg.read("stmt.jtb"));
+    full.jtb("stmt.jtb", "-jd", "-pp", "-inc");
+    assertEquals(withoutManifests(full.readAll()), withoutManifests(gg.readAll()));
+  }
+
+  /**
+   * A failed run invalidates the cache and its error code is returned.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void failedRunReturnsItsErrorCode() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("watch-error");
+    gg.copy("stmt.jtb");
+    final JTBWatcher.WatchedGrammar wg = watched(gg);
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+    final String good = gg.read("stmt.jtb");
+    wg.engine.getContext().err = new PrintStream(new ByteArrayOutputStream(), true);
+    gg.write("stmt.jtb", good.replace(BLOCK, "void Block() : {} { <LB> ( Stmt() )* <RB>"));
+    assertEquals(JTB.PARSE_EX, wg.regenerateIfChanged());
+    // unchanged content : the last error code
+    assertEquals(JTB.PARSE_EX, wg.regenerateIfChanged());
+    gg.write("stmt.jtb", good.replace(BLOCK, NEW_BLOCK));
+    assertEquals(JTB.OK, wg.regenerateIfChanged());
+  }
+
+  /**
+   * The watcher generates the grammar, regenerates it after a change, and stops when interrupted.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void watchesAndRegenerates() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("watch-loop");
+    gg.copy("stmt.jtb");
+    final JTBWatcher w = new JTBWatcher(new String[] {
+        "-watch", gg.file("stmt.jtb").getPath() });
+    final AtomicInteger rc = new AtomicInteger(Integer.MIN_VALUE);
+    final Thread t = new Thread() {
+
+      @Override
+      public void run() {
+        rc.set(w.watch());
+      }
+    };
+    t.start();
+    try {
+      final File block = gg.file("syntaxtree/Block.java");
+      waitFor(block, null, gg);
+      final String before = gg.read("syntaxtree/Block.java");
+      // let the watcher register before changing the grammar
+      Thread.sleep(JTBWatcher.SETTLE_DELAY * 2);
+      gg.write("stmt.jtb", gg.read("stmt.jtb").replace(BLOCK, NEW_BLOCK));
+      waitFor(block, before, gg);
+    }
+    finally {
+      t.interrupt();
+      t.join(TIMEOUT);
+    }
+    assertFalse(t.isAlive());
+    assertEquals(JTB.OK, rc.get());
+  }
+
+  /**
+   * Creates a watched grammar.
+   * 
+   * @param aGg - the work directory, holding the grammar
+   * @param aOptions - the JTB command line options
+   * @return the watched grammar
+   */
+  private static JTBWatcher.WatchedGrammar watched(final GeneratedGrammar aGg,
+                                                   final String... aOptions) {
+    final String[] args = Arrays.copyOf(aOptions, aOptions.length + 2);
+    args[aOptions.length] = JTBWatcher.WATCH_OPTION;
+    args[aOptions.length + 1] = aGg.file("stmt.jtb").getPath();
+    return new JTBWatcher(args).new WatchedGrammar(aGg.file("stmt.jtb").toPath());
+  }
+
+  /**
+   * Removes the manifests (which hold the files times) from the files contents.
+   * 
+   * @param aFiles - the files contents, by path
+   * @return the same map
+   */
+  private static Map<String, String> withoutManifests(final Map<String, String> aFiles) {
+    for (final Iterator<String> e = aFiles.keySet().iterator(); e.hasNext();)
+      if (e.next().endsWith(".jtb.manifest"))
+        e.remove();
+    return aFiles;
+  }
+
+  /**
+   * Waits until a generated file exists and its content differs from a given one.
+   * 
+   * @param aFile - the generated file
+   * @param aOld - the old content (null for none)
+   * @param aGg - the work directory
+   * @throws Exception - if the file is not (re)generated in time
+   */
+  private static void waitFor(final File aFile, final String aOld, final GeneratedGrammar aGg)
+                                                                                             throws Exception {
+    final long end = System.currentTimeMillis() + TIMEOUT;
+    for (;;) {
+      if (aFile.exists()) {
+        final String s = aGg.read("syntaxtree/" + aFile.getName());
+        if (s.length() > 0 && !s.equals(aOld))
+          return;
+      }
+      assertTrue(aFile + " not (re)generated", System.currentTimeMillis() < end);
+      Thread.sleep(50);
+    }
+  }
+}
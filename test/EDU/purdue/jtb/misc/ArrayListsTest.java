@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Array;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the array based NodeList and NodeListOptional (-al option) generated by {@link BaseClasses}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class ArrayListsTest {
+
+  /** The grammar generated with the default options */
+  private static GeneratedGrammar def;
+  /** The grammar generated with the -al option */
+  private static GeneratedGrammar al;
+
+  /**
+   * Generates and compiles the grammar with and without the option.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    def = GeneratedGrammar.build("al-default", "stmt.jtb", "-printer");
+    al = GeneratedGrammar.build("al", "stmt.jtb", "-printer", "-al");
+  }
+
+  /**
+   * The trees built with the array lists are the same as with the default lists.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameTree() throws Exception {
+    final Object t = def.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final Object ta = al.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    assertEquals(GeneratedGrammar.dump(t), GeneratedGrammar.dump(ta));
+  }
+
+  /**
+   * The depth first visitors visit the array lists nodes in the same order.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameVisit() throws Exception {
+    final Object t = def.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final Object ta = al.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    assertEquals(def.print(t), al.print(ta));
+  }
+
+  /**
+   * The arrays are trimmed to the lists sizes at the end of the productions.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void arraysTrimmed() throws Exception {
+    final Object ta = al.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final Object list = GeneratedGrammar.value(ta, "f0");
+    assertEquals("NodeListOptional", list.getClass().getSimpleName());
+    final Object nodes = GeneratedGrammar.value(list, "nodes");
+    assertTrue(nodes.getClass().isArray());
+    final int size = ((Integer) list.getClass().getMethod("size").invoke(list)).intValue();
+    assertEquals(3, size);
+    assertEquals(size, Array.getLength(nodes));
+  }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the compact NodeToken (-ct option) generated by {@link BaseClasses}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class CompactTokensTest {
+
+  /** The grammar generated with the default options */
+  private static GeneratedGrammar def;
+  /** The grammar generated with the -ct option */
+  private static GeneratedGrammar ct;
+
+  /**
+   * Generates and compiles the grammar with and without the option (keeping the special tokens).
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    def = GeneratedGrammar.build("ct-default", "stmt.jtb", "-tk", "-printer");
+    ct = GeneratedGrammar.build("ct", "stmt.jtb", "-tk", "-printer", "-ct");
+  }
+
+  /**
+   * The trees built with the compact tokens have the same positions and special tokens as with the
+   * default tokens, including the positions too large to be packed and the tokens with many
+   * special tokens.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameTree() throws Exception {
+    final StringBuilder sb = new StringBuilder(GeneratedGrammar.STMT_TEXT);
+    for (int i = 0; i < 10; i++)
+      sb.append("# comment ").append(i).append('\n');
+    for (int i = 0; i < 5000; i++)
+      sb.append(' ');
+    sb.append("print wide + 1;\n");
+    final String text = sb.toString();
+    final Object t = def.parse("StmtParser", "Input", text);
+    final Object tc = ct.parse("StmtParser", "Input", text);
+    assertEquals(GeneratedGrammar.dump(t), GeneratedGrammar.dump(tc));
+    assertEquals(def.print(t), ct.print(tc));
+    assertTrue(GeneratedGrammar.dump(tc).contains("# comment 9"));
+    assertTrue(GeneratedGrammar.dump(tc).contains("@16,5001-16,5005"));
+  }
+
+  /**
+   * The compact token has fewer instance fields, all of 4 bytes (with compressed references).
+   * 
+   * @throws Exception - if the classes cannot be loaded
+   */
+  @Test
+  public void fewerFields() throws Exception {
+    final List<Field> df = instanceFields(def.load("syntaxtree.NodeToken"));
+    final List<Field> cf = instanceFields(ct.load("syntaxtree.NodeToken"));
+    assertEquals(7, df.size());
+    assertEquals(5, cf.size());
+    for (final Field f : cf)
+      assertTrue(f.toString(), f.getType() == int.class || !f.getType().isPrimitive());
+  }
+
+  /**
+   * The positions set through the setters are read back, whether they fit in the packed int or not.
+   * 
+   * @throws Exception - if the token cannot be called
+   */
+  @Test
+  public void positionsSetters() throws Exception {
+    final Class<?> c = ct.load("syntaxtree.NodeToken");
+    final Constructor<?> k = c.getConstructor(String.class, int.class, int.class, int.class,
+                                              int.class, int.class);
+    final Object tk = k.newInstance("x", Integer.valueOf(1), Integer.valueOf(3),
+                                    Integer.valueOf(4), Integer.valueOf(3), Integer.valueOf(4));
+    assertPositions(tk, 3, 4, 3, 4);
+    set(tk, "EndLine", 1000);
+    assertPositions(tk, 3, 4, 1000, 4);
+    set(tk, "BeginColumn", 70000);
+    assertPositions(tk, 3, 70000, 1000, 4);
+    set(tk, "EndLine", 4);
+    set(tk, "BeginColumn", 1);
+    assertPositions(tk, 3, 1, 4, 4);
+    set(tk, "BeginLine", Integer.MAX_VALUE);
+    assertPositions(tk, Integer.MAX_VALUE, 1, 4, 4);
+    assertPositions(c.getConstructor(String.class).newInstance("y"), -1, -1, -1, -1);
+  }
+
+  /**
+   * The constant tokens images are shared with the token manager string literals table.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sharedImages() throws Exception {
+    final Object tc = ct.parse("StmtParser", "Input", "print 1;");
+    final Object stmt = GeneratedGrammar.value(GeneratedGrammar.value(tc, "f0"), "nodes");
+    final Object seq = GeneratedGrammar.value(((List<?>) stmt).get(0).getClass().getField("f0")
+                                                                  .get(((List<?>) stmt).get(0)),
+                                              "choice");
+    final Object print = seq.getClass().getMethod("elementAt", int.class)
+                            .invoke(seq, Integer.valueOf(0));
+    final String[] images = (String[]) ct.load("StmtParserTokenManager")
+                                         .getField("jjstrLiteralImages").get(null);
+    final int kind = ((Integer) GeneratedGrammar.value(print, "kind")).intValue();
+    assertEquals("print", images[kind]);
+    assertSame(images[kind], GeneratedGrammar.value(print, "tokenImage"));
+  }
+
+  /**
+   * @param aClass - a class
+   * @return the class instance fields (declared in the class)
+   */
+  private static List<Field> instanceFields(final Class<?> aClass) {
+    final List<Field> l = new java.util.ArrayList<Field>();
+    for (final Field f : aClass.getDeclaredFields())
+      if (!Modifier.isStatic(f.getModifiers()))
+        l.add(f);
+    return l;
+  }
+
+  /**
+   * Calls a position setter of a token.
+   * 
+   * @param aTk - the token
+   * @param aPos - the position name
+   * @param aVal - the value
+   * @throws Exception - if the setter cannot be called
+   */
+  private static void set(final Object aTk, final String aPos, final int aVal) throws Exception {
+    aTk.getClass().getMethod("set" + aPos, int.class).invoke(aTk, Integer.valueOf(aVal));
+  }
+
+  /**
+   * Checks the positions of a token.
+   * 
+   * @param aTk - the token
+   * @param aBl - the expected first line
+   * @param aBc - the expected first column
+   * @param aEl - the expected last line
+   * @param aEc - the expected last column
+   * @throws Exception - if the getters cannot be called
+   */
+  private static void assertPositions(final Object aTk, final int aBl, final int aBc,
+                                      final int aEl, final int aEc) throws Exception {
+    assertEquals(Integer.valueOf(aBl), GeneratedGrammar.value(aTk, "beginLine"));
+    assertEquals(Integer.valueOf(aBc), GeneratedGrammar.value(aTk, "beginColumn"));
+    assertEquals(Integer.valueOf(aEl), GeneratedGrammar.value(aTk, "endLine"));
+    assertEquals(Integer.valueOf(aEc), GeneratedGrammar.value(aTk, "endColumn"));
+  }
+}
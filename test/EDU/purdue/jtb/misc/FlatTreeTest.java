@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the flat tree (-fl option) generated by {@link FlatTreeGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class FlatTreeTest {
+
+  /** The grammar generated with the -fl option */
+  private static GeneratedGrammar fl;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    fl = new GeneratedGrammar("fl");
+    fl.copy("stmt.jtb");
+    fl.copy("FlDriver.java");
+    fl.jtb("stmt.jtb", "-fl");
+    fl.javacc();
+    fl.compile();
+  }
+
+  /**
+   * The flat tree holds the same nodes, in preorder, choices, lists sizes and tokens as the object
+   * tree, including empty lists and a tree of only the &lt;EOF&gt; token.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameTree() throws Exception {
+    for (final String text : new String[] {
+        GeneratedGrammar.STMT_TEXT, "{ }\n{ { } x; }\nb + 1;\n", "" }) {
+      final Object t = fl.parse("StmtParser", "Input", text);
+      final String ot = (String) fl.call("FlDriver", "objectTrace", t);
+      assertTrue(ot, ot.startsWith("Input(List"));
+      assertEquals(ot, fl.call("FlDriver", "flatTrace", t));
+    }
+  }
+
+  /**
+   * A builder reset after a first tree builds the second one as a new builder.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void reusedBuilder() throws Exception {
+    final Object t1 = fl.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final Object t2 = fl.parse("StmtParser", "Input", "print x;");
+    assertEquals(fl.call("FlDriver", "objectTrace", t2),
+                 fl.call("FlDriver", "reusedBuilderTrace", t1, t2));
+  }
+
+  /**
+   * The typed cursors reach the productions fields.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void cursors() throws Exception {
+    final Object t = fl.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final List<Object> tokens = new ArrayList<Object>();
+    GeneratedGrammar.collectTokens(t, tokens);
+    assertArrayEquals(new int[] { 3, 2, tokens.size() - 1 },
+                      (int[]) fl.call("FlDriver", "cursors", t));
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the incremental generation (-inc option) of {@link GeneratedFilesManifest}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class GeneratedFilesManifestTest {
+
+  /** The work directory */
+  private GeneratedGrammar gg;
+  /** The context of the first generation */
+  private JTBContext       ctx;
+
+  /**
+   * Runs a first incremental generation.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    gg = new GeneratedGrammar("inc");
+    gg.copy("stmt.jtb");
+    ctx = gg.jtb("stmt.jtb", "-inc");
+    assertTrue(ctx.writtenCount() > 0);
+    assertEquals(0, ctx.skippedCount());
+    assertTrue(gg.file("syntaxtree/" + GeneratedFilesManifest.MANIFEST_FILE_NAME).exists());
+    assertTrue(gg.file("visitor/" + GeneratedFilesManifest.MANIFEST_FILE_NAME).exists());
+  }
+
+  /**
+   * A second generation of the same grammar writes no file.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void unchangedGrammarWritesNothing() throws Exception {
+    final Map<String, Long> before = lastModified();
+    final int total = ctx.writtenCount();
+    final JTBContext c = gg.jtb("stmt.jtb", "-inc");
+    assertEquals(0, c.writtenCount());
+    assertEquals(total, c.skippedCount());
+    assertEquals(before, lastModified());
+  }
+
+  /**
+   * After a production change, only the files whose content changes are written.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void changedProductionRewritesOnlyChangedFiles() throws Exception {
+    final Map<String, Long> before = lastModified();
+    final Properties mfBefore = manifest("syntaxtree");
+    final String g = gg.read("stmt.jtb");
+    gg.write("stmt.jtb", g.replace("void Block() : {} { <LB> ( Stmt() )* <RB> }",
+                                   "void Block() : {} { <LB> ( Stmt() )+ <RB> }"));
+    final JTBContext c = gg.jtb("stmt.jtb", "-inc");
+    final Properties mfAfter = manifest("syntaxtree");
+    assertFalse(mfBefore.getProperty("Block.java").equals(mfAfter.getProperty("Block.java")));
+    final Map<String, Long> after = lastModified();
+    for (final String f : new String[] {
+        "Input.java", "Stmt.java", "Expr.java", "Term.java", "NodeList.java", "NodeToken.java" })
+      assertEquals(f, before.get("syntaxtree/" + f), after.get("syntaxtree/" + f));
+    assertTrue(c.writtenCount() > 0);
+    assertTrue(c.skippedCount() > 0);
+  }
+
+  /**
+   * A generated file modified or deleted since its generation is rewritten.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void modifiedOrDeletedFileIsRewritten() throws Exception {
+    final String expr = gg.read("syntaxtree/Expr.java");
+    gg.write("syntaxtree/Expr.java", expr + "// edited\n");
+    assertTrue(gg.file("syntaxtree/Term.java").delete());
+    assertEquals(2, gg.jtb("stmt.jtb", "-inc").writtenCount());
+    assertEquals(expr, gg.read("syntaxtree/Expr.java"));
+    assertTrue(gg.file("syntaxtree/Term.java").exists());
+  }
+
+  /**
+   * @return the last modification times of the generated files
+   */
+  private Map<String, Long> lastModified() {
+    final Map<String, Long> m = new HashMap<String, Long>();
+    for (final String d : new String[] { "syntaxtree", "visitor" })
+      for (final File f : gg.file(d).listFiles())
+        if (f.getName().endsWith(".java"))
+          m.put(d + "/" + f.getName(), Long.valueOf(f.lastModified()));
+    return m;
+  }
+
+  /**
+   * @param aDir - an output directory
+   * @return the directory manifest entries
+   * @throws Exception - if the manifest cannot be read
+   */
+  private Properties manifest(final String aDir) throws Exception {
+    final Properties p = new Properties();
+    final InputStream is = new FileInputStream(gg.file(aDir + "/" +
+                                                       GeneratedFilesManifest.MANIFEST_FILE_NAME));
+    try {
+      p.load(is);
+    }
+    finally {
+      is.close();
+    }
+    return p;
+  }
+}
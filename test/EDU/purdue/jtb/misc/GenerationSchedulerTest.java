@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the concurrent files generation (-threads option) of {@link GenerationScheduler}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class GenerationSchedulerTest {
+
+  /**
+   * The files generated with several threads are the same as the ones generated with one thread.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void sameFilesWhateverTheNumberOfThreads() throws Exception {
+    final GeneratedGrammar g1 = new GeneratedGrammar("threads1");
+    g1.copy("stmt.jtb");
+    g1.jtb("stmt.jtb", "-jd", "-printer", "-iv");
+    final GeneratedGrammar g4 = new GeneratedGrammar("threads4");
+    g4.copy("stmt.jtb");
+    g4.jtb("stmt.jtb", "-jd", "-printer", "-iv", "-threads", "4");
+    final Map<String, String> files = g1.readAll();
+    assertEquals(files.keySet(), g4.readAll().keySet());
+    assertEquals(files, g4.readAll());
+  }
+
+  /**
+   * The jobs messages are printed in the order the jobs have been added, whatever the order they
+   * terminate in.
+   * 
+   * @throws Exception - if a job fails
+   */
+  @Test
+  public void messagesInJobsOrder() throws Exception {
+    final GenerationScheduler gs = new GenerationScheduler(4);
+    for (int i = 0; i < 8; i++)
+      gs.add(new SleepingJob(i, (8 - i) * 10, null));
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    gs.runAll(new PrintStream(bos, true));
+    assertEquals("01234567", bos.toString());
+  }
+
+  /**
+   * The first job exception is rethrown after all jobs have terminated, and the messages of the
+   * following jobs are not printed.
+   * 
+   * @throws Exception - if a job fails unexpectedly
+   */
+  @Test
+  public void firstJobExceptionIsRethrown() throws Exception {
+    final IOException ex2 = new IOException("2");
+    final GenerationScheduler gs = new GenerationScheduler(3);
+    gs.add(new SleepingJob(0, 30, null));
+    gs.add(new SleepingJob(1, 20, null));
+    gs.add(new SleepingJob(2, 10, ex2));
+    gs.add(new SleepingJob(3, 0, new IOException("3")));
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try {
+      gs.runAll(new PrintStream(bos, true));
+      fail("exception expected");
+    }
+    catch (final IOException e) {
+      assertSame(ex2, e);
+    }
+    assertEquals("01", bos.toString());
+  }
+
+  /**
+   * A job sleeping before returning its number or throwing an exception.
+   */
+  private static class SleepingJob implements Callable<String> {
+
+    /** The job number */
+    private final int         nb;
+    /** The sleep duration */
+    private final long        millis;
+    /** The exception to throw (null if none) */
+    private final IOException ex;
+
+    /**
+     * Constructor.
+     * 
+     * @param aNb - the job number
+     * @param aMillis - the sleep duration
+     * @param aEx - the exception to throw (null if none)
+     */
+    SleepingJob(final int aNb, final long aMillis, final IOException aEx) {
+      nb = aNb;
+      millis = aMillis;
+      ex = aEx;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String call() throws Exception {
+      Thread.sleep(millis);
+      if (ex != null)
+        throw ex;
+      return String.valueOf(nb);
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static EDU.purdue.jtb.misc.Globals.PROG_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+import EDU.purdue.jtb.JTB;
+import EDU.purdue.jtb.JTBEngine;
+
+/**
+ * Tests the tokens images strategies (-is option) of the generated JTBToolkit.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created ; added the invalid strategy test
+ */
+public class ImagesStrategyTest {
+
+  /** The text to parse : an identifier repeated, and constant tokens */
+  private static final String     TEXT = "print qzxjv; qzxjv = qzxjv + 1;";
+  /** The grammar generated with the default (intern) strategy */
+  private static GeneratedGrammar intern;
+  /** The grammar generated with the const strategy */
+  private static GeneratedGrammar cst;
+  /** The grammar generated with the cache strategy */
+  private static GeneratedGrammar cache;
+
+  /**
+   * Generates and compiles the grammar with the three strategies.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    intern = GeneratedGrammar.build("is-intern", "stmt.jtb");
+    cst = GeneratedGrammar.build("is-const", "stmt.jtb", "-is", "const");
+    cache = GeneratedGrammar.build("is-cache", "stmt.jtb", "-is", "cache");
+  }
+
+  /**
+   * The trees are the same whatever the strategy.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameTree() throws Exception {
+    final String d = GeneratedGrammar.dump(intern.parse("StmtParser", "Input",
+                                                        GeneratedGrammar.STMT_TEXT));
+    assertEquals(d, GeneratedGrammar.dump(cst.parse("StmtParser", "Input",
+                                                    GeneratedGrammar.STMT_TEXT)));
+    assertEquals(d, GeneratedGrammar.dump(cache.parse("StmtParser", "Input",
+                                                      GeneratedGrammar.STMT_TEXT)));
+  }
+
+  /**
+   * An invalid strategy is rejected with the same message on the command line and in the grammar
+   * options.
+   * 
+   * @throws Exception - if the grammar cannot be written
+   */
+  @Test
+  public void invalidStrategy() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("is-invalid");
+    gg.copy("stmt.jtb");
+    final String grammar = gg.read("stmt.jtb");
+    final String clMsg = runInvalid("-is", "bogus", gg.file("stmt.jtb").getPath());
+    gg.write("stmt.jtb", grammar.replace("STATIC = false;",
+                                         "STATIC = false;\n  JTB_IS = \"bogus\";"));
+    final String fileMsg = runInvalid(gg.file("stmt.jtb").getPath());
+    assertTrue(fileMsg, fileMsg.contains("must be followed by intern, const or cache"));
+    assertEquals(clMsg, fileMsg);
+  }
+
+  /**
+   * Runs JTB with an invalid strategy.
+   * 
+   * @param args - the command line arguments
+   * @return the error messages
+   */
+  private static String runInvalid(final String... args) {
+    final JTBContext ctx = new JTBContext();
+    final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    ctx.err = new PrintStream(err, true);
+    assertEquals(JTB.CL_EX, new JTBEngine(ctx).run(args));
+    final String s = err.toString();
+    return s.substring(s.lastIndexOf(PROG_NAME + ":  "));
+  }
+
+  /**
+   * The intern strategy interns all the images.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void internStrategy() throws Exception {
+    final String canon = new String("qzxjv").intern();
+    final List<Object> ids = tokens(intern, "qzxjv");
+    assertEquals(3, ids.size());
+    for (final Object id : ids)
+      assertSame(canon, GeneratedGrammar.value(id, "tokenImage"));
+  }
+
+  /**
+   * The const strategy shares the constant images with the token manager, and does not intern the
+   * other ones.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void constStrategy() throws Exception {
+    final String canon = new String("qzxjv").intern();
+    final List<Object> ids = tokens(cst, "qzxjv");
+    assertEquals(3, ids.size());
+    for (final Object id : ids)
+      assertNotSame(canon, GeneratedGrammar.value(id, "tokenImage"));
+    assertConstantImageShared(cst);
+  }
+
+  /**
+   * The cache strategy shares the equal images through the per thread cache, without interning
+   * them, and shares the constant images with the token manager.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void cacheStrategy() throws Exception {
+    final String canon = new String("qzxjv").intern();
+    final List<Object> ids = tokens(cache, "qzxjv");
+    assertEquals(3, ids.size());
+    final Object img = GeneratedGrammar.value(ids.get(0), "tokenImage");
+    assertNotSame(canon, img);
+    for (final Object id : ids)
+      assertSame(img, GeneratedGrammar.value(id, "tokenImage"));
+    assertConstantImageShared(cache);
+  }
+
+  /**
+   * Checks the image of the "print" token is the token manager string literal.
+   * 
+   * @param aGg - the generated grammar
+   * @throws Exception - if the parsing fails
+   */
+  private static void assertConstantImageShared(final GeneratedGrammar aGg) throws Exception {
+    final String[] images = (String[]) aGg.load("StmtParserTokenManager")
+                                          .getField("jjstrLiteralImages").get(null);
+    final Object print = tokens(aGg, "print").get(0);
+    final int kind = ((Integer) GeneratedGrammar.value(print, "kind")).intValue();
+    assertSame(images[kind], GeneratedGrammar.value(print, "tokenImage"));
+  }
+
+  /**
+   * Parses the text and collects the tokens with a given image.
+   * 
+   * @param aGg - the generated grammar
+   * @param aImage - the image
+   * @return the tokens nodes, in the text order
+   * @throws Exception - if the parsing fails
+   */
+  private static List<Object> tokens(final GeneratedGrammar aGg, final String aImage)
+                                                                                     throws Exception {
+    final List<Object> l = new ArrayList<Object>();
+    GeneratedGrammar.collectTokens(aGg.parse("StmtParser", "Input", TEXT), l);
+    for (int i = l.size() - 1; i >= 0; i--)
+      if (!aImage.equals(GeneratedGrammar.value(l.get(i), "tokenImage")))
+        l.remove(i);
+    return l;
+  }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the incremental reparser (-ir option) generated by {@link IncrementalReparserGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class IncrementalReparserTest {
+
+  /** The inserted texts of the random edits */
+  private static final String[]   INSERTS = {
+      "a", "bb", "1", " ", "\t", "\n", "\r\n", "+", "(", ")", ";", "=", "{", "}", "# c\n", "x + 1",
+      " ( c ) ", "q = 2;\n", ""          };
+  /** The grammar generated with the -ir option */
+  private static GeneratedGrammar ir;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    ir = new GeneratedGrammar("ir");
+    ir.copy("stmt.jtb");
+    ir.copy("IrDriver.java");
+    ir.jtb("stmt.jtb", "-ir", "-tk");
+    ir.javacc();
+    ir.compile();
+  }
+
+  /**
+   * An edit inside a statement updates the tree in place : the other statements are kept, the
+   * following tokens are shifted, and the tree is the same as the one of a full parse.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void editInPlace() throws Exception {
+    final String text = GeneratedGrammar.STMT_TEXT;
+    final Object tree = ir.call("IrDriver", "full", text);
+    final List<?> stmts = (List<?>) GeneratedGrammar.value(GeneratedGrammar.value(tree, "f0"),
+                                                           "nodes");
+    final Object first = stmts.get(0);
+    final Object last = stmts.get(2);
+    final int offset = text.indexOf("print a;") + "print a".length();
+    final Object inc = ir.call("IrDriver", "reparse", tree, text, Integer.valueOf(offset),
+                               Integer.valueOf(0), "bc\n + 1");
+    assertSame(tree, inc);
+    assertSame(first, stmts.get(0));
+    assertSame(last, stmts.get(2));
+    final String newText = text.substring(0, offset) + "bc\n + 1" + text.substring(offset);
+    assertEquals(GeneratedGrammar.dump(ir.call("IrDriver", "full", newText)),
+                 GeneratedGrammar.dump(inc));
+  }
+
+  /**
+   * A production returning a value is not reparsed alone (its result would be lost), nor a
+   * production with parameters.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void onlyVoidProductionsWithoutParametersReparsed() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("ir-result");
+    gg.copy("stmt.jtb");
+    gg.write("stmt.jtb",
+             gg.read("stmt.jtb")
+               .replace("void Term() : {} { <ID> | <NUM> | <LP> Expr() <RP> }",
+                        "String Term() : {} { ( <ID> | <NUM> | <LP> Expr() <RP> ) { return \"t\"; } }")
+               .replace("void Block() : {}", "void Block(int depth) : {}")
+               .replace("  Block()\n", "  Block(0)\n"));
+    gg.jtb("stmt.jtb", "-ir", "-tk");
+    final String jj = gg.read("jtb.out.jj");
+    assertTrue(jj, jj.contains("if (aNode instanceof Expr)"));
+    assertFalse(jj, jj.contains("instanceof Term)"));
+    assertFalse(jj, jj.contains("instanceof Block)"));
+  }
+
+  /**
+   * An edit giving a text which does not parse is rejected, and the tree is left unchanged.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void invalidEditRejected() throws Exception {
+    final String text = GeneratedGrammar.STMT_TEXT;
+    final Object tree = ir.call("IrDriver", "full", text);
+    final String ref = GeneratedGrammar.dump(tree);
+    assertNull(ir.call("IrDriver", "reparse", tree, text, Integer.valueOf(text.indexOf("1 +")),
+                       Integer.valueOf(1), ""));
+    assertEquals(ref, GeneratedGrammar.dump(tree));
+  }
+
+  /**
+   * After each of a series of random edits, the reparsed tree is the same as the tree of a full
+   * parse of the new text (nodes, tokens, positions and special tokens), and the edits giving a
+   * text which does not parse are rejected.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void randomEditsSameAsFullParse() throws Exception {
+    final Random r = new Random(1234);
+    String text = GeneratedGrammar.STMT_TEXT + "b + 1;\n{ c; d = c; (e); }\n# end\n";
+    Object tree = ir.call("IrDriver", "full", text);
+    int valid = 0;
+    int inPlace = 0;
+    for (int k = 0; k < 400; k++) {
+      final int off = r.nextInt(text.length() + 1);
+      final int rem = Math.min(r.nextInt(4) == 0 ? r.nextInt(6) : 0, text.length() - off);
+      final String ins = INSERTS[r.nextInt(INSERTS.length)];
+      final String nt = text.substring(0, off) + ins + text.substring(off + rem);
+      final String edit = k + " : " + off + " / " + rem + " / \"" + ins + "\" in \"" + text + "\"";
+      final Object full = ir.call("IrDriver", "full", nt);
+      final Object inc = ir.call("IrDriver", "reparse", tree, text, Integer.valueOf(off),
+                                 Integer.valueOf(rem), ins);
+      if (full == null) {
+        assertNull(edit, inc);
+        continue;
+      }
+      valid++;
+      assertEquals(edit, GeneratedGrammar.dump(full), GeneratedGrammar.dump(inc));
+      if (inc == tree)
+        inPlace++;
+      tree = inc;
+      text = nt;
+    }
+    assertTrue(valid + " valid edits", valid > 100);
+    assertTrue(inPlace + " in place of " + valid, inPlace > valid / 3);
+  }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the iterative depth first visitor (-iv option) generated by
+ * {@link DepthFirstVisitorsGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class IterativeVisitorTest {
+
+  /** The nesting depth of the deep tree */
+  private static final int        DEPTH = 20000;
+  /** The grammar generated with the -iv option */
+  private static GeneratedGrammar iv;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    iv = new GeneratedGrammar("iv");
+    iv.copy("stmt.jtb");
+    iv.copy("IvDriver.java");
+    iv.jtb("stmt.jtb", "-iv");
+    iv.javacc();
+    iv.compile();
+  }
+
+  /**
+   * The iterative visitor reaches the tokens in the same order as the recursive one, and skips the
+   * subtrees whose enter method returns false.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameOrder() throws Exception {
+    final Object t = iv.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final String rec = (String) iv.call("IvDriver", "recursive", t);
+    assertTrue(rec.startsWith("a = 1 + ( b + 2 ) ; { print a ; { x = y + 3 ; } } print"));
+    assertEquals(rec, iv.call("IvDriver", "iterative", t, Boolean.FALSE));
+    assertEquals("a = 1 + ( b + 2 ) ; print ( a + ( b + ( c + 4 ) ) ) ;  ",
+                 iv.call("IvDriver", "iterative", t, Boolean.TRUE));
+  }
+
+  /**
+   * A tree too deep for the recursive visitor is walked by the iterative one, each entered node
+   * being exited.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void deepTree() throws Exception {
+    final StringBuilder sb = new StringBuilder(4 * DEPTH);
+    for (int i = 0; i < DEPTH; i++)
+      sb.append('{');
+    sb.append("x;");
+    for (int i = 0; i < DEPTH; i++)
+      sb.append('}');
+    // the generated parser is recursive : parse with a large stack
+    final Object t = run(1L << 29, new Work() {
+
+      @Override
+      public Object call() throws Exception {
+        return iv.parse("StmtParser", "Input", sb.toString());
+      }
+    });
+    assertFalse(String.valueOf(t), t instanceof Throwable);
+    final Object rec = run(1L << 18, new Work() {
+
+      @Override
+      public Object call() throws Exception {
+        return iv.call("IvDriver", "recursive", t);
+      }
+    });
+    assertTrue(String.valueOf(rec), rec instanceof StackOverflowError);
+    final Object it = run(1L << 18, new Work() {
+
+      @Override
+      public Object call() throws Exception {
+        return iv.call("IvDriver", "iterative", t, Boolean.FALSE);
+      }
+    });
+    assertFalse(String.valueOf(it), it instanceof Throwable);
+    assertEquals(4 * DEPTH + 5, ((String) it).length());
+    final int[] c = (int[]) run(1L << 18, new Work() {
+
+      @Override
+      public Object call() throws Exception {
+        return iv.call("IvDriver", "counts", t);
+      }
+    });
+    assertEquals(c[0], c[1]);
+    assertTrue(c[2] > 2 * DEPTH);
+  }
+
+  /**
+   * A work to run in a thread.
+   */
+  private interface Work {
+
+    /**
+     * @return the work result
+     * @throws Exception - if the work fails
+     */
+    Object call() throws Exception;
+  }
+
+  /**
+   * Runs a work in a new thread with a given stack size.
+   * 
+   * @param aStackSize - the stack size
+   * @param aWork - the work
+   * @return the work result, or the error it has thrown
+   * @throws Exception - if the thread is interrupted
+   */
+  private static Object run(final long aStackSize, final Work aWork) throws Exception {
+    final AtomicReference<Object> res = new AtomicReference<Object>();
+    final Thread th = new Thread(null, new Runnable() {
+
+      @Override
+      public void run() {
+        try {
+          res.set(aWork.call());
+        }
+        catch (final Throwable e) {
+          res.set(e);
+        }
+      }
+    }, "iv", aStackSize);
+    th.start();
+    th.join();
+    return res.get();
+  }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+import EDU.purdue.jtb.JTB;
+import EDU.purdue.jtb.JTBEngine;
+
+/**
+ * Tests the parallel visitors (-pv option) generated by {@link ParallelVisitorsGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class ParallelVisitorsTest {
+
+  /** The number of statements of the parsed text */
+  private static final int        NB_STMTS = 500;
+  /** The grammar generated with the -pv option */
+  private static GeneratedGrammar pv;
+  /** The parsed tree */
+  private static Object           tree;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver, and parses a long list of
+   * statements.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    pv = new GeneratedGrammar("pv");
+    pv.copy("stmt.jtb");
+    pv.copy("PvDriver.java");
+    pv.jtb("stmt.jtb", "-pv");
+    pv.javacc();
+    pv.compile();
+    final StringBuilder sb = new StringBuilder(NB_STMTS * 24);
+    for (int i = 0; i < NB_STMTS; i++)
+      sb.append("x = ").append(i).append(" + (y + 1);\n{ print ").append(i).append("; }\n");
+    tree = pv.parse("StmtParser", "Input", sb.toString());
+  }
+
+  /**
+   * The forked visitors states are all merged back into the visitor.
+   * 
+   * @throws Exception - if the visit fails
+   */
+  @Test
+  public void forkedVisitorsAreJoined() throws Exception {
+    final int[] c = (int[]) pv.call("PvDriver", "counts", tree);
+    assertEquals(15 * NB_STMTS + 1, c[0]);
+    assertEquals(c[0], c[1]);
+    assertTrue(c[2] > 1);
+  }
+
+  /**
+   * The user argument is shared by the tasks.
+   * 
+   * @throws Exception - if the visit fails
+   */
+  @Test
+  public void sharedArgument() throws Exception {
+    assertEquals(15 * NB_STMTS + 1,
+                 ((Integer) pv.call("PvDriver", "arguCount", tree)).intValue());
+  }
+
+  /**
+   * The elements results are merged in the list order.
+   * 
+   * @throws Exception - if the visit fails
+   */
+  @Test
+  public void resultsMergedInOrder() throws Exception {
+    final String seq = (String) pv.call("PvDriver", "seqStmts", tree);
+    assertTrue(seq.startsWith("x = 0 + ( y + 1 ) ; { print 0 ; } x = 1 "));
+    assertEquals(seq, pv.call("PvDriver", "stmts", tree));
+  }
+
+  /**
+   * A visitor called from a task of another pool runs its tasks in its own pool.
+   * 
+   * @throws Exception - if the visit fails
+   */
+  @Test
+  public void tasksRunInTheVisitorPool() throws Exception {
+    assertEquals(Boolean.TRUE, pv.call("PvDriver", "ownPool", tree));
+  }
+
+  /**
+   * The depth level option is rejected with the parallel visitors option.
+   * 
+   * @throws Exception - if the grammar cannot be copied
+   */
+  @Test
+  public void depthLevelRejected() throws Exception {
+    final GeneratedGrammar g = new GeneratedGrammar("pvdl");
+    g.copy("stmt.jtb");
+    assertEquals(JTB.CL_EX, new JTBEngine().run(new String[] {
+        "-pv", "-dl", g.file("stmt.jtb").getPath() }));
+  }
+}
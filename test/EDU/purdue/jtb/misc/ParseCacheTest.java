@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the parse cache (-pc option) generated by {@link ParseCacheGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class ParseCacheTest {
+
+  /** The cache maximum size for the tests not evicting entries */
+  private static final Long       LARGE = Long.valueOf(1 << 20);
+  /** The grammar generated with the -pc option */
+  private static GeneratedGrammar pc;
+  /** The cache directory */
+  private File                    dir;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    pc = generate("pc", "-pc", "-tk");
+  }
+
+  /**
+   * Empties the cache directory.
+   * 
+   * @throws IOException - if the directory cannot be deleted
+   */
+  @Before
+  public void setUp() throws IOException {
+    dir = pc.file("cache");
+    GeneratedGrammar.delete(dir);
+  }
+
+  /**
+   * A source parsed once is then reloaded from the cache, by the same cache and by a new cache on
+   * the same directory, as the same tree.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void reload() throws Exception {
+    final int p0 = parses();
+    final Object c1 = cache(pc, LARGE);
+    final String ref = GeneratedGrammar.dump(parse(pc, c1, GeneratedGrammar.STMT_TEXT));
+    assertEquals(p0 + 1, parses());
+    assertTrue(new File(dir, pc.call("visitor.ParseCache", "key", GeneratedGrammar.STMT_TEXT) +
+                             ".tree").exists());
+    assertEquals(ref, GeneratedGrammar.dump(parse(pc, c1, GeneratedGrammar.STMT_TEXT)));
+    final Object c2 = cache(pc, LARGE);
+    assertEquals(ref, GeneratedGrammar.dump(parse(pc, c2, GeneratedGrammar.STMT_TEXT)));
+    assertEquals(p0 + 1, parses());
+    parse(pc, c2, GeneratedGrammar.STMT_TEXT + "x;");
+    assertEquals(p0 + 2, parses());
+  }
+
+  /**
+   * An entry written with another grammar, or corrupted, is parsed again and replaced.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void staleEntriesReplaced() throws Exception {
+    final GeneratedGrammar noTk = generate("pc-notk", "-pc");
+    final String text = "a = 1;";
+    parse(noTk, cache(noTk, LARGE, dir), text);
+    final Object c = cache(pc, LARGE);
+    final int p0 = parses();
+    final String ref = GeneratedGrammar.dump(parse(pc, c, text));
+    assertEquals(p0 + 1, parses());
+    assertEquals(ref, GeneratedGrammar.dump(parse(pc, cache(pc, LARGE), text)));
+    assertEquals(p0 + 1, parses());
+    final File f = new File(dir, pc.call("visitor.ParseCache", "key", text) + ".tree");
+    final FileOutputStream fos = new FileOutputStream(f);
+    fos.write(new byte[] { 0, 1, 2 });
+    fos.close();
+    assertEquals(ref, GeneratedGrammar.dump(parse(pc, cache(pc, LARGE), text)));
+    assertEquals(p0 + 2, parses());
+    assertEquals(ref, GeneratedGrammar.dump(parse(pc, cache(pc, LARGE), text)));
+    assertEquals(p0 + 2, parses());
+  }
+
+  /**
+   * The least recently used entries are evicted when the cache size exceeds its maximum, and the
+   * files left by an interrupted store are deleted.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void leastRecentlyUsedEvicted() throws Exception {
+    final String[] texts = { "a = 1;", "b = 2;", "c = 3;" };
+    Object c = cache(pc, LARGE);
+    parse(pc, c, texts[0]);
+    final long one = ((Long) c.getClass().getMethod("size").invoke(c)).longValue();
+    assertTrue(one > 0);
+    c = cache(pc, Long.valueOf(2 * one + one / 2));
+    parse(pc, c, texts[1]);
+    parse(pc, c, texts[0]);
+    parse(pc, c, texts[2]);
+    assertTrue(entry(texts[0]).exists());
+    assertFalse(entry(texts[1]).exists());
+    assertTrue(entry(texts[2]).exists());
+    assertEquals(Long.valueOf(2 * one), c.getClass().getMethod("size").invoke(c));
+    final File tmp = new File(dir, "jtb123.tmp");
+    assertTrue(tmp.createNewFile());
+    cache(pc, LARGE);
+    assertFalse(tmp.exists());
+  }
+
+  /**
+   * @param aText - a source text
+   * @return the cache entry file of the source
+   * @throws Exception - if the key cannot be computed
+   */
+  private File entry(final String aText) throws Exception {
+    return new File(dir, pc.call("visitor.ParseCache", "key", aText) + ".tree");
+  }
+
+  /**
+   * @param aGg - a work directory
+   * @param aMax - the cache maximum size
+   * @return a new cache on the cache directory
+   * @throws Exception - if the cache cannot be created
+   */
+  private Object cache(final GeneratedGrammar aGg, final Long aMax) throws Exception {
+    return cache(aGg, aMax, dir);
+  }
+
+  /**
+   * @param aGg - a work directory
+   * @param aMax - the cache maximum size
+   * @param aDir - the cache directory
+   * @return a new cache on the directory
+   * @throws Exception - if the cache cannot be created
+   */
+  private static Object cache(final GeneratedGrammar aGg, final Long aMax, final File aDir)
+                                                                                           throws Exception {
+    return aGg.call("PcDriver", "cache", aDir, aMax);
+  }
+
+  /**
+   * @param aGg - a work directory
+   * @param aCache - a cache of the work directory
+   * @param aText - a source text
+   * @return the tree of the source
+   * @throws Exception - if the parsing fails
+   */
+  private static Object parse(final GeneratedGrammar aGg, final Object aCache, final String aText)
+                                                                                                   throws Exception {
+    return aGg.call("PcDriver", "parse", aCache, aText);
+  }
+
+  /**
+   * @return the number of parser runs of the -pc -tk grammar
+   * @throws Exception - if the driver cannot be called
+   */
+  private static int parses() throws Exception {
+    return ((Integer) pc.call("PcDriver", "parses")).intValue();
+  }
+
+  /**
+   * Generates and compiles the grammar with the driver.
+   * 
+   * @param aName - the work directory name
+   * @param aOptions - the JTB options
+   * @return the work directory
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar generate(final String aName, final String... aOptions)
+                                                                                         throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy("stmt.jtb");
+    gg.copy("PcDriver.java");
+    gg.jtb("stmt.jtb", aOptions);
+    gg.javacc();
+    gg.compile();
+    return gg;
+  }
+}
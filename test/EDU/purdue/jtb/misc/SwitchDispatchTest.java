@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the node kinds and the SwitchDispatchVisitor (-sd option) generated by {@link BaseClasses}
+ * and {@link DepthFirstVisitorsGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class SwitchDispatchTest {
+
+  /** The base nodes classes, in their kinds order */
+  private static final String[]   BASE_NODES = { "NodeChoice", "NodeList", "NodeListOptional",
+      "NodeOptional", "NodeSequence", "NodeToken", "NodeTCF" };
+  /** The grammar nodes classes, in the grammar order */
+  private static final String[]   USER_NODES = { "Input", "Stmt", "Block", "Expr", "Term" };
+  /** The grammar generated with the -sd option */
+  private static GeneratedGrammar sd;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    sd = new GeneratedGrammar("sd");
+    sd.copy("stmt.jtb");
+    sd.copy("SdDriver.java");
+    sd.jtb("stmt.jtb", "-sd");
+    sd.javacc();
+    sd.compile();
+  }
+
+  /**
+   * The switch dispatch visitor visits the productions and tokens in the same order as the depth
+   * first visitor, from the root, from a base node and from a node not generated by JTB.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameTrace() throws Exception {
+    final Object t = sd.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT +
+                                                     "b + 1;\n{ }\nprint ((x));\n");
+    final String df = (String) sd.call("SdDriver", "depthFirst", t);
+    assertTrue(df, df.startsWith("Stmt a = Expr Term 1 + Term ( Expr Term b + Term 2 ) ; Stmt Block { "));
+    assertEquals(df, sd.call("SdDriver", "switchDispatch", t));
+    final Object stmts = sd.call("SdDriver", "stmts", t);
+    final String dfs = (String) sd.call("SdDriver", "depthFirst", stmts);
+    assertEquals(df.substring(0, dfs.length()), dfs);
+    assertEquals(dfs, sd.call("SdDriver", "switchDispatch", stmts));
+    assertEquals(df, sd.call("SdDriver", "switchDispatch", sd.call("SdDriver", "foreign", t)));
+  }
+
+  /**
+   * The node kinds are dense, the base nodes first then the grammar nodes in the grammar order, and
+   * each node returns its class kind.
+   * 
+   * @throws Exception - if the classes cannot be loaded or the parsing fails
+   */
+  @Test
+  public void denseKinds() throws Exception {
+    final Map<Integer, String> kinds = new TreeMap<Integer, String>();
+    for (final String c : BASE_NODES)
+      kinds.put(kind(c), c);
+    for (final String c : USER_NODES)
+      kinds.put(kind(c), c);
+    assertEquals(BASE_NODES.length + USER_NODES.length, kinds.size());
+    int k = 0;
+    for (final String c : BASE_NODES)
+      assertEquals(c, kinds.get(Integer.valueOf(k++)));
+    for (final String c : USER_NODES)
+      assertEquals(c, kinds.get(Integer.valueOf(k++)));
+    final Object t = sd.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    assertEquals(Integer.valueOf(0), sd.call("SdDriver", "wrongKinds", t));
+  }
+
+  /**
+   * Without the option, the nodes have no kind and the visitor is not generated.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void noKindsWithoutOption() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("sd-default");
+    gg.copy("stmt.jtb");
+    gg.jtb("stmt.jtb");
+    assertFalse(gg.read("syntaxtree/INode.java").contains("nodeKind"));
+    assertFalse(gg.read("syntaxtree/Stmt.java").contains("NODE_KIND"));
+    assertFalse(gg.file("visitor/SwitchDispatchVisitor.java").exists());
+  }
+
+  /**
+   * @param aClass - a node class simple name
+   * @return the class kind
+   * @throws Exception - if the class cannot be loaded
+   */
+  private static Integer kind(final String aClass) throws Exception {
+    return Integer.valueOf(sd.load("syntaxtree." + aClass).getField("NODE_KIND").getInt(null));
+  }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the parser tokens used as the tree nodes (-tf option), generated by {@link BaseClasses} and
+ * the {@link EDU.purdue.jtb.visitor.Annotator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created ; added the Token class fields and compact tests
+ */
+public class TokenFactoryTest {
+
+  /** The grammar generated with the default options (keeping the special tokens) */
+  private static GeneratedGrammar def;
+  /** The grammar generated with the -tf option (keeping the special tokens) */
+  private static GeneratedGrammar tf;
+  /** The grammar generated with the default options (without the special tokens) */
+  private static GeneratedGrammar defNoTk;
+  /** The grammar generated with the -tf option (without the special tokens) */
+  private static GeneratedGrammar tfNoTk;
+  /** The grammar generated with the -tf and -ct options (keeping the special tokens) */
+  private static GeneratedGrammar tfCt;
+
+  /**
+   * Generates and compiles the grammar with and without the option, with and without -tk.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    def = GeneratedGrammar.build("tf-default", "stmt.jtb", "-tk", "-printer");
+    tf = GeneratedGrammar.build("tf", "stmt.jtb", "-tk", "-printer", "-tf");
+    defNoTk = GeneratedGrammar.build("tf-notk-default", "stmt.jtb", "-printer");
+    tfNoTk = GeneratedGrammar.build("tf-notk", "stmt.jtb", "-printer", "-tf");
+    tfCt = GeneratedGrammar.build("tf-ct", "stmt.jtb", "-tk", "-printer", "-tf", "-ct");
+  }
+
+  /**
+   * The Token class generated by JTB declares only the fields the NodeToken class does not have, so
+   * each token holds its kind and positions once ; with the compact NodeToken it also declares the
+   * positions the token manager sets, which the NodeToken packs.
+   * 
+   * @throws Exception - if the classes cannot be loaded
+   */
+  @Test
+  public void tokenFieldsNotRedeclared() throws Exception {
+    assertEquals(Arrays.asList("image", "next", "specialToken"), instanceFields(tf.load("Token")));
+    assertEquals(Arrays.asList("image", "next", "specialToken"),
+                 instanceFields(tfNoTk.load("Token")));
+    assertEquals(Arrays.asList("beginColumn", "beginLine", "endColumn", "endLine", "image", "next",
+                               "specialToken"), instanceFields(tfCt.load("Token")));
+    assertTrue(tf.read("Token.java").startsWith("/* Generated by JTB"));
+  }
+
+  /**
+   * With the compact NodeToken, the tree tokens hold the same images, kinds and packed positions as
+   * the default tree tokens.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void compactTreeTokens() throws Exception {
+    final String text = commentedText(3);
+    final List<Object> tokens = new ArrayList<Object>();
+    GeneratedGrammar.collectTokens(def.parse("StmtParser", "Input", text), tokens);
+    final List<Object> ctTokens = new ArrayList<Object>();
+    final Object t = tfCt.parse("StmtParser", "Input", text);
+    GeneratedGrammar.collectTokens(t, ctTokens);
+    assertEquals(tokens.size(), ctTokens.size());
+    final Class<?> nt = tfCt.load("syntaxtree.NodeToken");
+    for (int i = 0; i < tokens.size(); i++) {
+      final Object tk = tokens.get(i);
+      final Object ctk = ctTokens.get(i);
+      assertEquals(GeneratedGrammar.value(tk, "tokenImage"),
+                   GeneratedGrammar.value(ctk, "tokenImage"));
+      assertEquals(GeneratedGrammar.value(tk, "kind"), GeneratedGrammar.value(ctk, "kind"));
+      for (final String pos : new String[] {
+          "BeginLine", "BeginColumn", "EndLine", "EndColumn" }) {
+        final String field = Character.toLowerCase(pos.charAt(0)) + pos.substring(1);
+        assertEquals(pos, GeneratedGrammar.value(tk, field), nt.getMethod("get" + pos).invoke(ctk));
+      }
+    }
+    assertEquals(def.print(def.parse("StmtParser", "Input", text)), tfCt.print(t));
+  }
+
+  /**
+   * JTB removes the Token class file it generated when the grammar is generated again without the
+   * option, so JavaCC generates its own.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void tokenFileRemovedWithoutOption() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("tf-removed");
+    gg.copy("stmt.jtb");
+    gg.jtb("stmt.jtb", "-tf");
+    assertTrue(gg.file("Token.java").exists());
+    gg.jtb("stmt.jtb");
+    assertFalse(gg.file("Token.java").exists());
+    // a Token class file not generated by JTB is kept
+    gg.write("Token.java", "/* user Token class */");
+    gg.jtb("stmt.jtb");
+    assertTrue(gg.file("Token.java").exists());
+  }
+
+  /**
+   * The trees built with the parser tokens are the same as the ones built with copies, with and
+   * without the special tokens.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void sameTree() throws Exception {
+    final String text = commentedText(20);
+    final Object t = def.parse("StmtParser", "Input", text);
+    final Object ttf = tf.parse("StmtParser", "Input", text);
+    assertEquals(GeneratedGrammar.dump(t), GeneratedGrammar.dump(ttf));
+    assertEquals(def.print(t), tf.print(ttf));
+    assertTrue(GeneratedGrammar.dump(ttf).contains("# comment 19"));
+    final Object tn = defNoTk.parse("StmtParser", "Input", text);
+    final Object tntf = tfNoTk.parse("StmtParser", "Input", text);
+    assertEquals(GeneratedGrammar.dump(tn), GeneratedGrammar.dump(tntf));
+    assertEquals(defNoTk.print(tn), tfNoTk.print(tntf));
+  }
+
+  /**
+   * The tree tokens are the tokens allocated by the token manager, still chained in the text order.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void treeTokensAreParserTokens() throws Exception {
+    final Object ttf = tf.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final List<Object> tokens = new ArrayList<Object>();
+    GeneratedGrammar.collectTokens(ttf, tokens);
+    final Class<?> tc = tf.load("Token");
+    for (int i = 0; i < tokens.size(); i++) {
+      assertSame(tc, tokens.get(i).getClass());
+      if (i + 1 < tokens.size())
+        assertSame(tokens.get(i + 1), tc.getField("next").get(tokens.get(i)));
+    }
+    assertEquals(tf.print(ttf), def.print(def.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT)));
+  }
+
+  /**
+   * Without -tk, the discarded special tokens are recycled by the next tokens of the thread, which
+   * still build the same tree.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void specialTokensRecycled() throws Exception {
+    final int before = poolSize();
+    // the tokens following the comments reuse some of them
+    tfNoTk.parse("StmtParser", "Input", commentedText(30));
+    final int filled = poolSize();
+    assertTrue(filled > before && filled >= 5);
+    final String text = "a = 1;";
+    final Object t = tfNoTk.parse("StmtParser", "Input", text);
+    // a, =, 1, ; and <EOF> (a and = being read first by the LOOKAHEAD(2) of the statement)
+    assertEquals(filled - 5, poolSize());
+    assertEquals(GeneratedGrammar.dump(defNoTk.parse("StmtParser", "Input", text)),
+                 GeneratedGrammar.dump(t));
+  }
+
+  /**
+   * @param aNb - the number of comments
+   * @return the stmt text followed by comments and a statement
+   */
+  private static String commentedText(final int aNb) {
+    final StringBuilder sb = new StringBuilder(GeneratedGrammar.STMT_TEXT);
+    for (int i = 0; i < aNb; i++)
+      sb.append("# comment ").append(i).append('\n');
+    sb.append("print b + 1;\n");
+    return sb.toString();
+  }
+
+  /**
+   * @param aClass - a class
+   * @return the sorted names of the instance fields the class declares
+   */
+  private static List<String> instanceFields(final Class<?> aClass) {
+    final TreeSet<String> names = new TreeSet<String>();
+    for (final Field f : aClass.getDeclaredFields())
+      if (!Modifier.isStatic(f.getModifiers()))
+        names.add(f.getName());
+    return new ArrayList<String>(names);
+  }
+
+  /**
+   * @return the number of recycled tokens in the pool of the current thread (-tf without -tk)
+   * @throws Exception - if the pool cannot be read
+   */
+  private static int poolSize() throws Exception {
+    final Field pf = tfNoTk.load("JTBToolkit").getDeclaredField("POOL");
+    pf.setAccessible(true);
+    final Object pool = ((ThreadLocal<?>) pf.get(null)).get();
+    final Field sf = pool.getClass().getDeclaredField("size");
+    sf.setAccessible(true);
+    return sf.getInt(pool);
+  }
+}
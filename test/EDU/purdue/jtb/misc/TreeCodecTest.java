@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.misc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the tree codec (-tc option) generated by {@link TreeCodecGenerator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class TreeCodecTest {
+
+  /** The grammar generated with the -tc option, keeping the special tokens */
+  private static GeneratedGrammar tc;
+  /** The grammar generated with the -tc option, without the special tokens */
+  private static GeneratedGrammar tcNoTk;
+  /** The grammar generated with the -tc option and the compact tokens and parent pointers */
+  private static GeneratedGrammar tcCt;
+
+  /**
+   * Generates and compiles the grammar with the option combinations and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    tc = generate("tc", "stmt.jtb", "-tc", "-tk", "-printer");
+    tcNoTk = generate("tc-notk", "stmt.jtb", "-tc", "-printer");
+    tcCt = generate("tc-ct", "stmt.jtb", "-tc", "-tk", "-ct", "-pp", "-printer");
+  }
+
+  /**
+   * A tree read back is the same as the tree written (nodes, tokens, positions and special tokens),
+   * with all the option combinations.
+   * 
+   * @throws Exception - if the parsing or the codec fails
+   */
+  @Test
+  public void roundTrip() throws Exception {
+    final StringBuilder sb = new StringBuilder(GeneratedGrammar.STMT_TEXT);
+    sb.append("# a comment\n# and another one\n\n\n");
+    for (int i = 0; i < 70000; i++)
+      sb.append(' ');
+    sb.append("print wide + 1; # \u00e9t\u00e9\n{ }\n");
+    for (final String text : new String[] { sb.toString(), "", "# only a comment" })
+      for (final GeneratedGrammar gg : new GeneratedGrammar[] { tc, tcNoTk, tcCt }) {
+        final Object t = gg.parse("StmtParser", "Input", text);
+        final Object r = gg.call("TcDriver", "read", gg.call("TcDriver", "write", t));
+        assertEquals(GeneratedGrammar.dump(t), GeneratedGrammar.dump(r));
+        // (the TreeDumper rejects the <EOF> token at the line 0 of an empty input)
+        if (text.length() > 0)
+          assertEquals(gg.print(t), gg.print(r));
+      }
+    final Object t = tc.parse("StmtParser", "Input", sb.toString());
+    assertTrue(GeneratedGrammar.dump(t).contains("# \u00e9t\u00e9"));
+  }
+
+  /**
+   * The nodes read back have their parent pointers set (-pp option).
+   * 
+   * @throws Exception - if the parsing or the codec fails
+   */
+  @Test
+  public void parentPointers() throws Exception {
+    final Object t = tcCt.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    final Object r = tcCt.call("TcDriver", "read", tcCt.call("TcDriver", "write", t));
+    final List<Object> tokens = new ArrayList<Object>();
+    GeneratedGrammar.collectTokens(r, tokens);
+    for (final Object tk : tokens)
+      assertNotNull(tk.getClass().getMethod("getParent").invoke(tk));
+  }
+
+  /**
+   * A tree written with another grammar, or without the special tokens, is rejected.
+   * 
+   * @throws Exception - if the parsing or the codec fails unexpectedly
+   */
+  @Test
+  public void otherGrammarRejected() throws Exception {
+    final GeneratedGrammar other = new GeneratedGrammar("tc-other");
+    other.copy("stmt.jtb");
+    other.copy("TcDriver.java");
+    other.write("stmt.jtb", other.read("stmt.jtb").replace("void Block() : {} { <LB> ( Stmt() )* <RB> }",
+                                                           "void Block() : {} { <LB> ( Stmt() )+ <RB> }"));
+    other.jtb("stmt.jtb", "-tc", "-tk");
+    other.javacc();
+    other.compile();
+    final Object b = tc.call("TcDriver", "write", tc.parse("StmtParser", "Input", "x;"));
+    for (final GeneratedGrammar gg : new GeneratedGrammar[] { other, tcNoTk })
+      try {
+        gg.call("TcDriver", "read", b);
+        fail("IOException expected");
+      }
+      catch (final IOException e) {
+        assertEquals("Tree written with another grammar", e.getMessage());
+      }
+  }
+
+  /**
+   * The codec output is much smaller than the java serialization one.
+   * 
+   * @throws Exception - if the parsing or the codec fails
+   */
+  @Test
+  public void compact() throws Exception {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++)
+      sb.append("x = y + (z + ").append(i).append(");\n");
+    final Object t = tc.parse("StmtParser", "Input", sb.toString());
+    final int codec = ((byte[]) tc.call("TcDriver", "write", t)).length;
+    final int ser = ((byte[]) tc.call("TcDriver", "serialize", t)).length;
+    assertTrue(codec + " / " + ser, codec * 5 < ser);
+  }
+
+  /**
+   * Generates and compiles a grammar with the driver.
+   * 
+   * @param aName - the work directory name
+   * @param aGrammar - the grammar resource name
+   * @param aOptions - the JTB options
+   * @return the work directory
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar generate(final String aName, final String aGrammar,
+                                           final String... aOptions) throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy(aGrammar);
+    gg.copy("TcDriver.java");
+    gg.jtb(aGrammar, aOptions);
+    gg.javacc();
+    gg.compile();
+    return gg;
+  }
+}
@@ -0,0 +1,668 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+import EDU.purdue.jtb.misc.JTBContext;
+
+/**
+ * Tests the embedded generator (-jcc option) and the options it implements : the parsers generated
+ * with an option must behave as the one generated without (same trees, same error messages), and
+ * their code must show the option has been applied.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created ; added a test of the case each option is for
+ */
+public class GeneratorOptionsTest {
+
+  /** The texts parsed by the parsers (the last ones with syntax and lexical errors) */
+  static final String[]       TEXTS = {
+      GeneratedGrammar.STMT_TEXT, "printx = print1 + prin;\nprint print;",
+      "b + 1;\n{ c; d = c; (e); }", "\n\n  # only a comment", "", "a = 1 + ;", "print (a + 1;\n",
+      "{ a = 2;", "a = 1 $ 2;", "a b;" };
+  /** The words lexed alone, after an identifier and after the keyword by the lexer tests */
+  static final String[]       WORDS = {
+      "p", "pr", "pri", "prin", "print", "printx", "printprint", "xprint", "prints", "print1", "a",
+      "z", "abc", "tnirp", "0", "123", "+", "=", "(", ")", "{", "}", ";", "#c\n", "$", "print$" };
+  /** The behavior of the parser generated without option */
+  private static List<String> expected;
+  /** The reference parser */
+  private static GeneratedGrammar ref;
+
+  /**
+   * Generates the reference parser.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    ref = generate("jcc-ref");
+    expected = behavior(ref);
+    assertTrue(expected.get(0), expected.get(0).startsWith("Input(NodeListOptional(Stmt("));
+  }
+
+  /**
+   * The parser generated by the embedded generator behaves as the one generated by JavaCC.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void sameBehaviorAsJavaCC() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("jcc-javacc");
+    gg.copy("stmt.jtb");
+    gg.jtb("stmt.jtb", "-tk");
+    gg.javacc();
+    gg.compile();
+    assertEquals(expected, behavior(gg));
+  }
+
+  /**
+   * Without the -jcc option, an option implemented only by the embedded generator runs it, and is
+   * kept in the jj output file ; without such an option the embedded generator is not run.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void embeddedOnlyOptionRunsTheGenerator() throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar("jcc-none");
+    gg.copy("stmt.jtb");
+    final JTBContext ref = gg.jtb("stmt.jtb", "-tk");
+    assertFalse(gg.file("StmtParser.java").exists());
+    addOptions(gg, "TABLE_DRIVEN_LEXER = true;");
+    final JTBContext ctx = gg.jtb("stmt.jtb", "-tk");
+    assertEquals(ref.warningCount(), ctx.warningCount());
+    final String jj = gg.read("jtb.out.jj");
+    assertTrue(jj, jj.contains("  TABLE_DRIVEN_LEXER = true;"));
+    assertTrue(gg.read("StmtParserTokenManager.java").contains("jjDfaClass"));
+    gg.compile();
+    assertEquals(expected, behavior(gg));
+  }
+
+  /**
+   * TABLE_DRIVEN_LEXER : the string literals are matched through the DFA tables.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void tableDrivenLexer() throws Exception {
+    check("jcc-tdl", "StmtParserTokenManager.java", "jjDfaClass", "TABLE_DRIVEN_LEXER = true;");
+  }
+
+  /**
+   * TABLE_DRIVEN_LEXER : the prefixes and extensions of the string literals, the identifiers and
+   * the invalid characters are lexed as by the generated code DFA.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void tableDrivenLexerWords() throws Exception {
+    final GeneratedGrammar gg = generate("jcc-tdl-words", "TABLE_DRIVEN_LEXER = true;");
+    assertEquals(behavior(ref, lexerTexts()), behavior(gg, lexerTexts()));
+  }
+
+  /**
+   * HUGE_METHOD_LIMIT : the token manager methods over the (very low) limit are split in helper
+   * methods.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void hugeMethodLimit() throws Exception {
+    final GeneratedGrammar gg = check("jcc-hml", "StmtParserTokenManager.java",
+                                      "jjMoveStringLiteralDfa0_0Part1(", "HUGE_METHOD_LIMIT = 100;");
+    // the split methods continue the string literals matches as the unsplit ones
+    assertEquals(behavior(ref, lexerTexts()), behavior(gg, lexerTexts()));
+  }
+
+  /**
+   * BUFFER_CHAR_STREAM : the token manager reads a BufferCharStream.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void bufferCharStream() throws Exception {
+    final GeneratedGrammar gg = check("jcc-bcs", "StmtParserTokenManager.java",
+                                      "BufferCharStream input_stream", "BUFFER_CHAR_STREAM = true;");
+    // an input much larger than the SimpleCharStream buffer, with a very long token, and an error at
+    // its end
+    final List<String> texts = Arrays.asList(largeText(), largeText() + "a = ;");
+    assertEquals(behavior(ref, texts), behavior(gg, texts));
+  }
+
+  /**
+   * LAZY_LINE_COLUMN (with BUFFER_CHAR_STREAM) : the parser resolves the lines and columns of the
+   * consumed tokens.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void lazyLineColumn() throws Exception {
+    final GeneratedGrammar gg = check("jcc-llc", "StmtParser.java", "jj_resolve_line_column(token)",
+                                      "BUFFER_CHAR_STREAM = true;", "LAZY_LINE_COLUMN = true;");
+    // the resolved positions of the tokens, of the special tokens and in the errors messages are the
+    // ones of the SimpleCharStream, with tabs and the three kinds of line ends
+    final List<String> texts = Arrays.asList("a = 1;\r\nprint a;\r\n# crlf\r\n  b = a + 1;",
+                                             "a = 1;\rprint a;\r# cr\r\tb = a;\r",
+                                             "\ta\t=\t1;\n\t\tprint\t(a\t+ 2);\t# tab\n",
+                                             largeText(), "a = 1;\r\n\tprint (a +;\r\n",
+                                             "a = 1;\r\n\r\n\t\t$", "\n\n  # only\r\n\t# comments");
+    assertEquals(behavior(ref, texts), behavior(gg, texts));
+  }
+
+  /**
+   * RING_BUFFER_LOOKAHEAD : the syntactic lookaheads scan the ring buffer of the tokens kinds.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void ringBufferLookahead() throws Exception {
+    check("jcc-rb", "StmtParser.java", "jj_ring_fill", "RING_BUFFER_LOOKAHEAD = true;");
+  }
+
+  /**
+   * RING_BUFFER_LOOKAHEAD : on the variant whose syntactic lookahead scans whole statements, the
+   * ring wraps around along the statements, and grows (while wrapped) for the lookaheads longer
+   * than its initial 64 kinds, the failing ones and the one ending on an error included.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void ringBufferLookaheadWrapAround() throws Exception {
+    final StringBuilder sb = new StringBuilder(4096);
+    for (int i = 0; i < 100; i++)
+      sb.append("a + b;\n");
+    sb.append(sum(100)).append(";\n");
+    for (int i = 0; i < 50; i++)
+      sb.append("b + (a + c);\n");
+    sb.append(sum(100)).append(" = 1;\n");
+    final String text = sb.toString();
+    final List<String> texts = Arrays.asList(text, text + sum(80) + " + ;", sum(40) + ";");
+    final GeneratedGrammar gg = generateScanning("jcc-rb-scan", "RING_BUFFER_LOOKAHEAD = true;");
+    assertEquals(behavior(generateScanning("jcc-rb-scan-ref"), texts), behavior(gg, texts));
+    final Object p = gg.load("StmtParser").getConstructor(Reader.class)
+                       .newInstance(new StringReader(text));
+    p.getClass().getMethod("Input").invoke(p);
+    final Field f = p.getClass().getDeclaredField("jj_ring");
+    f.setAccessible(true);
+    assertTrue(((int[]) f.get(p)).length >= 256);
+  }
+
+  /**
+   * MEMO_LOOKAHEAD : the results of the productions lookahead routines are memoized, on a grammar
+   * whose syntactic lookahead scans the Expr and Term productions.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void memoLookahead() throws Exception {
+    check("jcc-memo", "StmtParser.java", "jj_memo_get", "MEMO_LOOKAHEAD = 2;");
+    final List<String> ref = behavior(generateScanning("jcc-memo-scan-ref"));
+    final GeneratedGrammar gg = generateScanning("jcc-memo-scan", "MEMO_LOOKAHEAD = 2;");
+    assertTrue(gg.read("StmtParser.java").contains("jj_memo_get"));
+    assertEquals(ref, behavior(gg));
+  }
+
+  /**
+   * MEMO_LOOKAHEAD : on the variant whose nested lookaheads rescan the parenthesized expressions,
+   * the parser behaves as the reference one, and parses in a few seconds a nesting whose scan
+   * without the table would take 2^60 steps.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test(timeout = 120000)
+  public void memoLookaheadDeepNesting() throws Exception {
+    final GeneratedGrammar gg = generateNested("jcc-memo-nested", "MEMO_LOOKAHEAD = 1024;");
+    assertEquals(behavior(generateNested("jcc-memo-nested-ref"), NESTED_TEXTS),
+                 behavior(gg, NESTED_TEXTS));
+    final String d = GeneratedGrammar.dump(gg.parse("StmtParser", "Input", nested(60)));
+    assertTrue(d, d.startsWith("Input(NodeListOptional(Stmt("));
+  }
+
+  /**
+   * MEMO_LOOKAHEAD : with a one and a four entries tables, where the results evict each other all
+   * the time, the parser still behaves as the reference one on the nested lookaheads.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void memoLookaheadEviction() throws Exception {
+    final List<String> exp = behavior(generateNested("jcc-memo-evict-ref"), NESTED_TEXTS);
+    final GeneratedGrammar gg = generateNested("jcc-memo-evict1", "MEMO_LOOKAHEAD = 1;");
+    final Field f = gg.load("StmtParser").getDeclaredField("jj_memo_pos");
+    f.setAccessible(true);
+    final Object p = gg.load("StmtParser").getConstructor(Reader.class)
+                       .newInstance(new StringReader(""));
+    assertEquals(1, ((long[]) f.get(p)).length);
+    assertEquals(exp, behavior(gg, NESTED_TEXTS));
+    final GeneratedGrammar gg4 = generateNested("jcc-memo-evict4", "MEMO_LOOKAHEAD = 4;");
+    assertEquals(exp, behavior(gg4, NESTED_TEXTS));
+  }
+
+  /**
+   * MEMO_LOOKAHEAD : a lookahead routine result depending on a semantic lookahead is not recorded :
+   * the Guarded production fails at the same position in the first lookahead and succeeds in the
+   * second one, after the parser state has changed.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void memoLookaheadSemanticLookahead() throws Exception {
+    final String text = "a = 1;";
+    final GeneratedGrammar ref = generateGuarded("jcc-memo-sem-ref");
+    final GeneratedGrammar gg = generateGuarded("jcc-memo-sem", "MEMO_LOOKAHEAD = 16;");
+    assertTrue(gg.read("StmtParser.java").contains("jj_memo_sem++;"));
+    final String d = GeneratedGrammar.dump(ref.parse("StmtParser", "Input", text));
+    assertTrue(d, d.contains("Guarded("));
+    assertEquals(d, GeneratedGrammar.dump(gg.parse("StmtParser", "Input", text)));
+  }
+
+  /**
+   * KIND_DISPATCH : the choices with syntactic lookaheads switch on the next token kind, on
+   * stmt.jtb and on the variant whose syntactic lookahead scans productions.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void kindDispatch() throws Exception {
+    check("jcc-kd", "StmtParser.java", "jj_alt_", "KIND_DISPATCH = true;");
+    final List<String> ref = behavior(generateScanning("jcc-kd-scan-ref"));
+    final GeneratedGrammar gg = generateScanning("jcc-kd-scan", "KIND_DISPATCH = true;");
+    assertTrue(gg.read("StmtParser.java").contains("jj_alt_"));
+    assertEquals(ref, behavior(gg));
+  }
+
+  /**
+   * KIND_DISPATCH : in the choice of the variant with nested lookaheads, two alternatives start with
+   * the same kind : the first one is selected only if its lookahead succeeds, the second one
+   * otherwise, at all the nesting levels.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void kindDispatchSharedFirstKind() throws Exception {
+    final GeneratedGrammar gg = generateNested("jcc-kd-nested", "KIND_DISPATCH = true;");
+    assertTrue(gg.read("StmtParser.java").contains("jj_alt_"));
+    assertEquals(behavior(generateNested("jcc-kd-nested-ref"), NESTED_TEXTS),
+                 behavior(gg, NESTED_TEXTS));
+  }
+
+  /**
+   * TWO_PASS_ERROR_REPORTING : the first pass skips the error bookkeeping, and the second one gives
+   * the same ParseException, alone and with KIND_DISPATCH.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void twoPassErrorReporting() throws Exception {
+    check("jcc-tp", "StmtParser.java", "if (jj_report)", "TWO_PASS_ERROR_REPORTING = true;");
+    check("jcc-tpkd", "StmtParser.java", "if (jj_report) jj_skip(", "TWO_PASS_ERROR_REPORTING = true;",
+          "KIND_DISPATCH = true;");
+  }
+
+  /**
+   * TWO_PASS_ERROR_REPORTING : on a parse error (and only then), the actions met before the error are
+   * run a second time.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void twoPassErrorReportingRunsActionsTwice() throws Exception {
+    final GeneratedGrammar ref = generateCounting("jcc-tp-count-ref");
+    final GeneratedGrammar gg = generateCounting("jcc-tp-count", "TWO_PASS_ERROR_REPORTING = true;");
+    assertEquals(3, count(ref, "a; b; c;"));
+    assertEquals(3, count(gg, "a; b; c;"));
+    assertEquals(2, count(ref, "a; b; = ;"));
+    assertEquals(4, count(gg, "a; b; = ;"));
+  }
+
+  /**
+   * Parses a text with a parser generated by {@link #generateCounting(String, String...)}.
+   * 
+   * @param aGg - the work directory
+   * @param aText - the text
+   * @return the number of statements actions run
+   * @throws Exception - if the parser cannot be called
+   */
+  private static int count(final GeneratedGrammar aGg, final String aText) throws Exception {
+    final Field f = aGg.load("StmtParser").getField("count");
+    f.setInt(null, 0);
+    try {
+      aGg.parse("StmtParser", "Input", aText);
+    }
+    catch (final Exception e) {
+      // the parse error
+    }
+    return f.getInt(null);
+  }
+
+  /**
+   * Generates with the embedded generator a variant of the stmt.jtb parser counting the statements
+   * in an action.
+   * 
+   * @param aName - the work directory name
+   * @param aOptions - the option lines to add in the grammar options
+   * @return the work directory, compiled
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar generateCounting(final String aName, final String... aOptions)
+                                                                                                 throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy("stmt.jtb");
+    gg.write("stmt.jtb", gg.read("stmt.jtb")
+                           .replace("public class StmtParser {\n",
+                                    "public class StmtParser {\n  public static int count;\n")
+                           .replace("( Stmt() )* <EOF>", "( { count++; } Stmt() )* <EOF>"));
+    addOptions(gg, aOptions);
+    gg.jtb("stmt.jtb", "-tk", "-jcc");
+    gg.compile();
+    return gg;
+  }
+
+  /**
+   * KEYWORD_HASH : the keyword print is matched as an identifier and classified through the
+   * keywords hash, alone and with TABLE_DRIVEN_LEXER.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @Test
+  public void keywordHash() throws Exception {
+    final GeneratedGrammar gg = check("jcc-kh", "StmtParserTokenManager.java", "jjKeywordKind_0",
+                                      "KEYWORD_HASH = true;");
+    final GeneratedGrammar tdl = check("jcc-khtdl", "StmtParserTokenManager.java", "jjKeywordKind_0",
+                                       "KEYWORD_HASH = true;", "TABLE_DRIVEN_LEXER = true;");
+    // the identifiers near the keyword (prefixes, extensions, same letters) are not classified as it
+    final List<String> exp = behavior(ref, lexerTexts());
+    assertEquals(exp, behavior(gg, lexerTexts()));
+    assertEquals(exp, behavior(tdl, lexerTexts()));
+  }
+
+  /**
+   * Generates with the embedded generator a variant of the stmt.jtb parser whose expression
+   * statement is chosen through a syntactic lookahead on an expression followed by a semicolon.
+   * 
+   * @param aName - the work directory name
+   * @param aOptions - the option lines to add in the grammar options
+   * @return the work directory, compiled
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar generateScanning(final String aName, final String... aOptions)
+                                                                                                 throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy("stmt.jtb");
+    gg.write("stmt.jtb", gg.read("stmt.jtb").replace("| Expr() <SEMI>\n",
+                                                     "| LOOKAHEAD(Expr() <SEMI>) Expr() <SEMI>\n" +
+                                                         "| Expr() <EQ> Expr() <SEMI>\n"));
+    addOptions(gg, aOptions);
+    gg.jtb("stmt.jtb", "-tk", "-jcc");
+    gg.compile();
+    return gg;
+  }
+
+  /**
+   * Generates with the embedded generator a variant of the stmt.jtb parser where a statement is
+   * first scanned as a Guarded production with the flag off, then, after the flag has been set, at
+   * the same position again ; the Guarded production accepts an assignment only if the flag is on.
+   * 
+   * @param aName - the work directory name
+   * @param aOptions - the option lines to add in the grammar options
+   * @return the work directory, compiled
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar generateGuarded(final String aName, final String... aOptions)
+                                                                                                throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy("stmt.jtb");
+    final String g = gg.read("stmt.jtb").replace("public class StmtParser {\n",
+                                                 "public class StmtParser {\n  boolean flag;\n");
+    final int b = g.indexOf("void Stmt()");
+    final int e = g.indexOf("void Block()");
+    gg.write("stmt.jtb", g.substring(0, b) +
+                         "void Stmt() : {} {\n" +
+                         "  LOOKAHEAD(Guarded() <SEMI>) Guarded() <SEMI>\n" +
+                         "| { flag = true; }\n" +
+                         "  ( LOOKAHEAD(Guarded() <SEMI>) Guarded() <SEMI> | Expr() <SEMI> )\n" +
+                         "}\n\n" +
+                         "void Guarded() : {} {\n" +
+                         "  LOOKAHEAD({ flag }) <ID> <EQ> Expr()\n" +
+                         "| <PRINT> Expr()\n" +
+                         "}\n\n" + g.substring(e));
+    addOptions(gg, aOptions);
+    gg.jtb("stmt.jtb", "-tk", "-jcc");
+    gg.compile();
+    return gg;
+  }
+
+  /**
+   * Generates with the embedded generator a variant of the stmt.jtb parser where a parenthesized
+   * term followed by an equal sign and a number is chosen through a syntactic lookahead : scanning
+   * it tries this alternative first and then rescans the parenthesized expression with the other
+   * one, at each nesting level.
+   * 
+   * @param aName - the work directory name
+   * @param aOptions - the option lines to add in the grammar options
+   * @return the work directory, compiled
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar generateNested(final String aName, final String... aOptions)
+                                                                                               throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy("stmt.jtb");
+    final String alt = "| LOOKAHEAD(<LP> Expr() <RP> <EQ>) <LP> Expr() <RP> <EQ> <NUM>\n";
+    gg.write("stmt.jtb", gg.read("stmt.jtb").replace("| <LP> Expr() <RP> }",
+                                                     alt + "| <LP> Expr() <RP> }"));
+    addOptions(gg, aOptions);
+    gg.jtb("stmt.jtb", "-tk", "-jcc");
+    gg.compile();
+    return gg;
+  }
+
+  /** The texts parsed by the variant with nested lookaheads */
+  static final List<String> NESTED_TEXTS = Arrays.asList(nested(12), "((a) = 1 + ((b) = 2)) = 3;",
+                                                         "x = (((a) = 1) + b) + ((c));",
+                                                         "x = ((((a) = ;", "x = (((a + 1);",
+                                                         "print ((a) = b);");
+
+  /**
+   * @param aDepth - the nesting depth
+   * @return an assignment of a parenthesized identifier nested at the given depth
+   */
+  static String nested(final int aDepth) {
+    final StringBuilder sb = new StringBuilder("x = ");
+    for (int i = 0; i < aDepth; i++)
+      sb.append('(');
+    sb.append('a');
+    for (int i = 0; i < aDepth; i++)
+      sb.append(')');
+    return sb.append(';').toString();
+  }
+
+  /**
+   * @param aNb - the number of terms
+   * @return a sum of identifiers (2 * aNb - 1 tokens)
+   */
+  static String sum(final int aNb) {
+    final StringBuilder sb = new StringBuilder("a");
+    for (int i = 1; i < aNb; i++)
+      sb.append(" + ").append(i % 2 == 0 ? 'a' : 'b');
+    return sb.toString();
+  }
+
+  /**
+   * @return a text of about 150 kB with comments, ending with a very long identifier
+   */
+  static String largeText() {
+    final StringBuilder sb = new StringBuilder(180000);
+    for (int i = 0; sb.length() < 150000; i++) {
+      sb.append("# statement ").append(i).append('\n');
+      for (int n = i; n > 0; n /= 26)
+        sb.append((char) ('a' + n % 26));
+      sb.append("x = ").append(i).append(" + (b + ").append(i).append(");\n");
+    }
+    for (int i = 0; i < 20000; i++)
+      sb.append((char) ('a' + i % 26));
+    return sb.append(" = 1;\n").toString();
+  }
+
+  /**
+   * @return the texts lexing each word alone, after an identifier and after the keyword
+   */
+  static List<String> lexerTexts() {
+    final List<String> texts = new ArrayList<String>();
+    for (final String w : WORDS) {
+      texts.add(w + ";");
+      texts.add("a = " + w + ";");
+      texts.add("print " + w + ";");
+    }
+    return texts;
+  }
+
+  /**
+   * Generates the stmt.jtb parser with the embedded generator (run by the -jcc option if there is
+   * no option, and by the options themselves otherwise, as they are implemented only by it).
+   * 
+   * @param aName - the work directory name
+   * @param aOptions - the option lines to add in the grammar options
+   * @return the work directory, compiled
+   * @throws Exception - if the generation fails
+   */
+  static GeneratedGrammar generate(final String aName, final String... aOptions) throws Exception {
+    final GeneratedGrammar gg = new GeneratedGrammar(aName);
+    gg.copy("stmt.jtb");
+    addOptions(gg, aOptions);
+    if (aOptions.length == 0)
+      gg.jtb("stmt.jtb", "-tk", "-jcc");
+    else
+      gg.jtb("stmt.jtb", "-tk");
+    gg.compile();
+    return gg;
+  }
+
+  /**
+   * Adds options to the stmt.jtb grammar options.
+   * 
+   * @param aGg - the work directory
+   * @param aOptions - the option lines
+   * @throws Exception - if the grammar cannot be rewritten
+   */
+  static void addOptions(final GeneratedGrammar aGg, final String... aOptions) throws Exception {
+    final StringBuilder sb = new StringBuilder("  STATIC = false;\n");
+    for (final String o : aOptions)
+      sb.append("  ").append(o).append('\n');
+    aGg.write("stmt.jtb", aGg.read("stmt.jtb").replace("  STATIC = false;\n", sb.toString()));
+  }
+
+  /**
+   * @param aGg - a compiled work directory
+   * @return the trees dumps or the error messages of the parser on the texts
+   * @throws Exception - if the parser cannot be called
+   */
+  static List<String> behavior(final GeneratedGrammar aGg) throws Exception {
+    return behavior(aGg, Arrays.asList(TEXTS));
+  }
+
+  /**
+   * @param aGg - a compiled work directory
+   * @param aTexts - the texts to parse
+   * @return the trees dumps or the error messages of the parser on the texts
+   * @throws Exception - if the parser cannot be called
+   */
+  static List<String> behavior(final GeneratedGrammar aGg, final List<String> aTexts)
+                                                                                    throws Exception {
+    final List<String> res = new ArrayList<String>();
+    for (final String text : aTexts)
+      try {
+        res.add(GeneratedGrammar.dump(aGg.parse("StmtParser", "Input", text)));
+      }
+      catch (final Exception e) {
+        res.add(e.getClass().getSimpleName() + " : " + e.getMessage());
+      }
+      catch (final Error e) {
+        res.add(e.getClass().getSimpleName() + " : " + e.getMessage());
+      }
+    return res;
+  }
+
+  /**
+   * Checks a parser generated with options behaves as the reference one, and its code holds a
+   * marker of the options.
+   * 
+   * @param aName - the work directory name
+   * @param aFile - the generated file holding the marker
+   * @param aMarker - the marker
+   * @param aOptions - the option lines
+   * @return the work directory, compiled
+   * @throws Exception - if the generation fails
+   */
+  private static GeneratedGrammar check(final String aName, final String aFile,
+                                        final String aMarker, final String... aOptions)
+                                                                                       throws Exception {
+    final GeneratedGrammar gg = generate(aName, aOptions);
+    assertTrue(aMarker, gg.read(aFile).contains(aMarker));
+    assertEquals(expected, behavior(gg));
+    return gg;
+  }
+}
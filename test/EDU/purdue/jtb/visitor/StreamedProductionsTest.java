@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2004,2005 UCLA Compilers Group.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  Redistributions of source code must retain the above copyright
+ *  notice, this list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright
+ *  notice, this list of conditions and the following disclaimer in the
+ *  documentation and/or other materials provided with the distribution.
+ *
+ *  Neither UCLA nor the names of its contributors may be used to endorse
+ *  or promote products derived from this software without specific prior
+ *  written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+/*
+ * All files in the distribution of JTB, The Java Tree Builder are
+ * Copyright 1997, 1998, 1999 by the Purdue Research Foundation of Purdue
+ * University.  All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that this entire copyright notice is duplicated in all
+ * such copies, and that any documentation, announcements, and
+ * other materials related to such distribution and use acknowledge
+ * that the software was developed at Purdue University, West Lafayette,
+ * Indiana by Kevin Tao, Wanjun Wang and Jens Palsberg.  No charge may
+ * be made for copies, derivations, or distributions of this material
+ * without the express written consent of the copyright holder.
+ * Neither the name of the University nor the name of the author
+ * may be used to endorse or promote products derived from this
+ * material without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+package EDU.purdue.jtb.visitor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import EDU.purdue.jtb.GeneratedGrammar;
+
+/**
+ * Tests the streamed productions (-sp option) annotated by {@link Annotator}.
+ * 
+ * @author agent
+ * @version 1.4.13 : 10/2026 : agent : created
+ */
+public class StreamedProductionsTest {
+
+  /** The grammar generated with the -sp option */
+  private static GeneratedGrammar sp;
+
+  /**
+   * Generates and compiles the grammar with the option and the driver.
+   * 
+   * @throws Exception - if the generation fails
+   */
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    sp = new GeneratedGrammar("sp");
+    sp.copy("stmt.jtb");
+    sp.copy("SpDriver.java");
+    sp.jtb("stmt.jtb", "-sp", "Stmt");
+    sp.javacc();
+    sp.compile();
+  }
+
+  /**
+   * The top level statements are streamed in order and not stored in the tree.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void topLevelNodesStreamed() throws Exception {
+    assertEquals(Arrays.asList("a = 1 ;", "print a ;", ""),
+                 sp.call("SpDriver", "stream", "a = 1; print a;"));
+  }
+
+  /**
+   * The statements nested in a streamed statement stay in its subtree, which is streamed whole.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void nestedNodesNotStreamed() throws Exception {
+    assertEquals(Arrays.asList("{ print 1 ; print 2 ; }", "x = 3 ;", ""),
+                 sp.call("SpDriver", "stream", "{ print 1; print 2; } x = 3;"));
+    assertEquals(Arrays.asList("{ { print 1 ; } { } print 2 ; }", ""),
+                 sp.call("SpDriver", "stream", "{ { print 1; } { } print 2; }"));
+  }
+
+  /**
+   * The nodes are stored in the tree without consumer.
+   * 
+   * @throws Exception - if the parsing fails
+   */
+  @Test
+  public void storedWithoutConsumer() throws Exception {
+    final Object t = sp.parse("StmtParser", "Input", GeneratedGrammar.STMT_TEXT);
+    assertEquals(3, ((List<?>) GeneratedGrammar.value(GeneratedGrammar.value(t, "f0"), "nodes"))
+        .size());
+  }
+}